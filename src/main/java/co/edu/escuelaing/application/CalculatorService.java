@@ -1,13 +1,32 @@
 package co.edu.escuelaing.application;
 
+import co.edu.escuelaing.framework.HttpException;
+import co.edu.escuelaing.framework.annotations.Bulkhead;
+import co.edu.escuelaing.framework.annotations.RequestBody;
 import co.edu.escuelaing.framework.annotations.RequestMapping;
 import co.edu.escuelaing.framework.annotations.RequestParam;
 import co.edu.escuelaing.framework.annotations.RestController;
+import co.edu.escuelaing.framework.annotations.WarmupSample;
 import co.edu.escuelaing.framework.enums.RequestMethod;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * {@code CalculatorService} is a REST controller that provides basic mathematical operations.
  * It uses custom annotations to handle HTTP GET requests and accept parameters via the URL.
+ * <p>
+ * The {@code /bulk/...} endpoints apply the same operations to whole vectors sent in a POST body (see
+ * {@link NumericInput} for the format), computed with {@link VectorMath}. Element-wise operations answer
+ * with a JSON array and reductions with a JSON number. Large vectors keep a CPU busy, so these endpoints share
+ * the {@code bulk} {@link Bulkhead}: when too many run at once, the others get {@code 503} instead of slowing
+ * down the cheap endpoints.
+ * </p>
+ * <p>
+ * The {@code /expr} endpoints evaluate a whole {@link Expression} in one request instead of chaining calls.
+ * </p>
  */
 @RestController
 public class CalculatorService {
@@ -19,6 +38,7 @@ public class CalculatorService {
      * @return A personalized greeting message for the user.
      */
     @RequestMapping(value = "/greet", method = RequestMethod.GET)
+    @WarmupSample
     public String greet(@RequestParam(value = "name", defaultValue = "Guest") String name) {
         return "Hello, " + name + "!";
     }
@@ -31,6 +51,7 @@ public class CalculatorService {
      * @return The sum of the two numbers as a string.
      */
     @RequestMapping(value = "/add", method = RequestMethod.GET)
+    @WarmupSample(query = "a=3&b=4")
     public String add(@RequestParam("a") int a, @RequestParam("b") int b) {
         return "Sum: " + a + " + " + b + " = " + (a + b);
     }
@@ -43,6 +64,7 @@ public class CalculatorService {
      * @return The difference between the two numbers as a string.
      */
     @RequestMapping(value = "/subtract", method = RequestMethod.GET)
+    @WarmupSample(query = "a=7&b=2")
     public String subtract(@RequestParam("a") int a, @RequestParam("b") int b) {
         return "Difference: " + a + " - " + b + " = " + (a - b);
     }
@@ -55,6 +77,7 @@ public class CalculatorService {
      * @return The product of the two numbers as a string.
      */
     @RequestMapping(value = "/multiply", method = RequestMethod.GET)
+    @WarmupSample(query = "a=6&b=7")
     public String multiply(@RequestParam("a") int a, @RequestParam("b") int b) {
         return "Product: " + a + " * " + b + " = " + (a * b);
     }
@@ -67,6 +90,7 @@ public class CalculatorService {
      * @return The quotient of the division as a string. If the divisor is zero, returns an error message.
      */
     @RequestMapping(value = "/divide", method = RequestMethod.GET)
+    @WarmupSample(query = "a=8&b=2")
     public String divide(@RequestParam("a") int a, @RequestParam("b") int b) {
         if (b == 0) {
             return "Error: Division by zero is undefined.";
@@ -74,6 +98,19 @@ public class CalculatorService {
         return "Quotient: " + a + " / " + b + " = " + (a / b);
     }
 
+    /**
+     * Handles GET requests to raise a number to a power.
+     *
+     * @param a The base.
+     * @param b The exponent.
+     * @return The result of raising {@code a} to the power of {@code b} as a string.
+     */
+    @RequestMapping(value = "/power", method = RequestMethod.GET)
+    @WarmupSample(query = "a=2&b=10")
+    public String power(@RequestParam("a") int a, @RequestParam("b") int b) {
+        return "Result: " + a + " ^ " + b + " = " + Math.pow(a, b);
+    }
+
     /**
      * Handles GET requests to calculate the square root of a number.
      *
@@ -81,10 +118,258 @@ public class CalculatorService {
      * @return The square root of the number as a string. If the number is negative, returns an error message.
      */
     @RequestMapping(value = "/sqrt", method = RequestMethod.GET)
+    @WarmupSample(query = "number=16")
     public String sqrt(@RequestParam("number") double number) {
         if (number < 0) {
             return "Error: Square root of a negative number is undefined.";
         }
         return "Square root: sqrt(" + number + ") = " + Math.sqrt(number);
     }
+
+    /**
+     * Handles POST requests to add two vectors element by element.
+     *
+     * @param body Two vectors of the same length, separated by ';'.
+     * @return The element-wise sums.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/add", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4;5,6,7,8")
+    public double[] bulkAdd(@RequestBody InputStream body) throws IOException {
+        double[][] vectors = NumericInput.read(body, 2);
+        return VectorMath.add(vectors[0], requireSameLength(vectors));
+    }
+
+    /**
+     * Handles POST requests to subtract two vectors element by element.
+     *
+     * @param body Two vectors of the same length, separated by ';'.
+     * @return The element-wise differences.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/subtract", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4;5,6,7,8")
+    public double[] bulkSubtract(@RequestBody InputStream body) throws IOException {
+        double[][] vectors = NumericInput.read(body, 2);
+        return VectorMath.subtract(vectors[0], requireSameLength(vectors));
+    }
+
+    /**
+     * Handles POST requests to multiply two vectors element by element.
+     *
+     * @param body Two vectors of the same length, separated by ';'.
+     * @return The element-wise products.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/multiply", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4;5,6,7,8")
+    public double[] bulkMultiply(@RequestBody InputStream body) throws IOException {
+        double[][] vectors = NumericInput.read(body, 2);
+        return VectorMath.multiply(vectors[0], requireSameLength(vectors));
+    }
+
+    /**
+     * Handles POST requests to divide two vectors element by element.
+     *
+     * @param body The dividends and the divisors, separated by ';'.
+     * @return The element-wise quotients. Divisions by zero are sent as {@code null}.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/divide", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4;5,6,7,8")
+    public double[] bulkDivide(@RequestBody InputStream body) throws IOException {
+        double[][] vectors = NumericInput.read(body, 2);
+        return VectorMath.divide(vectors[0], requireSameLength(vectors));
+    }
+
+    /**
+     * Handles POST requests to calculate the square root of every element of a vector.
+     *
+     * @param body The vector.
+     * @return The square roots. Those of negative numbers are sent as {@code null}.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/sqrt", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4")
+    public double[] bulkSqrt(@RequestBody InputStream body) throws IOException {
+        return VectorMath.sqrt(NumericInput.read(body, 1)[0]);
+    }
+
+    /**
+     * Handles POST requests to add up the elements of a vector.
+     *
+     * @param body The vector.
+     * @return The sum of the elements.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/sum", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4")
+    public double bulkSum(@RequestBody InputStream body) throws IOException {
+        return VectorMath.sum(NumericInput.read(body, 1)[0]);
+    }
+
+    /**
+     * Handles POST requests to calculate the mean of a vector.
+     *
+     * @param body The vector.
+     * @return The arithmetic mean of the elements.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/mean", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4")
+    public double bulkMean(@RequestBody InputStream body) throws IOException {
+        return VectorMath.mean(NumericInput.read(body, 1)[0]);
+    }
+
+    /**
+     * Handles POST requests to find the smallest element of a vector.
+     *
+     * @param body The vector.
+     * @return The smallest element.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/min", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4")
+    public double bulkMin(@RequestBody InputStream body) throws IOException {
+        return VectorMath.min(NumericInput.read(body, 1)[0]);
+    }
+
+    /**
+     * Handles POST requests to find the largest element of a vector.
+     *
+     * @param body The vector.
+     * @return The largest element.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/max", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4")
+    public double bulkMax(@RequestBody InputStream body) throws IOException {
+        return VectorMath.max(NumericInput.read(body, 1)[0]);
+    }
+
+    /**
+     * Handles POST requests to calculate the dot product of two vectors.
+     *
+     * @param body Two vectors of the same length, separated by ';'.
+     * @return The dot product.
+     * @throws IOException If an I/O error occurs while reading the body.
+     */
+    @RequestMapping(value = "/bulk/dot", method = RequestMethod.POST)
+    @Bulkhead(value = "bulk", maxConcurrent = 4, queue = 8)
+    @WarmupSample(body = "1,2,3,4;5,6,7,8")
+    public double bulkDot(@RequestBody InputStream body) throws IOException {
+        double[][] vectors = NumericInput.read(body, 2);
+        return VectorMath.dot(vectors[0], requireSameLength(vectors));
+    }
+
+    /**
+     * Handles POST requests to evaluate an arithmetic expression.
+     * <p>
+     * The first line of the body is the expression and the rest binds its variables, e.g.
+     * {@code "sqrt(x^2 + y^2)\nx=3, y=4"}. Compiled expressions are cached, so sending the same expression
+     * with other values skips parsing.
+     * </p>
+     *
+     * @param body The expression and the values of its variables.
+     * @return The value of the expression.
+     */
+    @RequestMapping(value = "/expr", method = RequestMethod.POST)
+    @WarmupSample(body = "sqrt(x^2 + y^2)\nx=3, y=4")
+    public double expr(@RequestBody String body) {
+        int newline = body.indexOf('\n');
+        Expression expression = compile(newline < 0 ? body : body.substring(0, newline));
+        return expression.evaluate(bind(expression, newline < 0 ? "" : body.substring(newline + 1)));
+    }
+
+    /**
+     * Handles POST requests to evaluate an arithmetic expression over many bindings of its variables.
+     * <p>
+     * The first line of the body is the expression and every following line binds its variables once, e.g.
+     * {@code "a * x + b\na=2, x=1, b=0\na=2, x=2, b=0"}.
+     * </p>
+     *
+     * @param body The expression and one binding of its variables per line.
+     * @return The value of the expression for every binding, in order.
+     */
+    @RequestMapping(value = "/expr/vector", method = RequestMethod.POST)
+    @WarmupSample(body = "a * x + b\na=2, x=1, b=0\na=2, x=2, b=0")
+    public double[] exprVector(@RequestBody String body) {
+        String[] lines = body.split("\r?\n");
+        Expression expression = compile(lines[0]);
+        double[] results = new double[lines.length - 1];
+        int count = 0;
+        for (int i = 1; i < lines.length; i++) {
+            if (!lines[i].isBlank()) {
+                results[count++] = expression.evaluate(bind(expression, lines[i]));
+            }
+        }
+        return count == results.length ? results : Arrays.copyOf(results, count);
+    }
+
+    private static Expression compile(String text) {
+        try {
+            return Expression.compile(text.trim());
+        } catch (IllegalArgumentException e) {
+            throw new HttpException("400 Bad Request", "Invalid expression: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads {@code name=value} pairs, separated by commas or whitespace, into the values of an expression's
+     * variables.
+     *
+     * @param expression The expression whose variables are bound.
+     * @param bindings   The pairs.
+     * @return The values in the order of {@link Expression#getVariables()}.
+     */
+    private static double[] bind(Expression expression, String bindings) {
+        List<String> variables = expression.getVariables();
+        double[] values = new double[variables.size()];
+        boolean[] bound = new boolean[values.length];
+        for (String pair : bindings.split("[,\\s]+")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            int index = equals < 0 ? -1 : variables.indexOf(pair.substring(0, equals));
+            if (index < 0) {
+                throw new HttpException("400 Bad Request", "Unknown variable in " + pair);
+            }
+            try {
+                values[index] = Double.parseDouble(pair.substring(equals + 1));
+            } catch (NumberFormatException e) {
+                throw new HttpException("400 Bad Request", "Invalid value in " + pair);
+            }
+            bound[index] = true;
+        }
+        for (int i = 0; i < bound.length; i++) {
+            if (!bound[i]) {
+                throw new HttpException("400 Bad Request", "Unbound variable " + variables.get(i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Checks that both vectors of a request have the same length.
+     *
+     * @param vectors The two vectors.
+     * @return The second vector.
+     */
+    private static double[] requireSameLength(double[][] vectors) {
+        if (vectors[0].length != vectors[1].length) {
+            throw new HttpException("400 Bad Request",
+                    "Vectors of different lengths: " + vectors[0].length + " and " + vectors[1].length);
+        }
+        return vectors[1];
+    }
 }
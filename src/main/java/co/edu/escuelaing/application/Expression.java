@@ -0,0 +1,527 @@
+package co.edu.escuelaing.application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A compiled arithmetic expression, such as {@code sqrt(x^2 + y^2) / 2}.
+ * <p>
+ * Expressions support numbers, variables, the operators {@code + - * / % ^} (with {@code ^} binding
+ * tighter than unary minus and associating to the right), parentheses, the constants {@code pi} and
+ * {@code e}, and the functions of the calculator services: {@code sqrt(x)}, {@code pow(x, y)},
+ * {@code random()} and {@code random(min, max)}.
+ * </p>
+ * <p>
+ * An expression is parsed once into a tree of nodes in which every subtree without variables or
+ * {@code random} is folded into a constant, so evaluating it only walks what depends on the variables.
+ * Variables are numbered in order of first appearance and bound by position when the expression is
+ * evaluated. {@link #compile(String)} keeps the most recently used expressions in a bounded cache keyed by
+ * their text, so evaluating the same expression again with other values skips the parser.
+ * </p>
+ */
+public final class Expression {
+    /**
+     * The number of compiled expressions kept by {@link #compile(String)}.
+     */
+    static final int CACHE_SIZE = 1024;
+    private static final int MAX_LENGTH = 4096;
+    private static final int MAX_DEPTH = 128;
+    private static final Map<String, Expression> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String text;
+    private final Node root;
+    private final List<String> variables;
+
+    private Expression(String text, Node root, List<String> variables) {
+        this.text = text;
+        this.root = root;
+        this.variables = Collections.unmodifiableList(variables);
+    }
+
+    /**
+     * Returns the compiled form of an expression, from the cache if it was compiled recently.
+     *
+     * @param text The expression
+     * @return The compiled expression
+     * @throws IllegalArgumentException If the expression is malformed
+     */
+    public static Expression compile(String text) {
+        synchronized (CACHE) {
+            Expression cached = CACHE.get(text);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Expression compiled = parse(text);
+        synchronized (CACHE) {
+            CACHE.put(text, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Parses an expression without going through the cache.
+     *
+     * @param text The expression
+     * @return The compiled expression
+     * @throws IllegalArgumentException If the expression is malformed
+     */
+    static Expression parse(String text) {
+        if (text.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Expressions are limited to " + MAX_LENGTH + " characters");
+        }
+        Parser parser = new Parser(text);
+        Node root = parser.expression(0);
+        parser.skipSpaces();
+        if (parser.position < text.length()) {
+            throw parser.error("Unexpected '" + text.charAt(parser.position) + "'");
+        }
+        return new Expression(text, root, parser.variables);
+    }
+
+    /**
+     * Returns the number of expressions in the cache.
+     *
+     * @return The number of cached expressions
+     */
+    static int cacheSize() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param values The value of every variable, in the order of {@link #getVariables()}
+     * @return The value of the expression
+     * @throws IllegalArgumentException If the number of values does not match the number of variables
+     */
+    public double evaluate(double... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " value(s), got " + values.length);
+        }
+        return root.evaluate(values);
+    }
+
+    /**
+     * Returns the variables of the expression in order of first appearance.
+     *
+     * @return An unmodifiable list of variable names
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Tells whether the expression was folded into a single constant.
+     *
+     * @return {@code true} if the expression has no variables and does not call {@code random}
+     */
+    public boolean isConstant() {
+        return root instanceof Constant;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * A recursive descent parser that folds constant subtrees as it builds them.
+     */
+    private static final class Parser {
+        private final String text;
+        private final List<String> variables = new ArrayList<>();
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * expression := term (('+' | '-') term)*
+         */
+        Node expression(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw error("Expression nested too deeply");
+            }
+            Node left = term(depth);
+            while (true) {
+                if (accept('+')) {
+                    left = fold(new Add(left, term(depth)));
+                } else if (accept('-')) {
+                    left = fold(new Subtract(left, term(depth)));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        /**
+         * term := unary (('*' | '/' | '%') unary)*
+         */
+        private Node term(int depth) {
+            Node left = unary(depth);
+            while (true) {
+                if (accept('*')) {
+                    left = fold(new Multiply(left, unary(depth)));
+                } else if (accept('/')) {
+                    left = fold(new Divide(left, unary(depth)));
+                } else if (accept('%')) {
+                    left = fold(new Remainder(left, unary(depth)));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        /**
+         * unary := ('-' | '+') unary | power
+         */
+        private Node unary(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw error("Expression nested too deeply");
+            }
+            if (accept('-')) {
+                return fold(new Negate(unary(depth + 1)));
+            } else if (accept('+')) {
+                return unary(depth + 1);
+            }
+            return power(depth);
+        }
+
+        /**
+         * power := primary ('^' unary)?
+         */
+        private Node power(int depth) {
+            Node base = primary(depth);
+            if (accept('^')) {
+                return fold(new Power(base, unary(depth + 1)));
+            }
+            return base;
+        }
+
+        /**
+         * primary := number | '(' expression ')' | name | name '(' arguments ')'
+         */
+        private Node primary(int depth) {
+            skipSpaces();
+            if (accept('(')) {
+                Node inner = expression(depth + 1);
+                expect(')');
+                return inner;
+            }
+            if (position < text.length()
+                    && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                return number();
+            }
+            if (position < text.length() && Character.isLetter(text.charAt(position))) {
+                int start = position;
+                while (position < text.length()
+                        && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) {
+                    position++;
+                }
+                String name = text.substring(start, position);
+                if (accept('(')) {
+                    return function(name, arguments(depth));
+                }
+                switch (name) {
+                    case "pi":
+                        return new Constant(Math.PI);
+                    case "e":
+                        return new Constant(Math.E);
+                    default:
+                        int index = variables.indexOf(name);
+                        if (index < 0) {
+                            index = variables.size();
+                            variables.add(name);
+                        }
+                        return new Variable(index);
+                }
+            }
+            throw error(position < text.length() ? "Unexpected '" + text.charAt(position) + "'" : "Unexpected end");
+        }
+
+        private List<Node> arguments(int depth) {
+            List<Node> arguments = new ArrayList<>();
+            if (accept(')')) {
+                return arguments;
+            }
+            do {
+                arguments.add(expression(depth + 1));
+            } while (accept(','));
+            expect(')');
+            return arguments;
+        }
+
+        private Node function(String name, List<Node> arguments) {
+            switch (name) {
+                case "sqrt":
+                    requireArity(name, arguments, 1);
+                    return fold(new Sqrt(arguments.get(0)));
+                case "pow":
+                    requireArity(name, arguments, 2);
+                    return fold(new Power(arguments.get(0), arguments.get(1)));
+                case "random":
+                    if (arguments.isEmpty()) {
+                        return new Random(new Constant(0), new Constant(1));
+                    }
+                    requireArity(name, arguments, 2);
+                    return new Random(arguments.get(0), arguments.get(1));
+                default:
+                    throw error("Unknown function " + name);
+            }
+        }
+
+        private void requireArity(String name, List<Node> arguments, int arity) {
+            if (arguments.size() != arity) {
+                throw error(name + " takes " + arity + " argument(s)");
+            }
+        }
+
+        private Node number() {
+            int start = position;
+            while (position < text.length()
+                    && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                position++;
+            }
+            if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+                int exponent = position + 1;
+                if (exponent < text.length() && (text.charAt(exponent) == '+' || text.charAt(exponent) == '-')) {
+                    exponent++;
+                }
+                if (exponent < text.length() && Character.isDigit(text.charAt(exponent))) {
+                    position = exponent;
+                    while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                        position++;
+                    }
+                }
+            }
+            try {
+                return new Constant(Double.parseDouble(text.substring(start, position)));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number " + text.substring(start, position));
+            }
+        }
+
+        /**
+         * Replaces a node whose operands are all constants with its value.
+         */
+        private static Node fold(Node node) {
+            return node.isConstant() ? new Constant(node.evaluate(null)) : node;
+        }
+
+        void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position);
+        }
+    }
+
+    private abstract static class Node {
+        abstract double evaluate(double[] values);
+
+        /**
+         * Tells whether the node always evaluates to the same value.
+         */
+        boolean isConstant() {
+            return false;
+        }
+    }
+
+    private static final class Constant extends Node {
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+
+    private static final class Variable extends Node {
+        private final int index;
+
+        Variable(int index) {
+            this.index = index;
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return values[index];
+        }
+    }
+
+    private abstract static class Unary extends Node {
+        final Node operand;
+
+        Unary(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean isConstant() {
+            return operand.isConstant();
+        }
+    }
+
+    private abstract static class Binary extends Node {
+        final Node left;
+        final Node right;
+
+        Binary(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+
+    private static final class Negate extends Unary {
+        Negate(Node operand) {
+            super(operand);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return -operand.evaluate(values);
+        }
+    }
+
+    private static final class Sqrt extends Unary {
+        Sqrt(Node operand) {
+            super(operand);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return Math.sqrt(operand.evaluate(values));
+        }
+    }
+
+    private static final class Add extends Binary {
+        Add(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return left.evaluate(values) + right.evaluate(values);
+        }
+    }
+
+    private static final class Subtract extends Binary {
+        Subtract(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return left.evaluate(values) - right.evaluate(values);
+        }
+    }
+
+    private static final class Multiply extends Binary {
+        Multiply(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return left.evaluate(values) * right.evaluate(values);
+        }
+    }
+
+    private static final class Divide extends Binary {
+        Divide(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return left.evaluate(values) / right.evaluate(values);
+        }
+    }
+
+    private static final class Remainder extends Binary {
+        Remainder(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return left.evaluate(values) % right.evaluate(values);
+        }
+    }
+
+    private static final class Power extends Binary {
+        Power(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return Math.pow(left.evaluate(values), right.evaluate(values));
+        }
+    }
+
+    /**
+     * A uniformly distributed number between two bounds. It is never folded, even with constant bounds.
+     */
+    private static final class Random extends Binary {
+        Random(Node min, Node max) {
+            super(min, max);
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            double min = left.evaluate(values);
+            return min + ThreadLocalRandom.current().nextDouble() * (right.evaluate(values) - min);
+        }
+
+        @Override
+        boolean isConstant() {
+            return false;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package co.edu.escuelaing.application;
 
 import co.edu.escuelaing.framework.annotations.GetMapping;
+import co.edu.escuelaing.framework.annotations.PostMapping;
+import co.edu.escuelaing.framework.annotations.RequestBody;
 import co.edu.escuelaing.framework.annotations.RequestParam;
 import co.edu.escuelaing.framework.annotations.RestController;
+import co.edu.escuelaing.framework.annotations.WarmupSample;
 
 /**
  * The {@code HelloService} class provides RESTful endpoints for various utilities.
@@ -27,6 +30,7 @@ public class HelloService {
      * @return a greeting message including the provided name.
      */
     @GetMapping("/hello")
+    @WarmupSample
     public static String hello(@RequestParam(value = "name", defaultValue = "World") String name) {
         return "Hello " + name + "!";
     }
@@ -40,6 +44,7 @@ public class HelloService {
      * @return a string representation of the value of PI.
      */
     @GetMapping("/pi")
+    @WarmupSample
     public static String pi() {
         return "PI: " + Math.PI;
     }
@@ -98,9 +103,24 @@ public class HelloService {
      * @return a string representation of the result of {@code base} raised to {@code exponent}.
      */
     @GetMapping("/pow")
+    @WarmupSample(query = "base=2&exponent=0.5")
     public static String pow(@RequestParam("base") double base, @RequestParam("exponent") double exponent) {
         return "Pow: " + Math.pow(base, exponent);
     }
 
+    /**
+     * Echoes the request body.
+     * <p>
+     * This endpoint responds to POST requests at {@code /echo} and returns the body of the request
+     * prefixed with "Echo: ".
+     * </p>
+     *
+     * @param body the body of the request.
+     * @return the request body prefixed with "Echo: ".
+     */
+    @PostMapping("/echo")
+    public static String echo(@RequestBody String body) {
+        return "Echo: " + body;
+    }
 
 }
@@ -0,0 +1,182 @@
+package co.edu.escuelaing.application;
+
+import co.edu.escuelaing.framework.HttpException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads numeric vectors from a request body straight into {@code double[]} arrays.
+ * <p>
+ * Numbers are separated by whitespace or commas, and vectors by semicolons, so {@code "1,2,3;4,5,6"} holds
+ * two vectors of three values. The body is read in chunks and every number is parsed from its bytes: plain
+ * decimals with up to 15 significant digits and a small exponent, which is what analytics data usually
+ * holds, are converted exactly without creating a {@code String}; anything else falls back to
+ * {@link Double#parseDouble(String)}.
+ * </p>
+ */
+public final class NumericInput {
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumericInput() {
+    }
+
+    /**
+     * Reads a body that must hold a given number of vectors.
+     *
+     * @param in      The body stream
+     * @param vectors The number of vectors expected
+     * @return The vectors, each trimmed to its length
+     * @throws IOException   If an I/O error occurs while reading the body
+     * @throws HttpException With {@code 400 Bad Request} if a number is malformed or the body does not hold
+     *                       {@code vectors} non-empty vectors
+     */
+    public static double[][] read(InputStream in, int vectors) throws IOException {
+        List<double[]> result = new ArrayList<>(vectors);
+        byte[] buffer = new byte[8192];
+        byte[] token = new byte[MAX_TOKEN_LENGTH];
+        int tokenLength = 0;
+        double[] values = new double[1024];
+        int size = 0;
+        int n;
+        while (true) {
+            n = in.read(buffer);
+            for (int i = 0; i < n; i++) {
+                byte b = buffer[i];
+                if (b == ',' || b == ';' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                    if (tokenLength > 0) {
+                        if (size == values.length) {
+                            values = Arrays.copyOf(values, size * 2);
+                        }
+                        values[size++] = parse(token, tokenLength);
+                        tokenLength = 0;
+                    }
+                    if (b == ';') {
+                        result.add(vector(values, size));
+                        size = 0;
+                    }
+                } else if (tokenLength == MAX_TOKEN_LENGTH) {
+                    throw new HttpException("400 Bad Request", "Number too long");
+                } else {
+                    token[tokenLength++] = b;
+                }
+            }
+            if (n < 0) {
+                break;
+            }
+        }
+        if (tokenLength > 0) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + 1);
+            }
+            values[size++] = parse(token, tokenLength);
+        }
+        if (size > 0 || result.isEmpty()) {
+            result.add(vector(values, size));
+        }
+        if (result.size() != vectors) {
+            throw new HttpException("400 Bad Request",
+                    "Expected " + vectors + " vector(s) separated by ';', got " + result.size());
+        }
+        return result.toArray(new double[0][]);
+    }
+
+    private static double[] vector(double[] values, int size) {
+        if (size == 0) {
+            throw new HttpException("400 Bad Request", "Empty vector");
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Parses a number. When the decimal mantissa and the power of ten are both exactly representable as
+     * doubles, one multiplication or division rounds correctly, so the result equals
+     * {@link Double#parseDouble(String)}'s.
+     *
+     * @param token  The bytes of the number
+     * @param length The number of bytes
+     * @return The value
+     * @throws HttpException With {@code 400 Bad Request} if the token is not a number
+     */
+    static double parse(byte[] token, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < length; i++) {
+            byte b = token[i];
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                if (digits > 18) {
+                    return parseSlow(token, length);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenPoint) {
+                    exponent--;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            return parseSlow(token, length);
+        }
+        if (i < length) {
+            if ((token[i] != 'e' && token[i] != 'E') || length - i > 5) {
+                return parseSlow(token, length);
+            }
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (j < length && (token[j] == '-' || token[j] == '+')) {
+                negativeExponent = token[j] == '-';
+                j++;
+            }
+            if (j == length) {
+                return parseSlow(token, length);
+            }
+            int value = 0;
+            for (; j < length; j++) {
+                if (token[j] < '0' || token[j] > '9') {
+                    return parseSlow(token, length);
+                }
+                value = value * 10 + (token[j] - '0');
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (mantissa >= MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+            return parseSlow(token, length);
+        }
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(byte[] token, int length) {
+        String text = new String(token, 0, length, StandardCharsets.US_ASCII);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new HttpException("400 Bad Request", "Invalid number: " + text);
+        }
+    }
+}
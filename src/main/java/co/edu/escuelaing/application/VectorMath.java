@@ -0,0 +1,279 @@
+package co.edu.escuelaing.application;
+
+import java.util.stream.IntStream;
+
+/**
+ * Element-wise operations and reductions over {@code double[]} arrays.
+ * <p>
+ * Every kernel is a plain counted loop over primitive arrays with no calls or branches in its body, which
+ * is the shape the JIT compiles to SIMD instructions. The reductions keep four independent accumulators so
+ * that consecutive additions do not wait for each other. Arrays of at least {@link #PARALLEL_THRESHOLD}
+ * elements are split into fixed chunks that run on the common fork-join pool; reductions combine the
+ * partial results of the chunks in order, so the result does not depend on how the chunks were scheduled.
+ * </p>
+ */
+public final class VectorMath {
+    /**
+     * The length from which operations run in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK = 1 << 14;
+
+    private static final int ADD = 0;
+    private static final int SUBTRACT = 1;
+    private static final int MULTIPLY = 2;
+    private static final int DIVIDE = 3;
+    private static final int SQRT = 4;
+
+    private static final int SUM = 0;
+    private static final int DOT = 1;
+    private static final int MIN = 2;
+    private static final int MAX = 3;
+
+    private VectorMath() {
+    }
+
+    /**
+     * Adds two vectors element by element.
+     *
+     * @param a The first vector
+     * @param b The second vector, of the same length
+     * @return {@code a[i] + b[i]} for every {@code i}
+     */
+    public static double[] add(double[] a, double[] b) {
+        return elementwise(ADD, a, b);
+    }
+
+    /**
+     * Subtracts two vectors element by element.
+     *
+     * @param a The first vector
+     * @param b The second vector, of the same length
+     * @return {@code a[i] - b[i]} for every {@code i}
+     */
+    public static double[] subtract(double[] a, double[] b) {
+        return elementwise(SUBTRACT, a, b);
+    }
+
+    /**
+     * Multiplies two vectors element by element.
+     *
+     * @param a The first vector
+     * @param b The second vector, of the same length
+     * @return {@code a[i] * b[i]} for every {@code i}
+     */
+    public static double[] multiply(double[] a, double[] b) {
+        return elementwise(MULTIPLY, a, b);
+    }
+
+    /**
+     * Divides two vectors element by element. Division by zero follows IEEE 754 and yields an infinity or NaN.
+     *
+     * @param a The dividends
+     * @param b The divisors, as many as dividends
+     * @return {@code a[i] / b[i]} for every {@code i}
+     */
+    public static double[] divide(double[] a, double[] b) {
+        return elementwise(DIVIDE, a, b);
+    }
+
+    /**
+     * Computes the square root of every element. Negative elements yield NaN.
+     *
+     * @param a The vector
+     * @return {@code sqrt(a[i])} for every {@code i}
+     */
+    public static double[] sqrt(double[] a) {
+        return elementwise(SQRT, a, a);
+    }
+
+    /**
+     * Adds up the elements of a vector.
+     *
+     * @param a The vector
+     * @return The sum of the elements, 0 for an empty vector
+     */
+    public static double sum(double[] a) {
+        return reduce(SUM, a, a);
+    }
+
+    /**
+     * Computes the arithmetic mean of a vector.
+     *
+     * @param a The vector, not empty
+     * @return The mean of the elements
+     */
+    public static double mean(double[] a) {
+        requireNotEmpty(a);
+        return sum(a) / a.length;
+    }
+
+    /**
+     * Finds the smallest element of a vector.
+     *
+     * @param a The vector, not empty
+     * @return The smallest element, or NaN if an element is NaN
+     */
+    public static double min(double[] a) {
+        requireNotEmpty(a);
+        return reduce(MIN, a, a);
+    }
+
+    /**
+     * Finds the largest element of a vector.
+     *
+     * @param a The vector, not empty
+     * @return The largest element, or NaN if an element is NaN
+     */
+    public static double max(double[] a) {
+        requireNotEmpty(a);
+        return reduce(MAX, a, a);
+    }
+
+    /**
+     * Computes the dot product of two vectors.
+     *
+     * @param a The first vector
+     * @param b The second vector, of the same length
+     * @return The sum of {@code a[i] * b[i]}
+     */
+    public static double dot(double[] a, double[] b) {
+        requireSameLength(a, b);
+        return reduce(DOT, a, b);
+    }
+
+    private static double[] elementwise(int op, double[] a, double[] b) {
+        requireSameLength(a, b);
+        double[] result = new double[a.length];
+        if (a.length < PARALLEL_THRESHOLD) {
+            elementwise(op, a, b, result, 0, a.length);
+        } else {
+            IntStream.range(0, chunks(a.length)).parallel().forEach(chunk ->
+                    elementwise(op, a, b, result, chunk * CHUNK, Math.min(a.length, (chunk + 1) * CHUNK)));
+        }
+        return result;
+    }
+
+    /**
+     * Applies an operation to a range. The switch is outside the loops so that each loop stays simple enough
+     * to be vectorized.
+     */
+    private static void elementwise(int op, double[] a, double[] b, double[] result, int from, int to) {
+        switch (op) {
+            case ADD:
+                for (int i = from; i < to; i++) {
+                    result[i] = a[i] + b[i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = from; i < to; i++) {
+                    result[i] = a[i] - b[i];
+                }
+                break;
+            case MULTIPLY:
+                for (int i = from; i < to; i++) {
+                    result[i] = a[i] * b[i];
+                }
+                break;
+            case DIVIDE:
+                for (int i = from; i < to; i++) {
+                    result[i] = a[i] / b[i];
+                }
+                break;
+            default:
+                for (int i = from; i < to; i++) {
+                    result[i] = Math.sqrt(a[i]);
+                }
+        }
+    }
+
+    private static double reduce(int op, double[] a, double[] b) {
+        if (a.length < PARALLEL_THRESHOLD) {
+            return reduce(op, a, b, 0, a.length);
+        }
+        double[] partials = new double[chunks(a.length)];
+        IntStream.range(0, partials.length).parallel().forEach(chunk ->
+                partials[chunk] = reduce(op, a, b, chunk * CHUNK, Math.min(a.length, (chunk + 1) * CHUNK)));
+        double result = partials[0];
+        for (int i = 1; i < partials.length; i++) {
+            result = op == MIN ? Math.min(result, partials[i]) : op == MAX ? Math.max(result, partials[i])
+                    : result + partials[i];
+        }
+        return result;
+    }
+
+    private static double reduce(int op, double[] a, double[] b, int from, int to) {
+        switch (op) {
+            case SUM:
+                return sum(a, from, to);
+            case DOT:
+                return dot(a, b, from, to);
+            case MIN:
+                return min(a, from, to);
+            default:
+                return max(a, from, to);
+        }
+    }
+
+    private static double sum(double[] a, int from, int to) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < to; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double dot(double[] a, double[] b, int from, int to) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < to; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double min(double[] a, int from, int to) {
+        double result = a[from];
+        for (int i = from + 1; i < to; i++) {
+            result = Math.min(result, a[i]);
+        }
+        return result;
+    }
+
+    private static double max(double[] a, int from, int to) {
+        double result = a[from];
+        for (int i = from + 1; i < to; i++) {
+            result = Math.max(result, a[i]);
+        }
+        return result;
+    }
+
+    private static int chunks(int length) {
+        return (length + CHUNK - 1) / CHUNK;
+    }
+
+    private static void requireSameLength(double[] a, double[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vectors of different lengths: " + a.length + " and " + b.length);
+        }
+    }
+
+    private static void requireNotEmpty(double[] a) {
+        if (a.length == 0) {
+            throw new IllegalArgumentException("Empty vector");
+        }
+    }
+}
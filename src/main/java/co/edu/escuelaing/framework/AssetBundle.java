@@ -0,0 +1,201 @@
+package co.edu.escuelaing.framework;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Packs a directory of static files into a single bundle file that the {@link WebServer} memory-maps.
+ * <p>
+ * A bundle is built once, e.g., when the container image is built:
+ * </p>
+ * <pre>
+ * java -cp target/classes co.edu.escuelaing.framework.AssetBundle src/main/resources target/assets.bundle
+ * </pre>
+ * <p>
+ * and served with {@code FrameworkConfig.staticfiles("target/assets.bundle")}. The bundle starts with an
+ * index of the files (path, MIME type, ETag, offset and length, plus the offset and length of a gzip
+ * variant for compressible files that shrink by at least 10%), followed by their contents. At startup the
+ * whole file is mapped with a single {@link FileChannel#map} and only the index is read: the responses are
+ * slices of the mapping, served from the page cache, so startup does not depend on the size or number of
+ * the files and no file is opened while serving.
+ * </p>
+ * <p>
+ * Format (big-endian): the magic {@code SECIBNDL}, the version ({@code int}) and the number of entries
+ * ({@code int}); then, for each entry, the path, MIME type and ETag as a {@code short} length followed by
+ * UTF-8 bytes, and {@code long offset, int length, long gzipOffset, int gzipLength} with a gzip length of
+ * -1 when there is no compressed variant; then the data.
+ * </p>
+ */
+public final class AssetBundle {
+    private static final byte[] MAGIC = "SECIBNDL".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final double MIN_GZIP_SAVING = 0.10;
+
+    private AssetBundle() {
+    }
+
+    /**
+     * Packs a directory into a bundle.
+     *
+     * @param args The directory to pack and the bundle file to write
+     * @throws IOException If a file cannot be read or the bundle cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetBundle <directory> <bundle>");
+            System.exit(2);
+        }
+        int count = write(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println("Packed " + count + " files into " + args[1] + " (" + Files.size(Paths.get(args[1])) + " bytes)");
+    }
+
+    /**
+     * Packs every file under a directory into a bundle. The bundle is written next to its final location and
+     * moved into place, so a server never maps a partially written bundle.
+     *
+     * @param directory The directory to pack
+     * @param bundle    The bundle file to write
+     * @return The number of files packed
+     * @throws IOException If a file cannot be read or the bundle cannot be written
+     */
+    public static int write(Path directory, Path bundle) throws IOException {
+        Map<String, byte[]> read = new HashMap<>();
+        StaticAssets.readDirectory(directory, read);
+        Map<String, byte[]> files = new TreeMap<>(read);
+
+        List<byte[][]> entries = new ArrayList<>();
+        long headerSize = MAGIC.length + 8;
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            byte[] content = file.getValue();
+            String contentType = StaticAssets.contentType(file.getKey());
+            byte[] gzip = isCompressible(contentType) ? gzip(content) : null;
+            if (gzip != null && gzip.length > content.length * (1 - MIN_GZIP_SAVING)) {
+                gzip = null;
+            }
+            byte[][] entry = {utf8(file.getKey()), utf8(contentType), utf8(StaticAssets.etag(content)), content, gzip};
+            entries.add(entry);
+            headerSize += 3 * 2 + entry[0].length + entry[1].length + entry[2].length + 2 * (8 + 4);
+        }
+
+        Path parent = bundle.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, bundle.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                long offset = headerSize;
+                for (byte[][] entry : entries) {
+                    for (int i = 0; i < 3; i++) {
+                        out.writeShort(entry[i].length);
+                        out.write(entry[i]);
+                    }
+                    out.writeLong(offset);
+                    out.writeInt(entry[3].length);
+                    offset += entry[3].length;
+                    out.writeLong(entry[4] != null ? offset : -1);
+                    out.writeInt(entry[4] != null ? entry[4].length : -1);
+                    offset += entry[4] != null ? entry[4].length : 0;
+                }
+                for (byte[][] entry : entries) {
+                    out.write(entry[3]);
+                    if (entry[4] != null) {
+                        out.write(entry[4]);
+                    }
+                }
+            }
+            Files.move(temp, bundle, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return entries.size();
+    }
+
+    /**
+     * Maps a bundle and builds its index. The mapping stays valid after the file is closed, and even if the
+     * bundle is replaced on disk while the server runs.
+     *
+     * @param bundle The bundle file
+     * @return The index of the bundle's files
+     * @throws IOException If the bundle cannot be mapped or is not a valid bundle
+     */
+    static StaticAssets open(Path bundle) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(bundle, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Asset bundle " + bundle + " is larger than 2 GiB");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            data.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || data.getInt() != VERSION) {
+                throw new IOException(bundle + " is not an asset bundle of version " + VERSION);
+            }
+            int count = data.getInt();
+            Map<String, StaticAssets.Asset> assets = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String path = readString(data);
+                String contentType = readString(data);
+                String etag = readString(data);
+                ByteBuffer content = data.slice((int) data.getLong(), data.getInt());
+                long gzipOffset = data.getLong();
+                int gzipLength = data.getInt();
+                ByteBuffer gzip = gzipLength >= 0 ? data.slice((int) gzipOffset, gzipLength) : null;
+                assets.put(path, StaticAssets.Asset.mapped(contentType, etag, content, gzip));
+            }
+            return new StaticAssets(bundle.toString(), assets);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt asset bundle " + bundle, e);
+        }
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.equals("application/javascript")
+                || contentType.equals("application/json") || contentType.equals("image/svg+xml");
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 2 + 32);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] utf8(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("Name too long for an asset bundle: " + value);
+        }
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer data) {
+        byte[] bytes = new byte[data.getShort()];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
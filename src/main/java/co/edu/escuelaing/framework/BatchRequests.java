@@ -0,0 +1,198 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.json.JsonSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The batch endpoint: runs several service calls sent in one request and answers them in one response.
+ * <p>
+ * A client sends {@code POST /App/batch} with a {@code text/plain} body holding one request target per line,
+ * such as {@code /App/add?a=1&b=2}. Each line is dispatched as a {@code GET} through the same router and
+ * invokers as a regular request, and the lines run in parallel on a dedicated executor (see
+ * {@link FrameworkConfig#batchThreads(int)}), so the batch takes about as long as its slowest call instead of
+ * the sum of all of them. The response is a JSON array with one object per line, in order, holding the
+ * {@code status} code of the call and its {@code body}: JSON results are embedded as they are, any other
+ * result as a string. A failing call only fails its own item.
+ * </p>
+ * <p>
+ * The batch goes through admission control and rate limiting as a single request.
+ * </p>
+ */
+final class BatchRequests {
+    /**
+     * The target of the batch endpoint. A service mapped to {@code /batch} takes precedence over it.
+     */
+    static final String PATH = "/App/batch";
+    private static final byte[] STATUS = ascii("{\"status\":");
+    private static final byte[] BODY = ascii(",\"body\":");
+    private static ThreadPoolExecutor executor;
+
+    private BatchRequests() {
+    }
+
+    /**
+     * Runs the calls of a batch request.
+     *
+     * @param request The batch request, whose body lists the request targets
+     * @return The JSON array of results
+     * @throws IOException   If an I/O error occurs while reading the request body
+     * @throws HttpException If the request is not a {@code POST}, or has no calls or more than
+     *                       {@link FrameworkConfig#getBatchMaxItems()}
+     */
+    static HttpResponse handle(HttpRequest request) throws IOException {
+        if (!"POST".equals(request.getMethod())) {
+            throw new HttpException("405 Method Not Allowed", "Batches must be sent with POST");
+        }
+        List<String> targets = parseTargets(request.readBodyString(FrameworkConfig.getMaxInMemoryBodySize()));
+        if (targets.isEmpty()) {
+            throw new HttpException("400 Bad Request", "The batch is empty");
+        }
+        if (targets.size() > FrameworkConfig.getBatchMaxItems()) {
+            throw new HttpException("413 Payload Too Large",
+                    "A batch may hold up to " + FrameworkConfig.getBatchMaxItems() + " calls");
+        }
+        return encode(run(targets));
+    }
+
+    /**
+     * Splits a batch body into request targets, skipping blank lines.
+     *
+     * @param body The request body
+     * @return The request targets, in order
+     */
+    static List<String> parseTargets(String body) {
+        List<String> targets = new ArrayList<>();
+        for (String line : body.split("\r?\n")) {
+            String target = line.trim();
+            if (!target.isEmpty()) {
+                targets.add(target);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Runs the calls in parallel. The last call runs on the calling thread, which would otherwise only wait,
+     * and calls the executor cannot queue also run on the calling thread.
+     *
+     * @param targets The request targets
+     * @return The response of every call, in order
+     */
+    static List<HttpResponse> run(List<String> targets) {
+        int count = targets.size();
+        List<Future<HttpResponse>> futures = new ArrayList<>(count);
+        ThreadPoolExecutor pool = count > 1 ? executor() : null;
+        for (int i = 0; i < count - 1; i++) {
+            String target = targets.get(i);
+            futures.add(pool.submit(() -> call(target)));
+        }
+        FutureTask<HttpResponse> last = new FutureTask<>(() -> call(targets.get(count - 1)));
+        last.run();
+        futures.add(last);
+
+        List<HttpResponse> responses = new ArrayList<>(count);
+        boolean interrupted = false;
+        for (Future<HttpResponse> future : futures) {
+            HttpResponse response;
+            while (true) {
+                try {
+                    response = future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    response = new HttpResponse("500 Internal Server Error", "text/plain",
+                            ascii("Error processing request"));
+                    break;
+                }
+            }
+            responses.add(response);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return Collections.unmodifiableList(responses);
+    }
+
+    /**
+     * Dispatches one call. The body is copied, since the response of a service may live in the
+     * {@link ResponseBuffer} of the thread that ran it.
+     */
+    private static HttpResponse call(String target) {
+        HttpResponse response;
+        if (!target.startsWith("/App/")) {
+            response = new HttpResponse("400 Bad Request", "text/plain", ascii("Calls must target /App/..."));
+        } else {
+            response = WebServer.serviceResponse(new HttpRequest("GET", target, "HTTP/1.1",
+                    Collections.emptyMap(), new ByteArrayInputStream(new byte[0])));
+        }
+        byte[] body = new byte[response.getLength()];
+        System.arraycopy(response.getBody(), 0, body, 0, body.length);
+        return new HttpResponse(response.getStatus(), response.getContentType(), body);
+    }
+
+    /**
+     * Writes the results as a JSON array into the calling thread's {@link ResponseBuffer}.
+     */
+    private static HttpResponse encode(List<HttpResponse> responses) {
+        ResponseBuffer out = ResponseBuffer.acquire();
+        out.write('[');
+        for (int i = 0; i < responses.size(); i++) {
+            HttpResponse response = responses.get(i);
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(STATUS);
+            JsonSerializer.write(response.getStatusCode(), out);
+            out.write(BODY);
+            if ("application/json".equals(response.getContentType())) {
+                out.write(response.getBody(), 0, response.getLength());
+            } else {
+                JsonSerializer.write(new String(response.getBody(), 0, response.getLength(),
+                        StandardCharsets.UTF_8), out);
+            }
+            out.write('}');
+        }
+        out.write(']');
+        return new HttpResponse("200 OK", "application/json", out.array(), out.size());
+    }
+
+    /**
+     * Returns the executor that runs the calls of batches, creating it on first use. When its queue is full,
+     * calls run on the thread that submitted them, so a burst of batches slows down instead of failing.
+     *
+     * @return The batch executor
+     */
+    private static synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            int threads = FrameworkConfig.getBatchThreads();
+            executor = new ThreadPoolExecutor(threads, threads,
+                    0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads * 16),
+                    task -> {
+                        Thread thread = new Thread(task, "webserver-batch-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+        return executor;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,216 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.annotations.Bulkhead;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The compartments declared with {@link Bulkhead} and the invokers that enforce them.
+ * <p>
+ * Every compartment is a semaphore with {@link Bulkhead#maxConcurrent()} permits and a bounded number of
+ * waiters, so the handler still runs on the worker thread that read the request and no executor hop is added.
+ * A request that finds the compartment full and its queue full, or that waits longer than
+ * {@link Bulkhead#maxWaitMillis()}, is answered with a pre-encoded {@code 503 Service Unavailable} without
+ * calling the handler. The bulkhead wraps the handler inside its interceptors, so a {@code @Before} check
+ * that rejects a request never takes a permit.
+ * </p>
+ * <p>
+ * Compartments are created when the routes are registered. When a new route table declares a compartment
+ * with the same name and limits as the previous one (e.g., after a hot reload), the compartment is kept,
+ * together with its permits and counters.
+ * </p>
+ */
+public final class Bulkheads {
+    private static final HttpResponse REJECTED = HttpResponse.preEncoded("503 Service Unavailable", "text/plain",
+            "Service Unavailable".getBytes(StandardCharsets.US_ASCII), "Retry-After", "1");
+
+    private Bulkheads() {
+    }
+
+    /**
+     * Finds the compartment of a handler: the one named by its {@link Bulkhead} annotation, or by the
+     * annotation of its class.
+     *
+     * @param method       The handler
+     * @param compartments The compartments of the route table being built, to which a new one is added
+     * @param previous     The compartments of the previous route table, reused when their limits are unchanged
+     * @return The compartment, or {@code null} if the handler has no bulkhead
+     * @throws IllegalArgumentException If the limits are not positive, or differ from those of another
+     *                                  declaration with the same name
+     */
+    static Compartment of(Method method, Map<String, Compartment> compartments, Map<String, Compartment> previous) {
+        Class<?> controller = method.getDeclaringClass();
+        Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+        String defaultName = controller.getSimpleName() + "." + method.getName();
+        if (bulkhead == null) {
+            bulkhead = controller.getAnnotation(Bulkhead.class);
+            defaultName = controller.getSimpleName();
+        }
+        if (bulkhead == null) {
+            return null;
+        }
+        String name = bulkhead.value().isEmpty() ? defaultName : bulkhead.value();
+        Compartment declared = new Compartment(name, bulkhead.maxConcurrent(), bulkhead.queue(),
+                bulkhead.maxWaitMillis());
+        Compartment existing = compartments.get(name);
+        if (existing != null) {
+            if (!existing.sameLimits(declared)) {
+                throw new IllegalArgumentException("Bulkhead " + name + " is declared with different limits on "
+                        + method);
+            }
+            return existing;
+        }
+        Compartment kept = previous.get(name);
+        Compartment compartment = kept != null && kept.sameLimits(declared) ? kept : declared;
+        compartments.put(name, compartment);
+        return compartment;
+    }
+
+    /**
+     * Wraps an invoker so that it only runs with a permit of a compartment.
+     *
+     * @param compartment The compartment
+     * @param next        The invoker of the handler
+     * @return The guarded invoker
+     */
+    static RouteInvoker wrap(Compartment compartment, RouteInvoker next) {
+        return request -> {
+            if (!compartment.enter()) {
+                return REJECTED;
+            }
+            try {
+                return next.invoke(request);
+            } finally {
+                compartment.exit();
+            }
+        };
+    }
+
+    /**
+     * One compartment: its limits and how full it is.
+     */
+    public static final class Compartment {
+        private final String name;
+        private final int maxConcurrent;
+        private final int queueCapacity;
+        private final int maxWaitMillis;
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong rejected = new AtomicLong();
+
+        Compartment(String name, int maxConcurrent, int queueCapacity, int maxWaitMillis) {
+            if (maxConcurrent < 1 || queueCapacity < 0 || maxWaitMillis < 0) {
+                throw new IllegalArgumentException("Bulkhead " + name
+                        + " needs maxConcurrent >= 1, queue >= 0 and maxWaitMillis >= 0");
+            }
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.queueCapacity = queueCapacity;
+            this.maxWaitMillis = maxWaitMillis;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        /**
+         * Takes a permit, waiting in the queue if there is room in it.
+         *
+         * @return {@code true} if the request may run, {@code false} if it was rejected
+         */
+        boolean enter() {
+            try {
+                // Unlike tryAcquire(), a timed attempt honors fairness: a freed permit goes to the queued requests
+                if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (queued.incrementAndGet() > queueCapacity) {
+                queued.decrementAndGet();
+                rejected.incrementAndGet();
+                return false;
+            }
+            try {
+                if (permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                queued.decrementAndGet();
+            }
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        void exit() {
+            permits.release();
+        }
+
+        private boolean sameLimits(Compartment other) {
+            return maxConcurrent == other.maxConcurrent && queueCapacity == other.queueCapacity
+                    && maxWaitMillis == other.maxWaitMillis;
+        }
+
+        /**
+         * @return The name of the compartment
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return How many requests may run at the same time
+         */
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        /**
+         * @return How many requests may wait when the compartment is full
+         */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /**
+         * Returns the number of requests running in the compartment.
+         *
+         * @return The requests in flight
+         */
+        public int getInFlight() {
+            return maxConcurrent - permits.availablePermits();
+        }
+
+        /**
+         * Returns the number of requests waiting for a permit.
+         *
+         * @return The queue depth
+         */
+        public int getQueued() {
+            return queued.get();
+        }
+
+        /**
+         * Returns how many requests were rejected since the compartment was created.
+         *
+         * @return The number of rejected requests
+         */
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + getInFlight() + "/" + maxConcurrent + " running, " + getQueued() + "/"
+                    + queueCapacity + " queued, " + getRejected() + " rejected";
+        }
+    }
+}
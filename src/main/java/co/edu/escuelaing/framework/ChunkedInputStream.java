@@ -0,0 +1,118 @@
+package co.edu.escuelaing.framework;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that decodes a body sent with {@code Transfer-Encoding: chunked}.
+ * <p>
+ * Chunks are decoded on the fly, so the body is never buffered. The total number of decoded bytes is
+ * checked against a limit and the stream fails with {@code 413 Payload Too Large} as soon as it is
+ * exceeded. Trailer fields are read and discarded. Closing this stream does not close the connection.
+ * </p>
+ */
+class ChunkedInputStream extends InputStream {
+    private final InputStream in;
+    private final long maxLength;
+    private long chunkRemaining;
+    private long total;
+    private boolean eof;
+
+    /**
+     * Creates a decoder on top of the connection input stream.
+     *
+     * @param in        The connection input stream
+     * @param maxLength The maximum number of decoded bytes accepted
+     */
+    ChunkedInputStream(InputStream in, long maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (eof) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (chunkRemaining == 0) {
+            nextChunk();
+            if (eof) {
+                return -1;
+            }
+        }
+        int n = in.read(b, off, (int) Math.min(len, chunkRemaining));
+        if (n < 0) {
+            throw new EOFException("Connection closed inside a chunk");
+        }
+        chunkRemaining -= n;
+        if (chunkRemaining == 0) {
+            expectLineEnd();
+        }
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return eof ? 0 : (int) Math.min(in.available(), chunkRemaining);
+    }
+
+    @Override
+    public void close() {
+        // The connection outlives the request body
+    }
+
+    /**
+     * Reads the next chunk-size line, or the trailer section if the size is zero.
+     */
+    private void nextChunk() throws IOException {
+        String line = HttpRequest.readLine(in);
+        if (line == null) {
+            throw new EOFException("Connection closed before the last chunk");
+        }
+        int extension = line.indexOf(';');
+        String size = (extension >= 0 ? line.substring(0, extension) : line).trim();
+        long length;
+        try {
+            length = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            throw new HttpException("400 Bad Request", "Invalid chunk size");
+        }
+        if (length < 0) {
+            throw new HttpException("400 Bad Request", "Invalid chunk size");
+        }
+        if (length == 0) {
+            String trailer;
+            do {
+                trailer = HttpRequest.readLine(in);
+            } while (trailer != null && !trailer.isEmpty());
+            eof = true;
+            return;
+        }
+        total += length;
+        if (total > maxLength) {
+            throw new HttpException("413 Payload Too Large", "Request body too large");
+        }
+        chunkRemaining = length;
+    }
+
+    /**
+     * Consumes the CRLF that terminates the data of every chunk.
+     */
+    private void expectLineEnd() throws IOException {
+        String line = HttpRequest.readLine(in);
+        if (line == null || !line.isEmpty()) {
+            throw new HttpException("400 Bad Request", "Malformed chunk");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package co.edu.escuelaing.framework;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for the web server: limits how many requests are handled at the same time.
+ * <p>
+ * A request must obtain a permit with {@link #tryAcquire()} before it is routed, and gives it back with
+ * {@link #release(long)} together with the time it took to handle. Requests that cannot get a permit are
+ * rejected right away instead of queuing up behind the ones already running.
+ * </p>
+ * <p>
+ * With a fixed limit the number of permits never changes. With an adaptive limit the number of permits
+ * follows a gradient algorithm in the style of Netflix's Gradient2 limiter: a long-term average of the
+ * handler latency is compared with the average of the most recent window, and the limit shrinks when the
+ * recent latency grows (requests are queuing somewhere) and grows again while it stays close to the
+ * long-term value. The limit always stays between the configured minimum and maximum.
+ * </p>
+ */
+public class ConcurrencyLimiter {
+    private static final int WINDOW_SAMPLES = 100;
+    private static final double LONG_RTT_WEIGHT = 2.0 / (600 + 1);
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final boolean adaptive;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int limit;
+
+    private double estimatedLimit;
+    private double longRtt;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param initialLimit The number of permits to start with
+     * @param minLimit     The lowest limit an adaptive limiter may reach
+     * @param maxLimit     The highest limit an adaptive limiter may reach
+     * @param adaptive     Whether the limit follows the measured latency or stays at {@code initialLimit}
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, boolean adaptive) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.adaptive = adaptive;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * Creates a limiter from the settings in {@link FrameworkConfig}.
+     *
+     * @return A new limiter
+     */
+    public static ConcurrencyLimiter fromConfig() {
+        int max = FrameworkConfig.getMaxConcurrentRequests();
+        boolean adaptive = FrameworkConfig.isAdaptiveConcurrency();
+        int min = Math.min(max, FrameworkConfig.getMinConcurrentRequests());
+        return new ConcurrencyLimiter(adaptive ? Math.max(min, max / 2) : max, min, max, adaptive);
+    }
+
+    /**
+     * Tries to obtain a permit without blocking.
+     *
+     * @return {@code true} if the request may proceed, {@code false} if it must be rejected
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit and records how long the request took.
+     *
+     * @param latencyNanos The time spent handling the request, in nanoseconds
+     */
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        if (adaptive) {
+            onSample(latencyNanos, current);
+        }
+    }
+
+    /**
+     * Adds a latency sample to the current window and recomputes the limit when the window is full.
+     */
+    private synchronized void onSample(long latencyNanos, int inFlightAtRelease) {
+        windowRttSum += Math.max(1, latencyNanos);
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+        if (++windowSamples < WINDOW_SAMPLES) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt = longRtt * (1 - LONG_RTT_WEIGHT) + shortRtt * LONG_RTT_WEIGHT;
+        }
+        if (longRtt / shortRtt > 2) {
+            // Latency dropped a lot (e.g., after a slow phase); let the baseline catch up quickly
+            longRtt = longRtt * 0.95;
+        }
+        if (maxInFlight < estimatedLimit / 2) {
+            // The server is not using its permits, so latency says nothing about the limit
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, longRtt / shortRtt));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Returns the current number of permits.
+     *
+     * @return The current limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of permits currently held.
+     *
+     * @return The number of requests in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns how many requests were rejected since the limiter was created.
+     *
+     * @return The number of rejected requests
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,343 @@
+package co.edu.escuelaing.framework;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A client connection, accepted from a TCP socket or a Unix domain socket, or opened in memory by a
+ * {@link LocalConnector}.
+ * <p>
+ * The server reads requests from {@link #getInputStream()} and writes responses to {@link #getOutputStream()}
+ * the same way on both transports. Unix domain sockets have no {@link java.net.Socket} adaptor, so their
+ * streams call the {@link SocketChannel} directly; unlike the streams of {@link java.nio.channels.Channels},
+ * they do not share a lock, so a blocked read does not hold up a write from another thread, which HTTP/2 and
+ * WebSocket connections need.
+ * </p>
+ */
+final class Connection implements Closeable {
+    private final Socket socket;
+    private final SocketChannel channel;
+    private final Closeable resource;
+    private final InputStream in;
+    private final OutputStream out;
+
+    private Connection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.channel = null;
+        this.resource = socket;
+        this.in = socket.getInputStream();
+        this.out = socket.getOutputStream();
+    }
+
+    private Connection(SocketChannel channel) {
+        this.socket = null;
+        this.channel = channel;
+        this.resource = channel;
+        this.in = new ChannelInput(channel);
+        this.out = new ChannelOutput(channel);
+    }
+
+    private Connection(InputStream in, OutputStream out, Closeable resource) {
+        this.socket = null;
+        this.channel = null;
+        this.resource = resource;
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Wraps a connected TCP socket.
+     *
+     * @param socket The socket
+     * @return The connection
+     * @throws IOException If the socket is closed
+     */
+    static Connection of(Socket socket) throws IOException {
+        return new Connection(socket);
+    }
+
+    /**
+     * Wraps a connected channel, in blocking mode.
+     *
+     * @param channel The channel
+     * @return The connection
+     */
+    static Connection of(SocketChannel channel) {
+        return new Connection(channel);
+    }
+
+    /**
+     * Wraps a pair of in-memory streams.
+     *
+     * @param in       The stream of bytes from the client
+     * @param out      The stream of bytes to the client
+     * @param resource What to close when the server closes the connection
+     * @return The connection
+     */
+    static Connection of(InputStream in, OutputStream out, Closeable resource) {
+        return new Connection(in, out, resource);
+    }
+
+    /**
+     * Opens a connection to a server, over TCP or a Unix domain socket depending on the address.
+     *
+     * @param address       An {@link java.net.InetSocketAddress} or a {@link UnixDomainSocketAddress}
+     * @param timeoutMillis How long to wait for a TCP connection to be established, and for every read
+     * @return The connection
+     * @throws IOException If the connection cannot be established
+     */
+    static Connection connect(SocketAddress address, int timeoutMillis) throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            return of(SocketChannel.open(address));
+        }
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(timeoutMillis);
+            socket.connect(address, timeoutMillis);
+            return of(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    InputStream getInputStream() {
+        return in;
+    }
+
+    OutputStream getOutputStream() {
+        return out;
+    }
+
+    /**
+     * Returns the address of the client.
+     *
+     * @return The client's IP address, or {@code null} for a Unix domain socket or an in-memory connection,
+     * whose clients are on this host
+     */
+    InetAddress getInetAddress() {
+        return socket != null ? socket.getInetAddress() : null;
+    }
+
+    /**
+     * Describes the client, for diagnostics.
+     *
+     * @return The remote address
+     */
+    String getRemoteAddress() {
+        if (socket != null) {
+            return String.valueOf(socket.getRemoteSocketAddress());
+        } else if (channel == null) {
+            return "local";
+        }
+        try {
+            return "unix:" + channel.getLocalAddress();
+        } catch (IOException e) {
+            return "unix";
+        }
+    }
+
+    /**
+     * Makes reads that wait longer than a timeout fail with {@link java.net.SocketTimeoutException}. Channels do
+     * not support read timeouts, so on a Unix domain socket or an in-memory connection this does nothing and
+     * reads wait until data arrives or the connection is closed.
+     *
+     * @param millis The timeout, or 0 for none
+     * @throws IOException If the option cannot be set
+     */
+    void setReadTimeout(int millis) throws IOException {
+        if (socket != null) {
+            socket.setSoTimeout(millis);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        resource.close();
+    }
+
+    /**
+     * A listening socket that accepts connections.
+     */
+    interface Listener extends Closeable {
+        /**
+         * Waits for the next connection.
+         *
+         * @return The connection
+         * @throws IOException If the listener is closed or fails
+         */
+        Connection accept() throws IOException;
+
+        /**
+         * Describes the address the listener is bound to.
+         *
+         * @return The address
+         */
+        String describe();
+    }
+
+    /**
+     * Listens on a bound TCP server socket.
+     *
+     * @param serverSocket The server socket
+     * @return The listener
+     */
+    static Listener listen(ServerSocket serverSocket) {
+        return new Listener() {
+            @Override
+            public Connection accept() throws IOException {
+                return of(serverSocket.accept());
+            }
+
+            @Override
+            public String describe() {
+                return "port " + serverSocket.getLocalPort();
+            }
+
+            @Override
+            public void close() throws IOException {
+                serverSocket.close();
+            }
+        };
+    }
+
+    /**
+     * Binds a Unix domain socket at a path and listens on it. A socket left at the path by a previous run that
+     * no longer answers is replaced, and the file is deleted when the listener is closed.
+     *
+     * @param path    The path of the socket file
+     * @param backlog The listen backlog
+     * @return The listener
+     * @throws FileAlreadyExistsException If something other than a socket exists at the path
+     * @throws BindException              If a server still answers on the socket at the path
+     * @throws IOException                If the socket cannot be bound
+     */
+    static Listener listenUnix(Path path, int backlog) throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(path);
+        removeStaleSocket(path, address);
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            server.bind(address, backlog);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        return new Listener() {
+            @Override
+            public Connection accept() throws IOException {
+                return of(server.accept());
+            }
+
+            @Override
+            public String describe() {
+                return "unix:" + path;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    server.close();
+                } finally {
+                    Files.deleteIfExists(path);
+                }
+            }
+        };
+    }
+
+    /**
+     * Deletes the socket file at a path if no server answers on it anymore. Regular files, directories and
+     * links are never deleted, nor is the socket of a server that is still running.
+     */
+    private static void removeStaleSocket(Path path, UnixDomainSocketAddress address) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (!attributes.isOther()) {
+            throw new FileAlreadyExistsException(path.toString(), null, "not a socket");
+        }
+        boolean answered;
+        try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            probe.connect(address);
+            answered = true;
+        } catch (IOException e) {
+            // Refused: the server that bound it is gone
+            answered = false;
+        }
+        if (answered) {
+            throw new BindException("Address already in use: " + path);
+        }
+        Files.deleteIfExists(path);
+    }
+
+    private static final class ChannelInput extends InputStream {
+        private final SocketChannel channel;
+
+        ChannelInput(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class ChannelOutput extends OutputStream {
+        private final SocketChannel channel;
+
+        ChannelOutput(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package co.edu.escuelaing.framework;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that exposes exactly {@code Content-Length} bytes of the underlying connection.
+ * <p>
+ * Reads never go past the end of the body, so the connection stays positioned at the start of the
+ * next request. Closing this stream does not close the connection.
+ * </p>
+ */
+class ContentLengthInputStream extends FilterInputStream {
+    private long remaining;
+
+    /**
+     * Creates a stream limited to the given number of bytes.
+     *
+     * @param in     The connection input stream
+     * @param length The value of the {@code Content-Length} header
+     */
+    ContentLengthInputStream(InputStream in, long length) {
+        super(in);
+        this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Connection closed before the request body was complete");
+        }
+        remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int n = in.read(b, off, (int) Math.min(len, remaining));
+        if (n < 0) {
+            throw new EOFException("Connection closed before the request body was complete");
+        }
+        remaining -= n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // The connection outlives the request body
+    }
+}
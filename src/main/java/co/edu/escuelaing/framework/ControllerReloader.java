@@ -0,0 +1,195 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+import co.edu.escuelaing.framework.websocket.WebSockets;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reloads controllers when their class files change, without restarting the server.
+ * <p>
+ * The reloader watches the application's class directory. Once the files have been quiet for
+ * {@link #QUIET_MILLIS} (a build writes many files in a burst), it loads the application package in a new
+ * {@link ReloadingClassLoader}, rebuilds the route table with {@link SpringECI#buildRoutes} on its own thread
+ * and publishes it with {@link WebServer#setServices}. Requests already running finish with the methods of
+ * the previous version; the old class loader is collected once they are done. If the new classes cannot be
+ * loaded (e.g., the build is still writing them), the previous route table stays in place.
+ * </p>
+ */
+class ControllerReloader implements Runnable {
+    private static final long QUIET_MILLIS = 300;
+
+    private final Path classes;
+    private final String packageName;
+    private final WatchService watcher;
+    private int generation;
+
+    /**
+     * Creates a reloader for a class directory.
+     *
+     * @param classes     The directory the application classes are loaded from
+     * @param packageName The package scanned for controllers
+     * @throws IOException If the directory cannot be watched
+     */
+    ControllerReloader(Path classes, String packageName) throws IOException {
+        this.classes = classes;
+        this.packageName = packageName;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        registerTree(classes);
+    }
+
+    /**
+     * Starts watching the location the application classes were loaded from on a daemon thread.
+     *
+     * @param location    The code source of the application classes
+     * @param packageName The package scanned for controllers
+     * @throws IOException If the directory cannot be watched
+     */
+    static void start(URL location, String packageName) throws IOException {
+        Path classes;
+        try {
+            classes = Paths.get(location.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            classes = null;
+        }
+        if (classes == null || !Files.isDirectory(classes)) {
+            System.err.println("Hot reload needs a class directory, " + location + " is not one");
+            return;
+        }
+        Thread thread = new Thread(new ControllerReloader(classes, packageName), "springeci-reloader");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Watching " + classes + " for changed controllers");
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                boolean changed = process(watcher.take());
+                WatchKey key;
+                while ((key = watcher.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= process(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stop watching
+        }
+    }
+
+    /**
+     * Loads the controllers again and publishes the new route table.
+     *
+     * @return {@code true} if the route table was replaced
+     */
+    boolean reload() {
+        try {
+            ReloadingClassLoader loader = new ReloadingClassLoader(new URL[]{classes.toUri().toURL()},
+                    getClass().getClassLoader(), packageName + ".");
+            Set<Class<?>> found = SpringECI.getClassesInPackage(loader, packageName);
+            Map<String, Map<RequestMethod, Method>> routes = SpringECI.buildRoutes(found);
+            Map<String, Method> webSockets = SpringECI.buildWebSocketRoutes(found);
+            WebServer.setServices(routes, InterceptorChain.discover(found));
+            WebSockets.setHandlers(webSockets);
+            System.out.println("Reloaded " + routes.size() + " routes (generation " + ++generation + ")");
+            return true;
+        } catch (Exception | LinkageError e) {
+            System.err.println("Hot reload failed, keeping the previous routes: " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Consumes the events of a watch key, watching new directories as they appear.
+     *
+     * @return {@code true} if a class file changed
+     */
+    private boolean process(WatchKey key) {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(path);
+                } catch (IOException e) {
+                    System.err.println("Cannot watch " + path + ": " + e.getMessage());
+                }
+                changed = true;
+            } else if (path.toString().endsWith(".class")) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void registerTree(Path root) throws IOException {
+        try (Stream<Path> directories = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+                directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    /**
+     * A child-first class loader for the application classes. Classes of the application package are
+     * defined again by each loader, while the framework's own classes (annotations, {@link HttpException},
+     * ...) and everything else come from the parent, so that annotations and shared types keep their identity.
+     */
+    static final class ReloadingClassLoader extends URLClassLoader {
+        private static final String FRAMEWORK_PACKAGE = SpringECI.class.getPackageName() + ".";
+        private final String reloadablePrefix;
+
+        ReloadingClassLoader(URL[] urls, ClassLoader parent, String reloadablePrefix) {
+            super(urls, parent);
+            this.reloadablePrefix = reloadablePrefix;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(reloadablePrefix) || name.startsWith(FRAMEWORK_PACKAGE)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    try {
+                        loaded = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        return super.loadClass(name, resolve);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+    }
+}
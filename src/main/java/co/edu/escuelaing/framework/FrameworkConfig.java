@@ -1,5 +1,9 @@
 package co.edu.escuelaing.framework;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Provides configuration settings for the SpringECI framework.
  * <p>
@@ -10,12 +14,43 @@ package co.edu.escuelaing.framework;
  */
 public class FrameworkConfig {
     private static String staticFilesLocation = "src/main/resources";
+    private static int port = Integer.getInteger("springeci.port", 8080);
+    private static String unixSocket = System.getProperty("springeci.unixSocket");
+    private static long maxInMemoryBodySize = 1024 * 1024;
+    private static long maxRequestBodySize = 64L * 1024 * 1024;
+    private static int workerThreads = 64;
+    private static int acceptors = 1;
+    private static int acceptQueueSize = 128;
+    private static int maxConcurrentRequests = 64;
+    private static int minConcurrentRequests = 4;
+    private static boolean adaptiveConcurrency = true;
+    private static int keepAliveTimeout = 5000;
+    private static int headerReadTimeout = 10000;
+    private static int bodyReadTimeout = 30000;
+    private static int writeTimeout = 30000;
+    private static boolean http2 = true;
+    private static boolean hotReload = Boolean.getBoolean("springeci.hotReload");
+    private static int webSocketMaxMessageSize = 64 * 1024;
+    private static long webSocketMaxQueuedBytes = 1024 * 1024;
+    private static int webSocketIdleTimeout = 60000;
+    private static int batchThreads = 16;
+    private static int batchMaxItems = 64;
+    private static int warmupIterations = 0;
+    private static int warmupTimeout = 30000;
+    private static String warmupFile;
+    private static int shutdownTimeout = 30000;
+    private static int proxyHealthCheckInterval = 1000;
+    private static int proxyMaxIdleConnections = 32;
+    private static RateLimiter.Limit rateLimit;
+    private static final Map<String, RateLimiter.Limit> routeRateLimits = new LinkedHashMap<>();
 
     /**
      * Sets the location of static files for the web server.
      * <p>
      * This method allows the user to specify a different directory for static files.
-     * The default location is "src/main/resources".
+     * The default location is "src/main/resources". A location prefixed with {@code classpath:}
+     * (e.g., {@code classpath:static}) serves a folder of the class path, which also works from a jar.
+     * The files are indexed when the server starts; see {@link StaticAssets}.
      * </p>
      *
      * @param location The file path where static files are stored.
@@ -36,4 +71,617 @@ public class FrameworkConfig {
     public static String getStaticFilesLocation() {
         return staticFilesLocation;
     }
+
+    /**
+     * Sets the TCP port the server listens on. The default is the {@code springeci.port} system property, or
+     * 8080; 0 disables TCP, so the server only listens on its Unix domain socket (see
+     * {@link #unixSocket(String)}).
+     *
+     * @param number The port, or 0 for none.
+     */
+    public static void port(int number) {
+        port = number;
+    }
+
+    /**
+     * Retrieves the TCP port the server listens on.
+     *
+     * @return The port, or 0 if the server does not listen on TCP.
+     */
+    public static int getPort() {
+        return port;
+    }
+
+    /**
+     * Sets the path of a Unix domain socket the server also listens on, so that clients on the same host, such
+     * as sidecars, reach it without going through the TCP stack (e.g.,
+     * {@code curl --unix-socket /run/springeci.sock http://localhost/App/hello}). A socket left at the path by a
+     * server that is gone is replaced when the server starts; anything else at the path makes the start fail.
+     * The default is the {@code springeci.unixSocket} system property, or none.
+     *
+     * @param path The path of the socket file, or {@code null} for none.
+     */
+    public static void unixSocket(String path) {
+        unixSocket = path;
+    }
+
+    /**
+     * Retrieves the path of the Unix domain socket the server listens on.
+     *
+     * @return The path, or {@code null} if the server does not listen on a Unix domain socket.
+     */
+    public static String getUnixSocket() {
+        return unixSocket;
+    }
+
+    /**
+     * Sets the largest request body that may be buffered on the heap.
+     * <p>
+     * Bodies bound to {@code String} or {@code byte[]} parameters are read fully into memory; if the body is
+     * larger than this threshold the request is rejected with {@code 413 Payload Too Large}. Handlers that need
+     * bigger uploads should bind the body to an {@code InputStream} instead. The default is 1 MiB.
+     * </p>
+     *
+     * @param bytes The maximum number of body bytes kept in memory.
+     */
+    public static void maxInMemoryBodySize(long bytes) {
+        maxInMemoryBodySize = bytes;
+    }
+
+    /**
+     * Retrieves the largest request body that may be buffered on the heap.
+     *
+     * @return The maximum number of body bytes kept in memory.
+     */
+    public static long getMaxInMemoryBodySize() {
+        return maxInMemoryBodySize;
+    }
+
+    /**
+     * Sets the largest request body accepted by the server, whether it is buffered or streamed.
+     * <p>
+     * Requests announcing a larger {@code Content-Length} are rejected before the body is read, and chunked
+     * bodies fail as soon as they grow past this limit. The default is 64 MiB.
+     * </p>
+     *
+     * @param bytes The maximum number of body bytes accepted per request.
+     */
+    public static void maxRequestBodySize(long bytes) {
+        maxRequestBodySize = bytes;
+    }
+
+    /**
+     * Retrieves the largest request body accepted by the server.
+     *
+     * @return The maximum number of body bytes accepted per request.
+     */
+    public static long getMaxRequestBodySize() {
+        return maxRequestBodySize;
+    }
+
+    /**
+     * Sets the number of worker threads that handle connections.
+     * <p>
+     * The accept loop hands every accepted connection to this pool. The default is 64 threads.
+     * </p>
+     *
+     * @param threads The number of worker threads.
+     */
+    public static void workerThreads(int threads) {
+        workerThreads = threads;
+    }
+
+    /**
+     * Retrieves the number of worker threads that handle connections.
+     *
+     * @return The number of worker threads.
+     */
+    public static int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * Sets how many accepted connections may wait for a free worker thread.
+     * <p>
+     * Connections accepted while this queue is full are answered with {@code 503 Service Unavailable} by the
+     * accept loop itself. The value is also used as the listen backlog of the server socket. The default is 128.
+     * </p>
+     *
+     * @param size The capacity of the accept queue.
+     */
+    public static void acceptQueueSize(int size) {
+        acceptQueueSize = size;
+    }
+
+    /**
+     * Retrieves how many accepted connections may wait for a free worker thread.
+     *
+     * @return The capacity of the accept queue.
+     */
+    public static int getAcceptQueueSize() {
+        return acceptQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of requests handled at the same time.
+     * <p>
+     * Requests over the limit are answered with {@code 503 Service Unavailable} before they are routed.
+     * With adaptive concurrency this is the upper bound of the adaptive limit. The default is 64.
+     * </p>
+     *
+     * @param limit The maximum number of concurrent requests.
+     */
+    public static void maxConcurrentRequests(int limit) {
+        maxConcurrentRequests = limit;
+    }
+
+    /**
+     * Retrieves the maximum number of requests handled at the same time.
+     *
+     * @return The maximum number of concurrent requests.
+     */
+    public static int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Sets the lower bound of the adaptive concurrency limit. The default is 4.
+     *
+     * @param limit The minimum number of concurrent requests.
+     */
+    public static void minConcurrentRequests(int limit) {
+        minConcurrentRequests = limit;
+    }
+
+    /**
+     * Retrieves the lower bound of the adaptive concurrency limit.
+     *
+     * @return The minimum number of concurrent requests.
+     */
+    public static int getMinConcurrentRequests() {
+        return minConcurrentRequests;
+    }
+
+    /**
+     * Enables or disables the adaptive concurrency limit.
+     * <p>
+     * When enabled, the limit moves between the minimum and maximum following the measured handler latency
+     * (see {@link ConcurrencyLimiter}). When disabled, the limit is fixed to the maximum. Enabled by default.
+     * </p>
+     *
+     * @param adaptive Whether the concurrency limit adapts to the handler latency.
+     */
+    public static void adaptiveConcurrency(boolean adaptive) {
+        adaptiveConcurrency = adaptive;
+    }
+
+    /**
+     * Tells whether the concurrency limit adapts to the handler latency.
+     *
+     * @return {@code true} if the adaptive limit is enabled.
+     */
+    public static boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    /**
+     * Sets the number of listening sockets and acceptor threads.
+     * <p>
+     * With more than one acceptor the server binds every listening socket to the same port with
+     * {@code SO_REUSEPORT}, and the worker threads and accept queue are split evenly among the acceptors.
+     * Platforms without {@code SO_REUSEPORT} fall back to a single acceptor. The default is 1.
+     * </p>
+     *
+     * @param count The number of acceptors.
+     */
+    public static void acceptors(int count) {
+        acceptors = count;
+    }
+
+    /**
+     * Retrieves the number of listening sockets and acceptor threads.
+     *
+     * @return The number of acceptors.
+     */
+    public static int getAcceptors() {
+        return acceptors;
+    }
+
+    /**
+     * Sets how long an idle connection is kept open waiting for the next request.
+     * <p>
+     * HTTP/1.1 connections are persistent: after a response the worker waits for another request on the same
+     * socket, which saves browsers a TCP handshake per asset. An idle HTTP/2 connection without active
+     * streams is closed with GOAWAY after the same delay. 0 disables the timeout. The default is 5000
+     * milliseconds.
+     * </p>
+     *
+     * @param millis The idle timeout in milliseconds.
+     */
+    public static void keepAliveTimeout(int millis) {
+        keepAliveTimeout = millis;
+    }
+
+    /**
+     * Retrieves how long an idle connection is kept open.
+     *
+     * @return The idle timeout in milliseconds.
+     */
+    public static int getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * Sets how long a client may take to send the request line and headers of a request.
+     * <p>
+     * The deadline covers the whole header section rather than each read, so a client that sends its headers
+     * a few bytes at a time (slowloris) is disconnected once it expires. For the first request of a
+     * connection it also covers the wait for the client to start sending. 0 disables the timeout. The
+     * default is 10000 milliseconds.
+     * </p>
+     *
+     * @param millis The header read timeout in milliseconds.
+     */
+    public static void headerReadTimeout(int millis) {
+        headerReadTimeout = millis;
+    }
+
+    /**
+     * Retrieves how long a client may take to send the request line and headers.
+     *
+     * @return The header read timeout in milliseconds.
+     */
+    public static int getHeaderReadTimeout() {
+        return headerReadTimeout;
+    }
+
+    /**
+     * Sets how long reading the body of a request and handling it may take, for requests that have a body.
+     * 0 disables the timeout. The default is 30000 milliseconds.
+     *
+     * @param millis The body read timeout in milliseconds.
+     */
+    public static void bodyReadTimeout(int millis) {
+        bodyReadTimeout = millis;
+    }
+
+    /**
+     * Retrieves how long reading and handling a request body may take.
+     *
+     * @return The body read timeout in milliseconds.
+     */
+    public static int getBodyReadTimeout() {
+        return bodyReadTimeout;
+    }
+
+    /**
+     * Sets how long sending a response may take. A client that stops reading is disconnected once it
+     * expires. 0 disables the timeout. The default is 30000 milliseconds.
+     *
+     * @param millis The write timeout in milliseconds.
+     */
+    public static void writeTimeout(int millis) {
+        writeTimeout = millis;
+    }
+
+    /**
+     * Retrieves how long sending a response may take.
+     *
+     * @return The write timeout in milliseconds.
+     */
+    public static int getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    /**
+     * Enables or disables cleartext HTTP/2 (h2c).
+     * <p>
+     * When enabled, clients may start a connection with the HTTP/2 preface or upgrade an HTTP/1.1 request with
+     * {@code Upgrade: h2c}, and then multiplex many requests over one socket. Browsers only speak HTTP/2 over
+     * TLS, so they keep using persistent HTTP/1.1 connections. Enabled by default.
+     * </p>
+     *
+     * @param enabled Whether h2c connections are accepted.
+     */
+    public static void http2(boolean enabled) {
+        http2 = enabled;
+    }
+
+    /**
+     * Tells whether cleartext HTTP/2 connections are accepted.
+     *
+     * @return {@code true} if h2c is enabled.
+     */
+    public static boolean isHttp2() {
+        return http2;
+    }
+
+    /**
+     * Sets the largest message a WebSocket client may send. Larger messages close the session with status
+     * 1009 (message too big). The default is 64 KiB.
+     *
+     * @param bytes The maximum message size in bytes.
+     */
+    public static void webSocketMaxMessageSize(int bytes) {
+        webSocketMaxMessageSize = bytes;
+    }
+
+    /**
+     * Retrieves the largest message a WebSocket client may send.
+     *
+     * @return The maximum message size in bytes.
+     */
+    public static int getWebSocketMaxMessageSize() {
+        return webSocketMaxMessageSize;
+    }
+
+    /**
+     * Sets how many bytes may wait to be sent to a WebSocket client. A client that reads too slowly to stay
+     * under the limit is disconnected, so one slow consumer cannot make the server buffer broadcasts without
+     * bound. The default is 1 MiB.
+     *
+     * @param bytes The maximum number of queued bytes per session.
+     */
+    public static void webSocketMaxQueuedBytes(long bytes) {
+        webSocketMaxQueuedBytes = bytes;
+    }
+
+    /**
+     * Retrieves how many bytes may wait to be sent to a WebSocket client.
+     *
+     * @return The maximum number of queued bytes per session.
+     */
+    public static long getWebSocketMaxQueuedBytes() {
+        return webSocketMaxQueuedBytes;
+    }
+
+    /**
+     * Sets how long a WebSocket session may go without receiving a frame. An idle session is sent a ping; if
+     * the client does not answer within the same delay, the session is closed with status 1001 (going away)
+     * and the worker that was reading it is released. 0 disables the timeout. The default is 60000
+     * milliseconds.
+     *
+     * @param millis The idle timeout in milliseconds.
+     */
+    public static void webSocketIdleTimeout(int millis) {
+        webSocketIdleTimeout = millis;
+    }
+
+    /**
+     * Retrieves how long a WebSocket session may go without receiving a frame.
+     *
+     * @return The idle timeout in milliseconds.
+     */
+    public static int getWebSocketIdleTimeout() {
+        return webSocketIdleTimeout;
+    }
+
+    /**
+     * Sets the number of threads that run the calls of batch requests ({@code POST /App/batch}) in parallel.
+     * It takes effect when the first batch arrives. The default is 16 threads.
+     *
+     * @param threads The number of batch threads.
+     */
+    public static void batchThreads(int threads) {
+        batchThreads = threads;
+    }
+
+    /**
+     * Retrieves the number of threads that run the calls of batch requests.
+     *
+     * @return The number of batch threads.
+     */
+    public static int getBatchThreads() {
+        return batchThreads;
+    }
+
+    /**
+     * Sets how many calls a batch request may hold. Larger batches are answered with
+     * {@code 413 Payload Too Large}. The default is 64.
+     *
+     * @param items The maximum number of calls per batch.
+     */
+    public static void batchMaxItems(int items) {
+        batchMaxItems = items;
+    }
+
+    /**
+     * Retrieves how many calls a batch request may hold.
+     *
+     * @return The maximum number of calls per batch.
+     */
+    public static int getBatchMaxItems() {
+        return batchMaxItems;
+    }
+
+    /**
+     * Sets how many rounds of synthetic requests the server sends through its own request pipeline before it
+     * opens the listening socket, so the JIT compiles the hot paths before real traffic arrives. Each round
+     * sends the sample request of every route that has one (see
+     * {@link co.edu.escuelaing.framework.annotations.WarmupSample}), one request for each of the first 64 static
+     * files, and one per line of {@link #warmupFile(String)}. The default is 0, which
+     * disables the warm-up.
+     *
+     * @param iterations The number of warm-up rounds.
+     */
+    public static void warmup(int iterations) {
+        warmupIterations = iterations;
+    }
+
+    /**
+     * Retrieves how many rounds of synthetic requests are sent before the server accepts traffic.
+     *
+     * @return The number of warm-up rounds, 0 if the warm-up is disabled.
+     */
+    public static int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    /**
+     * Sets the time budget of the warm-up. The server stops warming up and starts listening when it runs out,
+     * even if not every round was sent. The default is 30 seconds.
+     *
+     * @param millis The time budget in milliseconds.
+     */
+    public static void warmupTimeout(int millis) {
+        warmupTimeout = millis;
+    }
+
+    /**
+     * Retrieves the time budget of the warm-up.
+     *
+     * @return The time budget in milliseconds.
+     */
+    public static int getWarmupTimeout() {
+        return warmupTimeout;
+    }
+
+    /**
+     * Sets a file with extra warm-up requests, one per line, written as the method, the target and an optional
+     * body separated by spaces (e.g., {@code GET /App/add?a=1&b=2}). Blank lines and lines starting with
+     * {@code #} are ignored. The default is none.
+     *
+     * @param path The path of the file, or {@code null} for none.
+     */
+    public static void warmupFile(String path) {
+        warmupFile = path;
+    }
+
+    /**
+     * Retrieves the file with extra warm-up requests.
+     *
+     * @return The path of the file, or {@code null} if none is set.
+     */
+    public static String getWarmupFile() {
+        return warmupFile;
+    }
+
+    /**
+     * Sets how long the shutdown hook waits for the requests being handled when the JVM is asked to exit
+     * (e.g., on {@code SIGTERM}) before it closes the connections still open. The default is 30 seconds.
+     *
+     * @param millis The drain timeout in milliseconds.
+     */
+    public static void shutdownTimeout(int millis) {
+        shutdownTimeout = millis;
+    }
+
+    /**
+     * Retrieves how long the shutdown hook waits for the requests being handled.
+     *
+     * @return The drain timeout in milliseconds.
+     */
+    public static int getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    /**
+     * Sets how often the {@link FrontProxy} checks the readiness of its workers. A worker that fails a check is
+     * taken out of rotation until it passes one again. The default is 1000 milliseconds.
+     *
+     * @param millis The interval between checks in milliseconds.
+     */
+    public static void proxyHealthCheckInterval(int millis) {
+        proxyHealthCheckInterval = millis;
+    }
+
+    /**
+     * Retrieves how often the {@link FrontProxy} checks the readiness of its workers.
+     *
+     * @return The interval between checks in milliseconds.
+     */
+    public static int getProxyHealthCheckInterval() {
+        return proxyHealthCheckInterval;
+    }
+
+    /**
+     * Sets how many idle keep-alive connections the {@link FrontProxy} keeps open to each worker for later
+     * requests. The default is 32.
+     *
+     * @param count The number of idle connections per worker.
+     */
+    public static void proxyMaxIdleConnections(int count) {
+        proxyMaxIdleConnections = count;
+    }
+
+    /**
+     * Retrieves how many idle connections the {@link FrontProxy} keeps open to each worker.
+     *
+     * @return The number of idle connections per worker.
+     */
+    public static int getProxyMaxIdleConnections() {
+        return proxyMaxIdleConnections;
+    }
+
+    /**
+     * Enables or disables hot reload of controllers.
+     * <p>
+     * When enabled, {@link SpringECI} watches the directory the application classes were loaded from. When a
+     * class file changes, the controllers are loaded again in a new class loader and the route table is
+     * replaced atomically, without restarting the server. The framework's own classes are never reloaded.
+     * Because {@link SpringECI} starts watching before the application's {@code main} runs, the flag is
+     * usually set with the {@code springeci.hotReload} system property ({@code -Dspringeci.hotReload=true}).
+     * Disabled by default.
+     * </p>
+     *
+     * @param enabled Whether changed controllers are reloaded.
+     */
+    public static void hotReload(boolean enabled) {
+        hotReload = enabled;
+    }
+
+    /**
+     * Tells whether changed controllers are reloaded.
+     *
+     * @return {@code true} if hot reload is enabled.
+     */
+    public static boolean isHotReload() {
+        return hotReload;
+    }
+
+    /**
+     * Limits how many requests each client (remote address) may send.
+     * <p>
+     * Every client gets a token bucket that refills at {@code requestsPerSecond} and holds up to {@code burst}
+     * requests. Requests over the limit are answered with {@code 429 Too Many Requests} right after their
+     * request line is read (see {@link RateLimiter}). There is no limit by default.
+     * </p>
+     *
+     * @param requestsPerSecond The sustained rate allowed per client.
+     * @param burst             The number of requests a client may send at once.
+     */
+    public static void rateLimit(double requestsPerSecond, int burst) {
+        rateLimit = new RateLimiter.Limit(requestsPerSecond, burst);
+    }
+
+    /**
+     * Retrieves the limit applied to every client.
+     *
+     * @return The limit, or {@code null} if there is none.
+     */
+    public static RateLimiter.Limit getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Limits how many requests each client may send to the paths that start with a prefix, in addition to the
+     * limit set with {@link #rateLimit(double, int)}. When several prefixes match a path, the first one
+     * configured applies.
+     *
+     * @param pathPrefix        The prefix of the limited paths (e.g., "/App/report").
+     * @param requestsPerSecond The sustained rate allowed per client.
+     * @param burst             The number of requests a client may send at once.
+     */
+    public static void routeRateLimit(String pathPrefix, double requestsPerSecond, int burst) {
+        routeRateLimits.put(pathPrefix, new RateLimiter.Limit(requestsPerSecond, burst));
+    }
+
+    /**
+     * Retrieves the per-route limits, in the order they were configured.
+     *
+     * @return An unmodifiable map of path prefixes to limits.
+     */
+    public static Map<String, RateLimiter.Limit> getRouteRateLimits() {
+        return Collections.unmodifiableMap(routeRateLimits);
+    }
 }
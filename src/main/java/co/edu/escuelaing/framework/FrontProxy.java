@@ -0,0 +1,762 @@
+package co.edu.escuelaing.framework;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A front proxy that spreads the requests of its clients over several worker processes on the same host, each
+ * running a {@link WebServer} on its own port or Unix domain socket.
+ * <p>
+ * One JVM stops scaling once garbage collection and its accept loop are saturated; running several workers
+ * behind the proxy gives each of them its own heap, collector and acceptor. Every request goes to the healthy
+ * worker with the fewest requests in flight, starting the comparison at a rotating position so that idle
+ * workers take turns. Requests travel over persistent connections that are kept in a pool for each worker
+ * (see {@link FrameworkConfig#getProxyMaxIdleConnections()}), so the proxy pays a connection setup only when
+ * the pool is empty.
+ * </p>
+ * <p>
+ * Every worker is asked for its {@link WebServer#READINESS_PATH readiness} each
+ * {@link FrameworkConfig#getProxyHealthCheckInterval()}; a worker is in rotation only while it answers
+ * {@code 200}, so workers that are starting, warming up, draining or gone get no traffic. A worker that refuses
+ * a connection is taken out at once, and the request is sent to another one. A request that reached a worker
+ * is sent again only when no byte of the response has reached the client, its method is idempotent
+ * ({@code GET}, {@code HEAD}, {@code PUT}, {@code DELETE} or {@code OPTIONS}) and its body was buffered:
+ * bodies up to {@link FrameworkConfig#getMaxInMemoryBodySize()} are, larger ones are streamed to a single
+ * worker. A chunked body is buffered until it passes that size; the rest is then streamed in chunks after the
+ * buffered part. Other requests go on a new connection and are answered with {@code 502} if it fails once
+ * connected.
+ * </p>
+ * <p>
+ * The proxy speaks HTTP/1.1 to clients and workers: the hop-by-hop headers of each side are dropped, so
+ * WebSocket and h2c upgrades are not forwarded. Responses keep their framing and are relayed as they arrive.
+ * Workers on Unix domain sockets have no read timeout, so a worker that hangs there holds the client's
+ * connection until it is stopped.
+ * </p>
+ *
+ * <p>Run it with four workers on ports 9001 to 9004, started as child processes:</p>
+ * <pre>
+ * java -cp target/classes co.edu.escuelaing.framework.FrontProxy --port 8080 --workers 4 --base-port 9001
+ * </pre>
+ * <p>With {@code --unix /tmp/springeci} the workers listen on {@code /tmp/springeci/worker-N.sock} instead,
+ * and {@code --main} names the class the workers run (default {@link SpringECI}).</p>
+ */
+public final class FrontProxy implements Closeable {
+    private static final Set<String> HOP_BY_HOP = Set.of("connection", "keep-alive", "proxy-connection", "te",
+            "trailer", "transfer-encoding", "upgrade", "http2-settings", "expect", "content-length");
+    private static final Set<String> IDEMPOTENT = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+    private static final HttpResponse BAD_GATEWAY = HttpResponse.cached("502 Bad Gateway", "text/plain",
+            "No worker could answer the request".getBytes(StandardCharsets.US_ASCII));
+    private static final HttpResponse SERVICE_UNAVAILABLE = HttpResponse.cached("503 Service Unavailable",
+            "text/plain", "Server busy".getBytes(StandardCharsets.US_ASCII));
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] READINESS_CHECK = ("GET " + WebServer.READINESS_PATH
+            + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+
+    private final List<Worker> workers;
+    private final AtomicInteger rotation = new AtomicInteger();
+    private ServerSocket serverSocket;
+    private ThreadPoolExecutor clients;
+    private ScheduledExecutorService healthChecks;
+    private volatile boolean closed;
+
+    /**
+     * Creates a proxy for workers that are already running or will be started.
+     *
+     * @param addresses The address of every worker: an {@link InetSocketAddress} or a
+     *                  {@link UnixDomainSocketAddress}
+     */
+    public FrontProxy(List<? extends SocketAddress> addresses) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("The proxy needs at least one worker");
+        }
+        List<Worker> list = new ArrayList<>();
+        for (SocketAddress address : addresses) {
+            list.add(new Worker(address));
+        }
+        this.workers = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Starts the health checks and accepts clients on a port. Workers join the rotation once they pass their
+     * first health check.
+     *
+     * @param port The port, or 0 for any free port (see {@link #getPort()})
+     * @throws IOException If the port cannot be bound
+     */
+    public synchronized void start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, FrameworkConfig.getAcceptQueueSize());
+        AtomicInteger threadCount = new AtomicInteger();
+        clients = new ThreadPoolExecutor(FrameworkConfig.getWorkerThreads(), FrameworkConfig.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(FrameworkConfig.getAcceptQueueSize()),
+                task -> daemon(task, "proxy-worker-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        healthChecks = Executors.newScheduledThreadPool(workers.size(),
+                task -> daemon(task, "proxy-health-" + threadCount.incrementAndGet()));
+        int interval = FrameworkConfig.getProxyHealthCheckInterval();
+        for (Worker worker : workers) {
+            healthChecks.scheduleWithFixedDelay(() -> check(worker), 0, interval, TimeUnit.MILLISECONDS);
+        }
+        Connection.Listener listener = Connection.listen(serverSocket);
+        Thread acceptor = new Thread(() -> acceptLoop(listener), "proxy-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * Returns the port the proxy accepts clients on.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the workers, in the order they were given.
+     *
+     * @return The workers
+     */
+    public List<Worker> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Stops accepting clients and checking workers, and closes the pooled connections. Requests in flight are
+     * allowed to finish.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+            clients.shutdown();
+            healthChecks.shutdownNow();
+        }
+        workers.forEach(Worker::closeIdle);
+    }
+
+    private void acceptLoop(Connection.Listener listener) {
+        try (listener) {
+            while (true) {
+                Connection client = listener.accept();
+                try {
+                    clients.execute(() -> serve(client));
+                } catch (RejectedExecutionException e) {
+                    try (Connection rejected = client) {
+                        SERVICE_UNAVAILABLE.writeTo(rejected.getOutputStream(), false);
+                    } catch (IOException ignored) {
+                        // The client is gone
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Could not accept connections on " + listener.describe());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Relays the requests of a client connection one after another, as long as it is persistent.
+     */
+    private void serve(Connection client) {
+        try (client) {
+            client.setReadTimeout(FrameworkConfig.getKeepAliveTimeout());
+            InputStream in = new BufferedInputStream(client.getInputStream());
+            OutputStream out = new BufferedOutputStream(client.getOutputStream());
+            InetAddress address = client.getInetAddress();
+            String forwardedFor = address != null ? address.getHostAddress() : null;
+            while (!closed) {
+                HttpRequest request;
+                boolean keepAlive;
+                try {
+                    request = HttpRequest.parse(in, FrameworkConfig.getMaxRequestBodySize());
+                    if (request == null) {
+                        return;
+                    }
+                    keepAlive = forward(request, forwardedFor, out, WebServer.isKeepAlive(request) && !closed);
+                } catch (HttpException e) {
+                    new HttpResponse(e.getStatus(), "text/plain", e.getMessage().getBytes(StandardCharsets.UTF_8))
+                            .writeTo(out, false);
+                    out.flush();
+                    return;
+                }
+                if (!keepAlive) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The client or a worker went away in the middle of an exchange; the client sees a closed connection
+        }
+    }
+
+    /**
+     * Sends a request to a worker and relays its response to the client.
+     *
+     * @return Whether the client connection can be used for another request
+     */
+    private boolean forward(HttpRequest request, String forwardedFor, OutputStream out, boolean keepAlive)
+            throws IOException {
+        if ("100-continue".equalsIgnoreCase(request.getHeader("Expect"))) {
+            out.write(CONTINUE);
+            out.flush();
+        }
+        boolean chunked = request.getHeader("Transfer-Encoding") != null;
+        long length = request.getContentLength();
+        long maxInMemory = FrameworkConfig.getMaxInMemoryBodySize();
+        byte[] body = null;
+        if (chunked) {
+            // The size is unknown: buffer up to the limit, and stream the rest if there is more
+            body = request.getBody().readNBytes((int) Math.min(maxInMemory + 1, Integer.MAX_VALUE - 8));
+            if (body.length <= maxInMemory) {
+                chunked = false;
+                length = body.length;
+            }
+        } else if (length > 0 && length <= maxInMemory) {
+            body = request.readBodyBytes(maxInMemory);
+        }
+        // A streamed body is read as it is sent, so it cannot be sent again. Once its head is sent, a worker may
+        // have acted on a request even if no response came back, so only requests that are safe to repeat are
+        // sent again. Any other one goes on a new connection, so that the only failure retried is the connect
+        boolean replayable = !chunked && (body != null || length <= 0) && IDEMPOTENT.contains(request.getMethod());
+        byte[] head = requestHead(request, forwardedFor, length, chunked);
+
+        Set<Worker> failed = new HashSet<>();
+        boolean fresh = !replayable;
+        for (int attempt = 0; attempt <= workers.size(); attempt++) {
+            Worker worker = choose(failed);
+            if (worker == null) {
+                break;
+            }
+            worker.outstanding.incrementAndGet();
+            try {
+                Upstream upstream = fresh ? null : worker.borrow();
+                boolean reused = upstream != null;
+                if (!reused) {
+                    try {
+                        upstream = worker.open();
+                    } catch (IOException e) {
+                        worker.healthy = false;
+                        failed.add(worker);
+                        continue;
+                    }
+                }
+                ResponseHead response;
+                try {
+                    upstream.out.write(head);
+                    if (chunked) {
+                        writeChunked(body, request.getBody(), upstream.out);
+                    } else if (body != null) {
+                        upstream.out.write(body);
+                    } else if (length > 0) {
+                        request.getBody().transferTo(upstream.out);
+                    }
+                    upstream.out.flush();
+                    response = ResponseHead.read(upstream.in);
+                } catch (IOException e) {
+                    upstream.close();
+                    if (!replayable) {
+                        break;
+                    }
+                    if (reused) {
+                        // The worker closed the pooled connection while it was idle; try again on a new one
+                        fresh = true;
+                    } else {
+                        failed.add(worker);
+                    }
+                    continue;
+                }
+                // From here the response is on its way to the client, so a failure can no longer be retried
+                return relay(request, response, worker, upstream, out, keepAlive);
+            } finally {
+                worker.outstanding.decrementAndGet();
+            }
+        }
+        BAD_GATEWAY.writeTo(out, false);
+        out.flush();
+        return false;
+    }
+
+    /**
+     * Copies the response of a worker to the client and returns the worker connection to its pool if it can be
+     * reused.
+     *
+     * @return Whether the client connection can be used for another request
+     */
+    private boolean relay(HttpRequest request, ResponseHead response, Worker worker, Upstream upstream,
+                          OutputStream out, boolean keepAlive) throws IOException {
+        boolean noBody = "HEAD".equals(request.getMethod()) || response.status == 204 || response.status == 304
+                || response.status / 100 == 1;
+        boolean untilClose = !noBody && !response.chunked && response.contentLength < 0;
+        keepAlive = keepAlive && !untilClose;
+        try {
+            writeLine(out, response.statusLine);
+            for (String line : response.headers) {
+                writeLine(out, line);
+            }
+            writeLine(out, keepAlive ? "Connection: keep-alive" : "Connection: close");
+            out.write(CRLF);
+            if (noBody) {
+                // Nothing follows the headers
+            } else if (response.chunked) {
+                copyChunked(upstream.in, out);
+            } else if (response.contentLength >= 0) {
+                copy(upstream.in, out, response.contentLength);
+            } else {
+                upstream.in.transferTo(out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            upstream.close();
+            throw e;
+        }
+        if (response.close || untilClose || closed) {
+            upstream.close();
+        } else {
+            worker.release(upstream);
+        }
+        return keepAlive;
+    }
+
+    /**
+     * Encodes the request line and headers to send to a worker: hop-by-hop headers are dropped, the body is
+     * announced with {@code Content-Length}, or as chunked when it is streamed without a known length, and the
+     * client's address is appended to {@code X-Forwarded-For}.
+     */
+    private static byte[] requestHead(HttpRequest request, String forwardedFor, long length, boolean chunked) {
+        StringBuilder head = new StringBuilder(256);
+        head.append(request.getMethod()).append(' ').append(request.getTarget()).append(" HTTP/1.1\r\n");
+        String previous = null;
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            String name = header.getKey();
+            if (name.equalsIgnoreCase("X-Forwarded-For")) {
+                previous = header.getValue();
+            } else if (!HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT))) {
+                head.append(name).append(": ").append(header.getValue()).append("\r\n");
+            }
+        }
+        if (forwardedFor != null) {
+            head.append("X-Forwarded-For: ").append(previous != null ? previous + ", " : "").append(forwardedFor)
+                    .append("\r\n");
+        } else if (previous != null) {
+            head.append("X-Forwarded-For: ").append(previous).append("\r\n");
+        }
+        if (chunked) {
+            head.append("Transfer-Encoding: chunked\r\n");
+        } else if (length > 0) {
+            head.append("Content-Length: ").append(length).append("\r\n");
+        }
+        head.append("\r\n");
+        return head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Picks the healthy worker with the fewest requests in flight, looking at the workers from a rotating
+     * position so that ties are spread evenly.
+     *
+     * @param failed The workers that already failed this request
+     * @return The worker, or {@code null} if none is available
+     */
+    private Worker choose(Set<Worker> failed) {
+        int size = workers.size();
+        int start = Math.floorMod(rotation.getAndIncrement(), size);
+        Worker best = null;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Worker worker = workers.get((start + i) % size);
+            int outstanding = worker.outstanding.get();
+            if (worker.healthy && outstanding < fewest && !failed.contains(worker)) {
+                best = worker;
+                fewest = outstanding;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Asks a worker whether it is ready and updates its place in the rotation.
+     */
+    private void check(Worker worker) {
+        boolean healthy;
+        try (Connection connection = Connection.connect(worker.address, FrameworkConfig.getProxyHealthCheckInterval())) {
+            OutputStream out = connection.getOutputStream();
+            out.write(READINESS_CHECK);
+            out.flush();
+            String status = HttpRequest.readLine(new BufferedInputStream(connection.getInputStream()));
+            healthy = status != null && status.startsWith("HTTP/1.1 200 ");
+        } catch (IOException | HttpException e) {
+            healthy = false;
+        }
+        if (!healthy) {
+            worker.closeIdle();
+        }
+        worker.healthy = healthy && !closed;
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (length > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+            if (n < 0) {
+                throw new EOFException("The worker closed the connection in the middle of a response");
+            }
+            out.write(buffer, 0, n);
+            length -= n;
+        }
+    }
+
+    /**
+     * Sends the buffered start of a request body and then the rest of it as chunks, as it arrives.
+     */
+    private static void writeChunked(byte[] start, InputStream rest, OutputStream out) throws IOException {
+        writeChunk(out, start, start.length);
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = rest.read(buffer)) != -1) {
+            writeChunk(out, buffer, n);
+        }
+        out.write(LAST_CHUNK);
+    }
+
+    private static void writeChunk(OutputStream out, byte[] data, int length) throws IOException {
+        if (length > 0) {
+            writeLine(out, Integer.toHexString(length));
+            out.write(data, 0, length);
+            out.write(CRLF);
+        }
+    }
+
+    /**
+     * Copies a chunked body as it is, chunk after chunk, up to and including its trailer section.
+     */
+    private static void copyChunked(InputStream in, OutputStream out) throws IOException {
+        while (true) {
+            String sizeLine = requireLine(in);
+            writeLine(out, sizeLine);
+            int extension = sizeLine.indexOf(';');
+            long size;
+            try {
+                size = Long.parseLong((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed chunk size from worker: " + sizeLine);
+            }
+            if (size == 0) {
+                String trailer;
+                do {
+                    trailer = requireLine(in);
+                    writeLine(out, trailer);
+                } while (!trailer.isEmpty());
+                return;
+            }
+            copy(in, out, size);
+            requireLine(in);
+            out.write(CRLF);
+        }
+    }
+
+    private static String requireLine(InputStream in) throws IOException {
+        String line = HttpRequest.readLine(in);
+        if (line == null) {
+            throw new EOFException("The worker closed the connection in the middle of a response");
+        }
+        return line;
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(CRLF);
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Starts a worker process that runs a main class of this class path and listens on an address. The address
+     * is passed with the {@code springeci.port} and {@code springeci.unixSocket} system properties, which
+     * {@link FrameworkConfig} reads; the process shares this one's standard output and error.
+     *
+     * @param address   An {@link InetSocketAddress} on this host or a {@link UnixDomainSocketAddress}
+     * @param mainClass The class whose {@code main} starts the server, such as {@link SpringECI}
+     * @return The worker process
+     * @throws IOException If the process cannot be started
+     */
+    public static Process spawn(SocketAddress address, String mainClass) throws IOException {
+        return spawn(address, mainClass, ProcessBuilder.Redirect.INHERIT);
+    }
+
+    /**
+     * Starts a worker process like {@link #spawn(SocketAddress, String)}, sending its standard output and error
+     * to a destination of their own, such as a log file opened with {@link ProcessBuilder.Redirect#appendTo}
+     * or {@link ProcessBuilder.Redirect#DISCARD}. Workers started from a process whose output is read by
+     * another program, such as a test runner, must not share that output.
+     *
+     * @param address   An {@link InetSocketAddress} on this host or a {@link UnixDomainSocketAddress}
+     * @param mainClass The class whose {@code main} starts the server, such as {@link SpringECI}
+     * @param output    Where the worker's standard output and error go
+     * @return The worker process
+     * @throws IOException If the process cannot be started
+     */
+    public static Process spawn(SocketAddress address, String mainClass, ProcessBuilder.Redirect output)
+            throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        if (address instanceof UnixDomainSocketAddress) {
+            command.add("-Dspringeci.port=0");
+            command.add("-Dspringeci.unixSocket=" + ((UnixDomainSocketAddress) address).getPath());
+        } else {
+            command.add("-Dspringeci.port=" + ((InetSocketAddress) address).getPort());
+        }
+        command.add(mainClass);
+        return new ProcessBuilder(command).redirectOutput(output).redirectError(output).start();
+    }
+
+    /**
+     * Starts the worker processes and a proxy in front of them. When the proxy is asked to exit, it stops
+     * accepting clients and stops the workers, which drain their requests.
+     *
+     * @param args {@code --port}, {@code --workers}, {@code --base-port}, {@code --unix} and {@code --main}
+     * @throws IOException If a worker cannot be started or the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        int count = Integer.parseInt(options.getOrDefault("workers",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int basePort = Integer.parseInt(options.getOrDefault("base-port", "9001"));
+        String unixDirectory = options.get("unix");
+        String mainClass = options.getOrDefault("main", SpringECI.class.getName());
+
+        List<SocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (unixDirectory != null) {
+                Path path = Paths.get(unixDirectory, "worker-" + (i + 1) + ".sock");
+                addresses.add(UnixDomainSocketAddress.of(path));
+            } else {
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), basePort + i));
+            }
+        }
+        List<Process> processes = new ArrayList<>();
+        for (SocketAddress address : addresses) {
+            processes.add(spawn(address, mainClass));
+        }
+        FrontProxy proxy = new FrontProxy(addresses);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            proxy.close();
+            processes.forEach(Process::destroy);
+            for (Process process : processes) {
+                try {
+                    if (!process.waitFor(FrameworkConfig.getShutdownTimeout(), TimeUnit.MILLISECONDS)) {
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                }
+            }
+        }, "proxy-shutdown"));
+        proxy.start(port);
+        System.out.println("Proxying port " + proxy.getPort() + " to " + addresses);
+    }
+
+    /**
+     * A worker the proxy sends requests to.
+     */
+    public static final class Worker {
+        private final SocketAddress address;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final ConcurrentLinkedDeque<Upstream> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private volatile boolean healthy;
+
+        private Worker(SocketAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * Returns the address of the worker.
+         *
+         * @return The address
+         */
+        public SocketAddress getAddress() {
+            return address;
+        }
+
+        /**
+         * Tells whether the worker is in rotation: its last health check passed and it has not refused a
+         * connection since.
+         *
+         * @return {@code true} if requests are sent to the worker
+         */
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        /**
+         * Returns the number of requests the worker is handling for the proxy.
+         *
+         * @return The requests in flight
+         */
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        private Upstream open() throws IOException {
+            return new Upstream(Connection.connect(address, FrameworkConfig.getBodyReadTimeout()));
+        }
+
+        /**
+         * Takes the most recently used idle connection, which is the least likely to have been closed by the
+         * worker's keep-alive timeout.
+         */
+        private Upstream borrow() {
+            Upstream upstream = idle.pollFirst();
+            if (upstream != null) {
+                idleCount.decrementAndGet();
+            }
+            return upstream;
+        }
+
+        private void release(Upstream upstream) {
+            if (idleCount.incrementAndGet() <= FrameworkConfig.getProxyMaxIdleConnections()) {
+                idle.offerFirst(upstream);
+            } else {
+                idleCount.decrementAndGet();
+                upstream.close();
+            }
+        }
+
+        private void closeIdle() {
+            Upstream upstream;
+            while ((upstream = borrow()) != null) {
+                upstream.close();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return address + (healthy ? " (healthy, " + outstanding.get() + " in flight)" : " (out of rotation)");
+        }
+    }
+
+    /**
+     * A connection from the proxy to a worker.
+     */
+    private static final class Upstream {
+        final Connection connection;
+        final InputStream in;
+        final OutputStream out;
+
+        Upstream(Connection connection) {
+            this.connection = connection;
+            this.in = new BufferedInputStream(connection.getInputStream());
+            this.out = new BufferedOutputStream(connection.getOutputStream());
+        }
+
+        void close() {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * The status line and headers of a worker's response, without the hop-by-hop headers, and how its body is
+     * framed.
+     */
+    private static final class ResponseHead {
+        final String statusLine;
+        final int status;
+        final List<String> headers = new ArrayList<>();
+        long contentLength = -1;
+        boolean chunked;
+        boolean close;
+
+        private ResponseHead(String statusLine) throws IOException {
+            this.statusLine = statusLine;
+            String[] parts = statusLine.split(" ", 3);
+            try {
+                this.status = Integer.parseInt(parts[1]);
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed status line from worker: " + statusLine);
+            }
+            this.close = !statusLine.startsWith("HTTP/1.1 ");
+        }
+
+        static ResponseHead read(InputStream in) throws IOException {
+            ResponseHead head = new ResponseHead(requireLine(in));
+            String line;
+            while (!(line = requireLine(in)).isEmpty()) {
+                int colon = line.indexOf(':');
+                String name = colon > 0 ? line.substring(0, colon).trim().toLowerCase(Locale.ROOT) : "";
+                String value = colon > 0 ? line.substring(colon + 1).trim() : "";
+                switch (name) {
+                    case "content-length":
+                        try {
+                            head.contentLength = Long.parseLong(value);
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Malformed Content-Length from worker: " + value);
+                        }
+                        head.headers.add(line);
+                        break;
+                    case "transfer-encoding":
+                        head.chunked = value.toLowerCase(Locale.ROOT).endsWith("chunked");
+                        head.headers.add(line);
+                        break;
+                    case "connection":
+                        head.close = value.equalsIgnoreCase("close");
+                        break;
+                    case "keep-alive":
+                    case "proxy-connection":
+                        break;
+                    default:
+                        head.headers.add(line);
+                }
+            }
+            return head;
+        }
+    }
+}
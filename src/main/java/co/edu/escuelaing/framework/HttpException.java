@@ -0,0 +1,34 @@
+package co.edu.escuelaing.framework;
+
+/**
+ * Signals that a request cannot be served and must be answered with a specific HTTP error status.
+ * <p>
+ * It is thrown while parsing or binding a request (e.g., a malformed request line, an unsupported
+ * transfer coding or a body that exceeds the configured limits) and is turned into a response by
+ * {@link WebServer}.
+ * </p>
+ */
+public class HttpException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final String status;
+
+    /**
+     * Creates a new exception for the given status.
+     *
+     * @param status  The HTTP status line to answer with (e.g., "413 Payload Too Large")
+     * @param message The message sent as the response body
+     */
+    public HttpException(String status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * Returns the HTTP status line associated with this error.
+     *
+     * @return The HTTP status line
+     */
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,25 @@
+package co.edu.escuelaing.framework;
+
+import java.io.IOException;
+
+/**
+ * Turns a request into a response, independently of the protocol the request arrived with.
+ * <p>
+ * {@link WebServer} implements the routing to services and static files behind this interface so that the
+ * HTTP/1.1 connection loop and the HTTP/2 streams share the same pipeline. The returned response may refer
+ * to a {@link ResponseBuffer}, so it must be written on the thread that called the handler before that
+ * thread handles another request.
+ * </p>
+ */
+@FunctionalInterface
+public interface HttpHandler {
+
+    /**
+     * Handles a request.
+     *
+     * @param request The request to handle
+     * @return The response to send
+     * @throws IOException If an I/O error occurs while reading the request body
+     */
+    HttpResponse handle(HttpRequest request) throws IOException;
+}
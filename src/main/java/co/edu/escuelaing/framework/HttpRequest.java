@@ -0,0 +1,322 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Represents an HTTP/1.1 request read from a client connection.
+ * <p>
+ * The request line and the header section are parsed eagerly, while the body is exposed as a bounded
+ * stream positioned right after the headers. The body stream honors {@code Content-Length} and
+ * {@code Transfer-Encoding: chunked} and never reads past the end of the current request.
+ * </p>
+ */
+public class HttpRequest {
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final int MAX_HEADER_COUNT = 100;
+    private static final int MAX_HEADER_SECTION_SIZE = 64 * 1024;
+    /**
+     * Thrown by {@link #parse(InputStream, long, Predicate)} when a request is not admitted. It is shared, so
+     * that rejecting a request allocates nothing.
+     */
+    static final HttpException TOO_MANY_REQUESTS = new HttpException("429 Too Many Requests", "Too many requests");
+    private static final InputStream EMPTY_BODY = new ContentLengthInputStream(new ByteArrayInputStream(new byte[0]), 0);
+
+    private final String method;
+    private final String target;
+    private final String protocol;
+    private final Map<String, String> headers;
+    private final long contentLength;
+    private final InputStream body;
+
+    /**
+     * Creates a request from its already parsed parts.
+     *
+     * @param method   The method token of the request line (e.g., "POST")
+     * @param target   The request target, including the query string
+     * @param protocol The protocol version (e.g., "HTTP/1.1")
+     * @param headers  The header fields, keyed case-insensitively
+     * @param body     The request body stream
+     */
+    public HttpRequest(String method, String target, String protocol, Map<String, String> headers, InputStream body) {
+        this.method = method;
+        this.target = target;
+        this.protocol = protocol;
+        TreeMap<String, String> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        copy.putAll(headers);
+        this.headers = Collections.unmodifiableMap(copy);
+        this.contentLength = parseContentLength(copy);
+        this.body = body;
+    }
+
+    /**
+     * Reads the request line and headers of the next request on a connection.
+     *
+     * @param in               The connection input stream; it should be buffered
+     * @param maxBodySize      The largest body accepted for this request
+     * @return The parsed request, or {@code null} if the connection was closed before a request arrived
+     * @throws IOException   If an I/O error occurs while reading from the connection
+     * @throws HttpException If the request is malformed or announces a body larger than {@code maxBodySize}
+     */
+    public static HttpRequest parse(InputStream in, long maxBodySize) throws IOException {
+        return parse(in, maxBodySize, null);
+    }
+
+    /**
+     * Reads the request line and headers of the next request on a connection, checking the request target
+     * with an admission test as soon as the request line has been read.
+     *
+     * @param in               The connection input stream; it should be buffered
+     * @param maxBodySize      The largest body accepted for this request
+     * @param admission        Tells whether a request target may proceed, or {@code null} to admit all
+     * @return The parsed request, or {@code null} if the connection was closed before a request arrived
+     * @throws IOException   If an I/O error occurs while reading from the connection
+     * @throws HttpException If the request is malformed or announces a body larger than {@code maxBodySize}, or
+     *                       {@link #TOO_MANY_REQUESTS} if it is not admitted; the headers are not read then
+     */
+    public static HttpRequest parse(InputStream in, long maxBodySize, Predicate<String> admission) throws IOException {
+        String requestLine = readLine(in);
+        while (requestLine != null && requestLine.isEmpty()) {
+            // Tolerate stray CRLFs between requests
+            requestLine = readLine(in);
+        }
+        if (requestLine == null) {
+            return null;
+        }
+        String[] requestParts = requestLine.split(" ");
+        if (requestParts.length != 3 || !requestParts[2].startsWith("HTTP/")) {
+            throw new HttpException("400 Bad Request", "Malformed request line");
+        }
+        if (admission != null && !admission.test(requestParts[1])) {
+            throw TOO_MANY_REQUESTS;
+        }
+
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        // Limits count header lines and bytes, not map entries: repeated names are folded into one entry, which
+        // would otherwise grow without bound
+        int count = 0;
+        int size = 0;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            size += line.length() + 2;
+            if (++count > MAX_HEADER_COUNT || size > MAX_HEADER_SECTION_SIZE) {
+                throw new HttpException("431 Request Header Fields Too Large", "Too many or too large headers");
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new HttpException("400 Bad Request", "Malformed header");
+            }
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            headers.merge(name, value, (first, second) -> first + ", " + second);
+        }
+        if (line == null) {
+            throw new HttpException("400 Bad Request", "Incomplete header section");
+        }
+
+        return new HttpRequest(requestParts[0], requestParts[1], requestParts[2], headers,
+                bodyStream(in, headers, maxBodySize));
+    }
+
+    /**
+     * Builds the stream that exposes the body of a request according to its framing headers.
+     */
+    private static InputStream bodyStream(InputStream in, Map<String, String> headers, long maxBodySize) {
+        String transferEncoding = headers.get("Transfer-Encoding");
+        if (transferEncoding != null) {
+            String[] codings = transferEncoding.split(",");
+            if (!"chunked".equalsIgnoreCase(codings[codings.length - 1].trim())) {
+                throw new HttpException("501 Not Implemented", "Unsupported transfer coding");
+            }
+            return new ChunkedInputStream(in, maxBodySize);
+        }
+        long length = parseContentLength(headers);
+        if (length > maxBodySize) {
+            throw new HttpException("413 Payload Too Large", "Request body too large");
+        }
+        return length > 0 ? new ContentLengthInputStream(in, length) : EMPTY_BODY;
+    }
+
+    private static long parseContentLength(Map<String, String> headers) {
+        String value = headers.get("Content-Length");
+        if (value == null || headers.containsKey("Transfer-Encoding")) {
+            return -1;
+        }
+        try {
+            long length = Long.parseLong(value.trim());
+            if (length < 0) {
+                throw new NumberFormatException(value);
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            throw new HttpException("400 Bad Request", "Invalid Content-Length");
+        }
+    }
+
+    /**
+     * Reads a CRLF (or bare LF) terminated line, decoding bytes as ISO-8859-1.
+     *
+     * @param in The stream to read from
+     * @return The line without its terminator, or {@code null} if the stream ended before any byte was read
+     * @throws IOException   If an I/O error occurs
+     * @throws HttpException If the line is longer than the allowed maximum
+     */
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new HttpException("400 Bad Request", "Line too long");
+            }
+            line.append((char) b);
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    /**
+     * Reads the whole body into memory.
+     *
+     * @param maxBytes The largest body that may be buffered
+     * @return The body bytes
+     * @throws IOException   If an I/O error occurs while reading the body
+     * @throws HttpException If the body is larger than {@code maxBytes}
+     */
+    public byte[] readBodyBytes(long maxBytes) throws IOException {
+        if (contentLength > maxBytes) {
+            throw new HttpException("413 Payload Too Large", "Request body too large to buffer");
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 256);
+        byte[] chunk = new byte[8192];
+        long total = 0;
+        int n;
+        while ((n = body.read(chunk)) != -1) {
+            total += n;
+            if (total > maxBytes) {
+                throw new HttpException("413 Payload Too Large", "Request body too large to buffer");
+            }
+            buffer.write(chunk, 0, n);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Reads the whole body into memory and decodes it using the charset of the {@code Content-Type}
+     * header, or UTF-8 if none is given.
+     *
+     * @param maxBytes The largest body that may be buffered
+     * @return The decoded body
+     * @throws IOException   If an I/O error occurs while reading the body
+     * @throws HttpException If the body is larger than {@code maxBytes}
+     */
+    public String readBodyString(long maxBytes) throws IOException {
+        return new String(readBodyBytes(maxBytes), getCharset());
+    }
+
+    private Charset getCharset() {
+        String contentType = headers.get("Content-Type");
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String[] keyValue = parameter.trim().split("=", 2);
+                if (keyValue.length == 2 && "charset".equalsIgnoreCase(keyValue[0])) {
+                    try {
+                        return Charset.forName(keyValue[1].replace("\"", "").trim());
+                    } catch (IllegalArgumentException e) {
+                        throw new HttpException("415 Unsupported Media Type", "Unsupported charset");
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Returns the method token exactly as sent by the client.
+     *
+     * @return The method token
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the request method if it is supported by the framework.
+     *
+     * @return The request method, or {@code null} if it is not supported
+     */
+    public RequestMethod getRequestMethod() {
+        return RequestMethod.resolve(method);
+    }
+
+    /**
+     * Returns the request target, including the query string.
+     *
+     * @return The request target
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the protocol version of the request line.
+     *
+     * @return The protocol version (e.g., "HTTP/1.1")
+     */
+    public String getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Returns the value of a header field. Names are compared case-insensitively and repeated fields are
+     * joined with commas.
+     *
+     * @param name The header name
+     * @return The header value, or {@code null} if the header is absent
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * Returns all header fields of the request.
+     *
+     * @return An unmodifiable, case-insensitive map of header fields
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the announced body length.
+     *
+     * @return The value of {@code Content-Length}, or {@code -1} if the body is chunked or has no length
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Returns the body of the request as a stream. The stream ends at the end of the body.
+     *
+     * @return The body stream
+     */
+    public InputStream getBody() {
+        return body;
+    }
+}
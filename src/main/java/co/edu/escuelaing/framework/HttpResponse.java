@@ -0,0 +1,268 @@
+package co.edu.escuelaing.framework;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents an HTTP response independently of the protocol used to send it.
+ * <p>
+ * A response has a status line (e.g., "200 OK"), a content type, a body and optional extra headers. The
+ * body is the first {@code length} bytes of an array, which may be the backing array of a
+ * {@link ResponseBuffer}, or a slice of a memory-mapped {@link AssetBundle}.
+ * {@link #writeTo(OutputStream, boolean)} encodes the response as HTTP/1.1; the HTTP/2 connection encodes the
+ * same fields as HEADERS and DATA frames.
+ * </p>
+ */
+public class HttpResponse {
+    private static final int COPY_CHUNK = 16 * 1024;
+    private static final ThreadLocal<byte[]> COPY_BUFFER = ThreadLocal.withInitial(() -> new byte[COPY_CHUNK]);
+
+    private final String status;
+    private final String contentType;
+    private final byte[] body;
+    private final ByteBuffer mapped;
+    private final int length;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private byte[] encoded;
+    private byte[] encodedKeepAlive;
+    private boolean closing;
+
+    /**
+     * Creates a response whose body is a whole array.
+     *
+     * @param status      The HTTP status line (e.g., "200 OK")
+     * @param contentType The MIME type of the content (e.g., "text/html")
+     * @param body        The response body
+     */
+    public HttpResponse(String status, String contentType, byte[] body) {
+        this(status, contentType, body, body.length);
+    }
+
+    /**
+     * Creates a response whose body is the first {@code length} bytes of an array.
+     *
+     * @param status      The HTTP status line (e.g., "200 OK")
+     * @param contentType The MIME type of the content (e.g., "application/json")
+     * @param body        The array holding the response body
+     * @param length      The number of body bytes
+     */
+    public HttpResponse(String status, String contentType, byte[] body, int length) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.mapped = null;
+        this.length = length;
+    }
+
+    private HttpResponse(String status, String contentType, ByteBuffer mapped) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = null;
+        this.mapped = mapped;
+        this.length = mapped.remaining();
+    }
+
+    /**
+     * Creates an immutable response whose HTTP/1.1 encoding is computed once. It is meant for constant
+     * responses sent on hot paths, such as {@code 503 Service Unavailable}. The connection is always closed
+     * after a pre-encoded response.
+     *
+     * @param status      The HTTP status line
+     * @param contentType The MIME type of the content
+     * @param body        The response body
+     * @param headers     Extra headers as name/value pairs
+     * @return The pre-encoded response
+     */
+    public static HttpResponse preEncoded(String status, String contentType, byte[] body, String... headers) {
+        HttpResponse response = new HttpResponse(status, contentType, body);
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            response.header(headers[i], headers[i + 1]);
+        }
+        response.encoded = response.encodeHead(false);
+        response.closing = true;
+        return response;
+    }
+
+    /**
+     * Creates an immutable response whose HTTP/1.1 encodings, for a persistent and for a closing connection,
+     * are computed once. It is meant for responses sent many times, such as static files. Unlike
+     * {@link #preEncoded}, the connection may stay open after a cached response.
+     *
+     * @param status      The HTTP status line
+     * @param contentType The MIME type of the content
+     * @param body        The response body
+     * @param headers     Extra headers as name/value pairs
+     * @return The cached response
+     */
+    public static HttpResponse cached(String status, String contentType, byte[] body, String... headers) {
+        HttpResponse response = new HttpResponse(status, contentType, body);
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            response.header(headers[i], headers[i + 1]);
+        }
+        response.encoded = response.encodeHead(false);
+        response.encodedKeepAlive = response.encodeHead(true);
+        return response;
+    }
+
+    /**
+     * Creates a cached response whose body is the remaining bytes of a buffer, typically a slice of a
+     * memory-mapped file. The body is copied to the connection in small chunks when the response is written,
+     * so it never has to be loaded on the heap.
+     *
+     * @param status      The HTTP status line
+     * @param contentType The MIME type of the content
+     * @param body        The buffer holding the response body, which must not be modified afterwards
+     * @param headers     Extra headers as name/value pairs
+     * @return The cached response
+     */
+    public static HttpResponse cached(String status, String contentType, ByteBuffer body, String... headers) {
+        HttpResponse response = new HttpResponse(status, contentType, body.slice());
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            response.header(headers[i], headers[i + 1]);
+        }
+        response.encoded = response.encodeHead(false);
+        response.encodedKeepAlive = response.encodeHead(true);
+        return response;
+    }
+
+    /**
+     * Adds a header to the response.
+     *
+     * @param name  The header name
+     * @param value The header value
+     * @return This response
+     * @throws IllegalStateException If the response is pre-encoded or cached
+     */
+    public HttpResponse header(String name, String value) {
+        if (encoded != null) {
+            throw new IllegalStateException("Pre-encoded and cached responses cannot be modified");
+        }
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * Writes the response as HTTP/1.1.
+     *
+     * @param out       The output stream to write the response to
+     * @param keepAlive Whether the connection stays open after this response
+     * @throws IOException If an I/O error occurs while writing the response
+     */
+    public void writeTo(OutputStream out, boolean keepAlive) throws IOException {
+        if (encoded == null) {
+            out.write(encodeHead(keepAlive));
+        } else {
+            out.write(keepAlive && encodedKeepAlive != null ? encodedKeepAlive : encoded);
+        }
+        writeBody(out, 0, length);
+    }
+
+    /**
+     * Writes part of the body.
+     *
+     * @param out    The output stream to write to
+     * @param offset The offset of the first byte to write within the body
+     * @param count  The number of bytes to write
+     * @throws IOException If an I/O error occurs while writing
+     */
+    public void writeBody(OutputStream out, int offset, int count) throws IOException {
+        if (mapped == null) {
+            out.write(body, offset, count);
+            return;
+        }
+        byte[] chunk = COPY_BUFFER.get();
+        for (int end = offset + count; offset < end; ) {
+            int n = Math.min(chunk.length, end - offset);
+            mapped.get(offset, chunk, 0, n);
+            out.write(chunk, 0, n);
+            offset += n;
+        }
+    }
+
+    private byte[] encodeHead(boolean keepAlive) {
+        StringBuilder head = new StringBuilder(128)
+                .append("HTTP/1.1 ").append(status).append("\r\n")
+                .append("Content-Type: ").append(contentType).append("\r\n")
+                .append("Content-Length: ").append(length).append("\r\n");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        head.append(keepAlive ? "Connection: keep-alive\r\n" : "Connection: close\r\n").append("\r\n");
+        return head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Tells whether the connection must be closed after this response.
+     *
+     * @return {@code true} for pre-encoded responses
+     */
+    public boolean isClosing() {
+        return closing;
+    }
+
+    /**
+     * Returns the status line.
+     *
+     * @return The status line (e.g., "404 Not Found")
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the numeric status code.
+     *
+     * @return The status code (e.g., 404)
+     */
+    public int getStatusCode() {
+        return Integer.parseInt(status.substring(0, 3));
+    }
+
+    /**
+     * Returns the MIME type of the body.
+     *
+     * @return The content type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the array holding the body. Only the first {@link #getLength()} bytes are part of the body.
+     * The body of a memory-mapped response is copied to a new array; prefer
+     * {@link #writeBody(OutputStream, int, int)} to send it.
+     *
+     * @return The body array
+     */
+    public byte[] getBody() {
+        if (mapped != null) {
+            byte[] copy = new byte[length];
+            mapped.get(0, copy);
+            return copy;
+        }
+        return body;
+    }
+
+    /**
+     * Returns the length of the body.
+     *
+     * @return The number of body bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the extra headers of the response.
+     *
+     * @return An unmodifiable map of header names to values
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+}
@@ -0,0 +1,204 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.annotations.After;
+import co.edu.escuelaing.framework.annotations.Around;
+import co.edu.escuelaing.framework.annotations.Before;
+import co.edu.escuelaing.framework.annotations.Interceptor;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * The interceptors of an application, ready to be compiled into the invokers of its routes.
+ * <p>
+ * Interceptors are the static methods of {@link Interceptor} classes annotated with {@link Before},
+ * {@link After} or {@link Around}. Each one is turned once, when the interceptors are discovered, into an
+ * implementation of a functional interface generated with {@link LambdaMetafactory}, which calls the method
+ * directly and can be inlined by the JIT like any other call. {@link #compile(String, RouteInvoker)} then
+ * nests the interceptors that apply to a route around its handler, so a request runs through a fixed chain
+ * of direct calls with no lookup or list traversal, and a route without interceptors gets its handler
+ * unchanged.
+ * </p>
+ */
+public final class InterceptorChain {
+    /**
+     * A chain without interceptors.
+     */
+    public static final InterceptorChain EMPTY = new InterceptorChain(Collections.emptyList());
+
+    private final List<Link> links;
+
+    private InterceptorChain(List<Link> links) {
+        this.links = links;
+    }
+
+    /**
+     * Finds the interceptors among the given classes: the static methods of {@link Interceptor} classes
+     * annotated with {@link Before}, {@link After} or {@link Around}. They are ordered by their
+     * {@code order}, then by class and method name.
+     *
+     * @param classes The classes to scan
+     * @return The interceptors
+     * @throws IllegalArgumentException If an interceptor is not static, does not have the signature its
+     *                                  annotation requires, or has more than one of these annotations
+     */
+    public static InterceptorChain discover(Collection<Class<?>> classes) {
+        List<Link> links = new ArrayList<>();
+        for (Class<?> c : classes) {
+            if (c.isAnnotationPresent(Interceptor.class)) {
+                for (Method method : c.getMethods()) {
+                    Link link = link(method);
+                    if (link != null) {
+                        links.add(link);
+                    }
+                }
+            }
+        }
+        links.sort(Comparator.<Link>comparingInt(link -> link.order).thenComparing(link -> link.name));
+        return new InterceptorChain(Collections.unmodifiableList(links));
+    }
+
+    /**
+     * Wraps the handler of a route with the interceptors that apply to it, the first one outermost.
+     *
+     * @param route   The route path, relative to {@code /App}
+     * @param handler The invoker of the route's handler
+     * @return The invoker of the route, which is {@code handler} itself if no interceptor applies
+     */
+    public RouteInvoker compile(String route, RouteInvoker handler) {
+        RouteInvoker invoker = handler;
+        for (int i = links.size() - 1; i >= 0; i--) {
+            Link link = links.get(i);
+            if (link.appliesTo(route)) {
+                invoker = link.wrap(invoker);
+            }
+        }
+        return invoker;
+    }
+
+    /**
+     * Returns the number of interceptors.
+     *
+     * @return The number of interceptors
+     */
+    public int size() {
+        return links.size();
+    }
+
+    private static Link link(Method method) {
+        Before before = method.getAnnotation(Before.class);
+        After after = method.getAnnotation(After.class);
+        Around around = method.getAnnotation(Around.class);
+        int annotations = (before != null ? 1 : 0) + (after != null ? 1 : 0) + (around != null ? 1 : 0);
+        if (annotations == 0) {
+            return null;
+        }
+        if (annotations > 1) {
+            throw new IllegalArgumentException("Interceptor " + method + " must have only one of @Before, @After and @Around");
+        }
+        if (before != null) {
+            require(method, void.class, HttpRequest.class);
+            return new Link(method, before.value(), before.order(), Consumer.class, "accept", Link.BEFORE);
+        } else if (after != null) {
+            require(method, HttpResponse.class, HttpRequest.class, HttpResponse.class);
+            return new Link(method, after.value(), after.order(), BiFunction.class, "apply", Link.AFTER);
+        }
+        require(method, HttpResponse.class, HttpRequest.class, RouteInvoker.class);
+        return new Link(method, around.value(), around.order(), BiFunction.class, "apply", Link.AROUND);
+    }
+
+    private static void require(Method method, Class<?> returnType, Class<?>... parameterTypes) {
+        if (!Modifier.isStatic(method.getModifiers()) || method.getReturnType() != returnType
+                || !Arrays.equals(method.getParameterTypes(), parameterTypes)) {
+            throw new IllegalArgumentException("Interceptor " + method + " must be static, take "
+                    + Arrays.toString(parameterTypes) + " and return " + returnType.getSimpleName());
+        }
+    }
+
+    /**
+     * One interceptor: where it applies and the generated implementation that calls it.
+     */
+    private static final class Link {
+        static final int BEFORE = 0;
+        static final int AFTER = 1;
+        static final int AROUND = 2;
+
+        final String name;
+        final String prefix;
+        final int order;
+        final int kind;
+        final Object target;
+
+        Link(Method method, String prefix, int order, Class<?> functionalInterface, String methodName, int kind) {
+            this.name = method.getDeclaringClass().getName() + "." + method.getName();
+            this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+            this.order = order;
+            this.kind = kind;
+            this.target = implement(method, functionalInterface, methodName);
+        }
+
+        /**
+         * Tells whether the interceptor applies to a route: the route is its prefix or is below it.
+         */
+        boolean appliesTo(String route) {
+            return route.startsWith(prefix) || route.equals(prefix.substring(0, prefix.length() - 1));
+        }
+
+        @SuppressWarnings("unchecked")
+        RouteInvoker wrap(RouteInvoker next) {
+            switch (kind) {
+                case BEFORE:
+                    Consumer<HttpRequest> before = (Consumer<HttpRequest>) target;
+                    return request -> {
+                        before.accept(request);
+                        return next.invoke(request);
+                    };
+                case AFTER:
+                    BiFunction<HttpRequest, HttpResponse, HttpResponse> after =
+                            (BiFunction<HttpRequest, HttpResponse, HttpResponse>) target;
+                    return request -> after.apply(request, next.invoke(request));
+                default:
+                    BiFunction<HttpRequest, RouteInvoker, HttpResponse> around =
+                            (BiFunction<HttpRequest, RouteInvoker, HttpResponse>) target;
+                    return request -> around.apply(request, next);
+            }
+        }
+
+        /**
+         * Spins an implementation of a functional interface that calls the interceptor directly. The class is
+         * defined next to the interceptor, so it also works for classes loaded by a reloading class loader.
+         * Checked exceptions thrown by the interceptor pass through unchanged.
+         */
+        private static Object implement(Method method, Class<?> functionalInterface, String methodName) {
+            MethodHandle handle;
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+                handle = lookup.unreflect(method);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access interceptor " + method, e);
+            }
+            MethodType erased = handle.type().erase();
+            try {
+                return LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(functionalInterface),
+                        erased, handle, handle.type()).getTarget().invoke();
+            } catch (Throwable e) {
+                // Fall back to a slower proxy if no class can be generated for the interceptor
+                return MethodHandleProxies.asInterfaceInstance(functionalInterface, handle.asType(erased));
+            }
+        }
+    }
+}
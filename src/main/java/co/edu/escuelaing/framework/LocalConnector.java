@@ -0,0 +1,214 @@
+package co.edu.escuelaing.framework;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process transport that feeds raw request bytes through the complete server pipeline without a socket.
+ * <p>
+ * A local connection is served exactly like an accepted one: requests are parsed, answered by the health
+ * endpoints, the admission control, the routes or the static files, and written with keep-alive, HTTP/2 and
+ * WebSocket handling, under the same deadlines. Only the kernel is left out, so tests need no free port and
+ * benchmarks measure the framework's own overhead. The server does not have to be started, but the routes
+ * must have been registered with {@link WebServer#setServices(java.util.Map)}. Local clients have no address,
+ * so they are not rate-limited.
+ * </p>
+ * <p>
+ * {@link #exchange(byte[])} serves a complete conversation on the calling thread, which is the cheapest way
+ * to drive HTTP/1.1 requests; {@link #connect()} opens a full-duplex connection served on its own thread, for
+ * clients that read a response before sending the next request.
+ * </p>
+ */
+public final class LocalConnector {
+    private static final int PIPE_CAPACITY = 64 * 1024;
+    private static final AtomicInteger CONNECTION_COUNT = new AtomicInteger();
+
+    private LocalConnector() {
+    }
+
+    /**
+     * Serves a sequence of HTTP/1.1 requests on the calling thread, as if a client had sent them on one
+     * connection and then closed its side.
+     *
+     * @param requests The raw requests, one after another
+     * @return The raw responses, in order, up to the one that closed the connection
+     * @throws IOException Never in practice, since the connection is in memory
+     */
+    public static byte[] exchange(byte[] requests) throws IOException {
+        ByteArrayOutputStream responses = new ByteArrayOutputStream();
+        WebServer.serveConnection(Connection.of(new ByteArrayInputStream(requests), responses, () -> { }));
+        return responses.toByteArray();
+    }
+
+    /**
+     * Opens a connection to the server and serves it on a new thread.
+     *
+     * @return The client side of the connection
+     */
+    public static Client connect() {
+        Pipe toServer = new Pipe();
+        Pipe toClient = new Pipe();
+        Closeable both = () -> {
+            toServer.close();
+            toClient.close();
+        };
+        Connection connection = Connection.of(toServer.source(), toClient.sink(), both);
+        Thread thread = new Thread(() -> WebServer.serveConnection(connection),
+                "webserver-local-" + CONNECTION_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+        return new Client(toClient.source(), toServer.sink(), both);
+    }
+
+    /**
+     * The client side of a local connection.
+     */
+    public static final class Client implements Closeable {
+        private final InputStream in;
+        private final OutputStream out;
+        private final Closeable both;
+
+        private Client(InputStream in, OutputStream out, Closeable both) {
+            this.in = in;
+            this.out = out;
+            this.both = both;
+        }
+
+        /**
+         * Returns the stream of bytes sent by the server. It ends when the server closes the connection.
+         *
+         * @return The input stream
+         */
+        public InputStream getInputStream() {
+            return in;
+        }
+
+        /**
+         * Returns the stream of bytes to the server. Closing it only closes the client's side, so the server
+         * answers the requests already sent and then sees the end of the stream.
+         *
+         * @return The output stream
+         */
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        /**
+         * Closes both directions of the connection.
+         */
+        @Override
+        public void close() throws IOException {
+            both.close();
+        }
+    }
+
+    /**
+     * A bounded buffer of bytes between a writing thread and a reading one. Writers wait while it is full and
+     * readers while it is empty; once it is closed, writes fail and reads return what is left and then the end
+     * of the stream.
+     */
+    private static final class Pipe {
+        private final byte[] buffer = new byte[PIPE_CAPACITY];
+        private int head;
+        private int count;
+        private boolean closed;
+
+        synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (count == 0) {
+                if (closed) {
+                    return -1;
+                }
+                await();
+            }
+            int n = Math.min(len, count);
+            int first = Math.min(n, buffer.length - head);
+            System.arraycopy(buffer, head, b, off, first);
+            System.arraycopy(buffer, 0, b, off + first, n - first);
+            head = (head + n) % buffer.length;
+            count -= n;
+            notifyAll();
+            return n;
+        }
+
+        synchronized void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (closed) {
+                    throw new IOException("Connection closed");
+                }
+                if (count == buffer.length) {
+                    await();
+                    continue;
+                }
+                int tail = (head + count) % buffer.length;
+                int n = Math.min(len, Math.min(buffer.length - count, buffer.length - tail));
+                System.arraycopy(b, off, buffer, tail, n);
+                count += n;
+                off += n;
+                len -= n;
+                notifyAll();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        private void await() throws InterruptedIOException {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        InputStream source() {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return Pipe.this.read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return Pipe.this.read(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    Pipe.this.close();
+                }
+            };
+        }
+
+        OutputStream sink() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    Pipe.this.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    Pipe.this.close();
+                }
+            };
+        }
+    }
+}
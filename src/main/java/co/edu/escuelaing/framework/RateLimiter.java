@@ -0,0 +1,219 @@
+package co.edu.escuelaing.framework;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client rate limiting for the web server: each client gets a token bucket that refills at a steady rate
+ * and holds at most a burst of requests.
+ * <p>
+ * The limiter is checked as soon as the request line has been read, before the headers are parsed or the
+ * request is routed, so a client that sends too many requests costs little more than reading one line.
+ * Rejected requests are answered with a pre-encoded {@code 429 Too Many Requests}. Besides the limit that
+ * applies to every request of a client, routes can have their own, usually stricter, limits, matched by
+ * path prefix (e.g., {@code /App/report}). A request rejected by its route's limit gives its token back to the
+ * client's bucket, so it does not count against the client's other requests.
+ * </p>
+ * <p>
+ * Each bucket is a single {@code long} updated with compare-and-set, so admission never locks and allocates
+ * nothing once a client has a bucket. The long holds the time at which the bucket will be full again (the
+ * "theoretical arrival time" of the generic cell rate algorithm, which behaves exactly like a token bucket):
+ * a request is admitted if taking one token keeps that time within one burst of the present. Buckets live in
+ * a {@link ConcurrentHashMap}, whose bins are locked independently, so clients do not contend with each other.
+ * A bucket that has refilled completely carries no information, since a new bucket starts full; such buckets
+ * are removed by {@link #evictIdle()}, which the server runs periodically.
+ * </p>
+ */
+public class RateLimiter {
+    private final Buckets perClient;
+    private final String[] routePrefixes;
+    private final Buckets[] perRoute;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * A limit: a sustained rate and the number of requests that may arrive at once.
+     *
+     * @param requestsPerSecond The rate at which a bucket refills
+     * @param burst             The capacity of a bucket
+     */
+    public record Limit(double requestsPerSecond, int burst) {
+        public Limit {
+            if (!(requestsPerSecond > 0) || burst < 1) {
+                throw new IllegalArgumentException("A limit needs a positive rate and a burst of at least 1");
+            }
+        }
+    }
+
+    /**
+     * Creates a limiter.
+     *
+     * @param perClient The limit applied to all the requests of a client, or {@code null} for none
+     * @param perRoute  Limits applied per client to the requests whose path starts with a prefix; the first
+     *                  matching prefix applies
+     */
+    public RateLimiter(Limit perClient, Map<String, Limit> perRoute) {
+        this.perClient = perClient != null ? new Buckets(perClient) : null;
+        this.routePrefixes = perRoute.keySet().toArray(new String[0]);
+        this.perRoute = new Buckets[routePrefixes.length];
+        for (int i = 0; i < routePrefixes.length; i++) {
+            this.perRoute[i] = new Buckets(perRoute.get(routePrefixes[i]));
+        }
+    }
+
+    /**
+     * Creates a limiter from the settings in {@link FrameworkConfig}.
+     *
+     * @return A new limiter, or {@code null} if no rate limit is configured
+     */
+    public static RateLimiter fromConfig() {
+        Limit perClient = FrameworkConfig.getRateLimit();
+        Map<String, Limit> perRoute = FrameworkConfig.getRouteRateLimits();
+        if (perClient == null && perRoute.isEmpty()) {
+            return null;
+        }
+        return new RateLimiter(perClient, new LinkedHashMap<>(perRoute));
+    }
+
+    /**
+     * Takes a token for a request of a client.
+     *
+     * @param client The client, usually its {@link java.net.InetAddress}
+     * @param target The request target
+     * @return {@code true} if the request may proceed, {@code false} if it must be rejected
+     */
+    public boolean tryAcquire(Object client, String target) {
+        return tryAcquire(client, target, System.nanoTime());
+    }
+
+    boolean tryAcquire(Object client, String target, long now) {
+        boolean admitted = perClient == null || perClient.tryAcquire(client, now);
+        if (admitted) {
+            for (int i = 0; i < routePrefixes.length; i++) {
+                if (target.startsWith(routePrefixes[i])) {
+                    admitted = perRoute[i].tryAcquire(client, now);
+                    if (!admitted && perClient != null) {
+                        // The request is not served, so it must not count against the client's own limit
+                        perClient.release(client);
+                    }
+                    break;
+                }
+            }
+        }
+        if (!admitted) {
+            rejected.incrementAndGet();
+        }
+        return admitted;
+    }
+
+    /**
+     * Removes the buckets that have refilled completely.
+     *
+     * @return The number of buckets removed
+     */
+    public int evictIdle() {
+        return evictIdle(System.nanoTime());
+    }
+
+    int evictIdle(long now) {
+        int evicted = perClient != null ? perClient.evictFull(now) : 0;
+        for (Buckets buckets : perRoute) {
+            evicted += buckets.evictFull(now);
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the number of buckets currently held.
+     *
+     * @return The number of buckets
+     */
+    public int size() {
+        int size = perClient != null ? perClient.buckets.size() : 0;
+        for (Buckets buckets : perRoute) {
+            size += buckets.buckets.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns how many requests have been rejected.
+     *
+     * @return The number of rejected requests
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * The buckets of one limit, keyed by client.
+     */
+    private static final class Buckets {
+        /**
+         * Marks a bucket that is being removed; a request that finds it looks the client up again.
+         */
+        private static final long EVICTED = Long.MIN_VALUE;
+
+        final Map<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+        final long interval;
+        final long capacity;
+
+        Buckets(Limit limit) {
+            this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limit.requestsPerSecond()));
+            this.capacity = interval * limit.burst();
+        }
+
+        boolean tryAcquire(Object client, long now) {
+            while (true) {
+                AtomicLong bucket = buckets.get(client);
+                if (bucket == null) {
+                    bucket = buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+                }
+                long full = bucket.get();
+                if (full == EVICTED) {
+                    buckets.remove(client, bucket);
+                    continue;
+                }
+                long next = (full - now > 0 ? full : now) + interval;
+                if (next - now > capacity) {
+                    return false;
+                }
+                if (bucket.compareAndSet(full, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gives back a token taken by {@link #tryAcquire(Object, long)}. If the bucket has been evicted
+         * meanwhile it was full, and a new one starts full, so there is nothing to give back.
+         */
+        void release(Object client) {
+            AtomicLong bucket = buckets.get(client);
+            if (bucket == null) {
+                return;
+            }
+            while (true) {
+                long full = bucket.get();
+                if (full == EVICTED || bucket.compareAndSet(full, full - interval)) {
+                    return;
+                }
+            }
+        }
+
+        int evictFull(long now) {
+            int evicted = 0;
+            for (Map.Entry<Object, AtomicLong> entry : buckets.entrySet()) {
+                AtomicLong bucket = entry.getValue();
+                long full = bucket.get();
+                if (full != EVICTED && full - now <= 0 && bucket.compareAndSet(full, EVICTED)) {
+                    buckets.remove(entry.getKey(), bucket);
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package co.edu.escuelaing.framework;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer used to build response bodies without intermediate strings.
+ * <p>
+ * Buffers are pooled per thread: {@link #acquire()} returns the calling thread's buffer, emptied and ready
+ * to be written. A buffer that grew past {@link #MAX_RETAINED_CAPACITY} is replaced on the next acquire so
+ * that one large response does not pin memory for the lifetime of the thread. The returned buffer must not
+ * be kept after the response has been written.
+ * </p>
+ */
+public class ResponseBuffer {
+    static final int INITIAL_CAPACITY = 4096;
+    static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    private static final ThreadLocal<ResponseBuffer> POOL = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the empty buffer of the calling thread.
+     *
+     * @return A pooled, empty buffer
+     */
+    public static ResponseBuffer acquire() {
+        ResponseBuffer buffer = POOL.get();
+        if (buffer.bytes.length > MAX_RETAINED_CAPACITY) {
+            buffer.bytes = new byte[INITIAL_CAPACITY];
+        }
+        buffer.size = 0;
+        return buffer;
+    }
+
+    /**
+     * Appends a single byte.
+     *
+     * @param b The byte to append
+     */
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        bytes[size++] = (byte) b;
+    }
+
+    /**
+     * Appends a range of bytes.
+     *
+     * @param src    The source array
+     * @param offset The index of the first byte to append
+     * @param length The number of bytes to append
+     */
+    public void write(byte[] src, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(src, offset, bytes, size, length);
+        size += length;
+    }
+
+    /**
+     * Appends all bytes of an array.
+     *
+     * @param src The bytes to append
+     */
+    public void write(byte[] src) {
+        write(src, 0, src.length);
+    }
+
+    /**
+     * Makes sure that at least {@code capacity} bytes fit in the buffer and returns the backing array.
+     * Callers may then write directly into the array starting at {@link #size()} and commit the bytes
+     * with {@link #setSize(int)}.
+     *
+     * @param capacity The required capacity
+     * @return The backing array
+     */
+    public byte[] ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return The size of the content
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the number of valid bytes after writing directly into the backing array.
+     *
+     * @param size The new size of the content
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} bytes are valid.
+     *
+     * @return The backing array
+     */
+    public byte[] array() {
+        return bytes;
+    }
+
+    /**
+     * Writes the content of the buffer to a stream.
+     *
+     * @param out The stream to write to
+     * @throws IOException If an I/O error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+}
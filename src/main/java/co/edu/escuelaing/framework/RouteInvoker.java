@@ -0,0 +1,23 @@
+package co.edu.escuelaing.framework;
+
+/**
+ * Invokes the handler of a route, possibly through the interceptors that apply to it.
+ * <p>
+ * {@link WebServer} compiles one invoker per route and method when the routes are registered: the handler
+ * itself when no interceptor applies, or the handler wrapped by its interceptors (see {@link InterceptorChain}).
+ * {@link co.edu.escuelaing.framework.annotations.Around} interceptors receive the rest of the chain as an
+ * invoker.
+ * </p>
+ */
+@FunctionalInterface
+public interface RouteInvoker {
+
+    /**
+     * Handles a request.
+     *
+     * @param request The request to handle
+     * @return The response to send
+     * @throws Exception If an interceptor fails; an {@link HttpException} is sent as its status
+     */
+    HttpResponse invoke(HttpRequest request) throws Exception;
+}
@@ -1,14 +1,22 @@
 package co.edu.escuelaing.framework;
 
+import co.edu.escuelaing.framework.annotations.DeleteMapping;
 import co.edu.escuelaing.framework.annotations.GetMapping;
+import co.edu.escuelaing.framework.annotations.Interceptor;
+import co.edu.escuelaing.framework.annotations.PostMapping;
+import co.edu.escuelaing.framework.annotations.PutMapping;
 import co.edu.escuelaing.framework.annotations.RequestMapping;
 import co.edu.escuelaing.framework.annotations.RestController;
 import co.edu.escuelaing.framework.annotations.SpringECIApplication;
+import co.edu.escuelaing.framework.annotations.WebSocketMapping;
 import co.edu.escuelaing.framework.enums.RequestMethod;
+import co.edu.escuelaing.framework.websocket.WebSocketSession;
+import co.edu.escuelaing.framework.websocket.WebSockets;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -28,9 +36,10 @@ public class SpringECI {
      * The entry point of the SpringECI framework. This method initializes the framework by performing the following:
      * <ul>
      * <li>Loading classes from the specified package.</li>
-     * <li>Scanning for classes with the {@link RestController} annotation and methods with {@link RequestMapping}
-     * or {@link GetMapping} annotations.</li>
-     * <li>Registering RESTful services in the web server.</li>
+     * <li>Scanning for classes with the {@link RestController} annotation and methods with {@link RequestMapping},
+     * {@link GetMapping}, {@link PostMapping}, {@link PutMapping} or {@link DeleteMapping} annotations.</li>
+     * <li>Registering RESTful services, wrapped by the interceptors of {@link Interceptor} classes, and
+     * {@link WebSocketMapping} endpoints in the web server.</li>
      * <li>Executing the {@code main} method of the class annotated with {@link SpringECIApplication}.</li>
      * </ul>
      *
@@ -43,32 +52,14 @@ public class SpringECI {
             URLClassLoader classLoader = new URLClassLoader(urls);
             Set<Class<?>> classes = getClassesInPackage(classLoader, "co.edu.escuelaing");
 
-            // Map to store routes and associated methods
-            Map<String, Map<RequestMethod, Method>> services = new HashMap<>();
-
-            // Scan classes to find controllers and mapped methods
-            for (Class<?> c : classes) {
-                if (c.isAnnotationPresent(RestController.class)) {
-                    for (Method method : c.getMethods()) {
-                        if (method.isAnnotationPresent(RequestMapping.class)) {
-                            RequestMapping mapping = method.getAnnotation(RequestMapping.class);
-                            String route = mapping.value();
-                            RequestMethod httpMethod = mapping.method();
-                            services.computeIfAbsent(route, k -> new HashMap<>()).put(httpMethod, method);
-                        }
-                        if (method.isAnnotationPresent(GetMapping.class)) {
-                            GetMapping mapping = method.getAnnotation(GetMapping.class);
-                            String route = mapping.value();
-                            services.computeIfAbsent(route, k -> new HashMap<>()).put(RequestMethod.GET, method);
-                        }
-                    }
-                }
-            }
-
             // Configure services in the web server
             WebServer.getInstance();
-            WebServer.setServices(services);
+            WebServer.setServices(buildRoutes(classes), InterceptorChain.discover(classes));
+            WebSockets.setHandlers(buildWebSocketRoutes(classes));
 
+            if (FrameworkConfig.isHotReload()) {
+                ControllerReloader.start(urls[0], "co.edu.escuelaing");
+            }
 
             // Execute the application annotated with @SpringECIApplication
             for (Class<?> c : classes) {
@@ -85,11 +76,90 @@ public class SpringECI {
         }
     }
 
+    /**
+     * Builds the route table from the controllers among the given classes: classes with the
+     * {@link RestController} annotation and methods with {@link RequestMapping}, {@link GetMapping},
+     * {@link PostMapping}, {@link PutMapping} or {@link DeleteMapping} annotations.
+     *
+     * @param classes The classes to scan.
+     * @return An unmodifiable map of routes to HTTP methods and their corresponding methods.
+     */
+    static Map<String, Map<RequestMethod, Method>> buildRoutes(Collection<Class<?>> classes) {
+        // Map to store routes and associated methods
+        Map<String, Map<RequestMethod, Method>> services = new HashMap<>();
+
+        // Scan classes to find controllers and mapped methods
+        for (Class<?> c : classes) {
+            if (c.isAnnotationPresent(RestController.class)) {
+                for (Method method : c.getMethods()) {
+                    if (method.isAnnotationPresent(RequestMapping.class)) {
+                        RequestMapping mapping = method.getAnnotation(RequestMapping.class);
+                        String route = mapping.value();
+                        RequestMethod httpMethod = mapping.method();
+                        services.computeIfAbsent(route, k -> new HashMap<>()).put(httpMethod, method);
+                    }
+                    if (method.isAnnotationPresent(GetMapping.class)) {
+                        GetMapping mapping = method.getAnnotation(GetMapping.class);
+                        String route = mapping.value();
+                        services.computeIfAbsent(route, k -> new HashMap<>()).put(RequestMethod.GET, method);
+                    }
+                    if (method.isAnnotationPresent(PostMapping.class)) {
+                        PostMapping mapping = method.getAnnotation(PostMapping.class);
+                        String route = mapping.value();
+                        services.computeIfAbsent(route, k -> new HashMap<>()).put(RequestMethod.POST, method);
+                    }
+                    if (method.isAnnotationPresent(PutMapping.class)) {
+                        PutMapping mapping = method.getAnnotation(PutMapping.class);
+                        String route = mapping.value();
+                        services.computeIfAbsent(route, k -> new HashMap<>()).put(RequestMethod.PUT, method);
+                    }
+                    if (method.isAnnotationPresent(DeleteMapping.class)) {
+                        DeleteMapping mapping = method.getAnnotation(DeleteMapping.class);
+                        String route = mapping.value();
+                        services.computeIfAbsent(route, k -> new HashMap<>()).put(RequestMethod.DELETE, method);
+                    }
+                }
+            }
+        }
+
+        Map<String, Map<RequestMethod, Method>> routes = new HashMap<>();
+        services.forEach((route, methods) -> routes.put(route, Collections.unmodifiableMap(new EnumMap<>(methods))));
+        return Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * Builds the WebSocket endpoints from the controllers among the given classes: methods of
+     * {@link RestController} classes with the {@link WebSocketMapping} annotation.
+     *
+     * @param classes The classes to scan.
+     * @return An unmodifiable map of endpoint paths to handler methods.
+     * @throws IllegalArgumentException If a handler is not static or does not take a
+     *                                  {@link WebSocketSession} and a {@code String}.
+     */
+    static Map<String, Method> buildWebSocketRoutes(Collection<Class<?>> classes) {
+        Map<String, Method> endpoints = new HashMap<>();
+        for (Class<?> c : classes) {
+            if (c.isAnnotationPresent(RestController.class)) {
+                for (Method method : c.getMethods()) {
+                    if (method.isAnnotationPresent(WebSocketMapping.class)) {
+                        if (!Modifier.isStatic(method.getModifiers()) || !Arrays.equals(method.getParameterTypes(),
+                                new Class<?>[]{WebSocketSession.class, String.class})) {
+                            throw new IllegalArgumentException("WebSocket handler " + method
+                                    + " must be static and take a WebSocketSession and a String");
+                        }
+                        endpoints.put(method.getAnnotation(WebSocketMapping.class).value(), method);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableMap(endpoints);
+    }
+
     /**
      * Scans the specified package for all classes and returns a set of those classes.
      * The method handles both JAR files and file system directories.
      *
-     * @param classLoader The class loader used to load the classes.
+     * @param classLoader The class loader used to find and load the classes.
      * @param packageName The package name to scan for classes.
      * @return A set of all classes found in the specified package.
      * @throws IOException            If an I/O error occurs while reading resources.
@@ -114,7 +184,7 @@ public class SpringECI {
                     String name = entry.getName();
                     if (name.startsWith(path) && name.endsWith(".class")) {
                         String className = name.substring(0, name.length() - 6).replace('/', '.');
-                        classes.add(Class.forName(className));
+                        classes.add(Class.forName(className, true, classLoader));
                     }
                 }
             } else {
@@ -127,7 +197,7 @@ public class SpringECI {
                             classes.addAll(getClassesInPackage(classLoader, packageName + "." + file.getName()));
                         } else if (file.getName().endsWith(".class")) {
                             String className = packageName + '.' + file.getName().substring(0, file.getName().length() - 6);
-                            classes.add(Class.forName(className));
+                            classes.add(Class.forName(className, true, classLoader));
                         }
                     }
                 }
@@ -0,0 +1,373 @@
+package co.edu.escuelaing.framework;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An immutable index of the static files served by the {@link WebServer}, built once when the server starts.
+ * <p>
+ * The index maps URL paths (e.g., {@code /css/styles.css}) to responses whose content type, length, ETag
+ * and HTTP/1.1 header bytes are computed in advance, so serving a file is a single hash lookup that never
+ * touches the file system, and a miss costs nothing more. Only files found under the static location when
+ * the index is built can be served: a path such as {@code /../pom.xml} is simply not a key of the index, and
+ * symbolic links are not followed, so requests cannot escape the static location.
+ * </p>
+ * <p>
+ * The location is either a directory or, with the {@code classpath:} prefix, a folder of the class path,
+ * which also works when the application runs from a jar. When a directory location does not exist (e.g., the
+ * default {@code src/main/resources} when running from a packaged jar), the root of the class path is used
+ * instead. Class files and {@code META-INF} are never served from the class path. The location can also be
+ * an {@link AssetBundle} file, which is memory-mapped instead of read.
+ * </p>
+ */
+public final class StaticAssets {
+    /**
+     * The prefix of class path locations, e.g., {@code classpath:static}.
+     */
+    public static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final String location;
+    private final Map<String, Asset> assets;
+
+    StaticAssets(String location, Map<String, Asset> assets) {
+        Map<String, Asset> index = new HashMap<>(assets);
+        for (Map.Entry<String, Asset> asset : assets.entrySet()) {
+            if (asset.getKey().endsWith("/index.html")) {
+                index.put(asset.getKey().substring(0, asset.getKey().length() - "index.html".length()), asset.getValue());
+            }
+        }
+        this.location = location;
+        this.assets = Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Builds the index of a static location.
+     *
+     * @param location A directory, an asset bundle file, or a class path folder prefixed with {@code classpath:}
+     * @return The index
+     * @throws IOException If the files cannot be read
+     */
+    public static StaticAssets load(String location) throws IOException {
+        Map<String, byte[]> files = new HashMap<>();
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            readClasspath(location.substring(CLASSPATH_PREFIX.length()), files);
+        } else {
+            Path root = Paths.get(location);
+            if (Files.isRegularFile(root)) {
+                return AssetBundle.open(root);
+            } else if (Files.isDirectory(root)) {
+                readDirectory(root, files);
+            } else {
+                System.err.println("Static files directory " + location + " not found, serving the class path");
+                readClasspath("", files);
+            }
+        }
+
+        Map<String, Asset> assets = new HashMap<>();
+        files.forEach((path, content) -> assets.put(path, Asset.of(path, content)));
+        return new StaticAssets(location, assets);
+    }
+
+    /**
+     * Reads the regular files below a directory. Symbolic links are skipped, whether they point to a file or to
+     * a directory, since their target may lie outside the directory.
+     */
+    static void readDirectory(Path root, Map<String, byte[]> files) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path file : paths.filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS))
+                    .collect(Collectors.toList())) {
+                String relative = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                files.put("/" + relative, Files.readAllBytes(file));
+            }
+        }
+    }
+
+    private static void readClasspath(String prefix, Map<String, byte[]> files) throws IOException {
+        String folder = prefix.replaceAll("^/+|/+$", "");
+        ClassLoader loader = StaticAssets.class.getClassLoader();
+        Enumeration<URL> roots = loader.getResources(folder);
+        while (roots.hasMoreElements()) {
+            readClasspathRoot(roots.nextElement(), folder, files);
+        }
+        // The root of a jar is not listed by getResources(""), so read the jar the framework comes from
+        URL codeSource = StaticAssets.class.getProtectionDomain().getCodeSource().getLocation();
+        if (codeSource.getPath().endsWith(".jar")) {
+            try (JarFile jar = new JarFile(Paths.get(codeSource.toURI()).toFile())) {
+                readJar(jar, folder, files);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static void readClasspathRoot(URL root, String folder, Map<String, byte[]> files) throws IOException {
+        if ("file".equals(root.getProtocol())) {
+            Map<String, byte[]> found = new HashMap<>();
+            try {
+                readDirectory(Paths.get(root.toURI()), found);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            found.forEach((path, content) -> {
+                if (isServable(path.substring(1))) {
+                    files.putIfAbsent(path, content);
+                }
+            });
+        } else if ("jar".equals(root.getProtocol())) {
+            JarURLConnection connection = (JarURLConnection) root.openConnection();
+            connection.setUseCaches(false);
+            try (JarFile jar = connection.getJarFile()) {
+                readJar(jar, folder, files);
+            }
+        }
+    }
+
+    private static void readJar(JarFile jar, String folder, Map<String, byte[]> files) throws IOException {
+        String prefix = folder.isEmpty() ? "" : folder + "/";
+        for (JarEntry entry : Collections.list(jar.entries())) {
+            String name = entry.getName();
+            if (!entry.isDirectory() && name.startsWith(prefix) && isServable(name)) {
+                String path = "/" + name.substring(prefix.length());
+                if (!files.containsKey(path)) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        files.put(path, in.readAllBytes());
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isServable(String name) {
+        return !name.endsWith(".class") && !name.startsWith("META-INF/");
+    }
+
+    /**
+     * Finds the response for a request target.
+     *
+     * @param target      The request target, which may carry a query string
+     * @param ifNoneMatch The {@code If-None-Match} header of the request, or {@code null}
+     * @return The file, {@code 304 Not Modified} if the client's copy is current, or {@code null} if there is
+     * no such file
+     */
+    public HttpResponse lookup(String target, String ifNoneMatch) {
+        return lookup(target, ifNoneMatch, null);
+    }
+
+    /**
+     * Finds the response for a request target, choosing a precompressed variant of the file if there is one
+     * and the client accepts it.
+     *
+     * @param target         The request target, which may carry a query string
+     * @param ifNoneMatch    The {@code If-None-Match} header of the request, or {@code null}
+     * @param acceptEncoding The {@code Accept-Encoding} header of the request, or {@code null}
+     * @return The file, {@code 304 Not Modified} if the client's copy is current, or {@code null} if there is
+     * no such file
+     */
+    public HttpResponse lookup(String target, String ifNoneMatch, String acceptEncoding) {
+        String path = decodePath(target);
+        Asset asset = path != null ? assets.get(path) : null;
+        if (asset == null) {
+            return null;
+        }
+        if (asset.gzip != null && acceptEncoding != null && acceptsGzip(acceptEncoding)) {
+            asset = asset.gzip;
+        }
+        if (ifNoneMatch != null && asset.matches(ifNoneMatch)) {
+            return asset.notModified;
+        }
+        return asset.ok;
+    }
+
+    /**
+     * Tells whether an {@code Accept-Encoding} header allows gzip, i.e., lists {@code gzip} or {@code *}
+     * without {@code q=0}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the query string and fragment of a target and decodes its percent-escapes as UTF-8.
+     *
+     * @return The path, or {@code null} if it is malformed
+     */
+    static String decodePath(String target) {
+        int end = target.length();
+        int query = target.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = target.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        String path = target.substring(0, end);
+        if (path.indexOf('%') < 0) {
+            return path;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= path.length()) {
+                    return null;
+                }
+                int high = Character.digit(path.charAt(i + 1), 16);
+                int low = Character.digit(path.charAt(i + 2), 16);
+                if (high < 0 || low < 0) {
+                    return null;
+                }
+                bytes.write((high << 4) | low);
+                i += 2;
+            } else {
+                byte[] encoded = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                bytes.write(encoded, 0, encoded.length);
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the location the index was built from.
+     *
+     * @return The static files location
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns the URL paths of the index.
+     *
+     * @return The indexed paths, sorted
+     */
+    public List<String> paths() {
+        return assets.keySet().stream().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Determines the MIME type of a file based on its extension.
+     *
+     * @param name The file name
+     * @return The MIME type of the file
+     */
+    static String contentType(String name) {
+        if (name.endsWith(".html"))
+            return "text/html";
+        else if (name.endsWith(".css"))
+            return "text/css";
+        else if (name.endsWith(".js"))
+            return "application/javascript";
+        else if (name.endsWith(".json"))
+            return "application/json";
+        else if (name.endsWith(".png"))
+            return "image/png";
+        else if (name.endsWith(".jpg") || name.endsWith(".jpeg"))
+            return "image/jpeg";
+        else if (name.endsWith(".gif"))
+            return "image/gif";
+        else if (name.endsWith(".svg"))
+            return "image/svg+xml";
+        else if (name.endsWith(".ico"))
+            return "image/x-icon";
+        return "text/plain";
+    }
+
+    /**
+     * Computes the strong ETag of a file's content.
+     *
+     * @param content The content
+     * @return The quoted ETag
+     */
+    static String etag(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(content.length) + "\"";
+    }
+
+    /**
+     * A static file with its responses encoded in advance, and optionally a gzip-compressed variant.
+     */
+    static final class Asset {
+        final String etag;
+        final HttpResponse ok;
+        final HttpResponse notModified;
+        final Asset gzip;
+
+        private Asset(String etag, HttpResponse ok, HttpResponse notModified, Asset gzip) {
+            this.etag = etag;
+            this.ok = ok;
+            this.notModified = notModified;
+            this.gzip = gzip;
+        }
+
+        static Asset of(String path, byte[] content) {
+            String etag = etag(content);
+            String contentType = contentType(path);
+            return new Asset(etag, HttpResponse.cached("200 OK", contentType, content, "ETag", etag),
+                    HttpResponse.cached("304 Not Modified", contentType, new byte[0], "ETag", etag), null);
+        }
+
+        /**
+         * Creates an asset whose content, and gzip-compressed content if any, are slices of a mapped bundle.
+         */
+        static Asset mapped(String contentType, String etag, ByteBuffer content, ByteBuffer gzipContent) {
+            if (gzipContent == null) {
+                return new Asset(etag, HttpResponse.cached("200 OK", contentType, content, "ETag", etag),
+                        HttpResponse.cached("304 Not Modified", contentType, new byte[0], "ETag", etag), null);
+            }
+            String gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+            Asset gzip = new Asset(gzipEtag, HttpResponse.cached("200 OK", contentType, gzipContent,
+                    "ETag", gzipEtag, "Content-Encoding", "gzip", "Vary", "Accept-Encoding"),
+                    HttpResponse.cached("304 Not Modified", contentType, new byte[0],
+                            "ETag", gzipEtag, "Vary", "Accept-Encoding"), null);
+            return new Asset(etag, HttpResponse.cached("200 OK", contentType, content,
+                    "ETag", etag, "Vary", "Accept-Encoding"),
+                    HttpResponse.cached("304 Not Modified", contentType, new byte[0],
+                            "ETag", etag, "Vary", "Accept-Encoding"), gzip);
+        }
+
+        boolean matches(String ifNoneMatch) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package co.edu.escuelaing.framework;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel: a timer for many short deadlines that are usually cancelled before they expire, such
+ * as the read and write deadlines of connections.
+ * <p>
+ * Time is divided into ticks and the wheel has a power-of-two number of buckets, one per tick, that it visits
+ * in a circle on a single thread. A timeout is put in the bucket of the tick it expires at, together with the
+ * number of full turns still to wait, so scheduling and cancelling are O(1) no matter how many timeouts are
+ * pending, and the thread does work only for the bucket of the current tick. The price is precision: a
+ * timeout expires within one tick after its deadline.
+ * </p>
+ * <p>
+ * New and cancelled timeouts are handed to the wheel thread through lock-free queues, so callers never
+ * contend on the buckets. Tasks run on the wheel thread and must be short (e.g., closing a socket); a slow
+ * task delays every other timeout.
+ * </p>
+ */
+public final class TimingWheel implements Closeable {
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Timeout[] buckets;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+    private final long start;
+    private volatile boolean closed;
+    private long tick;
+
+    /**
+     * Creates a wheel and starts its thread.
+     *
+     * @param tickDuration The duration of a tick, which is the precision of the timeouts
+     * @param unit         The unit of the tick duration
+     * @param wheelSize    The number of buckets, rounded up to a power of two
+     * @param threadName   The name of the wheel thread, which is a daemon thread
+     */
+    public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize, String threadName) {
+        if (tickDuration <= 0 || wheelSize < 1 || wheelSize > 1 << 20) {
+            throw new IllegalArgumentException("The tick must be positive and the wheel size between 1 and 2^20");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.start = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param task  The task to run when the timeout expires
+     * @param delay The delay after which the task runs
+     * @param unit  The unit of the delay
+     * @return The timeout, which can be cancelled
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Returns the number of timeouts that have neither expired nor been cancelled.
+     *
+     * @return The number of pending timeouts
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the wheel thread. Pending timeouts never expire.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        while (!closed) {
+            long deadline = start + (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime()) - deadline < 0) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.parkNanos(this, deadline - now);
+            }
+            removeCancelled();
+            addScheduled();
+            expire((int) (tick & mask));
+            tick++;
+        }
+    }
+
+    /**
+     * Moves the timeouts scheduled since the previous tick to their buckets. The bucket of tick {@code t} is
+     * visited at the end of the tick, so a timeout goes to the first tick that ends at or after its deadline;
+     * one whose deadline has already passed goes to the current bucket and expires right away.
+     */
+    private void addScheduled() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() != INIT) {
+                continue;
+            }
+            long expiresAt = Math.max(tick, Math.floorDiv(timeout.deadline - start + tickNanos - 1, tickNanos) - 1);
+            timeout.rounds = (expiresAt - tick) / buckets.length;
+            timeout.bucket = (int) (expiresAt & mask);
+            Timeout head = buckets[timeout.bucket];
+            timeout.next = head;
+            if (head != null) {
+                head.previous = timeout;
+            }
+            buckets[timeout.bucket] = timeout;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket >= 0) {
+                unlink(timeout);
+            }
+        }
+    }
+
+    private void expire(int bucket) {
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds <= 0) {
+                unlink(timeout);
+                if (timeout.state.compareAndSet(INIT, EXPIRED)) {
+                    pending.decrementAndGet();
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Timeout task failed: " + e);
+                    }
+                }
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.next = null;
+        timeout.previous = null;
+        timeout.bucket = -1;
+    }
+
+    /**
+     * A scheduled task. Only the wheel thread touches its links.
+     */
+    public static final class Timeout {
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long rounds;
+        private int bucket = -1;
+        private Timeout next;
+        private Timeout previous;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return {@code true} if the task will not run, {@code false} if it already ran or is running
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return state.get() == CANCELLED;
+            }
+            wheel.pending.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Tells whether the task has run or is running.
+         *
+         * @return {@code true} if the timeout expired
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.annotations.WarmupSample;
+import co.edu.escuelaing.framework.enums.RequestMethod;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warms up the request pipeline before the server accepts traffic.
+ * <p>
+ * A fresh JVM runs the first requests in the interpreter and with lightly optimized code, so a new instance
+ * answers its first few thousand requests much more slowly than the following ones. The warm-up sends
+ * synthetic requests through the same steps as real ones (parsing the raw request, routing, binding the
+ * parameters, invoking the handler through its interceptors and writing the response) until the
+ * configured number of rounds is done or the time budget runs out, so the JIT has compiled the hot paths by
+ * the time the listening socket opens.
+ * </p>
+ * <p>
+ * The requests come from the handlers annotated with {@link WarmupSample}, a few static files, and an optional
+ * file with one request per line, such as {@code GET /App/add?a=1&b=2} or {@code POST /App/echo some body};
+ * lines starting with {@code #} are ignored. Handlers without a sample are never called, since only their
+ * authors know which requests are safe and representative. Every static file is served by the same lookup
+ * and write, so the first {@value #MAX_STATIC_FILES} paths in order are enough to compile that path; they
+ * are not chosen by popularity, so list the files that matter in the warm-up file.
+ * </p>
+ */
+final class Warmup {
+    private static final int MAX_STATIC_FILES = 64;
+
+    private Warmup() {
+    }
+
+    /**
+     * Builds the raw requests of the warm-up.
+     *
+     * @param services    The route table
+     * @param staticPaths The indexed static files
+     * @param file        The file with extra requests, or {@code null}
+     * @return The requests, encoded as they arrive from a client
+     * @throws IOException If the file cannot be read
+     */
+    static List<byte[]> requests(Map<String, Map<RequestMethod, Method>> services, Collection<String> staticPaths,
+                                 String file) throws IOException {
+        List<byte[]> requests = new ArrayList<>();
+        services.forEach((route, methods) -> methods.forEach((requestMethod, method) -> {
+            WarmupSample sample = method.getAnnotation(WarmupSample.class);
+            if (sample != null) {
+                requests.add(encode(requestMethod.name(), target(route, sample.query()), sample.body()));
+            }
+        }));
+        staticPaths.stream().limit(MAX_STATIC_FILES)
+                .forEach(path -> requests.add(encode("GET", path, "", "Accept-Encoding: gzip, deflate, br")));
+        if (file != null) {
+            for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ", 3);
+                if (parts.length >= 2 && !parts[0].startsWith("#")) {
+                    requests.add(encode(parts[0], parts[1], parts.length > 2 ? parts[2] : ""));
+                }
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Sends the requests through the pipeline, round after round.
+     *
+     * @param requests      The raw requests
+     * @param rounds        How many times to send every request
+     * @param timeoutMillis The time budget, checked after every request; the warm-up stops as soon as it runs
+     *                      out
+     * @return The number of requests sent
+     */
+    static int run(List<byte[]> requests, int rounds, long timeoutMillis) {
+        OutputStream sink = OutputStream.nullOutputStream();
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        int sent = 0;
+        for (int round = 0; round < rounds && !requests.isEmpty(); round++) {
+            for (byte[] raw : requests) {
+                try {
+                    HttpRequest request = HttpRequest.parse(new ByteArrayInputStream(raw),
+                            FrameworkConfig.getMaxRequestBodySize());
+                    WebServer.handle(request).writeTo(sink, WebServer.isKeepAlive(request));
+                } catch (IOException | RuntimeException e) {
+                    // A failing sample must not stop the server from starting
+                }
+                sent++;
+                if (System.nanoTime() - deadline > 0) {
+                    return sent;
+                }
+            }
+        }
+        return sent;
+    }
+
+    private static String target(String route, String query) {
+        return "/App" + route + (query.isEmpty() ? "" : "?" + query);
+    }
+
+    private static byte[] encode(String method, String target, String body, String... headers) {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        StringBuilder head = new StringBuilder();
+        head.append(method).append(' ').append(target).append(" HTTP/1.1\r\nHost: localhost\r\n");
+        for (String header : headers) {
+            head.append(header).append("\r\n");
+        }
+        if (content.length > 0) {
+            head.append("Content-Type: text/plain\r\nContent-Length: ").append(content.length).append("\r\n");
+        }
+        head.append("\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] raw = new byte[headBytes.length + content.length];
+        System.arraycopy(headBytes, 0, raw, 0, headBytes.length);
+        System.arraycopy(content, 0, raw, headBytes.length, content.length);
+        return raw;
+    }
+}
@@ -1,16 +1,46 @@
 package co.edu.escuelaing.framework;
 
+import co.edu.escuelaing.framework.annotations.RequestBody;
 import co.edu.escuelaing.framework.annotations.RequestParam;
 import co.edu.escuelaing.framework.enums.RequestMethod;
+import co.edu.escuelaing.framework.http2.Http2Connection;
+import co.edu.escuelaing.framework.jfr.ConnectionAcceptedEvent;
+import co.edu.escuelaing.framework.jfr.HandlerInvokedEvent;
+import co.edu.escuelaing.framework.jfr.RequestParsedEvent;
+import co.edu.escuelaing.framework.jfr.ResponseWrittenEvent;
+import co.edu.escuelaing.framework.jfr.RouteResolvedEvent;
+import co.edu.escuelaing.framework.jfr.StaticCacheEvent;
+import co.edu.escuelaing.framework.json.JsonSerializer;
+import co.edu.escuelaing.framework.websocket.WebSocketEndpoint;
+import co.edu.escuelaing.framework.websocket.WebSockets;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.nio.file.Files;
+import java.net.StandardSocketOptions;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * The WebServer class represents a custom web server that handles HTTP requests, serves static files,
@@ -18,9 +48,48 @@ import java.util.Map;
  * It is a singleton class that manages the server lifecycle and request handling.
  */
 public class WebServer {
-    private static final int PORT = 8080;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final HttpResponse SERVICE_UNAVAILABLE = HttpResponse.preEncoded("503 Service Unavailable",
+            "text/plain", "Service Unavailable".getBytes(StandardCharsets.US_ASCII), "Retry-After", "1");
+    private static final HttpResponse TOO_MANY_REQUESTS = HttpResponse.preEncoded("429 Too Many Requests",
+            "text/plain", "Too Many Requests".getBytes(StandardCharsets.US_ASCII), "Retry-After", "1");
+    private static final HttpResponse FILE_NOT_FOUND = HttpResponse.cached("404 Not Found", "text/plain",
+            "File not found".getBytes(StandardCharsets.US_ASCII));
+    private static final HttpResponse LIVE = HttpResponse.cached("200 OK", "text/plain",
+            "OK".getBytes(StandardCharsets.US_ASCII), "Cache-Control", "no-store");
+    private static final HttpResponse READY = HttpResponse.cached("200 OK", "text/plain",
+            "Ready".getBytes(StandardCharsets.US_ASCII), "Cache-Control", "no-store");
+    private static final HttpResponse NOT_READY = HttpResponse.cached("503 Service Unavailable", "text/plain",
+            "Not Ready".getBytes(StandardCharsets.US_ASCII), "Cache-Control", "no-store");
+    /**
+     * The liveness endpoint: answers {@code 200 OK} while the process can serve requests at all.
+     */
+    public static final String LIVENESS_PATH = "/healthz";
+    /**
+     * The readiness endpoint: answers {@code 200 OK} once the server is listening, and
+     * {@code 503 Service Unavailable} while it is starting or stopping.
+     */
+    public static final String READINESS_PATH = "/readyz";
+    private static final long MAX_DISCARDED_BODY = 64 * 1024;
+    private static final long RATE_LIMIT_SWEEP_SECONDS = 10;
     private static WebServer instance;
-    private static Map<String, Map<RequestMethod, Method>> services;
+    private static volatile Routes routes = new Routes(Collections.emptyMap(), Collections.emptyMap(),
+            Collections.emptyMap());
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+    private static volatile ConcurrencyLimiter limiter;
+    private static volatile RateLimiter rateLimiter;
+    private static ThreadPoolExecutor http2Executor;
+    private static volatile StaticAssets assets;
+    private static volatile boolean ready;
+    private static volatile boolean stopping;
+    private static boolean shutdownHook;
+    private static final Object LIFECYCLE = new Object();
+    private static final List<Connection.Listener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final List<ThreadPoolExecutor> WORKER_POOLS = new CopyOnWriteArrayList<>();
+    private static final Set<Connection> CONNECTIONS = ConcurrentHashMap.newKeySet();
+    private static final Set<Connection> IDLE_CONNECTIONS = ConcurrentHashMap.newKeySet();
+    private static ScheduledThreadPoolExecutor rateLimitSweeper;
+    private static TimingWheel timer;
 
     private WebServer() {
     }
@@ -39,50 +108,662 @@ public class WebServer {
 
     /**
      * Sets the services map with routes and associated methods.
+     * <p>
+     * The map is published as a snapshot through a volatile reference: each request reads the reference once,
+     * so a new route table (e.g., after a hot reload) applies to the next requests while the requests in
+     * flight finish with the methods they already resolved. The map is copied, so changes the caller makes
+     * to it afterwards are not seen.
+     * </p>
      *
      * @param services Map of routes to HTTP methods and their corresponding methods
      */
     public static void setServices(Map<String, Map<RequestMethod, Method>> services) {
-        WebServer.services = services;
+        setServices(services, InterceptorChain.EMPTY);
+    }
+
+    /**
+     * Sets the services map and compiles the invoker of every route: its method, guarded by its
+     * {@link co.edu.escuelaing.framework.annotations.Bulkhead} if it has one, wrapped by the interceptors that
+     * apply to it, or the method alone when none does. The route table, the invokers and the bulkhead
+     * compartments are published together, as one snapshot.
+     *
+     * @param services     Map of routes to HTTP methods and their corresponding methods
+     * @param interceptors The interceptors of the application
+     * @throws IllegalArgumentException If a bulkhead is declared with invalid or conflicting limits
+     */
+    public static void setServices(Map<String, Map<RequestMethod, Method>> services, InterceptorChain interceptors) {
+        Map<String, Map<RequestMethod, Method>> snapshot = new HashMap<>();
+        services.forEach((route, methods) -> {
+            Map<RequestMethod, Method> copy = new EnumMap<>(RequestMethod.class);
+            copy.putAll(methods);
+            snapshot.put(route, Collections.unmodifiableMap(copy));
+        });
+        Map<String, Map<RequestMethod, RouteInvoker>> invokers = new HashMap<>();
+        Map<String, Bulkheads.Compartment> bulkheads = new HashMap<>();
+        Map<String, Bulkheads.Compartment> previous = routes.bulkheads();
+        snapshot.forEach((route, methods) -> {
+            Map<RequestMethod, RouteInvoker> compiled = new EnumMap<>(RequestMethod.class);
+            methods.forEach((requestMethod, method) -> {
+                RouteInvoker handler = request -> invokeService(method, request);
+                Bulkheads.Compartment compartment = Bulkheads.of(method, bulkheads, previous);
+                if (compartment != null) {
+                    handler = Bulkheads.wrap(compartment, handler);
+                }
+                compiled.put(requestMethod, interceptors.compile(route, handler));
+            });
+            invokers.put(route, Collections.unmodifiableMap(compiled));
+        });
+        routes = new Routes(Map.copyOf(snapshot), Map.copyOf(invokers), Collections.unmodifiableMap(bulkheads));
     }
 
     /**
-     * Starts the web server and listens for incoming client connections on the specified port.
+     * Starts the web server and listens for incoming client connections on {@link FrameworkConfig#getPort()}
+     * and, if {@link FrameworkConfig#getUnixSocket()} is set, on a Unix domain socket, so that clients on the
+     * same host skip the TCP stack. Connections from both transports run through the same request pipeline.
+     * <p>
+     * Accepted connections are handed to a pool of {@link FrameworkConfig#getWorkerThreads()} workers through a
+     * queue bounded by {@link FrameworkConfig#getAcceptQueueSize()}. When the queue is full the accept loop
+     * answers the connection with a pre-encoded {@code 503 Service Unavailable}, so overload never grows an
+     * unbounded backlog.
+     * </p>
+     * <p>
+     * When {@link FrameworkConfig#getAcceptors()} is greater than one and the platform supports
+     * {@code SO_REUSEPORT} (e.g., Linux), the server opens that many listening sockets on the same port. The
+     * kernel spreads incoming connections among them, and each one has its own acceptor thread and its own
+     * share of the worker threads and accept queue, so there is no queue shared between acceptors. Without
+     * {@code SO_REUSEPORT} a single acceptor is used. The Unix domain socket has one more acceptor, with the
+     * same share.
+     * </p>
+     * <p>
+     * The method returns once the server is stopped with {@link #stop(Duration)}, which a shutdown hook also
+     * calls when the JVM is asked to exit (e.g., on {@code SIGTERM}), with
+     * {@link FrameworkConfig#getShutdownTimeout()} to drain the connections.
+     * </p>
      */
     public static void startServer() {
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-            System.out.println("Listening on port " + PORT);
+        ready = false;
+        stopping = false;
+        try {
+            System.out.println("Serving " + staticAssets().paths().size() + " static files from "
+                    + FrameworkConfig.getStaticFilesLocation());
+        } catch (IOException e) {
+            System.err.println("Could not index static files in " + FrameworkConfig.getStaticFilesLocation());
+            e.printStackTrace();
+            return;
+        }
+        if (FrameworkConfig.getWarmupIterations() > 0) {
+            warmUp();
+        }
+        limiter = ConcurrencyLimiter.fromConfig();
+        rateLimiter = RateLimiter.fromConfig();
+        int port = FrameworkConfig.getPort();
+        String unixSocket = FrameworkConfig.getUnixSocket();
+        int acceptors = port > 0 ? FrameworkConfig.getAcceptors() : 0;
+        if (acceptors > 1 && !supportsReusePort()) {
+            System.err.println("SO_REUSEPORT is not supported on this platform, using a single acceptor");
+            acceptors = 1;
+        }
+        int listenerCount = acceptors + (unixSocket != null ? 1 : 0);
+        if (listenerCount == 0) {
+            System.err.println("Neither a port nor a Unix domain socket to listen on");
+            return;
+        }
+        int workerThreads = Math.max(1, FrameworkConfig.getWorkerThreads() / listenerCount);
+        int queueSize = Math.max(1, FrameworkConfig.getAcceptQueueSize() / listenerCount);
+
+        List<Connection.Listener> listeners = new ArrayList<>();
+        try {
+            for (int i = 0; i < acceptors; i++) {
+                listeners.add(Connection.listen(openServerSocket(port, acceptors > 1, queueSize)));
+            }
+            if (unixSocket != null) {
+                listeners.add(Connection.listenUnix(Paths.get(unixSocket), queueSize));
+            }
+        } catch (IOException e) {
+            System.err.println("Could not listen on " + (listeners.size() < acceptors ? "port " + port : unixSocket));
+            e.printStackTrace();
+            listeners.forEach(WebServer::closeQuietly);
+            return;
+        }
+        List<ThreadPoolExecutor> pools = new ArrayList<>();
+        for (int i = 0; i < listenerCount; i++) {
+            pools.add(newWorkerPool(workerThreads, queueSize));
+        }
+        synchronized (LIFECYCLE) {
+            LISTENERS.addAll(listeners);
+            WORKER_POOLS.addAll(pools);
+            if (rateLimiter != null) {
+                startRateLimitSweeper(rateLimiter);
+            }
+            if (!shutdownHook) {
+                Runtime.getRuntime().addShutdownHook(new Thread(
+                        () -> stop(Duration.ofMillis(FrameworkConfig.getShutdownTimeout())), "webserver-shutdown"));
+                shutdownHook = true;
+            }
+        }
+        if (acceptors > 0) {
+            System.out.println("Listening on port " + port + (acceptors > 1 ? " with " + acceptors + " acceptors" : ""));
+        }
+        if (unixSocket != null) {
+            System.out.println("Listening on unix:" + unixSocket);
+        }
+        ready = true;
+
+        for (int i = 1; i < listenerCount; i++) {
+            Connection.Listener listener = listeners.get(i);
+            ThreadPoolExecutor workers = pools.get(i);
+            Thread acceptor = new Thread(() -> acceptLoop(listener, workers), "webserver-acceptor-" + i);
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        acceptLoop(listeners.get(0), pools.get(0));
+    }
+
+    /**
+     * Stops the server gracefully. The server reports itself as not ready, stops accepting connections and
+     * closes the persistent connections that are waiting for their next request. Requests being handled run to
+     * completion and are answered with {@code Connection: close}. Connections still open when the timeout
+     * expires, such as HTTP/2 connections and WebSocket sessions, are closed.
+     * <p>
+     * Calling it when the server is not running does nothing.
+     * </p>
+     *
+     * @param timeout How long to wait for the requests being handled
+     * @return {@code true} if every connection finished before the timeout
+     */
+    public static boolean stop(Duration timeout) {
+        synchronized (LIFECYCLE) {
+            if (LISTENERS.isEmpty()) {
+                return true;
+            }
+            long deadline = System.nanoTime() + timeout.toNanos();
+            ready = false;
+            stopping = true;
+            LISTENERS.forEach(WebServer::closeQuietly);
+            WORKER_POOLS.forEach(ThreadPoolExecutor::shutdown);
+            if (rateLimitSweeper != null) {
+                rateLimitSweeper.shutdownNow();
+                rateLimitSweeper = null;
+            }
+            IDLE_CONNECTIONS.forEach(WebServer::closeQuietly);
+            boolean drained = true;
+            try {
+                for (ThreadPoolExecutor workers : WORKER_POOLS) {
+                    drained &= workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                drained = false;
+            }
+            int open = 0;
+            if (!drained) {
+                open = CONNECTIONS.size();
+                CONNECTIONS.forEach(WebServer::closeQuietly);
+            }
+            LISTENERS.clear();
+            WORKER_POOLS.clear();
+            // Stopped: local connections opened from now on are served normally again
+            stopping = false;
+            System.out.println(drained ? "Server stopped" : "Server stopped, closed " + open
+                    + " connections that were still open");
+            return drained;
+        }
+    }
+
+    /**
+     * Sends the warm-up requests through the request pipeline (see {@link Warmup}). It runs before the
+     * admission limiters exist, so the slow first requests neither count against the rate limits nor skew the
+     * adaptive concurrency limit. A warm-up that cannot be built is reported and skipped.
+     */
+    private static void warmUp() {
+        long start = System.nanoTime();
+        try {
+            List<byte[]> requests = Warmup.requests(getServices(), staticAssets().paths(),
+                    FrameworkConfig.getWarmupFile());
+            int sent = Warmup.run(requests, FrameworkConfig.getWarmupIterations(), FrameworkConfig.getWarmupTimeout());
+            System.out.println("Warmed up with " + sent + " requests in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            System.err.println("Could not warm up: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tells whether the server is ready: it has finished warming up, is accepting connections and is not
+     * stopping. Health checks and load balancers can use it, or {@link #READINESS_PATH}, to hold traffic back
+     * from an instance that is starting or draining.
+     *
+     * @return {@code true} while the server is listening
+     */
+    public static boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns how many sockets the server is listening on: one per acceptor plus the Unix domain socket.
+     *
+     * @return The number of listeners, or 0 when the server is not running
+     */
+    static int getListenerCount() {
+        return LISTENERS.size();
+    }
+
+    /**
+     * Tells whether listening sockets can share a port with {@code SO_REUSEPORT}.
+     *
+     * @return {@code true} if the option is supported
+     */
+    static boolean supportsReusePort() {
+        try (ServerSocket probe = new ServerSocket()) {
+            return probe.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a listening socket on a port.
+     *
+     * @param port      The port
+     * @param reusePort Whether to set {@code SO_REUSEPORT} so that other listeners can bind the same port
+     * @param backlog   The listen backlog
+     * @return The bound server socket
+     * @throws IOException If the socket cannot be bound
+     */
+    private static ServerSocket openServerSocket(int port, boolean reusePort, int backlog) throws IOException {
+        ServerSocket serverSocket = new ServerSocket();
+        try {
+            if (reusePort) {
+                serverSocket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            serverSocket.bind(new InetSocketAddress(port), backlog);
+            return serverSocket;
+        } catch (IOException e) {
+            closeQuietly(serverSocket);
+            throw e;
+        }
+    }
+
+    /**
+     * Accepts connections from one listening socket and hands them to its worker pool until the socket fails.
+     *
+     * @param listener The listening socket
+     * @param workers  The worker pool of this acceptor
+     */
+    private static void acceptLoop(Connection.Listener listener, ThreadPoolExecutor workers) {
+        try (listener) {
             while (true) {
-                try (Socket clientSocket = serverSocket.accept()) {
-                    handleRequest(clientSocket);
+                Connection connection = listener.accept();
+                ConnectionAcceptedEvent accepted = new ConnectionAcceptedEvent();
+                if (accepted.shouldCommit()) {
+                    accepted.remoteAddress = connection.getRemoteAddress();
+                    accepted.queued = workers.getQueue().size();
+                    accepted.commit();
+                }
+                try {
+                    workers.execute(() -> serveConnection(connection));
+                } catch (RejectedExecutionException e) {
+                    reject(connection);
                 }
             }
         } catch (IOException e) {
-            System.err.println("Could not listen on port " + PORT);
-            e.printStackTrace();
+            // stop() removes the listeners it closes, and may have finished before this acceptor woke up
+            if (!stopping && LISTENERS.contains(listener)) {
+                System.err.println("Could not accept connections on " + listener.describe());
+                e.printStackTrace();
+            }
+        } finally {
+            workers.shutdown();
         }
     }
 
     /**
-     * Handles incoming HTTP requests, routing them to either service handlers or static file handlers.
+     * Creates a pool of worker threads with a bounded queue for accepted connections.
+     *
+     * @param threads   The number of worker threads
+     * @param queueSize The number of accepted connections that may wait for a worker
+     * @return The worker pool
+     */
+    private static ThreadPoolExecutor newWorkerPool(int threads, int queueSize) {
+        int pool = POOL_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                task -> {
+                    Thread thread = new Thread(task, "webserver-worker-" + pool + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already failing, nothing else to report
+        }
+    }
+
+    /**
+     * Handles a connection on a worker thread and closes it afterwards.
      *
      * @param clientSocket The socket connected to the client
-     * @throws IOException If an I/O error occurs while reading from or writing to the socket
-     */
-    private static void handleRequest(Socket clientSocket) throws IOException {
-        BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-        OutputStream out = clientSocket.getOutputStream();
-        String inputLine = in.readLine();
-        if (inputLine != null) {
-            String[] requestParts = inputLine.split(" ");
-            String method = requestParts[0];
-            String path = requestParts[1];
-            String protocol = requestParts[2];
-
-            if (path.startsWith("/App/")) {
-                handleServiceRequest(path, method, out);
+     */
+    static void serveConnection(Socket clientSocket) {
+        try {
+            serveConnection(Connection.of(clientSocket));
+        } catch (IOException e) {
+            closeQuietly(clientSocket);
+        }
+    }
+
+    /**
+     * Handles a connection from any transport and closes it afterwards.
+     *
+     * @param connection The connection to the client
+     */
+    static void serveConnection(Connection connection) {
+        Deadline deadline = new Deadline(connection);
+        CONNECTIONS.add(connection);
+        try (connection) {
+            handleConnection(connection, deadline);
+        } catch (IOException e) {
+            if (!deadline.expired && !stopping) {
+                System.err.println("Error handling connection: " + e.getMessage());
+            }
+        } finally {
+            deadline.cancel();
+            CONNECTIONS.remove(connection);
+            IDLE_CONNECTIONS.remove(connection);
+        }
+    }
+
+    /**
+     * Answers a connection that could not be admitted with {@code 503 Service Unavailable} and closes it.
+     *
+     * @param connection The connection to the client
+     */
+    private static void reject(Connection connection) {
+        try (connection) {
+            SERVICE_UNAVAILABLE.writeTo(connection.getOutputStream(), false);
+        } catch (IOException e) {
+            // The client is gone, nothing left to do
+        }
+    }
+
+    /**
+     * Serves the requests of a persistent HTTP/1.1 connection one after another until the client closes it,
+     * asks for {@code Connection: close} or misses a deadline.
+     * <p>
+     * Every phase of a request has a deadline on the shared {@link #timer() timing wheel}; when it expires the
+     * socket is closed, which also unblocks the worker. Waiting for the next request on a persistent connection
+     * is bounded by {@link FrameworkConfig#getKeepAliveTimeout()}; the request line and headers must then arrive
+     * within {@link FrameworkConfig#getHeaderReadTimeout()} in total, so a client that trickles its headers a
+     * byte at a time cannot hold a worker (slowloris); reading the body and handling the request are bounded by
+     * {@link FrameworkConfig#getBodyReadTimeout()} and sending the response by
+     * {@link FrameworkConfig#getWriteTimeout()}, which also covers clients that stop reading.
+     * </p>
+     * <p>
+     * When h2c is enabled, a connection that starts with the HTTP/2 preface, or whose request asks for
+     * {@code Upgrade: h2c}, is handed to an {@link Http2Connection} that multiplexes its streams over the
+     * shared HTTP/2 executor. Its frame reader detects idle connections with the socket timeout, since it must
+     * wake up to send GOAWAY; over a Unix domain socket or in memory, which have no read timeout, idle HTTP/2
+     * connections stay open until the client closes them or the server stops. A request for
+     * {@code Upgrade: websocket} on the path of a WebSocket endpoint turns the connection into a
+     * {@link co.edu.escuelaing.framework.websocket.WebSocketSession}, whose idle timeout is checked on the same
+     * timing wheel.
+     * </p>
+     *
+     * @param connection The connection to the client
+     * @param deadline   The deadline of the connection
+     * @throws IOException If an I/O error occurs while reading from or writing to the connection
+     */
+    private static void handleConnection(Connection connection, Deadline deadline) throws IOException {
+        InputStream in = new BufferedInputStream(connection.getInputStream());
+        OutputStream out = new BufferedOutputStream(connection.getOutputStream());
+        RateLimiter rates = rateLimiter;
+        InetAddress client = connection.getInetAddress();
+        // Clients of a Unix domain socket are on this host and have no address to be limited by
+        Predicate<String> admission = rates != null && client != null ? target -> rates.tryAcquire(client, target) : null;
+        boolean first = true;
+        while (true) {
+            if (!first) {
+                // Registered before checking for a stop, so stop() either sees the connection idle or it sees
+                // the flag
+                IDLE_CONNECTIONS.add(connection);
+                if (stopping) {
+                    return;
+                }
+                deadline.start(FrameworkConfig.getKeepAliveTimeout());
+                in.mark(1);
+                if (in.read() < 0) {
+                    return;
+                }
+                in.reset();
+                IDLE_CONNECTIONS.remove(connection);
+            }
+            first = false;
+            deadline.start(FrameworkConfig.getHeaderReadTimeout());
+            RequestParsedEvent parsed = new RequestParsedEvent();
+            parsed.begin();
+            HttpRequest request;
+            try {
+                request = HttpRequest.parse(in, FrameworkConfig.getMaxRequestBodySize(), admission);
+            } catch (HttpException e) {
+                deadline.start(FrameworkConfig.getWriteTimeout());
+                if (e == HttpRequest.TOO_MANY_REQUESTS) {
+                    TOO_MANY_REQUESTS.writeTo(out, false);
+                    out.flush();
+                } else {
+                    sendResponse(out, e.getStatus(), "text/plain", e.getMessage().getBytes());
+                }
+                return;
+            }
+            if (request == null) {
+                return;
+            }
+            if (parsed.shouldCommit()) {
+                parsed.method = request.getMethod();
+                parsed.target = request.getTarget();
+                parsed.protocol = request.getProtocol();
+                parsed.contentLength = request.getContentLength();
+                parsed.commit();
+            }
+            if (FrameworkConfig.isHttp2()) {
+                if (Http2Connection.isPreface(request)) {
+                    deadline.cancel();
+                    connection.setReadTimeout(FrameworkConfig.getKeepAliveTimeout());
+                    newHttp2Connection(in, out, admission).servePriorKnowledge();
+                    return;
+                } else if (Http2Connection.isUpgrade(request)) {
+                    deadline.cancel();
+                    connection.setReadTimeout(FrameworkConfig.getKeepAliveTimeout());
+                    newHttp2Connection(in, out, admission).serveUpgrade(request);
+                    return;
+                }
+            }
+            if (WebSockets.isUpgrade(request) && request.getTarget().startsWith("/App/")) {
+                WebSocketEndpoint endpoint = WebSockets.getEndpoint(request.getTarget().substring("/App".length()).split("\\?")[0]);
+                if (endpoint != null) {
+                    deadline.cancel();
+                    WebSockets.serve(request, endpoint, in, out, connection,
+                            FrameworkConfig.getWebSocketMaxMessageSize(), FrameworkConfig.getWebSocketMaxQueuedBytes(),
+                            timer(), FrameworkConfig.getWebSocketIdleTimeout());
+                    return;
+                }
+            }
+            if (request.getContentLength() > 0 || request.getHeader("Transfer-Encoding") != null) {
+                deadline.start(FrameworkConfig.getBodyReadTimeout());
             } else {
-                handleStaticFileRequest(path, out);
+                deadline.cancel();
+            }
+            if ("100-continue".equalsIgnoreCase(request.getHeader("Expect"))) {
+                out.write(CONTINUE);
+                out.flush();
+            }
+
+            boolean keepAlive = isKeepAlive(request);
+            HttpResponse response = handle(request);
+            keepAlive = keepAlive && !stopping && !response.isClosing() && discardBody(request);
+            deadline.start(FrameworkConfig.getWriteTimeout());
+            ResponseWrittenEvent written = new ResponseWrittenEvent();
+            written.begin();
+            response.writeTo(out, keepAlive);
+            out.flush();
+            if (written.shouldCommit()) {
+                written.target = request.getTarget();
+                written.status = response.getStatusCode();
+                written.bytes = response.getLength();
+                written.keepAlive = keepAlive;
+                written.commit();
+            }
+            if (!keepAlive) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tells whether the client wants the connection to stay open after the response: HTTP/1.1 connections are
+     * persistent unless the client sends {@code Connection: close}, and HTTP/1.0 connections only with
+     * {@code Connection: keep-alive}.
+     *
+     * @param request The parsed request
+     * @return {@code true} if the connection can be reused
+     */
+    static boolean isKeepAlive(HttpRequest request) {
+        String connection = request.getHeader("Connection");
+        if ("HTTP/1.1".equals(request.getProtocol())) {
+            return connection == null || !connection.equalsIgnoreCase("close");
+        }
+        return "HTTP/1.0".equals(request.getProtocol()) && "keep-alive".equalsIgnoreCase(connection);
+    }
+
+    /**
+     * Skips the part of the request body the handler did not read, so that the next request on the
+     * connection starts at the right place. Bodies with more than {@link #MAX_DISCARDED_BODY} unread bytes
+     * are not worth reading; the connection is closed instead.
+     *
+     * @param request The request that was handled
+     * @return {@code true} if the body was fully consumed
+     */
+    private static boolean discardBody(HttpRequest request) {
+        try {
+            InputStream body = request.getBody();
+            long skipped = 0;
+            byte[] scratch = new byte[8192];
+            int n;
+            while ((n = body.read(scratch)) >= 0) {
+                skipped += n;
+                if (skipped > MAX_DISCARDED_BODY) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | HttpException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the HTTP/2 connection for a socket. With a rate limit, every stream takes a token from the
+     * client's bucket before it is handled.
+     */
+    private static Http2Connection newHttp2Connection(InputStream in, OutputStream out, Predicate<String> admission) {
+        HttpHandler handler = WebServer::handle;
+        if (admission != null) {
+            handler = request -> admission.test(request.getTarget()) ? handle(request) : TOO_MANY_REQUESTS;
+        }
+        return new Http2Connection(in, out, handler, http2Executor(), FrameworkConfig.getMaxRequestBodySize());
+    }
+
+    /**
+     * Removes the rate limiter's full buckets every {@link #RATE_LIMIT_SWEEP_SECONDS} seconds, so the buckets
+     * of clients that went away do not accumulate. Called with the {@code LIFECYCLE} lock held; {@link #stop}
+     * shuts the sweeper down, and a sweeper left by a previous start is replaced.
+     */
+    private static void startRateLimitSweeper(RateLimiter rates) {
+        if (rateLimitSweeper != null) {
+            rateLimitSweeper.shutdownNow();
+        }
+        ScheduledThreadPoolExecutor sweeper = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "webserver-rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(rates::evictIdle, RATE_LIMIT_SWEEP_SECONDS, RATE_LIMIT_SWEEP_SECONDS,
+                TimeUnit.SECONDS);
+        rateLimitSweeper = sweeper;
+    }
+
+    /**
+     * Returns the executor shared by all HTTP/2 connections to run their streams. It has
+     * {@link FrameworkConfig#getWorkerThreads()} threads and a queue of
+     * {@link Http2Connection#MAX_CONCURRENT_STREAMS}; streams that do not fit are refused.
+     *
+     * @return The HTTP/2 stream executor
+     */
+    private static synchronized ThreadPoolExecutor http2Executor() {
+        if (http2Executor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            int threads = FrameworkConfig.getWorkerThreads();
+            http2Executor = new ThreadPoolExecutor(threads, threads,
+                    0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Http2Connection.MAX_CONCURRENT_STREAMS),
+                    task -> {
+                        Thread thread = new Thread(task, "webserver-h2-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+        return http2Executor;
+    }
+
+    /**
+     * Handles a request, routing it to either service handlers or static file handlers. This is the
+     * {@link HttpHandler} shared by HTTP/1.1 connections and HTTP/2 streams.
+     * <p>
+     * The request must first get a permit from the {@link ConcurrencyLimiter}; otherwise it is answered with a
+     * pre-encoded {@code 503 Service Unavailable} before any routing happens. A batch request
+     * ({@code POST /App/batch}, see {@link BatchRequests}) takes a single permit for all its calls. The health
+     * endpoints ({@link #LIVENESS_PATH} and {@link #READINESS_PATH}) are answered first, with precomputed
+     * responses, so an overloaded server still reports its state.
+     * </p>
+     *
+     * @param request The parsed request
+     * @return The response to send
+     * @throws IOException If an I/O error occurs while reading the request body or a static file
+     */
+    static HttpResponse handle(HttpRequest request) throws IOException {
+        if (request.getRequestMethod() == RequestMethod.GET) {
+            if (request.getTarget().equals(LIVENESS_PATH)) {
+                return LIVE;
+            } else if (request.getTarget().equals(READINESS_PATH)) {
+                return ready ? READY : NOT_READY;
+            }
+        }
+        ConcurrencyLimiter admission = limiter;
+        if (admission != null && !admission.tryAcquire()) {
+            return SERVICE_UNAVAILABLE;
+        }
+        long start = System.nanoTime();
+        try {
+            String path = request.getTarget();
+            if (path.equals(BatchRequests.PATH) && !routes.services().containsKey("/batch")) {
+                return BatchRequests.handle(request);
+            } else if (path.startsWith("/App/")) {
+                return serviceResponse(request);
+            } else if (request.getRequestMethod() == RequestMethod.GET) {
+                return staticFileResponse(path, request.getHeader("If-None-Match"),
+                        request.getHeader("Accept-Encoding"));
+            }
+            return textResponse("405 Method Not Allowed", "Method not allowed");
+        } catch (HttpException e) {
+            return textResponse(e.getStatus(), e.getMessage());
+        } finally {
+            if (admission != null) {
+                admission.release(System.nanoTime() - start);
             }
         }
     }
@@ -96,27 +777,113 @@ public class WebServer {
      * @throws IOException If an I/O error occurs while sending the response
      */
     static void handleServiceRequest(String path, String method, OutputStream out) throws IOException {
-        String[] parts = path.substring("/App".length()).split("\\?");
-        String servicePath = parts[0];
-        String queryString = parts.length > 1 ? parts[1] : "";
-
-        Map<RequestMethod, Method> methodMap = services.get(servicePath);
-        if (methodMap != null) {
-            RequestMethod requestMethod = RequestMethod.valueOf(method.toUpperCase());
-            Method serviceMethod = methodMap.get(requestMethod);
-            if (serviceMethod != null) {
-                try {
-                    Map<String, String> queryParams = parseQueryParams(queryString);
-                    Object result = invokeMethodWithParams(serviceMethod, queryParams);
-                    sendResponse(out, "200 OK", "text/plain", result.toString().getBytes());
-                } catch (Exception e) {
-                    sendResponse(out, "500 Internal Server Error", "text/plain", "Error processing request".getBytes());
-                }
-            } else {
-                sendResponse(out, "405 Method Not Allowed", "text/plain", "Method not allowed".getBytes());
+        handleServiceRequest(new HttpRequest(method, path, "HTTP/1.1", new HashMap<>(),
+                new ByteArrayInputStream(new byte[0])), out);
+    }
+
+    /**
+     * Handles requests to registered services by dispatching to the appropriate method and writes the
+     * response.
+     *
+     * @param request The parsed request
+     * @param out     The output stream to write the response to
+     * @throws IOException If an I/O error occurs while sending the response
+     */
+    static void handleServiceRequest(HttpRequest request, OutputStream out) throws IOException {
+        HttpResponse response = serviceResponse(request);
+        response.writeTo(out, false);
+        out.flush();
+    }
+
+    /**
+     * Handles requests to registered services by dispatching to the appropriate method. The request body,
+     * if any, is bound to the parameter annotated with {@link RequestBody}. {@code String} results are sent
+     * as {@code text/plain}; any other result is serialized as {@code application/json}.
+     * <p>
+     * The request goes through the invoker compiled for the route, so the interceptors that apply to it run
+     * around the method. An {@link HttpException} thrown by an interceptor is sent as its status.
+     * </p>
+     *
+     * @param request The parsed request
+     * @return The response of the service
+     */
+    static HttpResponse serviceResponse(HttpRequest request) {
+        String target = request.getTarget();
+        int query = target.indexOf('?');
+        String servicePath = target.substring("/App".length(), query < 0 ? target.length() : query);
+
+        RequestMethod requestMethod = request.getRequestMethod();
+        if (requestMethod == null) {
+            return textResponse("501 Not Implemented", "Method not implemented");
+        }
+
+        Map<RequestMethod, RouteInvoker> methodMap = routes.invokers().get(servicePath);
+        RouteInvoker invoker = methodMap != null ? methodMap.get(requestMethod) : null;
+        RouteResolvedEvent resolved = new RouteResolvedEvent();
+        if (resolved.shouldCommit()) {
+            resolved.method = requestMethod.name();
+            resolved.route = servicePath;
+            resolved.matched = invoker != null;
+            resolved.commit();
+        }
+        if (methodMap == null) {
+            return textResponse("404 Not Found", "Service not found");
+        }
+        if (invoker == null) {
+            return textResponse("405 Method Not Allowed", "Method not allowed");
+        }
+        HandlerInvokedEvent invoked = new HandlerInvokedEvent();
+        invoked.begin();
+        HttpResponse response;
+        try {
+            response = invoker.invoke(request);
+            if (response == null) {
+                response = textResponse("500 Internal Server Error", "No response");
             }
-        } else {
-            sendResponse(out, "404 Not Found", "text/plain", "Service not found".getBytes());
+        } catch (HttpException e) {
+            response = textResponse(e.getStatus(), e.getMessage());
+        } catch (Exception e) {
+            response = textResponse("500 Internal Server Error", "Error processing request");
+        }
+        if (invoked.shouldCommit()) {
+            invoked.method = requestMethod.name();
+            invoked.route = servicePath;
+            invoked.status = response.getStatusCode();
+            invoked.commit();
+        }
+        return response;
+    }
+
+    /**
+     * Invokes the method of a route and turns its result, or its failure, into a response. This is the
+     * innermost invoker of every route.
+     *
+     * @param serviceMethod The method of the route
+     * @param request       The request
+     * @return The response of the service
+     */
+    private static HttpResponse invokeService(Method serviceMethod, HttpRequest request) {
+        String target = request.getTarget();
+        int query = target.indexOf('?');
+        try {
+            Map<String, String> queryParams = parseQueryParams(query < 0 ? "" : target.substring(query + 1));
+            Object result = invokeMethodWithParams(serviceMethod, queryParams, request);
+            if (result instanceof String) {
+                return new HttpResponse("200 OK", "text/plain", ((String) result).getBytes());
+            }
+            ResponseBuffer buffer = ResponseBuffer.acquire();
+            JsonSerializer.write(result, buffer);
+            return new HttpResponse("200 OK", "application/json", buffer.array(), buffer.size());
+        } catch (HttpException e) {
+            return textResponse(e.getStatus(), e.getMessage());
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof HttpException) {
+                HttpException cause = (HttpException) e.getCause();
+                return textResponse(cause.getStatus(), cause.getMessage());
+            }
+            return textResponse("500 Internal Server Error", "Error processing request");
+        } catch (Exception e) {
+            return textResponse("500 Internal Server Error", "Error processing request");
         }
     }
 
@@ -153,12 +920,36 @@ public class WebServer {
      */
     static Object invokeMethodWithParams(Method method, Map<String, String> params)
             throws IllegalAccessException, InvocationTargetException, InstantiationException, NoSuchMethodException {
+        try {
+            return invokeMethodWithParams(method, params, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Invokes a service method with the provided query parameters and request body.
+     *
+     * @param method  The method to invoke
+     * @param params  The query parameters to pass to the method
+     * @param request The request whose body is bound to the {@link RequestBody} parameter, or {@code null}
+     * @return The result of the method invocation
+     * @throws IllegalAccessException If the method cannot be accessed
+     * @throws InvocationTargetException If an exception is thrown by the method
+     * @throws InstantiationException If the method's declaring class cannot be instantiated
+     * @throws NoSuchMethodException If the method cannot be found
+     * @throws IOException If an I/O error occurs while reading the request body
+     */
+    static Object invokeMethodWithParams(Method method, Map<String, String> params, HttpRequest request)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException, NoSuchMethodException, IOException {
         Class<?>[] parameterTypes = method.getParameterTypes();
         Object[] arguments = new Object[parameterTypes.length];
 
         for (int i = 0; i < parameterTypes.length; i++) {
             RequestParam requestParam = method.getParameters()[i].getAnnotation(RequestParam.class);
-            if (requestParam != null) {
+            if (method.getParameters()[i].isAnnotationPresent(RequestBody.class)) {
+                arguments[i] = readRequestBody(parameterTypes[i], request);
+            } else if (requestParam != null) {
                 String paramName = requestParam.value();
                 String paramValue = params.getOrDefault(paramName, requestParam.defaultValue());
 
@@ -195,6 +986,27 @@ public class WebServer {
         return method.invoke(method.getDeclaringClass().getDeclaredConstructor().newInstance(), arguments);
     }
 
+    /**
+     * Converts the request body to the type of a {@link RequestBody} parameter. {@code String} and
+     * {@code byte[]} bodies are buffered up to {@link FrameworkConfig#getMaxInMemoryBodySize()}, while
+     * {@code InputStream} parameters receive the body stream as is.
+     *
+     * @param type    The parameter type
+     * @param request The request to read the body from, or {@code null} if there is none
+     * @return The body converted to {@code type}
+     * @throws IOException If an I/O error occurs while reading the body
+     */
+    private static Object readRequestBody(Class<?> type, HttpRequest request) throws IOException {
+        if (type == InputStream.class) {
+            return request != null ? request.getBody() : new ByteArrayInputStream(new byte[0]);
+        } else if (type == byte[].class) {
+            return request != null ? request.readBodyBytes(FrameworkConfig.getMaxInMemoryBodySize()) : new byte[0];
+        } else if (type == String.class) {
+            return request != null ? request.readBodyString(FrameworkConfig.getMaxInMemoryBodySize()) : "";
+        }
+        throw new IllegalArgumentException("Unsupported @RequestBody type: " + type.getName());
+    }
+
 
     /**
      * Handles requests for static files (e.g., HTML, CSS, JS) by serving the requested file from the file system.
@@ -204,19 +1016,64 @@ public class WebServer {
      * @throws IOException If an I/O error occurs while reading the file or sending the response
      */
     static void handleStaticFileRequest(String path, OutputStream out) throws IOException {
-        if ("/".equals(path)) {
-            path = "/index.html";
+        staticFileResponse(path).writeTo(out, false);
+        out.flush();
+    }
+
+    /**
+     * Looks up the static file for a request path in the {@link StaticAssets} index.
+     *
+     * @param path The request path
+     * @return The file as a response, or {@code 404 Not Found}
+     * @throws IOException If the index has to be built and a file cannot be read
+     */
+    static HttpResponse staticFileResponse(String path) throws IOException {
+        return staticFileResponse(path, null, null);
+    }
+
+    /**
+     * Looks up the static file for a request path in the {@link StaticAssets} index, answering
+     * {@code 304 Not Modified} when the client's copy matches the file's ETag and sending a precompressed
+     * variant when the client accepts it.
+     *
+     * @param path           The request path
+     * @param ifNoneMatch    The {@code If-None-Match} header of the request, or {@code null}
+     * @param acceptEncoding The {@code Accept-Encoding} header of the request, or {@code null}
+     * @return The file as a response, {@code 304 Not Modified} or {@code 404 Not Found}
+     * @throws IOException If the index has to be built and a file cannot be read
+     */
+    static HttpResponse staticFileResponse(String path, String ifNoneMatch, String acceptEncoding) throws IOException {
+        HttpResponse response = staticAssets().lookup(path, ifNoneMatch, acceptEncoding);
+        StaticCacheEvent lookup = new StaticCacheEvent();
+        if (lookup.shouldCommit()) {
+            lookup.path = path;
+            lookup.result = response == null ? StaticCacheEvent.MISS
+                    : response.getStatusCode() == 304 ? StaticCacheEvent.NOT_MODIFIED : StaticCacheEvent.HIT;
+            lookup.bytes = response != null ? response.getLength() : 0;
+            lookup.commit();
         }
+        return response != null ? response : FILE_NOT_FOUND;
+    }
 
-        String filePath = FrameworkConfig.getStaticFilesLocation() + path;
-        File file = new File(filePath);
-        if (file.exists() && !file.isDirectory()) {
-            String contentType = getContentType(filePath);
-            byte[] fileContent = Files.readAllBytes(file.toPath());
-            sendResponse(out, "200 OK", contentType, fileContent);
-        } else {
-            sendResponse(out, "404 Not Found", "text/plain", "File not found".getBytes());
+    /**
+     * Returns the index of the static files location, building it again if the location has changed since it
+     * was built.
+     *
+     * @return The static files index
+     * @throws IOException If a file cannot be read
+     */
+    private static StaticAssets staticAssets() throws IOException {
+        StaticAssets index = assets;
+        String location = FrameworkConfig.getStaticFilesLocation();
+        if (index == null || !index.getLocation().equals(location)) {
+            index = StaticAssets.load(location);
+            assets = index;
         }
+        return index;
+    }
+
+    private static HttpResponse textResponse(String status, String message) {
+        return new HttpResponse(status, "text/plain", message.getBytes());
     }
 
     /**
@@ -229,43 +1086,115 @@ public class WebServer {
      * @throws IOException If an I/O error occurs while writing the response
      */
     static void sendResponse(OutputStream out, String status, String contentType, byte[] body) throws IOException {
-        try (PrintWriter writer = new PrintWriter(out, true)) {
-            writer.println("HTTP/1.1 " + status);
-            writer.println("Content-Type: " + contentType);
-            writer.println("Content-Length: " + body.length);
-            writer.println();
-            writer.flush();
-            out.write(body);
-            out.flush();
-        }
+        sendResponse(out, status, contentType, body, body.length);
     }
 
     /**
-     * Determines the MIME type of a file based on its extension.
+     * Sends an HTTP response whose body is the first {@code length} bytes of an array, such as the backing
+     * array of a {@link ResponseBuffer}, and asks the client to close the connection.
      *
-     * @param filePath The path to the file
-     * @return The MIME type of the file
+     * @param out        The output stream to write the response to
+     * @param status     The HTTP status line (e.g., "200 OK")
+     * @param contentType The MIME type of the content (e.g., "application/json")
+     * @param body       The array holding the response body
+     * @param length     The number of body bytes to send
+     * @throws IOException If an I/O error occurs while writing the response
      */
-    private static String getContentType(String filePath) {
-        if (filePath.endsWith(".html"))
-            return "text/html";
-        else if (filePath.endsWith(".css"))
-            return "text/css";
-        else if (filePath.endsWith(".js"))
-            return "application/javascript";
-        else if (filePath.endsWith(".png"))
-            return "image/png";
-        else if (filePath.endsWith(".jpg") || filePath.endsWith(".jpeg"))
-            return "image/jpeg";
-        return "text/plain";
+    static void sendResponse(OutputStream out, String status, String contentType, byte[] body, int length) throws IOException {
+        new HttpResponse(status, contentType, body, length).writeTo(out, false);
+        out.flush();
     }
 
     /**
      * Returns the map of registered services.
      *
-     * @return The map of services
+     * @return An unmodifiable snapshot of the services
      */
     public static Map<String, Map<RequestMethod, Method>> getServices() {
-        return services;
+        return routes.services();
+    }
+
+    /**
+     * Returns the bulkhead compartments of the registered routes, by name, with their queue depths and
+     * rejection counts.
+     *
+     * @return The compartments
+     */
+    public static Map<String, Bulkheads.Compartment> getBulkheads() {
+        return routes.bulkheads();
+    }
+
+    /**
+     * Returns the admission limiter of the running server.
+     *
+     * @return The concurrency limiter, or {@code null} if the server has not been started
+     */
+    public static ConcurrencyLimiter getConcurrencyLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Returns the timing wheel shared by all connections for their deadlines. It ticks every 100 ms, so a
+     * deadline expires at most 100 ms late.
+     *
+     * @return The connection timer
+     */
+    private static synchronized TimingWheel timer() {
+        if (timer == null) {
+            timer = new TimingWheel(100, TimeUnit.MILLISECONDS, 512, "webserver-timer");
+        }
+        return timer;
+    }
+
+    /**
+     * The deadline of the current phase of a connection. Starting a phase replaces the deadline of the
+     * previous one; when a deadline expires, the socket is closed.
+     */
+    private static final class Deadline implements Runnable {
+        private final Connection connection;
+        private final TimingWheel wheel = timer();
+        private TimingWheel.Timeout timeout;
+        private volatile boolean expired;
+
+        Deadline(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Replaces the current deadline.
+         *
+         * @param millis The time allowed for the next phase, or 0 for no limit
+         */
+        void start(int millis) {
+            cancel();
+            if (millis > 0) {
+                timeout = wheel.schedule(this, millis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void cancel() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+
+        @Override
+        public void run() {
+            expired = true;
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * A snapshot of the route table, of the invokers compiled from it and of their bulkheads.
+     *
+     * @param services  The route table, as registered
+     * @param invokers  The invoker of every route and method
+     * @param bulkheads The bulkhead compartments of the routes, by name
+     */
+    private record Routes(Map<String, Map<RequestMethod, Method>> services,
+                          Map<String, Map<RequestMethod, RouteInvoker>> invokers,
+                          Map<String, Bulkheads.Compartment> bulkheads) {
     }
 }
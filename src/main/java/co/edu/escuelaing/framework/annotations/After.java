@@ -0,0 +1,49 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code After} annotation marks an interceptor method, in an {@link Interceptor} class, that
+ * runs after the handler of the routes it applies to. The method must be static, take the
+ * {@link co.edu.escuelaing.framework.HttpRequest} and the {@link co.edu.escuelaing.framework.HttpResponse} of
+ * the handler, and return the response to send, which may be the same one with extra headers.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @Interceptor
+ * public class MyInterceptors {
+ *
+ *     @After
+ *     public static HttpResponse noCache(HttpRequest request, HttpResponse response) {
+ *         return response.header("Cache-Control", "no-store");
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @see Interceptor
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface After {
+
+    /**
+     * The routes the interceptor applies to: a route path, relative to {@code /App}, that also matches the
+     * routes below it (e.g., {@code "/bulk"} matches {@code "/bulk/add"}). The default applies to every route.
+     *
+     * @return the route prefix
+     */
+    String value() default "/";
+
+    /**
+     * The position of the interceptor in the chain. Interceptors with a lower order run first, that is,
+     * outside those with a higher order.
+     *
+     * @return the order of the interceptor
+     */
+    int order() default 0;
+}
@@ -0,0 +1,55 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code Around} annotation marks an interceptor method, in an {@link Interceptor} class, that
+ * wraps the handler of the routes it applies to. The method must be static, take the
+ * {@link co.edu.escuelaing.framework.HttpRequest} and the {@link co.edu.escuelaing.framework.RouteInvoker} of
+ * the rest of the chain, and return the response to send; it decides whether and when to call
+ * {@code next.invoke(request)}.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @Interceptor
+ * public class MyInterceptors {
+ *
+ *     @Around
+ *     public static HttpResponse time(HttpRequest request, RouteInvoker next) throws Exception {
+ *         long start = System.nanoTime();
+ *         try {
+ *             return next.invoke(request);
+ *         } finally {
+ *             System.out.println(request.getTarget() + " took " + (System.nanoTime() - start) + " ns");
+ *         }
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @see Interceptor
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Around {
+
+    /**
+     * The routes the interceptor applies to: a route path, relative to {@code /App}, that also matches the
+     * routes below it (e.g., {@code "/bulk"} matches {@code "/bulk/add"}). The default applies to every route.
+     *
+     * @return the route prefix
+     */
+    String value() default "/";
+
+    /**
+     * The position of the interceptor in the chain. Interceptors with a lower order run first, that is,
+     * outside those with a higher order.
+     *
+     * @return the order of the interceptor
+     */
+    int order() default 0;
+}
@@ -0,0 +1,49 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code Before} annotation marks an interceptor method, in an {@link Interceptor} class, that
+ * runs before the handler of the routes it applies to. The method must be static and take the
+ * {@link co.edu.escuelaing.framework.HttpRequest}; it rejects a request by throwing an
+ * {@link co.edu.escuelaing.framework.HttpException}, which is sent as the response.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @Interceptor
+ * public class MyInterceptors {
+ *
+ *     @Before("/admin")
+ *     public static void requireToken(HttpRequest request) {
+ *         ...
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @see Interceptor
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Before {
+
+    /**
+     * The routes the interceptor applies to: a route path, relative to {@code /App}, that also matches the
+     * routes below it (e.g., {@code "/bulk"} matches {@code "/bulk/add"}). The default applies to every route.
+     *
+     * @return the route prefix
+     */
+    String value() default "/";
+
+    /**
+     * The position of the interceptor in the chain. Interceptors with a lower order run first, that is,
+     * outside those with a higher order.
+     *
+     * @return the order of the interceptor
+     */
+    int order() default 0;
+}
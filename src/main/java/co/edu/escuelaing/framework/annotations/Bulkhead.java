@@ -0,0 +1,66 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code Bulkhead} annotation gives handlers a compartment of their own, so that a slow or overloaded
+ * handler cannot take every worker thread and starve the cheap ones.
+ *
+ * <p>At most {@link #maxConcurrent()} requests of a compartment run at the same time, and at most
+ * {@link #queue()} more wait for their turn, each for up to {@link #maxWaitMillis()}. Any other request is
+ * answered at once with {@code 503 Service Unavailable}. On a controller class the annotation applies to all
+ * its handlers; on a method it overrides the one of the class. Handlers whose annotations have the same
+ * {@link #value() name} share one compartment. Routes without a bulkhead are not limited by any.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @RestController
+ * public class ReportService {
+ *
+ *     @GetMapping("/report")
+ *     @Bulkhead(value = "reports", maxConcurrent = 2, queue = 4)
+ *     public String report(@RequestParam("year") int year) {
+ *         ...
+ *     }
+ * }
+ * }
+ * </pre>
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    /**
+     * The name of the compartment. By default it is the simple name of the class for an annotated class, or
+     * the class and method names ({@code ReportService.report}) for an annotated method.
+     *
+     * @return the name of the compartment
+     */
+    String value() default "";
+
+    /**
+     * How many requests of the compartment may run at the same time.
+     *
+     * @return the concurrency limit
+     */
+    int maxConcurrent() default 10;
+
+    /**
+     * How many requests may wait when the compartment is full. Waiting requests hold their worker thread, so
+     * the queue should stay small.
+     *
+     * @return the queue capacity
+     */
+    int queue() default 0;
+
+    /**
+     * How long a queued request waits for its turn before it is rejected.
+     *
+     * @return the maximum wait in milliseconds
+     */
+    int maxWaitMillis() default 1000;
+}
@@ -0,0 +1,40 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code DeleteMapping} annotation is used to map HTTP DELETE requests onto specific handler methods within a
+ * web application. It is a shortcut for {@code @RequestMapping(value = "...", method = RequestMethod.DELETE)}.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @RestController
+ * public class MyController {
+ *
+ *     @DeleteMapping("/items")
+ *     public String delete(@RequestBody String item) {
+ *         return "Done: " + item;
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @see RestController
+ * @see RequestBody
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DeleteMapping {
+
+    /**
+     * The URL path to which this method is mapped. When an HTTP DELETE request is made to this path, the
+     * annotated method will be invoked.
+     *
+     * @return the URL path for this DELETE request mapping
+     */
+    String value();
+}
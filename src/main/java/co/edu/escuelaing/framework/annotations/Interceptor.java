@@ -0,0 +1,38 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a class that holds interceptors: static methods annotated with {@link Before},
+ * {@link After} or {@link Around} that run around the handlers of the routes they apply to.
+ * <p>
+ * Interceptor classes are discovered together with the controllers, and the interceptors of every route are
+ * compiled into the route's invoker when the routes are registered. Routes without interceptors call their
+ * handler directly.
+ * </p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @Interceptor
+ * public class Security {
+ *
+ *     @Before("/admin")
+ *     public static void requireToken(HttpRequest request) {
+ *         if (!"secret".equals(request.getHeader("X-Token"))) {
+ *             throw new HttpException("401 Unauthorized", "Missing token");
+ *         }
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @see RestController
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Interceptor {
+}
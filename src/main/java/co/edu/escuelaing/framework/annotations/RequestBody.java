@@ -0,0 +1,31 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation is used to bind a method parameter to the body of the web request.
+ * <p>
+ * The annotated parameter may be a {@code String}, a {@code byte[]} or an {@code InputStream}.
+ * {@code String} and {@code byte[]} parameters are read fully into memory and are therefore limited by
+ * {@link co.edu.escuelaing.framework.FrameworkConfig#getMaxInMemoryBodySize()}; larger bodies are rejected
+ * with {@code 413 Payload Too Large}. An {@code InputStream} parameter receives the body as a stream and
+ * is only limited by {@link co.edu.escuelaing.framework.FrameworkConfig#getMaxRequestBodySize()}.
+ * </p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @PostMapping("/upload")
+ * public String upload(@RequestBody InputStream data) throws IOException {
+ *     ...
+ * }
+ * }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface RequestBody {
+}
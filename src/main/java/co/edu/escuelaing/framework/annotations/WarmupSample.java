@@ -0,0 +1,47 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code WarmupSample} annotation gives the request a handler receives during the warm-up that runs
+ * before the server accepts traffic (see {@link co.edu.escuelaing.framework.FrameworkConfig#warmup(int)}).
+ *
+ * <p>Only annotated handlers are warmed up, whatever their method: the framework cannot tell which requests
+ * are safe to send to a handler, or which ones take the path that real traffic takes.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @RestController
+ * public class CalculatorService {
+ *
+ *     @GetMapping("/add")
+ *     @WarmupSample(query = "a=3&b=4")
+ *     public String add(@RequestParam("a") int a, @RequestParam("b") int b) {
+ *         ...
+ *     }
+ * }
+ * }
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WarmupSample {
+
+    /**
+     * The query string of the sample request, without the {@code ?}.
+     *
+     * @return the query string
+     */
+    String query() default "";
+
+    /**
+     * The body of the sample request.
+     *
+     * @return the body
+     */
+    String body() default "";
+}
@@ -0,0 +1,44 @@
+package co.edu.escuelaing.framework.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code WebSocketMapping} annotation maps a WebSocket endpoint onto a handler method. Browsers connect to
+ * the endpoint under {@code /App}, like the other services (e.g., {@code new WebSocket("ws://host:8080/App/chat")}),
+ * and the method is invoked for every text message they send.
+ *
+ * <p>The method must be static and take the {@link co.edu.escuelaing.framework.websocket.WebSocketSession} that
+ * sent the message and the message itself. If it returns a non-null value, the value is sent back to that
+ * session. To push a message to every client of the endpoint, use
+ * {@link co.edu.escuelaing.framework.websocket.WebSocketEndpoint#broadcast(String)}.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @RestController
+ * public class ChatController {
+ *
+ *     @WebSocketMapping("/chat")
+ *     public static void chat(WebSocketSession session, String message) {
+ *         session.getEndpoint().broadcast(message);
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @see RestController
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WebSocketMapping {
+
+    /**
+     * The path of the WebSocket endpoint, relative to {@code /App}.
+     *
+     * @return the path of the endpoint
+     */
+    String value();
+}
@@ -2,8 +2,7 @@ package co.edu.escuelaing.framework.enums;
 
 /**
  * {@code RequestMethod} is an enumeration that represents the HTTP methods supported by the framework.
- * Currently, only {@code GET} is supported, but other HTTP methods like {@code POST}, {@code PUT}, and {@code DELETE}
- * can be added as needed.
+ * Requests using a method that is not listed here are answered with {@code 501 Not Implemented}.
  */
 public enum RequestMethod {
     /**
@@ -12,22 +11,45 @@ public enum RequestMethod {
      */
     GET,
 
-    // Uncomment the following lines to support additional HTTP methods
-    // /**
-    //  * Represents the HTTP POST method.
-    //  * Used to submit data to be processed to a specified resource.
-    //  */
-    // POST,
+    /**
+     * Represents the HTTP POST method.
+     * Used to submit data to be processed to a specified resource.
+     */
+    POST,
+
+    /**
+     * Represents the HTTP PUT method.
+     * Used to update a resource or create a new resource if it does not exist.
+     */
+    PUT,
+
+    /**
+     * Represents the HTTP DELETE method.
+     * Used to delete a resource from the server.
+     */
+    DELETE,
 
-    // /**
-    //  * Represents the HTTP PUT method.
-    //  * Used to update a resource or create a new resource if it does not exist.
-    //  */
-    // PUT,
+    /**
+     * Represents the HTTP PATCH method.
+     * Used to apply a partial modification to a resource.
+     */
+    PATCH;
 
-    // /**
-    //  * Represents the HTTP DELETE method.
-    //  * Used to delete a resource from the server.
-    //  */
-    // DELETE
+    /**
+     * Resolves the method token of a request line without throwing for unknown methods.
+     *
+     * @param method The method token as sent by the client (e.g., "POST")
+     * @return The matching {@code RequestMethod}, or {@code null} if the method is not supported
+     */
+    public static RequestMethod resolve(String method) {
+        if (method == null) {
+            return null;
+        }
+        for (RequestMethod candidate : values()) {
+            if (candidate.name().equalsIgnoreCase(method)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
 }
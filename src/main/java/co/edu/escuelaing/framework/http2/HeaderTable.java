@@ -0,0 +1,209 @@
+package co.edu.escuelaing.framework.http2;
+
+/**
+ * The HPACK index space: the static table of RFC 7541 (Appendix A) followed by a dynamic table.
+ * <p>
+ * Dynamic entries are kept in a circular buffer with the newest entry at index 62. The size of the table is
+ * accounted as the RFC requires (name length + value length + 32 per entry) and the oldest entries are
+ * evicted when an insertion or a size change would exceed the maximum size. Both the decoder (with the
+ * client's table) and the encoder (with the server's table) use this class.
+ * </p>
+ */
+final class HeaderTable {
+    static final String[][] STATIC = {
+            {":authority", ""},
+            {":method", "GET"},
+            {":method", "POST"},
+            {":path", "/"},
+            {":path", "/index.html"},
+            {":scheme", "http"},
+            {":scheme", "https"},
+            {":status", "200"},
+            {":status", "204"},
+            {":status", "206"},
+            {":status", "304"},
+            {":status", "400"},
+            {":status", "404"},
+            {":status", "500"},
+            {"accept-charset", ""},
+            {"accept-encoding", "gzip, deflate"},
+            {"accept-language", ""},
+            {"accept-ranges", ""},
+            {"accept", ""},
+            {"access-control-allow-origin", ""},
+            {"age", ""},
+            {"allow", ""},
+            {"authorization", ""},
+            {"cache-control", ""},
+            {"content-disposition", ""},
+            {"content-encoding", ""},
+            {"content-language", ""},
+            {"content-length", ""},
+            {"content-location", ""},
+            {"content-range", ""},
+            {"content-type", ""},
+            {"cookie", ""},
+            {"date", ""},
+            {"etag", ""},
+            {"expect", ""},
+            {"expires", ""},
+            {"from", ""},
+            {"host", ""},
+            {"if-match", ""},
+            {"if-modified-since", ""},
+            {"if-none-match", ""},
+            {"if-range", ""},
+            {"if-unmodified-since", ""},
+            {"last-modified", ""},
+            {"link", ""},
+            {"location", ""},
+            {"max-forwards", ""},
+            {"proxy-authenticate", ""},
+            {"proxy-authorization", ""},
+            {"range", ""},
+            {"referer", ""},
+            {"refresh", ""},
+            {"retry-after", ""},
+            {"server", ""},
+            {"set-cookie", ""},
+            {"strict-transport-security", ""},
+            {"transfer-encoding", ""},
+            {"user-agent", ""},
+            {"vary", ""},
+            {"via", ""},
+            {"www-authenticate", ""}
+    };
+    static final int ENTRY_OVERHEAD = 32;
+
+    private String[] names = new String[16];
+    private String[] values = new String[16];
+    private int head;
+    private int count;
+    private int size;
+    private int maxSize;
+
+    /**
+     * Creates a table with the given maximum dynamic table size.
+     *
+     * @param maxSize The maximum size in octets
+     */
+    HeaderTable(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the number of addressable entries (static and dynamic).
+     *
+     * @return The highest valid index
+     */
+    int length() {
+        return STATIC.length + count;
+    }
+
+    /**
+     * Returns the name at an index (1-based, static entries first).
+     *
+     * @param index The index
+     * @return The header name
+     */
+    String name(int index) {
+        return index <= STATIC.length ? STATIC[index - 1][0] : names[slot(index)];
+    }
+
+    /**
+     * Returns the value at an index (1-based, static entries first).
+     *
+     * @param index The index
+     * @return The header value
+     */
+    String value(int index) {
+        return index <= STATIC.length ? STATIC[index - 1][1] : values[slot(index)];
+    }
+
+    private int slot(int index) {
+        int age = index - STATIC.length - 1;
+        return (head - 1 - age + names.length) % names.length;
+    }
+
+    /**
+     * Finds an entry, preferring an exact match of name and value.
+     *
+     * @param name  The header name
+     * @param value The header value
+     * @return The index of an exact match, minus the index of an entry with only the same name, or 0 if none
+     */
+    int find(String name, String value) {
+        int nameMatch = 0;
+        for (int i = 1; i <= length(); i++) {
+            if (name(i).equals(name)) {
+                if (value(i).equals(value)) {
+                    return i;
+                }
+                if (nameMatch == 0) {
+                    nameMatch = i;
+                }
+            }
+        }
+        return -nameMatch;
+    }
+
+    /**
+     * Inserts an entry as the newest dynamic entry, evicting old entries as needed. An entry larger than the
+     * whole table empties the table and is not inserted.
+     *
+     * @param name  The header name
+     * @param value The header value
+     */
+    void add(String name, String value) {
+        int entrySize = name.length() + value.length() + ENTRY_OVERHEAD;
+        evict(maxSize - entrySize);
+        if (entrySize > maxSize) {
+            return;
+        }
+        if (count == names.length) {
+            grow();
+        }
+        names[head] = name;
+        values[head] = value;
+        head = (head + 1) % names.length;
+        count++;
+        size += entrySize;
+    }
+
+    /**
+     * Changes the maximum size, evicting entries that no longer fit.
+     *
+     * @param maxSize The new maximum size in octets
+     */
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        evict(maxSize);
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    private void evict(int targetSize) {
+        while (count > 0 && size > Math.max(0, targetSize)) {
+            int oldest = (head - count + names.length) % names.length;
+            size -= names[oldest].length() + values[oldest].length() + ENTRY_OVERHEAD;
+            names[oldest] = null;
+            values[oldest] = null;
+            count--;
+        }
+    }
+
+    private void grow() {
+        String[] newNames = new String[names.length * 2];
+        String[] newValues = new String[values.length * 2];
+        for (int i = 0; i < count; i++) {
+            int from = (head - count + i + names.length) % names.length;
+            newNames[i] = names[from];
+            newValues[i] = values[from];
+        }
+        names = newNames;
+        values = newValues;
+        head = count;
+    }
+}
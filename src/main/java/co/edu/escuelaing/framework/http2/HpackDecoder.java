@@ -0,0 +1,146 @@
+package co.edu.escuelaing.framework.http2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes HPACK header blocks (RFC 7541) sent by the client.
+ * <p>
+ * The decoder owns the client's dynamic table and must see every header block of the connection in order,
+ * including the blocks of streams that are refused, otherwise the table gets out of sync.
+ * </p>
+ */
+final class HpackDecoder {
+    private final HeaderTable table;
+    private final int maxTableSize;
+    private final int maxHeaderListSize;
+    private byte[] block;
+    private int position;
+    private int limit;
+
+    /**
+     * Creates a decoder.
+     *
+     * @param maxTableSize      The header table size announced in our SETTINGS
+     * @param maxHeaderListSize The largest decoded header list accepted, in octets
+     */
+    HpackDecoder(int maxTableSize, int maxHeaderListSize) {
+        this.table = new HeaderTable(maxTableSize);
+        this.maxTableSize = maxTableSize;
+        this.maxHeaderListSize = maxHeaderListSize;
+    }
+
+    /**
+     * Decodes a complete header block.
+     *
+     * @param data   The buffer holding the block
+     * @param offset The index of the first octet of the block
+     * @param length The length of the block
+     * @return The header fields in order, each as a {name, value} pair
+     * @throws HpackException If the block is malformed or too large
+     */
+    List<String[]> decode(byte[] data, int offset, int length) throws HpackException {
+        block = data;
+        position = offset;
+        limit = offset + length;
+        List<String[]> headers = new ArrayList<>();
+        int listSize = 0;
+        boolean fieldSeen = false;
+        while (position < limit) {
+            int first = block[position] & 0xFF;
+            String name;
+            String value;
+            if ((first & 0x80) != 0) {
+                int index = readInt(7);
+                checkIndex(index);
+                name = table.name(index);
+                value = table.value(index);
+            } else if ((first & 0xC0) == 0x40) {
+                name = readName(6);
+                value = readString();
+                table.add(name, value);
+            } else if ((first & 0xE0) == 0x20) {
+                if (fieldSeen) {
+                    throw new HpackException("Table size update after a header field");
+                }
+                int size = readInt(5);
+                if (size > maxTableSize) {
+                    throw new HpackException("Table size update above the announced limit");
+                }
+                table.setMaxSize(size);
+                continue;
+            } else {
+                // Literal without indexing (0000) or never indexed (0001)
+                name = readName(4);
+                value = readString();
+            }
+            fieldSeen = true;
+            listSize += name.length() + value.length() + HeaderTable.ENTRY_OVERHEAD;
+            if (listSize > maxHeaderListSize) {
+                throw new HpackException("Header list too large");
+            }
+            headers.add(new String[]{name, value});
+        }
+        block = null;
+        return headers;
+    }
+
+    private String readName(int prefixBits) throws HpackException {
+        int index = readInt(prefixBits);
+        if (index == 0) {
+            return readString();
+        }
+        checkIndex(index);
+        return table.name(index);
+    }
+
+    private void checkIndex(int index) throws HpackException {
+        if (index <= 0 || index > table.length()) {
+            throw new HpackException("Invalid header table index " + index);
+        }
+    }
+
+    /**
+     * Reads an integer with an N-bit prefix (RFC 7541, section 5.1).
+     */
+    private int readInt(int prefixBits) throws HpackException {
+        int mask = (1 << prefixBits) - 1;
+        int value = block[position++] & mask;
+        if (value < mask) {
+            return value;
+        }
+        int shift = 0;
+        int octet;
+        do {
+            if (position >= limit) {
+                throw new HpackException("Truncated integer");
+            }
+            if (shift > 21) {
+                throw new HpackException("Integer too large");
+            }
+            octet = block[position++] & 0xFF;
+            value += (octet & 0x7F) << shift;
+            shift += 7;
+        } while ((octet & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Reads a string literal, Huffman-encoded or raw (RFC 7541, section 5.2).
+     */
+    private String readString() throws HpackException {
+        if (position >= limit) {
+            throw new HpackException("Truncated string");
+        }
+        boolean huffman = (block[position] & 0x80) != 0;
+        int length = readInt(7);
+        if (length > limit - position) {
+            throw new HpackException("Truncated string");
+        }
+        String value = huffman ? Huffman.decode(block, position, length)
+                : new String(block, position, length, StandardCharsets.ISO_8859_1);
+        position += length;
+        return value;
+    }
+}
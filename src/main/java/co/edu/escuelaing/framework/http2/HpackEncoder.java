@@ -0,0 +1,107 @@
+package co.edu.escuelaing.framework.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Set;
+
+/**
+ * Encodes response header blocks with HPACK (RFC 7541).
+ * <p>
+ * Fields that match an entry of the static or dynamic table exactly are sent as a single index. Other fields
+ * are sent as literals that reuse an indexed name when possible; they are added to the dynamic table unless
+ * their values rarely repeat (e.g., {@code content-length}). Strings are sent without Huffman coding. The
+ * encoder is not thread-safe: a connection must encode and write each header block under the same lock, so
+ * that blocks reach the client in the order the table changed.
+ * </p>
+ */
+final class HpackEncoder {
+    private static final Set<String> NOT_INDEXED = Set.of("content-length", "etag", "last-modified", "date",
+            "set-cookie", "location");
+
+    private final HeaderTable table;
+    private int pendingMaxSize = -1;
+
+    /**
+     * Creates an encoder.
+     *
+     * @param maxTableSize The initial dynamic table size, as announced by the client
+     */
+    HpackEncoder(int maxTableSize) {
+        this.table = new HeaderTable(maxTableSize);
+    }
+
+    /**
+     * Applies a new {@code SETTINGS_HEADER_TABLE_SIZE} from the client. The change is signalled at the start
+     * of the next header block.
+     *
+     * @param maxSize The client's new maximum table size
+     */
+    void setMaxTableSize(int maxSize) {
+        pendingMaxSize = Math.min(maxSize, 4096);
+    }
+
+    /**
+     * Starts a header block, emitting a pending table size update if the client changed its settings.
+     *
+     * @param out The buffer to write to
+     */
+    void beginBlock(ByteArrayOutputStream out) {
+        if (pendingMaxSize >= 0) {
+            table.setMaxSize(pendingMaxSize);
+            writeInt(out, 0x20, 5, pendingMaxSize);
+            pendingMaxSize = -1;
+        }
+    }
+
+    /**
+     * Encodes one header field. Names must be lower case.
+     *
+     * @param out   The buffer to write to
+     * @param name  The header name
+     * @param value The header value
+     */
+    void encode(ByteArrayOutputStream out, String name, String value) {
+        int index = table.find(name, value);
+        if (index > 0) {
+            writeInt(out, 0x80, 7, index);
+            return;
+        }
+        boolean indexed = !NOT_INDEXED.contains(name);
+        if (indexed) {
+            writeInt(out, 0x40, 6, -index);
+        } else {
+            writeInt(out, 0x00, 4, -index);
+        }
+        if (index == 0) {
+            writeString(out, name);
+        }
+        writeString(out, value);
+        if (indexed) {
+            table.add(name, value);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        writeInt(out, 0x00, 7, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            out.write(value.charAt(i));
+        }
+    }
+
+    /**
+     * Writes an integer with an N-bit prefix (RFC 7541, section 5.1).
+     */
+    static void writeInt(ByteArrayOutputStream out, int flags, int prefixBits, int value) {
+        int mask = (1 << prefixBits) - 1;
+        if (value < mask) {
+            out.write(flags | value);
+            return;
+        }
+        out.write(flags | mask);
+        value -= mask;
+        while (value >= 0x80) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
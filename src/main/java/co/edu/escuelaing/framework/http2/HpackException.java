@@ -0,0 +1,20 @@
+package co.edu.escuelaing.framework.http2;
+
+import java.io.IOException;
+
+/**
+ * Signals a header block that cannot be decoded. HTTP/2 treats it as a connection error of type
+ * {@code COMPRESSION_ERROR}, because the shared header table can no longer be trusted.
+ */
+class HpackException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param message The reason why decoding failed
+     */
+    HpackException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,975 @@
+package co.edu.escuelaing.framework.http2;
+
+import co.edu.escuelaing.framework.HttpException;
+import co.edu.escuelaing.framework.HttpHandler;
+import co.edu.escuelaing.framework.HttpRequest;
+import co.edu.escuelaing.framework.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves one cleartext HTTP/2 connection (h2c, RFC 9113).
+ * <p>
+ * The thread that calls {@link #servePriorKnowledge()} or {@link #serveUpgrade(HttpRequest)} becomes the
+ * reader of the connection: it parses frames, keeps the HPACK decoder in sync and enforces flow control.
+ * Each request stream is handed to an {@link Executor}, so many requests are multiplexed over the same
+ * socket and a slow request does not hold up the others. Handler threads write their responses themselves:
+ * header blocks are encoded and written under a single write lock, and DATA frames are sent as the client's
+ * connection and stream windows allow.
+ * </p>
+ * <p>
+ * Streams refused because the executor is saturated or {@link #MAX_CONCURRENT_STREAMS} is reached are reset
+ * with {@code REFUSED_STREAM}, which tells the client the request was not processed and can be retried.
+ * </p>
+ */
+public class Http2Connection {
+    /**
+     * The number of concurrent streams announced to clients.
+     */
+    public static final int MAX_CONCURRENT_STREAMS = 100;
+
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int PREFACE_HEAD_LENGTH = "PRI * HTTP/2.0\r\n\r\n".length();
+
+    private static final int DATA = 0x0;
+    private static final int HEADERS = 0x1;
+    private static final int PRIORITY = 0x2;
+    private static final int RST_STREAM = 0x3;
+    private static final int SETTINGS = 0x4;
+    private static final int PUSH_PROMISE = 0x5;
+    private static final int PING = 0x6;
+    private static final int GOAWAY = 0x7;
+    private static final int WINDOW_UPDATE = 0x8;
+    private static final int CONTINUATION = 0x9;
+
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_ACK = 0x1;
+    private static final int FLAG_END_HEADERS = 0x4;
+    private static final int FLAG_PADDED = 0x8;
+    private static final int FLAG_PRIORITY = 0x20;
+
+    static final int NO_ERROR = 0x0;
+    static final int PROTOCOL_ERROR = 0x1;
+    static final int INTERNAL_ERROR = 0x2;
+    static final int FLOW_CONTROL_ERROR = 0x3;
+    static final int STREAM_CLOSED = 0x5;
+    static final int FRAME_SIZE_ERROR = 0x6;
+    static final int REFUSED_STREAM = 0x7;
+    static final int CANCEL = 0x8;
+    static final int COMPRESSION_ERROR = 0x9;
+    static final int ENHANCE_YOUR_CALM = 0xB;
+
+    private static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+    private static final int SETTINGS_ENABLE_PUSH = 0x2;
+    private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+    private static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+    private static final int DEFAULT_WINDOW = 65_535;
+    private static final int CONNECTION_WINDOW = 1 << 20;
+    private static final int MAX_FRAME_SIZE = 16_384;
+    private static final int MAX_HEADER_LIST_SIZE = 64 * 1024;
+    private static final long MAX_WINDOW = Integer.MAX_VALUE;
+    private static final long FLOW_CONTROL_STALL_MILLIS = 30_000;
+    private static final long DRAIN_MILLIS = 10_000;
+    private static final Set<String> CONNECTION_HEADERS = Set.of("connection", "keep-alive", "proxy-connection",
+            "transfer-encoding", "upgrade");
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final HttpHandler handler;
+    private final Executor executor;
+    private final long maxBodySize;
+
+    private final HpackDecoder decoder = new HpackDecoder(4096, MAX_HEADER_LIST_SIZE);
+    private final HpackEncoder encoder = new HpackEncoder(4096);
+    private final Map<Integer, Http2Stream> streams = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Object flowLock = new Object();
+    private final AtomicInteger connectionReceiveWindow = new AtomicInteger(DEFAULT_WINDOW);
+    private final AtomicInteger connectionUnacked = new AtomicInteger();
+
+    private long connectionSendWindow = DEFAULT_WINDOW;
+    private long peerInitialWindow = DEFAULT_WINDOW;
+    private volatile int peerMaxFrameSize = MAX_FRAME_SIZE;
+    private volatile boolean closed;
+    private int lastStreamId;
+    private boolean goAwayReceived;
+    private int continuationStream;
+    private boolean continuationEndStream;
+    private final ByteArrayOutputStream headerBlock = new ByteArrayOutputStream();
+
+    /**
+     * Creates a connection over an accepted socket.
+     *
+     * @param in          The socket input, positioned just after the data consumed by HTTP/1.1 parsing
+     * @param out         The socket output
+     * @param handler     The handler that produces the response of each stream
+     * @param executor    The executor that runs the handler for each stream
+     * @param maxBodySize The largest request body accepted on a stream
+     */
+    public Http2Connection(InputStream in, OutputStream out, HttpHandler handler, Executor executor, long maxBodySize) {
+        this.in = in;
+        this.out = out;
+        this.handler = handler;
+        this.executor = executor;
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Tells whether a parsed HTTP/1.1 request line is the start of the HTTP/2 connection preface, which
+     * clients with prior knowledge of h2c send instead of a request.
+     *
+     * @param request The parsed request
+     * @return {@code true} for {@code PRI * HTTP/2.0}
+     */
+    public static boolean isPreface(HttpRequest request) {
+        return "PRI".equals(request.getMethod()) && "*".equals(request.getTarget())
+                && "HTTP/2.0".equals(request.getProtocol());
+    }
+
+    /**
+     * Tells whether an HTTP/1.1 request asks to upgrade the connection to h2c (RFC 7540, section 3.2). Only
+     * requests without a body are upgraded; for others the {@code Upgrade} header is ignored.
+     *
+     * @param request The parsed request
+     * @return {@code true} if the connection can be upgraded
+     */
+    public static boolean isUpgrade(HttpRequest request) {
+        String upgrade = request.getHeader("Upgrade");
+        String connection = request.getHeader("Connection");
+        return upgrade != null && connection != null && request.getHeader("HTTP2-Settings") != null
+                && containsToken(upgrade, "h2c") && containsToken(connection, "upgrade")
+                && request.getContentLength() <= 0 && request.getHeader("Transfer-Encoding") == null;
+    }
+
+    private static boolean containsToken(String header, String token) {
+        for (String part : header.split(",")) {
+            if (part.trim().equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Serves a connection whose client started with the HTTP/2 preface. The request line
+     * {@code PRI * HTTP/2.0} and its empty header section have already been consumed; the rest of the preface
+     * is read here.
+     *
+     * @throws IOException If the connection fails
+     */
+    public void servePriorKnowledge() throws IOException {
+        try {
+            byte[] tail = readFully(PREFACE.length - PREFACE_HEAD_LENGTH);
+            if (!Arrays.equals(tail, 0, tail.length, PREFACE, PREFACE_HEAD_LENGTH, PREFACE.length)) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid connection preface");
+            }
+            writeSettings();
+            serveFrames();
+        } catch (Http2Exception e) {
+            goAway(e.getErrorCode());
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Upgrades an HTTP/1.1 connection to h2c and serves it. The upgrade request becomes stream 1 and is
+     * answered over HTTP/2 once the client preface has been received.
+     *
+     * @param request The request carrying {@code Upgrade: h2c}
+     * @throws IOException If the connection fails
+     */
+    public void serveUpgrade(HttpRequest request) throws IOException {
+        try {
+            byte[] clientSettings;
+            try {
+                clientSettings = Base64.getUrlDecoder().decode(request.getHeader("HTTP2-Settings").trim());
+            } catch (IllegalArgumentException e) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid HTTP2-Settings header");
+            }
+            if (clientSettings.length % 6 != 0) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid HTTP2-Settings header");
+            }
+            synchronized (writeLock) {
+                out.write(("HTTP/1.1 101 Switching Protocols\r\nConnection: Upgrade\r\nUpgrade: h2c\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+            }
+            writeSettings();
+            applySettings(clientSettings, 0, clientSettings.length);
+
+            Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            headers.putAll(request.getHeaders());
+            headers.keySet().removeIf(name -> CONNECTION_HEADERS.contains(name.toLowerCase(Locale.ROOT))
+                    || name.equalsIgnoreCase("HTTP2-Settings"));
+            Http2Stream stream = openStream(1);
+            stream.closeRemote();
+            lastStreamId = 1;
+            dispatch(stream, new HttpRequest(request.getMethod(), request.getTarget(), "HTTP/2.0", headers,
+                    stream.getBody()));
+
+            byte[] preface = readFully(PREFACE.length);
+            if (!Arrays.equals(preface, PREFACE)) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid connection preface");
+            }
+            serveFrames();
+        } catch (Http2Exception e) {
+            goAway(e.getErrorCode());
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Reads frames until the client closes the connection, sends GOAWAY or stays idle past the socket timeout.
+     */
+    private void serveFrames() throws IOException {
+        boolean first = true;
+        while (!goAwayReceived) {
+            int b;
+            try {
+                b = in.read();
+            } catch (SocketTimeoutException e) {
+                if (streams.isEmpty()) {
+                    goAway(NO_ERROR);
+                    return;
+                }
+                continue;
+            }
+            if (b < 0) {
+                return;
+            }
+            byte[] head = readFully(8);
+            int length = (b << 16) | ((head[0] & 0xFF) << 8) | (head[1] & 0xFF);
+            int type = head[2] & 0xFF;
+            int flags = head[3] & 0xFF;
+            int streamId = readInt(head, 4) & 0x7FFFFFFF;
+            if (length > MAX_FRAME_SIZE) {
+                throw Http2Exception.connection(FRAME_SIZE_ERROR, "Frame of " + length + " bytes");
+            }
+            byte[] payload = readFully(length);
+            if (first && type != SETTINGS) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Connection preface must be followed by SETTINGS");
+            }
+            first = false;
+            if (continuationStream != 0 && (type != CONTINUATION || streamId != continuationStream)) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Expected CONTINUATION");
+            }
+            try {
+                onFrame(type, flags, streamId, payload);
+            } catch (Http2Exception e) {
+                if (e.getStreamId() == 0) {
+                    throw e;
+                }
+                resetStream(e.getStreamId(), e.getErrorCode());
+            } catch (HpackException e) {
+                throw Http2Exception.connection(COMPRESSION_ERROR, e.getMessage());
+            }
+        }
+        awaitStreams();
+    }
+
+    private void onFrame(int type, int flags, int streamId, byte[] payload) throws IOException {
+        switch (type) {
+            case DATA:
+                onData(flags, streamId, payload);
+                break;
+            case HEADERS:
+                onHeaders(flags, streamId, payload);
+                break;
+            case PRIORITY:
+                if (streamId == 0) {
+                    throw Http2Exception.connection(PROTOCOL_ERROR, "PRIORITY on stream 0");
+                }
+                if (payload.length != 5) {
+                    throw new Http2Exception(FRAME_SIZE_ERROR, streamId, "Invalid PRIORITY frame");
+                }
+                break;
+            case RST_STREAM:
+                onResetStream(streamId, payload);
+                break;
+            case SETTINGS:
+                onSettings(flags, streamId, payload);
+                break;
+            case PUSH_PROMISE:
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Clients cannot push");
+            case PING:
+                if (streamId != 0) {
+                    throw Http2Exception.connection(PROTOCOL_ERROR, "PING on stream " + streamId);
+                }
+                if (payload.length != 8) {
+                    throw Http2Exception.connection(FRAME_SIZE_ERROR, "Invalid PING frame");
+                }
+                if ((flags & FLAG_ACK) == 0) {
+                    synchronized (writeLock) {
+                        writeFrame(PING, FLAG_ACK, 0, payload, 0, 8);
+                        out.flush();
+                    }
+                }
+                break;
+            case GOAWAY:
+                if (streamId != 0) {
+                    throw Http2Exception.connection(PROTOCOL_ERROR, "GOAWAY on stream " + streamId);
+                }
+                goAwayReceived = true;
+                break;
+            case WINDOW_UPDATE:
+                onWindowUpdate(streamId, payload);
+                break;
+            case CONTINUATION:
+                if (continuationStream == 0) {
+                    throw Http2Exception.connection(PROTOCOL_ERROR, "Unexpected CONTINUATION");
+                }
+                appendHeaderBlock(payload, 0, payload.length);
+                if ((flags & FLAG_END_HEADERS) != 0) {
+                    int headersStream = continuationStream;
+                    continuationStream = 0;
+                    onHeaderBlock(headersStream, continuationEndStream);
+                }
+                break;
+            default:
+                // Unknown frame types must be ignored (RFC 9113, section 4.1)
+                break;
+        }
+    }
+
+    private void onHeaders(int flags, int streamId, byte[] payload) throws IOException {
+        if (streamId == 0 || streamId % 2 == 0) {
+            throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid stream " + streamId + " for HEADERS");
+        }
+        int offset = 0;
+        int end = payload.length;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (payload.length == 0) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid padding");
+            }
+            offset = 1;
+            end -= payload[0] & 0xFF;
+        }
+        if ((flags & FLAG_PRIORITY) != 0) {
+            offset += 5;
+        }
+        if (end < offset) {
+            throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid padding");
+        }
+        headerBlock.reset();
+        appendHeaderBlock(payload, offset, end - offset);
+        boolean endStream = (flags & FLAG_END_STREAM) != 0;
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            onHeaderBlock(streamId, endStream);
+        } else {
+            continuationStream = streamId;
+            continuationEndStream = endStream;
+        }
+    }
+
+    private void appendHeaderBlock(byte[] data, int offset, int length) throws Http2Exception {
+        if (headerBlock.size() + length > MAX_HEADER_LIST_SIZE) {
+            throw Http2Exception.connection(ENHANCE_YOUR_CALM, "Header block too large");
+        }
+        headerBlock.write(data, offset, length);
+    }
+
+    /**
+     * Handles a complete header block. The block is always decoded, even for streams that are then refused,
+     * so that the HPACK dynamic table stays in sync with the client's.
+     */
+    private void onHeaderBlock(int streamId, boolean endStream) throws IOException {
+        byte[] block = headerBlock.toByteArray();
+        List<String[]> fields = decoder.decode(block, 0, block.length);
+
+        Http2Stream existing = streams.get(streamId);
+        if (existing != null) {
+            // Trailers: only accepted at the end of the request body, and ignored
+            if (!endStream || existing.isRemoteClosed()) {
+                throw new Http2Exception(PROTOCOL_ERROR, streamId, "Unexpected HEADERS");
+            }
+            existing.closeRemote();
+            return;
+        }
+        if (streamId <= lastStreamId) {
+            throw Http2Exception.connection(STREAM_CLOSED, "HEADERS on closed stream " + streamId);
+        }
+        lastStreamId = streamId;
+        HttpRequest request = toRequest(streamId, fields);
+        if (streams.size() >= MAX_CONCURRENT_STREAMS) {
+            writeResetStream(streamId, REFUSED_STREAM);
+            return;
+        }
+        Http2Stream stream = openStream(streamId);
+        if (endStream) {
+            stream.closeRemote();
+        }
+        dispatch(stream, new HttpRequest(request.getMethod(), request.getTarget(), request.getProtocol(),
+                request.getHeaders(), stream.getBody()));
+    }
+
+    /**
+     * Validates the decoded fields of a request (RFC 9113, section 8.3) and maps them to an HTTP/1.1-style
+     * request. The body is attached by the caller.
+     */
+    private static HttpRequest toRequest(int streamId, List<String[]> fields) throws Http2Exception {
+        String method = null;
+        String path = null;
+        String scheme = null;
+        String authority = null;
+        boolean regular = false;
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String[] field : fields) {
+            String name = field[0];
+            String value = field[1];
+            if (!name.toLowerCase(Locale.ROOT).equals(name)) {
+                throw new Http2Exception(PROTOCOL_ERROR, streamId, "Upper case header name");
+            }
+            if (name.startsWith(":")) {
+                if (regular) {
+                    throw new Http2Exception(PROTOCOL_ERROR, streamId, "Pseudo-header after regular header");
+                }
+                switch (name) {
+                    case ":method":
+                        method = checkPseudoHeader(method, value, streamId);
+                        break;
+                    case ":path":
+                        path = checkPseudoHeader(path, value, streamId);
+                        break;
+                    case ":scheme":
+                        scheme = checkPseudoHeader(scheme, value, streamId);
+                        break;
+                    case ":authority":
+                        authority = checkPseudoHeader(authority, value, streamId);
+                        break;
+                    default:
+                        throw new Http2Exception(PROTOCOL_ERROR, streamId, "Unknown pseudo-header " + name);
+                }
+                continue;
+            }
+            regular = true;
+            if (CONNECTION_HEADERS.contains(name) || (name.equals("te") && !value.equals("trailers"))) {
+                throw new Http2Exception(PROTOCOL_ERROR, streamId, "Connection-specific header " + name);
+            }
+            headers.merge(name, value, (a, b) -> a + (name.equals("cookie") ? "; " : ", ") + b);
+        }
+        if (method == null || scheme == null || path == null || path.isEmpty()) {
+            throw new Http2Exception(PROTOCOL_ERROR, streamId, "Missing pseudo-header");
+        }
+        if (authority != null) {
+            headers.putIfAbsent("host", authority);
+        }
+        return new HttpRequest(method, path, "HTTP/2.0", headers, null);
+    }
+
+    private static String checkPseudoHeader(String previous, String value, int streamId) throws Http2Exception {
+        if (previous != null) {
+            throw new Http2Exception(PROTOCOL_ERROR, streamId, "Duplicate pseudo-header");
+        }
+        return value;
+    }
+
+    private void onData(int flags, int streamId, byte[] payload) throws IOException {
+        if (streamId == 0) {
+            throw Http2Exception.connection(PROTOCOL_ERROR, "DATA on stream 0");
+        }
+        int length = payload.length;
+        if (connectionReceiveWindow.addAndGet(-length) < 0) {
+            throw Http2Exception.connection(FLOW_CONTROL_ERROR, "Connection window exceeded");
+        }
+        int offset = 0;
+        int end = length;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (length == 0 || (payload[0] & 0xFF) >= length) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid padding");
+            }
+            offset = 1;
+            end -= payload[0] & 0xFF;
+        }
+
+        Http2Stream stream = streams.get(streamId);
+        if (stream == null) {
+            if (streamId > lastStreamId) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "DATA on idle stream " + streamId);
+            }
+            // The stream was reset or already answered: drop the data but return its connection credit
+            creditConnection(length);
+            return;
+        }
+        if (stream.isRemoteClosed()) {
+            creditConnection(length);
+            throw new Http2Exception(STREAM_CLOSED, streamId, "DATA after END_STREAM");
+        }
+        if (stream.receiveWindow.addAndGet(-length) < 0) {
+            creditConnection(length);
+            throw new Http2Exception(FLOW_CONTROL_ERROR, streamId, "Stream window exceeded");
+        }
+        if (end - offset < length) {
+            // Padding counts against flow control but is never read, so it is credited at once
+            consumed(stream, length - (end - offset));
+        }
+        stream.receive(payload, offset, end - offset);
+        if ((flags & FLAG_END_STREAM) != 0) {
+            stream.closeRemote();
+        }
+    }
+
+    private void onResetStream(int streamId, byte[] payload) throws Http2Exception {
+        if (streamId == 0) {
+            throw Http2Exception.connection(PROTOCOL_ERROR, "RST_STREAM on stream 0");
+        }
+        if (payload.length != 4) {
+            throw Http2Exception.connection(FRAME_SIZE_ERROR, "Invalid RST_STREAM frame");
+        }
+        Http2Stream stream = streams.remove(streamId);
+        if (stream == null) {
+            if (streamId > lastStreamId) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "RST_STREAM on idle stream " + streamId);
+            }
+            return;
+        }
+        creditConnection(stream.reset());
+        synchronized (flowLock) {
+            flowLock.notifyAll();
+        }
+    }
+
+    private void onSettings(int flags, int streamId, byte[] payload) throws IOException {
+        if (streamId != 0) {
+            throw Http2Exception.connection(PROTOCOL_ERROR, "SETTINGS on stream " + streamId);
+        }
+        if ((flags & FLAG_ACK) != 0) {
+            if (payload.length != 0) {
+                throw Http2Exception.connection(FRAME_SIZE_ERROR, "SETTINGS ACK with payload");
+            }
+            return;
+        }
+        if (payload.length % 6 != 0) {
+            throw Http2Exception.connection(FRAME_SIZE_ERROR, "Invalid SETTINGS frame");
+        }
+        applySettings(payload, 0, payload.length);
+        synchronized (writeLock) {
+            writeFrame(SETTINGS, FLAG_ACK, 0, payload, 0, 0);
+            out.flush();
+        }
+    }
+
+    private void applySettings(byte[] payload, int offset, int length) throws Http2Exception {
+        for (int i = offset; i < offset + length; i += 6) {
+            int id = ((payload[i] & 0xFF) << 8) | (payload[i + 1] & 0xFF);
+            long value = readInt(payload, i + 2) & 0xFFFFFFFFL;
+            switch (id) {
+                case SETTINGS_HEADER_TABLE_SIZE:
+                    synchronized (writeLock) {
+                        encoder.setMaxTableSize((int) Math.min(value, Integer.MAX_VALUE));
+                    }
+                    break;
+                case SETTINGS_ENABLE_PUSH:
+                    if (value > 1) {
+                        throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH");
+                    }
+                    break;
+                case SETTINGS_INITIAL_WINDOW_SIZE:
+                    if (value > MAX_WINDOW) {
+                        throw Http2Exception.connection(FLOW_CONTROL_ERROR, "Invalid SETTINGS_INITIAL_WINDOW_SIZE");
+                    }
+                    synchronized (flowLock) {
+                        long delta = value - peerInitialWindow;
+                        peerInitialWindow = value;
+                        for (Http2Stream stream : streams.values()) {
+                            stream.sendWindow += delta;
+                            if (stream.sendWindow > MAX_WINDOW) {
+                                throw Http2Exception.connection(FLOW_CONTROL_ERROR, "Stream window overflow");
+                            }
+                        }
+                        flowLock.notifyAll();
+                    }
+                    break;
+                case SETTINGS_MAX_FRAME_SIZE:
+                    if (value < MAX_FRAME_SIZE || value > 16_777_215) {
+                        throw Http2Exception.connection(PROTOCOL_ERROR, "Invalid SETTINGS_MAX_FRAME_SIZE");
+                    }
+                    peerMaxFrameSize = (int) value;
+                    break;
+                default:
+                    // Other settings only restrict what the client receives from us, or are unknown
+                    break;
+            }
+        }
+    }
+
+    private void onWindowUpdate(int streamId, byte[] payload) throws Http2Exception {
+        if (payload.length != 4) {
+            throw Http2Exception.connection(FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE frame");
+        }
+        int increment = readInt(payload, 0) & 0x7FFFFFFF;
+        if (streamId == 0) {
+            if (increment == 0) {
+                throw Http2Exception.connection(PROTOCOL_ERROR, "Zero WINDOW_UPDATE increment");
+            }
+            synchronized (flowLock) {
+                connectionSendWindow += increment;
+                if (connectionSendWindow > MAX_WINDOW) {
+                    throw Http2Exception.connection(FLOW_CONTROL_ERROR, "Connection window overflow");
+                }
+                flowLock.notifyAll();
+            }
+            return;
+        }
+        Http2Stream stream = streams.get(streamId);
+        if (stream == null) {
+            return;
+        }
+        if (increment == 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, streamId, "Zero WINDOW_UPDATE increment");
+        }
+        synchronized (flowLock) {
+            stream.sendWindow += increment;
+            if (stream.sendWindow > MAX_WINDOW) {
+                throw new Http2Exception(FLOW_CONTROL_ERROR, streamId, "Stream window overflow");
+            }
+            flowLock.notifyAll();
+        }
+    }
+
+    private Http2Stream openStream(int streamId) {
+        Http2Stream stream;
+        synchronized (flowLock) {
+            stream = new Http2Stream(this, streamId, peerInitialWindow, DEFAULT_WINDOW, maxBodySize);
+        }
+        streams.put(streamId, stream);
+        return stream;
+    }
+
+    private void dispatch(Http2Stream stream, HttpRequest request) throws IOException {
+        try {
+            executor.execute(() -> serveStream(stream, request));
+        } catch (RejectedExecutionException e) {
+            resetStream(stream.getId(), REFUSED_STREAM);
+        }
+    }
+
+    /**
+     * Runs the handler for a stream and writes its response. Runs on an executor thread.
+     */
+    private void serveStream(Http2Stream stream, HttpRequest request) {
+        try {
+            HttpResponse response;
+            try {
+                response = handler.handle(request);
+            } catch (HttpException e) {
+                response = new HttpResponse(e.getStatus(), "text/plain", e.getMessage().getBytes());
+            } catch (RuntimeException e) {
+                response = new HttpResponse("500 Internal Server Error", "text/plain",
+                        "Error processing request".getBytes());
+            }
+            writeResponse(stream, response);
+            if (!stream.isRemoteClosed() && !stream.isReset()) {
+                // The response is complete but the client is still sending a body nobody will read
+                resetStream(stream.getId(), NO_ERROR);
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                try {
+                    resetStream(stream.getId(), INTERNAL_ERROR);
+                } catch (IOException ignored) {
+                    // The connection is failing, the reader will notice
+                }
+            }
+        } finally {
+            if (streams.remove(stream.getId(), stream)) {
+                creditConnection(stream.reset());
+            }
+            synchronized (streams) {
+                streams.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes a response as a HEADERS frame (plus CONTINUATION frames if needed) and DATA frames.
+     */
+    private void writeResponse(Http2Stream stream, HttpResponse response) throws IOException {
+        int length = response.getLength();
+        ByteArrayOutputStream block = new ByteArrayOutputStream(128);
+        synchronized (writeLock) {
+            if (closed || stream.isReset()) {
+                return;
+            }
+            encoder.beginBlock(block);
+            encoder.encode(block, ":status", String.valueOf(response.getStatusCode()));
+            encoder.encode(block, "content-type", response.getContentType());
+            encoder.encode(block, "content-length", String.valueOf(length));
+            for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+                String name = header.getKey().toLowerCase(Locale.ROOT);
+                if (!CONNECTION_HEADERS.contains(name)) {
+                    encoder.encode(block, name, header.getValue());
+                }
+            }
+            writeHeaderBlock(stream.getId(), block.toByteArray(), length == 0);
+            out.flush();
+        }
+
+        int offset = 0;
+        while (offset < length) {
+            int n = reserveSendWindow(stream, Math.min(length - offset, peerMaxFrameSize));
+            if (n == 0) {
+                return;
+            }
+            synchronized (writeLock) {
+                if (closed || stream.isReset()) {
+                    return;
+                }
+                writeFrameHead(DATA, offset + n == length ? FLAG_END_STREAM : 0, stream.getId(), n);
+                response.writeBody(out, offset, n);
+                out.flush();
+            }
+            offset += n;
+        }
+    }
+
+    private void writeHeaderBlock(int streamId, byte[] block, boolean endStream) throws IOException {
+        int maxFrame = peerMaxFrameSize;
+        int n = Math.min(block.length, maxFrame);
+        int flags = (endStream ? FLAG_END_STREAM : 0) | (n == block.length ? FLAG_END_HEADERS : 0);
+        writeFrame(HEADERS, flags, streamId, block, 0, n);
+        for (int offset = n; offset < block.length; offset += n) {
+            n = Math.min(block.length - offset, maxFrame);
+            writeFrame(CONTINUATION, offset + n == block.length ? FLAG_END_HEADERS : 0, streamId, block, offset, n);
+        }
+    }
+
+    /**
+     * Waits until both the connection and the stream send windows are open and reserves up to {@code wanted}
+     * bytes from them.
+     *
+     * @return The number of bytes reserved, or 0 if the stream or the connection ended
+     */
+    private int reserveSendWindow(Http2Stream stream, int wanted) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLOW_CONTROL_STALL_MILLIS);
+        synchronized (flowLock) {
+            while (!closed && !stream.isReset() && (connectionSendWindow <= 0 || stream.sendWindow <= 0)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    resetStream(stream.getId(), CANCEL);
+                    return 0;
+                }
+                try {
+                    flowLock.wait(TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return 0;
+                }
+            }
+            if (closed || stream.isReset()) {
+                return 0;
+            }
+            int n = (int) Math.min(wanted, Math.min(connectionSendWindow, stream.sendWindow));
+            connectionSendWindow -= n;
+            stream.sendWindow -= n;
+            return n;
+        }
+    }
+
+    /**
+     * Records that a handler read {@code n} body bytes of a stream and returns the credit to the client once
+     * half of a window has been consumed, so that WINDOW_UPDATE frames are batched.
+     */
+    void consumed(Http2Stream stream, int n) {
+        creditConnection(n);
+        int unacked = stream.unackedBytes.addAndGet(n);
+        if (unacked >= DEFAULT_WINDOW / 2 && !stream.isRemoteClosed() && !stream.isReset()) {
+            stream.unackedBytes.addAndGet(-unacked);
+            stream.receiveWindow.addAndGet(unacked);
+            writeWindowUpdateQuietly(stream.getId(), unacked);
+        }
+    }
+
+    private void creditConnection(int n) {
+        if (n <= 0) {
+            return;
+        }
+        int unacked = connectionUnacked.addAndGet(n);
+        if (unacked >= CONNECTION_WINDOW / 2) {
+            connectionUnacked.addAndGet(-unacked);
+            connectionReceiveWindow.addAndGet(unacked);
+            writeWindowUpdateQuietly(0, unacked);
+        }
+    }
+
+    private void writeWindowUpdateQuietly(int streamId, int increment) {
+        byte[] payload = new byte[4];
+        writeInt(payload, 0, increment);
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            try {
+                writeFrame(WINDOW_UPDATE, 0, streamId, payload, 0, 4);
+                out.flush();
+            } catch (IOException e) {
+                closed = true;
+            }
+        }
+    }
+
+    /**
+     * Sends the server's SETTINGS and opens the connection receive window beyond the 64 KiB default.
+     */
+    private void writeSettings() throws IOException {
+        byte[] settings = new byte[18];
+        putSetting(settings, 0, SETTINGS_MAX_CONCURRENT_STREAMS, MAX_CONCURRENT_STREAMS);
+        putSetting(settings, 6, SETTINGS_ENABLE_PUSH, 0);
+        putSetting(settings, 12, SETTINGS_MAX_HEADER_LIST_SIZE, MAX_HEADER_LIST_SIZE);
+        byte[] windowUpdate = new byte[4];
+        writeInt(windowUpdate, 0, CONNECTION_WINDOW - DEFAULT_WINDOW);
+        synchronized (writeLock) {
+            writeFrame(SETTINGS, 0, 0, settings, 0, settings.length);
+            writeFrame(WINDOW_UPDATE, 0, 0, windowUpdate, 0, 4);
+            out.flush();
+        }
+        connectionReceiveWindow.addAndGet(CONNECTION_WINDOW - DEFAULT_WINDOW);
+    }
+
+    private static void putSetting(byte[] payload, int offset, int id, int value) {
+        payload[offset] = (byte) (id >>> 8);
+        payload[offset + 1] = (byte) id;
+        writeInt(payload, offset + 2, value);
+    }
+
+    private void resetStream(int streamId, int errorCode) throws IOException {
+        Http2Stream stream = streams.remove(streamId);
+        if (stream != null) {
+            creditConnection(stream.reset());
+            synchronized (flowLock) {
+                flowLock.notifyAll();
+            }
+        }
+        writeResetStream(streamId, errorCode);
+    }
+
+    private void writeResetStream(int streamId, int errorCode) throws IOException {
+        byte[] payload = new byte[4];
+        writeInt(payload, 0, errorCode);
+        synchronized (writeLock) {
+            if (!closed) {
+                writeFrame(RST_STREAM, 0, streamId, payload, 0, 4);
+                out.flush();
+            }
+        }
+    }
+
+    private void goAway(int errorCode) {
+        byte[] payload = new byte[8];
+        writeInt(payload, 0, lastStreamId);
+        writeInt(payload, 4, errorCode);
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            try {
+                writeFrame(GOAWAY, 0, 0, payload, 0, 8);
+                out.flush();
+            } catch (IOException e) {
+                // The client is gone, nothing left to tell it
+            }
+        }
+    }
+
+    /**
+     * Waits for the streams already dispatched to finish after the client sent GOAWAY.
+     */
+    private void awaitStreams() {
+        long deadline = System.currentTimeMillis() + DRAIN_MILLIS;
+        synchronized (streams) {
+            while (!streams.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                try {
+                    streams.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the connection closed and releases every handler blocked on a request body or a send window.
+     */
+    private void shutdown() {
+        synchronized (writeLock) {
+            closed = true;
+        }
+        for (Http2Stream stream : streams.values()) {
+            stream.reset();
+        }
+        streams.clear();
+        synchronized (flowLock) {
+            flowLock.notifyAll();
+        }
+    }
+
+    /**
+     * Writes one frame. The caller must hold the write lock.
+     */
+    private void writeFrame(int type, int flags, int streamId, byte[] payload, int offset, int length) throws IOException {
+        writeFrameHead(type, flags, streamId, length);
+        out.write(payload, offset, length);
+    }
+
+    private void writeFrameHead(int type, int flags, int streamId, int length) throws IOException {
+        byte[] head = new byte[9];
+        head[0] = (byte) (length >>> 16);
+        head[1] = (byte) (length >>> 8);
+        head[2] = (byte) length;
+        head[3] = (byte) type;
+        head[4] = (byte) flags;
+        writeInt(head, 5, streamId);
+        out.write(head);
+    }
+
+    private byte[] readFully(int length) throws IOException {
+        byte[] data = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(data, read, length - read);
+            if (n < 0) {
+                throw new EOFException("Connection closed in the middle of a frame");
+            }
+            read += n;
+        }
+        return data;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,48 @@
+package co.edu.escuelaing.framework.http2;
+
+import java.io.IOException;
+
+/**
+ * Signals an HTTP/2 protocol violation (RFC 9113, section 5.4).
+ * <p>
+ * A connection error ({@code streamId == 0}) ends the connection with a GOAWAY frame, while a stream error
+ * only resets the offending stream with RST_STREAM.
+ * </p>
+ */
+class Http2Exception extends IOException {
+    private static final long serialVersionUID = 1L;
+    private final int errorCode;
+    private final int streamId;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param errorCode The HTTP/2 error code
+     * @param streamId  The stream to reset, or 0 for a connection error
+     * @param message   A description of the violation
+     */
+    Http2Exception(int errorCode, int streamId, String message) {
+        super(message);
+        this.errorCode = errorCode;
+        this.streamId = streamId;
+    }
+
+    /**
+     * Creates a connection error.
+     *
+     * @param errorCode The HTTP/2 error code
+     * @param message   A description of the violation
+     * @return The exception
+     */
+    static Http2Exception connection(int errorCode, String message) {
+        return new Http2Exception(errorCode, 0, message);
+    }
+
+    int getErrorCode() {
+        return errorCode;
+    }
+
+    int getStreamId() {
+        return streamId;
+    }
+}
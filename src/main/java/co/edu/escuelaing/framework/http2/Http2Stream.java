@@ -0,0 +1,188 @@
+package co.edu.escuelaing.framework.http2;
+
+import co.edu.escuelaing.framework.HttpException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The state of one HTTP/2 stream: its flow-control windows and the stream of its request body.
+ * <p>
+ * The connection reader thread appends DATA payloads to the body; the handler thread reads them through
+ * {@link #getBody()}. Every byte read is reported back to the connection, which returns it to the client as
+ * WINDOW_UPDATE credit. Because credit is only returned for consumed bytes, the data buffered for a stream
+ * never exceeds the window announced for it.
+ * </p>
+ */
+final class Http2Stream {
+    private final Http2Connection connection;
+    private final int id;
+    private final Body body;
+    final AtomicInteger receiveWindow;
+    final AtomicInteger unackedBytes = new AtomicInteger();
+
+    /**
+     * The number of bytes the server may still send on this stream. Guarded by the connection's flow lock.
+     */
+    long sendWindow;
+    private volatile boolean remoteClosed;
+    private volatile boolean reset;
+
+    /**
+     * Creates a stream.
+     *
+     * @param connection    The connection the stream belongs to
+     * @param id            The stream identifier
+     * @param sendWindow    The initial send window, as set by the client's SETTINGS
+     * @param receiveWindow The initial receive window announced by the server
+     * @param maxBodySize   The largest request body accepted
+     */
+    Http2Stream(Http2Connection connection, int id, long sendWindow, int receiveWindow, long maxBodySize) {
+        this.connection = connection;
+        this.id = id;
+        this.sendWindow = sendWindow;
+        this.receiveWindow = new AtomicInteger(receiveWindow);
+        this.body = new Body(maxBodySize);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    InputStream getBody() {
+        return body;
+    }
+
+    boolean isRemoteClosed() {
+        return remoteClosed;
+    }
+
+    boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * Appends received DATA to the body.
+     */
+    void receive(byte[] data, int offset, int length) {
+        body.offer(data, offset, length);
+    }
+
+    /**
+     * Marks the end of the request: END_STREAM was received.
+     */
+    void closeRemote() {
+        remoteClosed = true;
+        body.finish();
+    }
+
+    /**
+     * Resets the stream: readers fail and buffered data is dropped.
+     *
+     * @return The number of buffered bytes that were never read
+     */
+    int reset() {
+        reset = true;
+        return body.discard();
+    }
+
+    /**
+     * A blocking queue of DATA payloads exposed as an input stream.
+     */
+    private final class Body extends InputStream {
+        private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+        private final long maxBodySize;
+        private int chunkPosition;
+        private long received;
+        private boolean finished;
+        private boolean discarded;
+
+        Body(long maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        synchronized void offer(byte[] data, int offset, int length) {
+            if (discarded || length == 0) {
+                return;
+            }
+            received += length;
+            byte[] chunk = new byte[length];
+            System.arraycopy(data, offset, chunk, 0, length);
+            chunks.add(chunk);
+            notifyAll();
+        }
+
+        synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+
+        synchronized int discard() {
+            int pending = 0;
+            for (byte[] chunk : chunks) {
+                pending += chunk.length;
+            }
+            pending -= chunkPosition;
+            chunks.clear();
+            chunkPosition = 0;
+            discarded = true;
+            notifyAll();
+            return pending;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n;
+            synchronized (this) {
+                while (chunks.isEmpty() && !finished && !discarded) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for request data");
+                    }
+                }
+                if (discarded) {
+                    throw new IOException("Stream " + id + " was reset");
+                }
+                if (received > maxBodySize) {
+                    throw new HttpException("413 Payload Too Large", "Request body too large");
+                }
+                if (chunks.isEmpty()) {
+                    return -1;
+                }
+                byte[] chunk = chunks.peek();
+                n = Math.min(len, chunk.length - chunkPosition);
+                System.arraycopy(chunk, chunkPosition, b, off, n);
+                chunkPosition += n;
+                if (chunkPosition == chunk.length) {
+                    chunks.poll();
+                    chunkPosition = 0;
+                }
+            }
+            connection.consumed(Http2Stream.this, n);
+            return n;
+        }
+
+        @Override
+        public synchronized int available() {
+            int available = 0;
+            for (byte[] chunk : chunks) {
+                available += chunk.length;
+            }
+            return available - chunkPosition;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package co.edu.escuelaing.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when an acceptor takes a connection from its listening socket.
+ */
+@Name("springeci.ConnectionAccepted")
+@Label("Connection Accepted")
+@Description("A connection was accepted from a listening socket")
+@Category({"SpringECI", "HTTP"})
+@StackTrace(false)
+public final class ConnectionAcceptedEvent extends jdk.jfr.Event {
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Queued Connections")
+    @Description("Accepted connections waiting for a worker of this acceptor")
+    public int queued;
+}
@@ -0,0 +1,26 @@
+package co.edu.escuelaing.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the invocation of a route's handler, including its interceptors and the encoding of its result.
+ */
+@Name("springeci.HandlerInvoked")
+@Label("Handler Invoked")
+@Description("A route's handler ran, with its interceptors, and produced a response")
+@Category({"SpringECI", "HTTP"})
+@StackTrace(false)
+public final class HandlerInvokedEvent extends jdk.jfr.Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Route")
+    public String route;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,32 @@
+package co.edu.escuelaing.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the reading of a request line and headers from an HTTP/1.1 connection.
+ */
+@Name("springeci.RequestParsed")
+@Label("Request Parsed")
+@Description("The request line and headers of a request were read and parsed")
+@Category({"SpringECI", "HTTP"})
+@StackTrace(false)
+public final class RequestParsedEvent extends jdk.jfr.Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Target")
+    public String target;
+
+    @Label("Protocol")
+    public String protocol;
+
+    @Label("Content Length")
+    @Description("The declared length of the body, -1 if none or chunked")
+    @DataAmount
+    public long contentLength;
+}
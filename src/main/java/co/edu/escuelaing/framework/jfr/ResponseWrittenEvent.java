@@ -0,0 +1,29 @@
+package co.edu.escuelaing.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the writing of a response to an HTTP/1.1 connection.
+ */
+@Name("springeci.ResponseWritten")
+@Label("Response Written")
+@Category({"SpringECI", "HTTP"})
+@StackTrace(false)
+public final class ResponseWrittenEvent extends jdk.jfr.Event {
+    @Label("Target")
+    public String target;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Body Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Keep-Alive")
+    public boolean keepAlive;
+}
@@ -0,0 +1,27 @@
+package co.edu.escuelaing.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when a request to {@code /App/...} is looked up in the route table.
+ */
+@Name("springeci.RouteResolved")
+@Label("Route Resolved")
+@Description("A service request was looked up in the route table")
+@Category({"SpringECI", "HTTP"})
+@StackTrace(false)
+public final class RouteResolvedEvent extends jdk.jfr.Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Route")
+    public String route;
+
+    @Label("Matched")
+    @Description("Whether a handler is registered for the route and method")
+    public boolean matched;
+}
@@ -0,0 +1,41 @@
+package co.edu.escuelaing.framework.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when a static file is looked up in the in-memory index.
+ */
+@Name("springeci.StaticCache")
+@Label("Static Cache Lookup")
+@Description("A static file was looked up in the index: hit, not-modified or miss")
+@Category({"SpringECI", "Static Files"})
+@StackTrace(false)
+public final class StaticCacheEvent extends jdk.jfr.Event {
+    /**
+     * The file was found and sent.
+     */
+    public static final String HIT = "hit";
+    /**
+     * The file was found and the client's copy is current.
+     */
+    public static final String NOT_MODIFIED = "not-modified";
+    /**
+     * No file has that path.
+     */
+    public static final String MISS = "miss";
+
+    @Label("Path")
+    public String path;
+
+    @Label("Result")
+    public String result;
+
+    @Label("Body Size")
+    @DataAmount
+    public long bytes;
+}
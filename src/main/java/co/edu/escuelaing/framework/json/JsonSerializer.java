@@ -0,0 +1,504 @@
+package co.edu.escuelaing.framework.json;
+
+import co.edu.escuelaing.framework.ResponseBuffer;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Serializes controller return values to JSON without a third-party library.
+ * <p>
+ * The first time a type is serialized, a writer is generated for it and cached in a {@link ClassValue}.
+ * For records the writer reads the record components; for other classes it reads public getters
+ * ({@code getX()}/{@code isX()}) and public fields. Property access goes through accessor classes spun from
+ * {@link MethodHandle}s with {@link LambdaMetafactory} and typed to the property's primitive type, so numbers
+ * and booleans are never boxed and the JIT can inline the getters. Property names are pre-encoded as bytes.
+ * Values are written straight into a {@link ResponseBuffer}, with no intermediate {@code String}.
+ * </p>
+ *
+ * <p>Supported values are {@code null}, strings and characters, numbers, booleans, enums (by name), maps
+ * (keys are converted with {@code String.valueOf}), iterables, arrays, records and beans. Other JDK types
+ * such as {@code UUID} or {@code LocalDate} are written as the string returned by {@code toString()}.</p>
+ */
+public final class JsonSerializer {
+    private static final int MAX_DEPTH = 64;
+    private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<ValueWriter> WRITERS = new ClassValue<>() {
+        @Override
+        protected ValueWriter computeValue(Class<?> type) {
+            return createWriter(type);
+        }
+    };
+
+    private JsonSerializer() {
+    }
+
+    /**
+     * Writes the JSON representation of a value.
+     *
+     * @param value The value to serialize, may be {@code null}
+     * @param out   The buffer to write to
+     * @throws IllegalStateException If the value nests too deeply (usually a cycle) or a getter fails
+     */
+    public static void write(Object value, ResponseBuffer out) {
+        write(value, out, 0);
+    }
+
+    /**
+     * Returns the JSON representation of a value as a new byte array. Meant for tests and tools; the
+     * request path uses {@link #write(Object, ResponseBuffer)}.
+     *
+     * @param value The value to serialize, may be {@code null}
+     * @return The UTF-8 encoded JSON
+     */
+    public static byte[] toJson(Object value) {
+        ResponseBuffer buffer = ResponseBuffer.acquire();
+        write(value, buffer);
+        byte[] json = new byte[buffer.size()];
+        System.arraycopy(buffer.array(), 0, json, 0, json.length);
+        return json;
+    }
+
+    static void write(Object value, ResponseBuffer out, int depth) {
+        if (value == null) {
+            out.write(JsonWriter.NULL);
+            return;
+        }
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting deeper than " + MAX_DEPTH + " levels, is there a cycle?");
+        }
+        try {
+            WRITERS.get(value.getClass()).write(value, out, depth);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Chooses or generates the writer for a runtime type.
+     */
+    private static ValueWriter createWriter(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (value, out, depth) -> JsonWriter.writeString((CharSequence) value, out);
+        } else if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return (value, out, depth) -> JsonWriter.writeLong(((Number) value).longValue(), out);
+        } else if (type == Double.class || type == Float.class) {
+            return (value, out, depth) -> JsonWriter.writeDouble(((Number) value).doubleValue(), out);
+        } else if (type == BigDecimal.class || type == BigInteger.class) {
+            return (value, out, depth) -> JsonWriter.writeAscii(value.toString(), out);
+        } else if (type == Boolean.class) {
+            return (value, out, depth) -> JsonWriter.writeBoolean((Boolean) value, out);
+        } else if (Enum.class.isAssignableFrom(type)) {
+            return (value, out, depth) -> JsonWriter.writeString(((Enum<?>) value).name(), out);
+        } else if (Map.class.isAssignableFrom(type)) {
+            return JsonSerializer::writeMap;
+        } else if (Iterable.class.isAssignableFrom(type)) {
+            return JsonSerializer::writeIterable;
+        } else if (type.isArray()) {
+            return arrayWriter(type.getComponentType());
+        } else if (type.isRecord()) {
+            return new ObjectWriter(recordProperties(type));
+        } else if (type == Character.class || type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+            return (value, out, depth) -> JsonWriter.writeString(value.toString(), out);
+        }
+        return new ObjectWriter(beanProperties(type));
+    }
+
+    private static void writeMap(Object value, ResponseBuffer out, int depth) {
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            JsonWriter.writeString(String.valueOf(entry.getKey()), out);
+            out.write(':');
+            write(entry.getValue(), out, depth + 1);
+        }
+        out.write('}');
+    }
+
+    private static void writeIterable(Object value, ResponseBuffer out, int depth) {
+        out.write('[');
+        boolean first = true;
+        for (Object element : (Iterable<?>) value) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            write(element, out, depth + 1);
+        }
+        out.write(']');
+    }
+
+    private static ValueWriter arrayWriter(Class<?> componentType) {
+        if (componentType == int.class) {
+            return (value, out, depth) -> {
+                int[] array = (int[]) value;
+                out.write('[');
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    JsonWriter.writeLong(array[i], out);
+                }
+                out.write(']');
+            };
+        } else if (componentType == long.class) {
+            return (value, out, depth) -> {
+                long[] array = (long[]) value;
+                out.write('[');
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    JsonWriter.writeLong(array[i], out);
+                }
+                out.write(']');
+            };
+        } else if (componentType == double.class) {
+            return (value, out, depth) -> {
+                double[] array = (double[]) value;
+                out.write('[');
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    JsonWriter.writeDouble(array[i], out);
+                }
+                out.write(']');
+            };
+        } else if (componentType == byte.class) {
+            // Byte arrays are written as arrays of numbers like the other primitive arrays
+            return (value, out, depth) -> {
+                byte[] array = (byte[]) value;
+                out.write('[');
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    JsonWriter.writeLong(array[i], out);
+                }
+                out.write(']');
+            };
+        } else if (componentType.isPrimitive()) {
+            // boolean[], char[], short[] and float[] are rare enough to go through boxing
+            return (value, out, depth) -> {
+                int length = java.lang.reflect.Array.getLength(value);
+                out.write('[');
+                for (int i = 0; i < length; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    write(java.lang.reflect.Array.get(value, i), out, depth + 1);
+                }
+                out.write(']');
+            };
+        }
+        return (value, out, depth) -> {
+            Object[] array = (Object[]) value;
+            out.write('[');
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                write(array[i], out, depth + 1);
+            }
+            out.write(']');
+        };
+    }
+
+    private static List<Property> recordProperties(Class<?> type) {
+        List<Property> properties = new ArrayList<>();
+        for (RecordComponent component : type.getRecordComponents()) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                properties.add(Property.of(component.getName(), component.getType(),
+                        lookup.unreflect(component.getAccessor()), lookup));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access record component " + component, e);
+            }
+        }
+        return properties;
+    }
+
+    private static List<Property> beanProperties(Class<?> type) {
+        List<Property> properties = new ArrayList<>();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            for (Method method : type.getMethods()) {
+                String name = propertyName(method);
+                if (name != null) {
+                    method.trySetAccessible();
+                    properties.add(Property.of(name, method.getReturnType(), lookup.unreflect(method), lookup));
+                }
+            }
+            for (Field field : type.getFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)
+                        && properties.stream().noneMatch(p -> p.name.equals(field.getName()))) {
+                    field.trySetAccessible();
+                    properties.add(Property.of(field.getName(), field.getType(), lookup.unreflectGetter(field), lookup));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access properties of " + type.getName(), e);
+        }
+        properties.sort(Comparator.comparing(p -> p.name));
+        return properties;
+    }
+
+    /**
+     * Returns the property name of a public getter, or {@code null} if the method is not a getter.
+     */
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+                || method.getReturnType() == void.class || method.getDeclaringClass() == Object.class) {
+            return null;
+        }
+        String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            name = name.substring(3);
+        } else if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+            name = name.substring(2);
+        } else {
+            return null;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Writes one value of a given runtime type.
+     */
+    @FunctionalInterface
+    interface ValueWriter {
+        void write(Object value, ResponseBuffer out, int depth) throws Throwable;
+    }
+
+    /**
+     * The generated writer of a record or bean: the pre-encoded name of every property followed by its value.
+     */
+    private static final class ObjectWriter implements ValueWriter {
+        private final Property[] properties;
+
+        ObjectWriter(List<Property> properties) {
+            this.properties = properties.toArray(new Property[0]);
+            for (int i = 0; i < this.properties.length; i++) {
+                this.properties[i].encodePrefix(i == 0);
+            }
+        }
+
+        @Override
+        public void write(Object value, ResponseBuffer out, int depth) throws Throwable {
+            if (properties.length == 0) {
+                out.write('{');
+            }
+            for (Property property : properties) {
+                out.write(property.prefix);
+                property.write(value, out, depth);
+            }
+            out.write('}');
+        }
+    }
+
+    /**
+     * A single property of a record or bean. Each property reads its value through an accessor class generated
+     * with {@link LambdaMetafactory} and typed to the property's primitive type, so the JIT can inline it.
+     */
+    private abstract static class Property {
+        final String name;
+        byte[] prefix;
+
+        Property(String name) {
+            this.name = name;
+        }
+
+        // The generated accessors implement the functional interfaces for Object receivers, so the casts hold
+        @SuppressWarnings("unchecked")
+        static Property of(String name, Class<?> type, MethodHandle getter, MethodHandles.Lookup lookup) {
+            try {
+                if (type == int.class || type == short.class || type == byte.class) {
+                    return new IntProperty(name, (ToIntFunction<Object>) accessor(lookup, getter, ToIntFunction.class,
+                            "applyAsInt", int.class));
+                } else if (type == long.class) {
+                    return new LongProperty(name, (ToLongFunction<Object>) accessor(lookup, getter, ToLongFunction.class,
+                            "applyAsLong", long.class));
+                } else if (type == double.class || type == float.class) {
+                    return new DoubleProperty(name, (ToDoubleFunction<Object>) accessor(lookup, getter,
+                            ToDoubleFunction.class, "applyAsDouble", double.class));
+                } else if (type == boolean.class) {
+                    return new BooleanProperty(name, (Predicate<Object>) accessor(lookup, getter, Predicate.class,
+                            "test", boolean.class));
+                }
+                Function<Object, Object> accessor = (Function<Object, Object>) accessor(lookup, getter, Function.class,
+                        "apply", Object.class);
+                return type == String.class ? new StringProperty(name, accessor) : new ObjectProperty(name, accessor);
+            } catch (Throwable e) {
+                // Field getters and some inherited methods cannot back a generated accessor
+                return new HandleProperty(name, getter.asType(OBJECT_GETTER));
+            }
+        }
+
+        /**
+         * Spins an implementation of a functional interface that calls {@code getter} directly.
+         */
+        private static Object accessor(MethodHandles.Lookup lookup, MethodHandle getter, Class<?> functionalInterface,
+                                       String methodName, Class<?> returnType) throws Throwable {
+            Class<?> getterReturn = getter.type().returnType();
+            Class<?> instantiatedReturn = returnType != Object.class ? returnType
+                    : getterReturn.isPrimitive() ? MethodType.methodType(getterReturn).wrap().returnType() : getterReturn;
+            CallSite site = LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(functionalInterface),
+                    MethodType.methodType(returnType, Object.class), getter,
+                    MethodType.methodType(instantiatedReturn, getter.type().parameterType(0)));
+            return site.getTarget().invoke();
+        }
+
+        /**
+         * Pre-encodes {@code "name":}, preceded by the object start for the first property or a comma otherwise.
+         */
+        void encodePrefix(boolean first) {
+            // Not the pooled buffer: writers may be generated while that buffer is being written
+            ResponseBuffer buffer = new ResponseBuffer();
+            buffer.write(first ? '{' : ',');
+            JsonWriter.writeString(name, buffer);
+            buffer.write(':');
+            prefix = new byte[buffer.size()];
+            System.arraycopy(buffer.array(), 0, prefix, 0, prefix.length);
+        }
+
+        abstract void write(Object bean, ResponseBuffer out, int depth);
+    }
+
+    private static final class IntProperty extends Property {
+        private final ToIntFunction<Object> getter;
+
+        IntProperty(String name, ToIntFunction<Object> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(Object bean, ResponseBuffer out, int depth) {
+            JsonWriter.writeLong(getter.applyAsInt(bean), out);
+        }
+    }
+
+    private static final class LongProperty extends Property {
+        private final ToLongFunction<Object> getter;
+
+        LongProperty(String name, ToLongFunction<Object> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(Object bean, ResponseBuffer out, int depth) {
+            JsonWriter.writeLong(getter.applyAsLong(bean), out);
+        }
+    }
+
+    private static final class DoubleProperty extends Property {
+        private final ToDoubleFunction<Object> getter;
+
+        DoubleProperty(String name, ToDoubleFunction<Object> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(Object bean, ResponseBuffer out, int depth) {
+            JsonWriter.writeDouble(getter.applyAsDouble(bean), out);
+        }
+    }
+
+    private static final class BooleanProperty extends Property {
+        private final Predicate<Object> getter;
+
+        BooleanProperty(String name, Predicate<Object> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(Object bean, ResponseBuffer out, int depth) {
+            JsonWriter.writeBoolean(getter.test(bean), out);
+        }
+    }
+
+    private static final class HandleProperty extends Property {
+        private final MethodHandle getter;
+
+        HandleProperty(String name, MethodHandle getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(Object bean, ResponseBuffer out, int depth) {
+            Object value;
+            try {
+                value = (Object) getter.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not read property " + name, e);
+            }
+            JsonSerializer.write(value, out, depth + 1);
+        }
+    }
+
+    private static final class StringProperty extends Property {
+        private final Function<Object, Object> getter;
+
+        StringProperty(String name, Function<Object, Object> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(Object bean, ResponseBuffer out, int depth) {
+            Object value = getter.apply(bean);
+            if (value == null) {
+                out.write(JsonWriter.NULL);
+            } else {
+                JsonWriter.writeString((String) value, out);
+            }
+        }
+    }
+
+    private static final class ObjectProperty extends Property {
+        private final Function<Object, Object> getter;
+
+        ObjectProperty(String name, Function<Object, Object> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(Object bean, ResponseBuffer out, int depth) {
+            JsonSerializer.write(getter.apply(bean), out, depth + 1);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package co.edu.escuelaing.framework.json;
+
+import co.edu.escuelaing.framework.ResponseBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Low-level JSON token encoding straight into a {@link ResponseBuffer}.
+ * <p>
+ * Strings are escaped and UTF-8 encoded character by character and integers are written digit by digit,
+ * so no intermediate {@code String} or {@code byte[]} is created for them.
+ * </p>
+ */
+final class JsonWriter {
+    static final byte[] NULL = ascii("null");
+    static final byte[] TRUE = ascii("true");
+    static final byte[] FALSE = ascii("false");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    private static final byte[] MIN_LONG = ascii(Long.toString(Long.MIN_VALUE));
+    private static final double[] POWERS_OF_TEN = {1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6};
+
+    private JsonWriter() {
+    }
+
+    /**
+     * Encodes a string as US-ASCII bytes. Used to pre-encode constant tokens once.
+     *
+     * @param text The text to encode
+     * @return The encoded bytes
+     */
+    static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes a JSON boolean literal.
+     *
+     * @param value The value to write
+     * @param out   The buffer to write to
+     */
+    static void writeBoolean(boolean value, ResponseBuffer out) {
+        out.write(value ? TRUE : FALSE);
+    }
+
+    /**
+     * Writes an integer number.
+     *
+     * @param value The value to write
+     * @param out   The buffer to write to
+     */
+    static void writeLong(long value, ResponseBuffer out) {
+        if (value == Long.MIN_VALUE) {
+            out.write(MIN_LONG);
+            return;
+        }
+        int size = out.size();
+        byte[] bytes = out.ensureCapacity(size + 20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int position = size + digits;
+        do {
+            bytes[--position] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        out.setSize(size + digits);
+    }
+
+    /**
+     * Writes a floating point number. JSON cannot represent {@code NaN} or infinities, so they are written
+     * as {@code null}.
+     * <p>
+     * Values in the range where {@link Double#toString(double)} uses plain notation and that have at most six
+     * decimals are written digit by digit: the smallest scale {@code k} for which {@code value * 10^k} is an
+     * integer that divides back to exactly {@code value} is used, so the text always parses back to the same
+     * double. The product may only be exact at a larger scale than needed ({@code 0.07 * 100} is not 7, but
+     * {@code 0.07 * 1000} is 70), so trailing zeros are dropped to get the shortest form. Other values fall
+     * back to {@code Double.toString}.
+     * </p>
+     *
+     * @param value The value to write
+     * @param out   The buffer to write to
+     */
+    static void writeDouble(double value, ResponseBuffer out) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.write(NULL);
+            return;
+        }
+        double magnitude = Math.abs(value);
+        if (magnitude < 1e7 && (magnitude >= 1e-3 || value == 0)) {
+            for (int scale = 0; scale < POWERS_OF_TEN.length; scale++) {
+                double scaled = value * POWERS_OF_TEN[scale];
+                if (scaled == (long) scaled && scaled / POWERS_OF_TEN[scale] == value) {
+                    long unscaled = (long) scaled;
+                    int digits = scale;
+                    while (digits > 1 && unscaled % 10 == 0) {
+                        unscaled /= 10;
+                        digits--;
+                    }
+                    writeDecimal(unscaled, digits, value < 0, out);
+                    return;
+                }
+            }
+        }
+        writeAscii(Double.toString(value), out);
+    }
+
+    /**
+     * Writes {@code unscaled / 10^scale} with at least one decimal, as {@code Double.toString} does.
+     */
+    private static void writeDecimal(long unscaled, int scale, boolean negative, ResponseBuffer out) {
+        long unit = (long) POWERS_OF_TEN[scale];
+        long integer = Math.abs(unscaled / unit);
+        long fraction = Math.abs(unscaled % unit);
+        if (negative) {
+            out.write('-');
+        }
+        writeLong(integer, out);
+        out.write('.');
+        if (scale == 0) {
+            out.write('0');
+            return;
+        }
+        int size = out.size();
+        byte[] bytes = out.ensureCapacity(size + scale);
+        for (int i = scale - 1; i >= 0; i--) {
+            bytes[size + i] = (byte) ('0' + (fraction % 10));
+            fraction /= 10;
+        }
+        out.setSize(size + scale);
+    }
+
+    /**
+     * Writes characters that are known to be ASCII and need no escaping (e.g., the text of a number).
+     *
+     * @param text The characters to write
+     * @param out  The buffer to write to
+     */
+    static void writeAscii(CharSequence text, ResponseBuffer out) {
+        int size = out.size();
+        int length = text.length();
+        byte[] bytes = out.ensureCapacity(size + length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) text.charAt(i);
+        }
+        out.setSize(size);
+    }
+
+    /**
+     * Writes a quoted, escaped and UTF-8 encoded JSON string.
+     *
+     * @param text The characters to write
+     * @param out  The buffer to write to
+     */
+    static void writeString(CharSequence text, ResponseBuffer out) {
+        int length = text.length();
+        int size = out.size();
+        // Every char takes at most 3 bytes unless it must be escaped, which is re-checked below
+        byte[] bytes = out.ensureCapacity(size + 3 * length + 2);
+        bytes[size++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                bytes[size++] = (byte) c;
+                continue;
+            }
+            if (size + 6 + 3 * (length - i) > bytes.length) {
+                out.setSize(size);
+                bytes = out.ensureCapacity(size + 6 + 3 * (length - i) + 1);
+            }
+            if (c == '"' || c == '\\') {
+                bytes[size++] = '\\';
+                bytes[size++] = (byte) c;
+            } else if (c < 0x20) {
+                bytes[size++] = '\\';
+                switch (c) {
+                    case '\n': bytes[size++] = 'n'; break;
+                    case '\r': bytes[size++] = 'r'; break;
+                    case '\t': bytes[size++] = 't'; break;
+                    case '\b': bytes[size++] = 'b'; break;
+                    case '\f': bytes[size++] = 'f'; break;
+                    default:
+                        bytes[size++] = 'u';
+                        bytes[size++] = '0';
+                        bytes[size++] = '0';
+                        bytes[size++] = HEX[c >> 4];
+                        bytes[size++] = HEX[c & 0xF];
+                }
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates cannot be encoded in UTF-8
+                bytes[size++] = '?';
+            } else {
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        bytes[size++] = '"';
+        out.setSize(size);
+    }
+}
@@ -0,0 +1,77 @@
+package co.edu.escuelaing.framework.websocket;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes the frames the server sends (RFC 6455, section 5.2). Server frames are never masked, so a frame
+ * can be encoded once and written unchanged to any number of connections.
+ */
+final class WebSocketCodec {
+    static final int CONTINUATION = 0x0;
+    static final int TEXT = 0x1;
+    static final int BINARY = 0x2;
+    static final int CLOSE = 0x8;
+    static final int PING = 0x9;
+    static final int PONG = 0xA;
+
+    static final int NORMAL_CLOSURE = 1000;
+    static final int GOING_AWAY = 1001;
+    static final int PROTOCOL_ERROR = 1002;
+    static final int UNSUPPORTED_DATA = 1003;
+    static final int INVALID_PAYLOAD = 1007;
+    static final int MESSAGE_TOO_BIG = 1009;
+    static final int INTERNAL_ERROR = 1011;
+
+    private WebSocketCodec() {
+    }
+
+    /**
+     * Encodes a final, unmasked frame.
+     *
+     * @param opcode  The opcode of the frame
+     * @param payload The array holding the payload
+     * @param offset  The offset of the payload in the array
+     * @param length  The length of the payload
+     * @return The frame bytes
+     */
+    static byte[] encode(int opcode, byte[] payload, int offset, int length) {
+        int headerLength = length < 126 ? 2 : length <= 0xFFFF ? 4 : 10;
+        byte[] frame = new byte[headerLength + length];
+        frame[0] = (byte) (0x80 | opcode);
+        if (length < 126) {
+            frame[1] = (byte) length;
+        } else if (length <= 0xFFFF) {
+            frame[1] = 126;
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+        } else {
+            frame[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                frame[2 + i] = (byte) ((long) length >>> (56 - 8 * i));
+            }
+        }
+        System.arraycopy(payload, offset, frame, headerLength, length);
+        return frame;
+    }
+
+    /**
+     * Encodes a text frame.
+     *
+     * @param text The message
+     * @return The frame bytes
+     */
+    static byte[] text(String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        return encode(TEXT, payload, 0, payload.length);
+    }
+
+    /**
+     * Encodes a close frame.
+     *
+     * @param code The status code
+     * @return The frame bytes
+     */
+    static byte[] close(int code) {
+        return encode(CLOSE, new byte[]{(byte) (code >>> 8), (byte) code}, 0, 2);
+    }
+}
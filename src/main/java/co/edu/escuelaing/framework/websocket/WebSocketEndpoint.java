@@ -0,0 +1,77 @@
+package co.edu.escuelaing.framework.websocket;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A WebSocket endpoint: the handler mapped to a path with
+ * {@link co.edu.escuelaing.framework.annotations.WebSocketMapping} and the sessions connected to it.
+ * <p>
+ * The endpoint outlives its handler: when the controllers are reloaded, the new handler takes over the
+ * sessions that are already open.
+ * </p>
+ */
+public final class WebSocketEndpoint {
+    private final String path;
+    private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+    private volatile Method handler;
+
+    WebSocketEndpoint(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Sends a text message to every open session of the endpoint. The frame is encoded once and the same
+     * bytes are queued on every session; sessions whose queue is full are dropped.
+     *
+     * @param text The message
+     * @return The number of sessions the message was queued for
+     */
+    public int broadcast(String text) {
+        byte[] frame = WebSocketCodec.text(text);
+        int queued = 0;
+        for (WebSocketSession session : sessions) {
+            if (session.enqueue(frame, false)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the path of the endpoint, relative to {@code /App}.
+     *
+     * @return The path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the open sessions.
+     *
+     * @return An unmodifiable view of the sessions
+     */
+    public Collection<WebSocketSession> getSessions() {
+        return Collections.unmodifiableSet(sessions);
+    }
+
+    Method getHandler() {
+        return handler;
+    }
+
+    void setHandler(Method handler) {
+        this.handler = handler;
+    }
+
+    void add(WebSocketSession session) {
+        sessions.add(session);
+    }
+
+    void remove(WebSocketSession session) {
+        sessions.remove(session);
+    }
+}
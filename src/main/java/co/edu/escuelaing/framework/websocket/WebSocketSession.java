@@ -0,0 +1,447 @@
+package co.edu.escuelaing.framework.websocket;
+
+import co.edu.escuelaing.framework.TimingWheel;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static co.edu.escuelaing.framework.websocket.WebSocketCodec.*;
+
+/**
+ * An open WebSocket connection.
+ * <p>
+ * The worker thread that accepted the connection reads its frames for as long as it stays open and invokes the
+ * endpoint's handler for every text message. Messages are reassembled in a buffer that belongs to the session
+ * and is reused for every message. Outgoing frames go through a bounded queue that a shared writer pool
+ * drains, so that sending, and in particular broadcasting, never blocks on a slow client: when a client does
+ * not read fast enough and its queue exceeds its limit, the session is dropped instead of buffering without
+ * bound.
+ * </p>
+ * <p>
+ * A timer on the server's timing wheel keeps the reading thread from waiting forever on a client that went
+ * away without closing its connection: a session that receives no frame for the idle timeout is sent a ping,
+ * and if nothing arrives for another idle timeout it is closed with status 1001 (going away). A client that
+ * does not answer the close frame either is dropped.
+ * </p>
+ */
+public final class WebSocketSession {
+    private static final AtomicLong IDS = new AtomicLong();
+    private static final long CLOSE_DRAIN_MILLIS = 1000;
+
+    private final long id = IDS.incrementAndGet();
+    private final WebSocketEndpoint endpoint;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final Closeable socket;
+    private final Executor writers;
+    private final int maxMessageSize;
+    private final long maxQueuedBytes;
+    private final TimingWheel timer;
+    private final int idleTimeout;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean draining;
+    private boolean closeSent;
+    private volatile boolean open = true;
+    private volatile boolean received;
+    private volatile TimingWheel.Timeout idleCheck;
+    private boolean pinged;
+    private boolean closing;
+
+    private byte[] message = new byte[1024];
+    private int messageLength;
+    private int messageOpcode = -1;
+
+    WebSocketSession(WebSocketEndpoint endpoint, InputStream in, OutputStream out, Closeable socket, Executor writers,
+                     int maxMessageSize, long maxQueuedBytes, TimingWheel timer, int idleTimeout) {
+        this.endpoint = endpoint;
+        this.in = new DataInputStream(in);
+        this.out = out;
+        this.socket = socket;
+        this.writers = writers;
+        this.maxMessageSize = maxMessageSize;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.timer = timer;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Sends a text message.
+     *
+     * @param text The message
+     * @return {@code true} if the message was queued, {@code false} if the session is closed or was dropped
+     * because too much data is waiting to be sent
+     */
+    public boolean send(String text) {
+        return enqueue(WebSocketCodec.text(text), false);
+    }
+
+    /**
+     * Starts the closing handshake with status 1000 (normal closure).
+     */
+    public void close() {
+        close(NORMAL_CLOSURE);
+    }
+
+    /**
+     * Tells whether the session is open.
+     *
+     * @return {@code true} until the session is closed or dropped
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns the identifier of the session, unique within the server.
+     *
+     * @return The session id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the endpoint the session is connected to.
+     *
+     * @return The endpoint
+     */
+    public WebSocketEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns how many bytes are waiting to be sent to the client.
+     *
+     * @return The number of queued bytes
+     */
+    public long getQueuedBytes() {
+        synchronized (queue) {
+            return queuedBytes;
+        }
+    }
+
+    /**
+     * Queues an encoded frame. The frame may be shared with other sessions and is never modified.
+     *
+     * @param frame      The frame bytes
+     * @param closeFrame Whether this is the close frame, after which nothing else is sent
+     * @return {@code true} if the frame was queued
+     */
+    boolean enqueue(byte[] frame, boolean closeFrame) {
+        synchronized (queue) {
+            if (!open || closeSent) {
+                return false;
+            }
+            if (closeFrame || queuedBytes + frame.length <= maxQueuedBytes) {
+                queue.add(frame);
+                queuedBytes += frame.length;
+                closeSent = closeFrame;
+                if (!draining) {
+                    draining = true;
+                    writers.execute(this::drain);
+                }
+                return true;
+            }
+        }
+        // The client does not keep up: drop it rather than buffer without bound
+        abort();
+        return false;
+    }
+
+    /**
+     * Writes the queued frames until the queue is empty, flushing once per batch. The queue is not locked while
+     * writing, so a client that reads slowly never blocks the threads that send to it.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                byte[] frame;
+                boolean last;
+                synchronized (queue) {
+                    frame = queue.poll();
+                    if (frame == null) {
+                        draining = false;
+                        queue.notifyAll();
+                        return;
+                    }
+                    queuedBytes -= frame.length;
+                    last = queue.isEmpty();
+                }
+                out.write(frame);
+                if (last) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            synchronized (queue) {
+                draining = false;
+                queue.clear();
+                queuedBytes = 0;
+                queue.notifyAll();
+            }
+            abort();
+        }
+    }
+
+    private void close(int code) {
+        enqueue(WebSocketCodec.close(code), true);
+    }
+
+    /**
+     * Closes the connection without a closing handshake.
+     */
+    void abort() {
+        open = false;
+        endpoint.remove(this);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Reads and handles frames until the connection closes, then waits briefly for the queued frames (such as
+     * the reply to the client's close frame) to be written.
+     *
+     * @throws IOException If an I/O error occurs while reading
+     */
+    void serve() throws IOException {
+        endpoint.add(this);
+        scheduleIdleCheck(idleTimeout);
+        try {
+            int code;
+            while ((code = readFrame()) == 0) {
+                // Keep reading
+            }
+            if (code > 0) {
+                close(code);
+            }
+            awaitDrained();
+        } catch (EOFException e) {
+            // The client went away without a closing handshake
+        } catch (IOException e) {
+            if (open) {
+                throw e;
+            }
+            // The session was dropped, which closed the socket under the reader
+        } finally {
+            open = false;
+            endpoint.remove(this);
+            TimingWheel.Timeout check = idleCheck;
+            if (check != null) {
+                check.cancel();
+            }
+        }
+    }
+
+    private void scheduleIdleCheck(long millis) {
+        if (idleTimeout > 0 && open) {
+            idleCheck = timer.schedule(this::checkIdle, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs on the timing wheel once per idle timeout: pings a session that received nothing since the last
+     * check, closes it if the ping went unanswered, and drops it if the close was not answered either.
+     */
+    private void checkIdle() {
+        if (!open) {
+            return;
+        }
+        if (closing) {
+            abort();
+            return;
+        }
+        if (received) {
+            received = false;
+            pinged = false;
+        } else if (!pinged) {
+            enqueue(WebSocketCodec.encode(PING, new byte[0], 0, 0), false);
+            pinged = true;
+        } else {
+            close(GOING_AWAY);
+            closing = true;
+            scheduleIdleCheck(CLOSE_DRAIN_MILLIS);
+            return;
+        }
+        scheduleIdleCheck(idleTimeout);
+    }
+
+    private void awaitDrained() {
+        long deadline = System.currentTimeMillis() + CLOSE_DRAIN_MILLIS;
+        synchronized (queue) {
+            long remaining;
+            while (draining && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    queue.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one frame and handles it.
+     *
+     * @return 0 to keep reading, a close status code to close the connection with, or -1 if the closing
+     * handshake is complete
+     */
+    private int readFrame() throws IOException {
+        int b0 = in.read();
+        if (b0 < 0) {
+            throw new EOFException();
+        }
+        received = true;
+        int b1 = in.readUnsignedByte();
+        boolean fin = (b0 & 0x80) != 0;
+        int opcode = b0 & 0x0F;
+        long length = b1 & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        if ((b0 & 0x70) != 0 || (b1 & 0x80) == 0 || length < 0) {
+            // No extension was negotiated, and clients must mask every frame
+            return PROTOCOL_ERROR;
+        }
+        byte[] mask = new byte[4];
+        in.readFully(mask);
+
+        if (opcode >= CLOSE) {
+            if (!fin || length > 125) {
+                return PROTOCOL_ERROR;
+            }
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            unmask(payload, 0, payload.length, mask);
+            return onControl(opcode, payload);
+        }
+
+        if (opcode == CONTINUATION ? messageOpcode < 0 : messageOpcode >= 0 || (opcode != TEXT && opcode != BINARY)) {
+            return PROTOCOL_ERROR;
+        }
+        if (opcode != CONTINUATION) {
+            messageOpcode = opcode;
+            messageLength = 0;
+        }
+        if (messageLength + length > maxMessageSize) {
+            return MESSAGE_TOO_BIG;
+        }
+        int n = (int) length;
+        if (messageLength + n > message.length) {
+            message = Arrays.copyOf(message, Math.min(maxMessageSize, Math.max(messageLength + n, message.length * 2)));
+        }
+        in.readFully(message, messageLength, n);
+        unmask(message, messageLength, n, mask);
+        messageLength += n;
+        if (!fin) {
+            return 0;
+        }
+        int completed = messageOpcode;
+        messageOpcode = -1;
+        if (completed == BINARY) {
+            return UNSUPPORTED_DATA;
+        }
+        String text;
+        try {
+            text = decoder.decode(ByteBuffer.wrap(message, 0, messageLength)).toString();
+        } catch (CharacterCodingException e) {
+            return INVALID_PAYLOAD;
+        }
+        return onText(text);
+    }
+
+    private int onControl(int opcode, byte[] payload) {
+        switch (opcode) {
+            case PING:
+                enqueue(WebSocketCodec.encode(PONG, payload, 0, payload.length), false);
+                return 0;
+            case PONG:
+                return 0;
+            case CLOSE:
+                if (payload.length == 1) {
+                    return PROTOCOL_ERROR;
+                }
+                boolean replied;
+                synchronized (queue) {
+                    replied = closeSent;
+                }
+                int code = NORMAL_CLOSURE;
+                if (payload.length >= 2) {
+                    code = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);
+                    if (!isValidCloseCode(code)) {
+                        return PROTOCOL_ERROR;
+                    }
+                    try {
+                        decoder.decode(ByteBuffer.wrap(payload, 2, payload.length - 2));
+                    } catch (CharacterCodingException e) {
+                        return INVALID_PAYLOAD;
+                    }
+                }
+                if (!replied) {
+                    enqueue(WebSocketCodec.close(code), true);
+                }
+                return -1;
+            default:
+                return PROTOCOL_ERROR;
+        }
+    }
+
+    /**
+     * Tells whether a client may send a close status code: the codes defined by RFC 6455 and registered since,
+     * and the ranges left to libraries and applications. 1005, 1006 and 1015 only report conditions locally and
+     * must never be sent.
+     */
+    static boolean isValidCloseCode(int code) {
+        return code >= 1000 && code <= 1003 || code >= 1007 && code <= 1014 || code >= 3000 && code <= 4999;
+    }
+
+    private int onText(String text) {
+        Method handler = endpoint.getHandler();
+        if (handler == null) {
+            return GOING_AWAY;
+        }
+        try {
+            Object reply = handler.invoke(null, this, text);
+            if (reply != null) {
+                send(reply.toString());
+            }
+            return 0;
+        } catch (InvocationTargetException | IllegalAccessException | RuntimeException e) {
+            Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            System.err.println("WebSocket handler " + handler.getName() + " failed: " + cause);
+            return INTERNAL_ERROR;
+        }
+    }
+
+    private static void unmask(byte[] data, int offset, int length, byte[] mask) {
+        for (int i = 0; i < length; i++) {
+            data[offset + i] ^= mask[i & 3];
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package co.edu.escuelaing.framework.websocket;
+
+import co.edu.escuelaing.framework.HttpRequest;
+import co.edu.escuelaing.framework.HttpResponse;
+import co.edu.escuelaing.framework.TimingWheel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket support (RFC 6455) for the web server: the registry of endpoints, the opening handshake and the
+ * pool of writer threads shared by all sessions.
+ * <p>
+ * A client opens a WebSocket with an HTTP/1.1 {@code GET} that asks for {@code Upgrade: websocket}. If the
+ * path has an endpoint, the server answers {@code 101 Switching Protocols} and the connection becomes a
+ * {@link WebSocketSession} for as long as it stays open. Only text messages and no extensions are supported.
+ * </p>
+ */
+public final class WebSockets {
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final HttpResponse BAD_HANDSHAKE = HttpResponse.preEncoded("400 Bad Request", "text/plain",
+            "Invalid WebSocket handshake".getBytes(StandardCharsets.US_ASCII));
+    private static final HttpResponse UNSUPPORTED_VERSION = HttpResponse.preEncoded("426 Upgrade Required",
+            "text/plain", "Unsupported WebSocket version".getBytes(StandardCharsets.US_ASCII),
+            "Sec-WebSocket-Version", "13");
+    private static final Map<String, WebSocketEndpoint> endpoints = new ConcurrentHashMap<>();
+    private static ExecutorService writers;
+
+    private WebSockets() {
+    }
+
+    /**
+     * Replaces the handlers of the endpoints. Endpoints keep their open sessions; the sessions of an endpoint
+     * whose path is no longer mapped are closed with status 1001 (going away) when they send their next
+     * message.
+     *
+     * @param handlers Map of endpoint paths to handler methods
+     */
+    public static void setHandlers(Map<String, Method> handlers) {
+        for (WebSocketEndpoint endpoint : endpoints.values()) {
+            endpoint.setHandler(handlers.get(endpoint.getPath()));
+        }
+        handlers.forEach((path, handler) -> endpoints.computeIfAbsent(path, WebSocketEndpoint::new).setHandler(handler));
+    }
+
+    /**
+     * Returns the endpoint mapped to a path.
+     *
+     * @param path The path of the endpoint, relative to {@code /App}
+     * @return The endpoint, or {@code null} if no handler is mapped to the path
+     */
+    public static WebSocketEndpoint getEndpoint(String path) {
+        WebSocketEndpoint endpoint = endpoints.get(path);
+        return endpoint != null && endpoint.getHandler() != null ? endpoint : null;
+    }
+
+    /**
+     * Sends a text message to every session of an endpoint.
+     *
+     * @param path The path of the endpoint, relative to {@code /App}
+     * @param text The message
+     * @return The number of sessions the message was queued for
+     */
+    public static int broadcast(String path, String text) {
+        WebSocketEndpoint endpoint = endpoints.get(path);
+        return endpoint != null ? endpoint.broadcast(text) : 0;
+    }
+
+    /**
+     * Tells whether a request asks to open a WebSocket.
+     *
+     * @param request The parsed request
+     * @return {@code true} if the request has {@code Upgrade: websocket}
+     */
+    public static boolean isUpgrade(HttpRequest request) {
+        String upgrade = request.getHeader("Upgrade");
+        return upgrade != null && upgrade.trim().equalsIgnoreCase("websocket");
+    }
+
+    /**
+     * Completes the opening handshake and serves the session until it closes. Invalid handshakes are answered
+     * with {@code 400 Bad Request}, or {@code 426 Upgrade Required} for versions other than 13.
+     *
+     * @param request        The upgrade request
+     * @param endpoint       The endpoint the client connects to
+     * @param in             The connection input stream, positioned after the request
+     * @param out            The connection output stream
+     * @param socket         The connection, closed when the session is dropped
+     * @param maxMessageSize The largest message accepted from the client
+     * @param maxQueuedBytes The most bytes that may wait to be sent before the session is dropped
+     * @param timer          The timing wheel that checks whether the session is idle
+     * @param idleTimeout    How long, in milliseconds, the session may go without receiving a frame, or 0 for
+     *                       no limit
+     * @throws IOException If an I/O error occurs on the connection
+     */
+    public static void serve(HttpRequest request, WebSocketEndpoint endpoint, InputStream in, OutputStream out,
+                             Closeable socket, int maxMessageSize, long maxQueuedBytes, TimingWheel timer,
+                             int idleTimeout) throws IOException {
+        String key = request.getHeader("Sec-WebSocket-Key");
+        if (!"GET".equals(request.getMethod()) || !hasToken(request.getHeader("Connection"), "upgrade")
+                || !isValidKey(key)) {
+            BAD_HANDSHAKE.writeTo(out, false);
+            out.flush();
+            return;
+        }
+        if (!"13".equals(request.getHeader("Sec-WebSocket-Version"))) {
+            UNSUPPORTED_VERSION.writeTo(out, false);
+            out.flush();
+            return;
+        }
+        out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        new WebSocketSession(endpoint, in, out, socket, writers(), maxMessageSize, maxQueuedBytes, timer,
+                idleTimeout).serve();
+    }
+
+    /**
+     * Computes the {@code Sec-WebSocket-Accept} value for a key: the Base64 SHA-1 digest of the key followed by
+     * the protocol's GUID.
+     *
+     * @param key The {@code Sec-WebSocket-Key} of the request
+     * @return The accept value
+     */
+    static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static boolean isValidKey(String key) {
+        try {
+            return key != null && Base64.getDecoder().decode(key.trim()).length == 16;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasToken(String header, String token) {
+        if (header != null) {
+            for (String value : header.split(",")) {
+                if (value.trim().equalsIgnoreCase(token)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the writer threads shared by all sessions. Threads are created as sessions need them and end
+     * after a minute without work, so a writer blocked by a slow client never holds back the others.
+     */
+    private static synchronized ExecutorService writers() {
+        if (writers == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            writers = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "websocket-writer-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return writers;
+    }
+}
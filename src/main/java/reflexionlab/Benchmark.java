@@ -0,0 +1,33 @@
+package reflexionlab;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a static method as a micro-benchmark run by {@link BenchmarkRunner}.
+ * <p>
+ * The method takes no parameters, or a single {@link Blackhole}. Its return value, if any, is consumed by a
+ * blackhole so that the JIT cannot remove the work.
+ * </p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Benchmark {
+
+    /**
+     * Number of iterations run before measuring, to let the JIT compile the benchmark.
+     */
+    int warmupIterations() default 5;
+
+    /**
+     * Number of measured iterations.
+     */
+    int iterations() default 10;
+
+    /**
+     * Duration of each iteration in milliseconds.
+     */
+    long iterationMillis() default 500;
+}
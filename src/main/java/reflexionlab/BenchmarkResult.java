@@ -0,0 +1,16 @@
+package reflexionlab;
+
+/**
+ * The measurements of one {@link Benchmark} method run by {@link BenchmarkRunner}.
+ *
+ * @param className      The class declaring the benchmark
+ * @param methodName     The benchmark method
+ * @param opsPerSecond   The mean throughput of the measured iterations
+ * @param error          The half-width of the 95% confidence interval of the throughput
+ * @param iterations     The number of measured iterations
+ * @param bytesPerOp     The heap bytes allocated per operation, or {@code NaN} if the JVM cannot measure it
+ * @param allocationRate The allocation rate in MB/s, or {@code NaN} if the JVM cannot measure it
+ */
+public record BenchmarkResult(String className, String methodName, double opsPerSecond, double error,
+                              int iterations, double bytesPerOp, double allocationRate) {
+}
@@ -0,0 +1,233 @@
+package reflexionlab;
+
+import co.edu.escuelaing.framework.json.JsonSerializer;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs the {@link Benchmark} methods of a class, or of every class in a package.
+ * <p>
+ * Usage: {@code BenchmarkRunner <class-or-package> [--json FILE]}
+ * </p>
+ * <p>
+ * Each benchmark is bound to a {@link Runnable} spun with {@link LambdaMetafactory}, so no reflection happens
+ * in the measured loop. After the warm-up iterations, each measured iteration calls the benchmark in batches
+ * for {@link Benchmark#iterationMillis()} and records its throughput; the report gives the mean with a 95%
+ * confidence interval, and the heap allocated per operation as counted by the thread's
+ * {@code ThreadMXBean}. Benchmarks run one after another on the calling thread. As with any in-process
+ * harness, benchmarks that run later in the same JVM share the profile of the measuring loop; run one class
+ * per JVM when comparing close results.
+ * </p>
+ */
+public class BenchmarkRunner {
+    private static final double[] T_975 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: BenchmarkRunner <class-or-package> [--json FILE]");
+            System.exit(2);
+        }
+        String json = args.length > 2 && "--json".equals(args[1]) ? args[2] : null;
+
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (Method m : benchmarkMethods(JUnitECI.discover(args[0]))) {
+            BenchmarkResult result = run(m);
+            results.add(result);
+            System.out.printf("%-60s %16.1f +- %12.1f ops/s %10.1f B/op %10.1f MB/s%n",
+                    result.className() + "." + result.methodName(), result.opsPerSecond(), result.error(),
+                    result.bytesPerOp(), result.allocationRate());
+        }
+        if (json != null) {
+            Files.write(Paths.get(json), JsonSerializer.toJson(results));
+        }
+    }
+
+    static List<Method> benchmarkMethods(List<Class<?>> classes) {
+        List<Method> benchmarks = new ArrayList<>();
+        for (Class<?> c : classes) {
+            for (Method m : c.getDeclaredMethods()) {
+                if (m.isAnnotationPresent(Benchmark.class)) {
+                    if (!Modifier.isStatic(m.getModifiers())) {
+                        System.err.println("Skipping " + c.getName() + "." + m.getName() + ": benchmarks must be static");
+                    } else {
+                        benchmarks.add(m);
+                    }
+                }
+            }
+        }
+        return benchmarks;
+    }
+
+    /**
+     * Runs one benchmark method with the settings of its {@link Benchmark} annotation.
+     */
+    static BenchmarkResult run(Method m) {
+        Benchmark config = m.getAnnotation(Benchmark.class);
+        Blackhole blackhole = new Blackhole();
+        Runnable op = bind(m, blackhole);
+        long iterationNanos = config.iterationMillis() * 1_000_000;
+
+        int batch = calibrate(op, iterationNanos / 100);
+        for (int i = 0; i < config.warmupIterations(); i++) {
+            iteration(op, batch, iterationNanos, new long[2]);
+        }
+
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads != null ? threads.getThreadAllocatedBytes(threadId) : 0;
+        long[] totals = new long[2];
+        double[] scores = new double[config.iterations()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = iteration(op, batch, iterationNanos, totals);
+        }
+        long allocated = threads != null ? threads.getThreadAllocatedBytes(threadId) - allocatedBefore : 0;
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double error = 0;
+        if (scores.length > 1) {
+            double variance = 0;
+            for (double score : scores) {
+                variance += (score - mean) * (score - mean);
+            }
+            double deviation = Math.sqrt(variance / (scores.length - 1));
+            double t = scores.length - 1 <= T_975.length ? T_975[scores.length - 2] : 1.960;
+            error = t * deviation / Math.sqrt(scores.length);
+        }
+        double bytesPerOp = threads != null ? (double) allocated / totals[0] : Double.NaN;
+        double allocationRate = threads != null ? allocated / (totals[1] / 1e9) / (1024 * 1024) : Double.NaN;
+        return new BenchmarkResult(m.getDeclaringClass().getName(), m.getName(), mean, error, scores.length,
+                bytesPerOp, allocationRate);
+    }
+
+    /**
+     * Finds a batch size whose run takes at least {@code targetNanos}, so that reading the clock between
+     * batches costs little compared with the benchmark itself.
+     */
+    private static int calibrate(Runnable op, long targetNanos) {
+        int batch = 1;
+        while (batch < (1 << 30)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                op.run();
+            }
+            if (System.nanoTime() - start >= targetNanos) {
+                break;
+            }
+            batch <<= 1;
+        }
+        return batch;
+    }
+
+    /**
+     * Runs batches for at least {@code nanos} and returns the throughput in operations per second. The number
+     * of operations and the elapsed time are added to {@code totals}.
+     */
+    private static double iteration(Runnable op, int batch, long nanos, long[] totals) {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < batch; i++) {
+                op.run();
+            }
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        totals[0] += ops;
+        totals[1] += elapsed;
+        return ops * 1e9 / elapsed;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            if (!threads.isThreadAllocatedMemoryEnabled()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+            return threads;
+        }
+        return null;
+    }
+
+    /**
+     * Binds a benchmark method to a {@link Runnable}. Methods that return a value are spun as a
+     * {@link Supplier}, or as the primitive supplier of their return type so that the value reaches the
+     * matching {@link Blackhole} overload without being boxed, and methods that take a {@link Blackhole} as a
+     * {@link Consumer}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Runnable bind(Method m, Blackhole blackhole) {
+        Class<?>[] parameters = m.getParameterTypes();
+        if (parameters.length > 1 || (parameters.length == 1 && parameters[0] != Blackhole.class)) {
+            throw new IllegalArgumentException(m + " must take no parameters or a single Blackhole");
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(m.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflect(m);
+            if (parameters.length == 1) {
+                Consumer<Blackhole> consumer = (Consumer<Blackhole>) LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(Consumer.class), MethodType.methodType(void.class, Object.class),
+                        handle, MethodType.methodType(void.class, Blackhole.class)).getTarget().invokeExact();
+                return () -> consumer.accept(blackhole);
+            } else if (m.getReturnType() == void.class) {
+                return (Runnable) LambdaMetafactory.metafactory(lookup, "run",
+                        MethodType.methodType(Runnable.class), MethodType.methodType(void.class),
+                        handle, MethodType.methodType(void.class)).getTarget().invokeExact();
+            }
+            Class<?> returns = m.getReturnType();
+            if (returns == double.class || returns == float.class) {
+                DoubleSupplier supplier = (DoubleSupplier) spin(lookup, handle, DoubleSupplier.class,
+                        "getAsDouble", double.class);
+                return () -> blackhole.consume(supplier.getAsDouble());
+            } else if (returns == long.class) {
+                LongSupplier supplier = (LongSupplier) spin(lookup, handle, LongSupplier.class, "getAsLong", long.class);
+                return () -> blackhole.consume(supplier.getAsLong());
+            } else if (returns == int.class || returns == short.class || returns == char.class || returns == byte.class) {
+                IntSupplier supplier = (IntSupplier) spin(lookup, handle, IntSupplier.class, "getAsInt", int.class);
+                return () -> blackhole.consume(supplier.getAsInt());
+            } else if (returns == boolean.class) {
+                BooleanSupplier supplier = (BooleanSupplier) spin(lookup, handle, BooleanSupplier.class,
+                        "getAsBoolean", boolean.class);
+                return () -> blackhole.consume(supplier.getAsBoolean());
+            }
+            Supplier<Object> supplier = (Supplier<Object>) LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                    handle, handle.type().wrap()).getTarget().invokeExact();
+            return () -> blackhole.consume(supplier.get());
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot bind benchmark " + m, e);
+        }
+    }
+
+    /**
+     * Spins a primitive supplier around a method handle; narrower primitive returns are widened to the
+     * supplier's type.
+     */
+    private static Object spin(MethodHandles.Lookup lookup, MethodHandle handle, Class<?> functionalInterface,
+                               String methodName, Class<?> returns) throws Throwable {
+        return LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(functionalInterface),
+                MethodType.methodType(returns), handle, MethodType.methodType(returns)).getTarget().invoke();
+    }
+}
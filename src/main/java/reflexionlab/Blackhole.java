@@ -0,0 +1,53 @@
+package reflexionlab;
+
+/**
+ * Consumes benchmark results so that the JIT cannot prove they are unused and eliminate the code that
+ * computed them.
+ * <p>
+ * Primitives are compared against two volatile fields that never hold the same value, so the branch is never
+ * taken but cannot be folded away. Objects are stored in a volatile field only on rare, pseudo-random calls,
+ * which keeps the reference alive without a volatile write per operation.
+ * </p>
+ */
+public final class Blackhole {
+    private volatile int i1 = 1, i2 = 2;
+    private volatile long l1 = 1, l2 = 2;
+    private volatile double d1 = 1, d2 = 2;
+    private volatile boolean b1 = false, b2 = true;
+    private volatile Object sink;
+    private int random = (int) System.nanoTime();
+    private int mask = 1;
+
+    public void consume(Object value) {
+        int r = random * 1664525 + 1013904223;
+        random = r;
+        if ((r & mask) == 0) {
+            sink = value;
+            mask = (mask << 1) + 1;
+        }
+    }
+
+    public void consume(int value) {
+        if (value == i1 & value == i2) {
+            sink = value;
+        }
+    }
+
+    public void consume(long value) {
+        if (value == l1 & value == l2) {
+            sink = value;
+        }
+    }
+
+    public void consume(double value) {
+        if (value == d1 & value == d2) {
+            sink = value;
+        }
+    }
+
+    public void consume(boolean value) {
+        if (value == b1 & value == b2) {
+            sink = value;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package reflexionlab;
+
+import co.edu.escuelaing.application.CalculatorService;
+import co.edu.escuelaing.application.Expression;
+import co.edu.escuelaing.application.VectorMath;
+import co.edu.escuelaing.framework.HttpRequest;
+import co.edu.escuelaing.framework.HttpResponse;
+import co.edu.escuelaing.framework.InterceptorChain;
+import co.edu.escuelaing.framework.RateLimiter;
+import co.edu.escuelaing.framework.RouteInvoker;
+import co.edu.escuelaing.framework.annotations.After;
+import co.edu.escuelaing.framework.annotations.Around;
+import co.edu.escuelaing.framework.annotations.Before;
+import co.edu.escuelaing.framework.annotations.Interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class ClassToBeBenchmarked {
+    private static final CalculatorService calculator = new CalculatorService();
+    private static final RateLimiter rateLimiter = new RateLimiter(new RateLimiter.Limit(1e9, 1_000_000),
+            Map.of("/App/report", new RateLimiter.Limit(1e9, 1_000_000)));
+    private static final InetAddress client = InetAddress.getLoopbackAddress();
+    private static int a = 3, b = 4;
+    private static final HttpResponse response = new HttpResponse("200 OK", "text/plain", new byte[0]);
+    private static final HttpRequest request = new HttpRequest("GET", "/App/bench", "HTTP/1.1", Map.of(),
+            new ByteArrayInputStream(new byte[0]));
+    private static final RouteInvoker handler = r -> response;
+    private static final InterceptorChain interceptors = InterceptorChain.discover(Set.of(NoopInterceptors.class));
+    private static final RouteInvoker noInterceptors = interceptors.compile("/none", handler);
+    private static final RouteInvoker oneInterceptor = interceptors.compile("/one", handler);
+    private static final RouteInvoker fourInterceptors = interceptors.compile("/four", handler);
+    private static final double[] left = new Random(1).doubles(1 << 20).toArray();
+    private static final double[] right = new Random(2).doubles(1 << 20).toArray();
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static String add() {
+        return calculator.add(a, b);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static void sum(Blackhole blackhole) {
+        blackhole.consume(a + b);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static void rateLimiterAcquire(Blackhole blackhole) {
+        blackhole.consume(rateLimiter.tryAcquire(client, "/App/report?year=2024"));
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static double scalarSum() {
+        double sum = 0;
+        for (double value : left) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static double vectorSum() {
+        return VectorMath.sum(left);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static double[] scalarMultiply() {
+        double[] result = new double[left.length];
+        for (int i = 0; i < left.length; i++) {
+            result[i] = left[i] * right[i];
+        }
+        return result;
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static double[] vectorMultiply() {
+        return VectorMath.multiply(left, right);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static double compiledExpression() {
+        return Expression.compile("sqrt(x^2 + y^2) * pow(2, 10) / 3").evaluate(a, b);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static HttpResponse invokerWithoutInterceptors() throws Exception {
+        return noInterceptors.invoke(request);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static HttpResponse invokerWithOneInterceptor() throws Exception {
+        return oneInterceptor.invoke(request);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static HttpResponse invokerWithFourInterceptors() throws Exception {
+        return fourInterceptors.invoke(request);
+    }
+
+    @Interceptor
+    public static class NoopInterceptors {
+        private static int count;
+
+        @Before("/one")
+        public static void one(HttpRequest request) {
+            count++;
+        }
+
+        @Before("/four")
+        public static void before(HttpRequest request) {
+            count++;
+        }
+
+        @Before(value = "/four", order = 1)
+        public static void secondBefore(HttpRequest request) {
+            count++;
+        }
+
+        @Around("/four")
+        public static HttpResponse around(HttpRequest request, RouteInvoker next) throws Exception {
+            return next.invoke(request);
+        }
+
+        @After("/four")
+        public static HttpResponse after(HttpRequest request, HttpResponse response) {
+            return response;
+        }
+    }
+}
@@ -1,22 +1,242 @@
 package reflexionlab;
 
+import co.edu.escuelaing.framework.json.JsonSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.stream.Stream;
 
+/**
+ * Runs the {@link Test} methods of a class, or of every class in a package.
+ * <p>
+ * Usage: {@code JUnitECI <class-or-package> [--parallelism N] [--timeout MILLIS] [--json FILE]}
+ * </p>
+ * <p>
+ * Test methods are assumed to be independent and run in parallel on a fork-join pool (by default one thread
+ * per processor). Each test gets its own instance of its class if the method is not static. A test that runs
+ * longer than its timeout is reported as timed out and its thread is interrupted; tests that ignore the
+ * interrupt keep their pool thread busy until the run ends. The report lists every test slowest-first and can
+ * also be written as JSON.
+ * </p>
+ */
 public class JUnitECI {
+    private static final long DEFAULT_TIMEOUT = 10_000;
+
     public static void main(String[] args) throws Exception {
-        int passed = 0, failed = 0;
-        for (Method m : Class.forName(args[0]).getMethods()) {
-            if (m.isAnnotationPresent(Test.class)) {
+        if (args.length == 0) {
+            System.err.println("Usage: JUnitECI <class-or-package> [--parallelism N] [--timeout MILLIS] [--json FILE]");
+            System.exit(2);
+        }
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long timeout = DEFAULT_TIMEOUT;
+        String json = null;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--parallelism" -> parallelism = Integer.parseInt(args[i + 1]);
+                case "--timeout" -> timeout = Long.parseLong(args[i + 1]);
+                case "--json" -> json = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<TestResult> results = run(testMethods(discover(args[0])), parallelism, timeout);
+        double total = (System.nanoTime() - start) / 1e6;
+
+        int passed = 0, failed = 0, timedOut = 0;
+        for (TestResult result : results) {
+            System.out.printf("%10.3f ms  %-9s  %s.%s%s%n", result.millis(), result.status(), result.className(),
+                    result.methodName(), result.message() == null ? "" : "  " + result.message());
+            switch (result.status()) {
+                case PASSED -> passed++;
+                case FAILED -> failed++;
+                case TIMED_OUT -> timedOut++;
+            }
+        }
+        System.out.printf("Passed: %d, Failed: %d, Timed out: %d (%.3f ms, parallelism %d)%n",
+                passed, failed, timedOut, total, parallelism);
+        if (json != null) {
+            Files.write(Paths.get(json), JsonSerializer.toJson(results));
+        }
+        if (failed + timedOut > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Resolves a class name, or finds the classes of a package (and its subpackages) on the class path.
+     */
+    static List<Class<?>> discover(String name) throws IOException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        try {
+            return List.of(Class.forName(name, false, loader));
+        } catch (ClassNotFoundException e) {
+            // Not a class, try a package
+        }
+        List<String> classNames = new ArrayList<>();
+        String path = name.replace('.', '/');
+        Enumeration<URL> roots = loader.getResources(path);
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            if ("file".equals(root.getProtocol())) {
+                Path directory;
                 try {
-                    m.invoke(null);
-                    System.out.println("Test " + m.getName() + " passed.");
-                    passed++;
-                } catch (Throwable ex) {
-                    System.out.printf("Test %s failed: %s %n", m, ex.getCause());
-                    failed++;
+                    directory = Paths.get(root.toURI());
+                } catch (URISyntaxException e) {
+                    throw new IOException(e);
+                }
+                try (Stream<Path> files = Files.walk(directory)) {
+                    files.map(file -> directory.relativize(file).toString().replace(File.separatorChar, '/'))
+                            .filter(file -> file.endsWith(".class"))
+                            .forEach(file -> classNames.add(path + "/" + file));
+                }
+            } else if ("jar".equals(root.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) root.openConnection();
+                connection.getJarFile().stream()
+                        .map(JarEntry::getName)
+                        .filter(entry -> entry.startsWith(path + "/") && entry.endsWith(".class"))
+                        .forEach(classNames::add);
+            }
+        }
+
+        List<Class<?>> classes = new ArrayList<>();
+        for (String file : classNames) {
+            if (file.contains("$")) {
+                continue;
+            }
+            String className = file.substring(0, file.length() - ".class".length()).replace('/', '.');
+            try {
+                classes.add(Class.forName(className, false, loader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                System.err.println("Skipping " + className + ": " + e);
+            }
+        }
+        classes.sort(Comparator.comparing(Class::getName));
+        return classes;
+    }
+
+    static List<Method> testMethods(List<Class<?>> classes) {
+        List<Method> tests = new ArrayList<>();
+        for (Class<?> c : classes) {
+            for (Method m : c.getMethods()) {
+                if (m.isAnnotationPresent(Test.class)) {
+                    tests.add(m);
+                }
+            }
+        }
+        return tests;
+    }
+
+    /**
+     * Runs tests in parallel and returns their results sorted slowest-first.
+     *
+     * @param tests       The test methods
+     * @param parallelism The number of tests run at the same time
+     * @param timeout     The timeout in milliseconds of tests that do not set their own, or 0 for none
+     */
+    static List<TestResult> run(List<Method> tests, int parallelism, long timeout) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ScheduledExecutorService watchdog = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "junit-eci-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<TestTask> tasks = new ArrayList<>();
+            for (Method m : tests) {
+                long limit = m.getAnnotation(Test.class).timeout();
+                TestTask task = new TestTask(m, limit > 0 ? limit : timeout, watchdog);
+                tasks.add(task);
+                pool.execute(task);
+            }
+            List<TestResult> results = new ArrayList<>();
+            for (TestTask task : tasks) {
+                results.add(task.result.join());
+            }
+            results.sort(Comparator.comparingDouble(TestResult::millis).reversed());
+            return results;
+        } finally {
+            pool.shutdownNow();
+            watchdog.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one test and completes {@link #result} with its outcome, or with a timeout if the watchdog fires
+     * first. The lock makes sure the watchdog never interrupts the worker once it has moved on to another test.
+     */
+    private static class TestTask implements Runnable {
+        private final Method method;
+        private final long timeout;
+        private final ScheduledExecutorService watchdog;
+        final CompletableFuture<TestResult> result = new CompletableFuture<>();
+        private boolean finished;
+
+        TestTask(Method method, long timeout, ScheduledExecutorService watchdog) {
+            this.method = method;
+            this.timeout = timeout;
+            this.watchdog = watchdog;
+        }
+
+        @Override
+        public void run() {
+            Thread worker = Thread.currentThread();
+            ScheduledFuture<?> alarm = timeout <= 0 ? null : watchdog.schedule(() -> {
+                synchronized (this) {
+                    if (!finished && result.complete(result(TestResult.Status.TIMED_OUT, timeout,
+                            "Timed out after " + timeout + " ms"))) {
+                        worker.interrupt();
+                    }
                 }
+            }, timeout, TimeUnit.MILLISECONDS);
+
+            long start = System.nanoTime();
+            TestResult outcome;
+            try {
+                Object instance = Modifier.isStatic(method.getModifiers())
+                        ? null : method.getDeclaringClass().getDeclaredConstructor().newInstance();
+                method.invoke(instance);
+                outcome = result(TestResult.Status.PASSED, (System.nanoTime() - start) / 1e6, null);
+            } catch (InvocationTargetException ex) {
+                outcome = result(TestResult.Status.FAILED, (System.nanoTime() - start) / 1e6, String.valueOf(ex.getCause()));
+            } catch (Throwable ex) {
+                outcome = result(TestResult.Status.FAILED, (System.nanoTime() - start) / 1e6, String.valueOf(ex));
             }
+
+            synchronized (this) {
+                finished = true;
+                if (alarm != null) {
+                    alarm.cancel(false);
+                }
+                if (!result.complete(outcome)) {
+                    // Timed out: clear the watchdog's interrupt before the worker runs another test
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private TestResult result(TestResult.Status status, double millis, String message) {
+            return new TestResult(method.getDeclaringClass().getName(), method.getName(), status, millis, message);
         }
-        System.out.printf("Passed: %d, Failed: %d%n", passed, failed);
     }
 }
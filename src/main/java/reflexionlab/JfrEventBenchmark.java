@@ -0,0 +1,42 @@
+package reflexionlab;
+
+import co.edu.escuelaing.framework.HttpRequest;
+import co.edu.escuelaing.framework.HttpResponse;
+import co.edu.escuelaing.framework.RouteInvoker;
+import co.edu.escuelaing.framework.jfr.HandlerInvokedEvent;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+/**
+ * Measures what the JFR events cost a request. {@link #handlerWithEvent()} wraps a handler the way
+ * {@code WebServer} does; without a recording it should run as fast as {@link #handlerWithoutEvent()} and
+ * allocate nothing. Run it alone, since benchmarks that run later in the same JVM share the profile of the
+ * measuring loop, and again with {@code -XX:StartFlightRecording:settings=jfr/springeci.jfc} to see the cost
+ * of recording.
+ */
+public class JfrEventBenchmark {
+    private static final HttpResponse response = new HttpResponse("200 OK", "text/plain", new byte[0]);
+    private static final HttpRequest request = new HttpRequest("GET", "/App/bench", "HTTP/1.1", Map.of(),
+            new ByteArrayInputStream(new byte[0]));
+    private static final RouteInvoker handler = r -> response;
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static HttpResponse handlerWithoutEvent() throws Exception {
+        return handler.invoke(request);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static HttpResponse handlerWithEvent() throws Exception {
+        HandlerInvokedEvent invoked = new HandlerInvokedEvent();
+        invoked.begin();
+        HttpResponse result = handler.invoke(request);
+        if (invoked.shouldCommit()) {
+            invoked.method = request.getMethod();
+            invoked.route = "/bench";
+            invoked.status = result.getStatusCode();
+            invoked.commit();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package reflexionlab;
+
+import co.edu.escuelaing.application.HelloService;
+import co.edu.escuelaing.framework.LocalConnector;
+import co.edu.escuelaing.framework.WebServer;
+import co.edu.escuelaing.framework.enums.RequestMethod;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures what the framework costs a request, from the raw bytes of the request to the raw bytes of the
+ * response, through a {@link LocalConnector} so that no socket or kernel time is included.
+ * {@link #oneRequest()} opens a connection for a single request; {@link #tenRequestsKeepAlive()} sends ten
+ * requests on one connection, so dividing its time by ten gives the cost of a request on a persistent
+ * connection. Run it alone, since benchmarks that run later in the same JVM share the profile of the
+ * measuring loop.
+ */
+public class LocalTransportBenchmark {
+    private static final byte[] ONE = "GET /App/hello?name=bench HTTP/1.1\r\nHost: localhost\r\n\r\n"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TEN = repeat(10);
+
+    static {
+        try {
+            Map<String, Map<RequestMethod, Method>> services = new HashMap<>();
+            services.computeIfAbsent("/hello", k -> new HashMap<>())
+                    .put(RequestMethod.GET, HelloService.class.getMethod("hello", String.class));
+            WebServer.setServices(services);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static byte[] oneRequest() throws Exception {
+        return LocalConnector.exchange(ONE);
+    }
+
+    @Benchmark(warmupIterations = 3, iterations = 5, iterationMillis = 200)
+    public static byte[] tenRequestsKeepAlive() throws Exception {
+        return LocalConnector.exchange(TEN);
+    }
+
+    private static byte[] repeat(int times) {
+        byte[] requests = new byte[ONE.length * times];
+        for (int i = 0; i < times; i++) {
+            System.arraycopy(ONE, 0, requests, i * ONE.length, ONE.length);
+        }
+        return requests;
+    }
+}
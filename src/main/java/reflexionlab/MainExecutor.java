@@ -2,17 +2,33 @@ package reflexionlab;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 
+/**
+ * Runs the {@code main} method of a class through reflection.
+ * <p>
+ * Usage: {@code MainExecutor <class> [args...]}, or {@code MainExecutor --daemon [options]} to keep a warm JVM
+ * that runs {@code main} invocations sent over a socket (see {@link MainExecutorDaemon}).
+ * </p>
+ */
 public class MainExecutor {
-    public static void main(String[] args) throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "--daemon".equals(args[0])) {
+            MainExecutorDaemon.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         Class c = Class.forName(args[0]);
 
         Class[] mainParamTypes = {String[].class};
 
         Method main = c.getDeclaredMethod("main", mainParamTypes);
 
-        String[] params = {args[1], args[2]};
+        String[] params = Arrays.copyOfRange(args, 1, args.length);
 
-        main.invoke(null, (Object) params);
+        try {
+            main.invoke(null, (Object) params);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
     }
 }
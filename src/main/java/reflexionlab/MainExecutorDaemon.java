@@ -0,0 +1,524 @@
+package reflexionlab;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Keeps one warm JVM that runs {@code main} methods on request, so batch jobs do not pay for a JVM start,
+ * class loading and JIT warm-up on every call.
+ * <p>
+ * Usage: {@code MainExecutor --daemon [--port N | --socket PATH] [--threads N] [--reload DIR]...}
+ * </p>
+ * <p>
+ * The daemon listens on a loopback TCP port or on a Unix domain socket. Anyone who can connect can run code
+ * in the daemon, so it never listens on other interfaces; protect the socket file with file permissions.
+ * A connection sends one request per line: the class name and the arguments separated by tabs, with
+ * {@code \t}, {@code \n} and {@code \\} escaping those characters inside arguments. Requests on a
+ * connection run one after another on a worker thread; use several connections to run them in parallel.
+ * The response is a sequence of frames:
+ * </p>
+ * <pre>
+ * OUT &lt;length&gt;\n&lt;bytes written to System.out&gt;
+ * ERR &lt;length&gt;\n&lt;bytes written to System.err&gt;
+ * EXIT &lt;code&gt;\n
+ * </pre>
+ * <p>
+ * The exit code is 0 when {@code main} returns, 1 when it throws (the stack trace is sent as ERR) and 2 when
+ * the class or its {@code main} cannot be found or loaded (the error is sent as ERR). Output is captured per invocation, including threads the
+ * invocation starts; output written after EXIT goes to the daemon's own console. A {@code main} that calls
+ * {@code System.exit} stops the daemon.
+ * </p>
+ * <p>
+ * Classes found under the {@code --reload} directories are loaded by an isolated class loader, which is
+ * replaced when a class file there changes, so a rebuilt class is picked up without restarting the daemon.
+ * Changes are noticed by watching the directories, so an invocation sent right after a build may still see
+ * the previous classes for a moment.
+ * Those directories must not also be on the daemon's class path. Other classes come from the class path and
+ * stay loaded and compiled for the life of the daemon.
+ * </p>
+ */
+public class MainExecutorDaemon implements Closeable {
+    private static final Router STDOUT = new Router();
+    private static final Router STDERR = new Router();
+    private static boolean captureInstalled;
+
+    private final ServerSocketChannel server;
+    private final ExecutorService workers;
+    private final ReloadableClasses classes;
+    private final SocketAddress address;
+
+    private MainExecutorDaemon(ServerSocketChannel server, int threads, List<Path> reloadDirectories) throws IOException {
+        this.server = server;
+        this.address = server.getLocalAddress();
+        this.classes = new ReloadableClasses(reloadDirectories);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "main-executor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        installCapture();
+        Thread acceptor = new Thread(this::acceptLoop, "main-executor-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 7070;
+        Path socket = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> reload = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--socket" -> socket = Paths.get(args[i + 1]);
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--reload" -> reload.add(Paths.get(args[i + 1]));
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        MainExecutorDaemon daemon = socket != null
+                ? startUnix(socket, threads, reload)
+                : startTcp(port, threads, reload);
+        System.out.println("MainExecutor daemon listening on " + daemon.getAddress());
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Starts a daemon on a loopback TCP port.
+     *
+     * @param port The port, or 0 for an ephemeral port
+     */
+    public static MainExecutorDaemon startTcp(int port, int threads, List<Path> reloadDirectories) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        return new MainExecutorDaemon(server, threads, reloadDirectories);
+    }
+
+    /**
+     * Starts a daemon on a Unix domain socket. A stale socket file left by a previous daemon is replaced.
+     */
+    public static MainExecutorDaemon startUnix(Path socket, int threads, List<Path> reloadDirectories) throws IOException {
+        Files.deleteIfExists(socket);
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        return new MainExecutorDaemon(server, threads, reloadDirectories);
+    }
+
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        workers.shutdownNow();
+        classes.close();
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+        }
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                workers.execute(() -> serve(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("MainExecutor daemon: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try (channel) {
+            InputStream in = Channels.newInputStream(channel);
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            String line;
+            while ((line = readLine(in)) != null) {
+                if (!line.isEmpty()) {
+                    execute(parse(line), out);
+                }
+            }
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+
+    /**
+     * Runs one invocation and writes its frames.
+     *
+     * @param request The class name followed by the arguments
+     */
+    private void execute(List<String> request, OutputStream out) throws IOException {
+        Frames frames = new Frames(out);
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        int code;
+        STDOUT.target.set(frames.stream("OUT"));
+        STDERR.target.set(frames.stream("ERR"));
+        Generation generation = classes.acquire();
+        try {
+            ClassLoader loader = generation.loader;
+            Thread.currentThread().setContextClassLoader(loader);
+            Method main = Class.forName(request.get(0), true, loader).getMethod("main", String[].class);
+            if (!Modifier.isStatic(main.getModifiers())) {
+                throw new NoSuchMethodException(request.get(0) + ".main is not static");
+            }
+            main.invoke(null, (Object) request.subList(1, request.size()).toArray(new String[0]));
+            code = 0;
+        } catch (InvocationTargetException e) {
+            e.getCause().printStackTrace(System.err);
+            code = 1;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            System.err.println(e);
+            code = 2;
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            STDOUT.target.remove();
+            STDERR.target.remove();
+            Thread.currentThread().setContextClassLoader(previous);
+            generation.release();
+        }
+        frames.exit(code);
+    }
+
+    /**
+     * Splits a request line on tabs and unescapes each field.
+     */
+    static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                field.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return line.size() > 0 ? line.toString(StandardCharsets.UTF_8) : null;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replaces {@code System.out} and {@code System.err} with streams that write to the invocation running on
+     * the current thread, or to the original console otherwise.
+     */
+    private static synchronized void installCapture() {
+        if (!captureInstalled) {
+            STDOUT.fallback = System.out;
+            STDERR.fallback = System.err;
+            System.setOut(new PrintStream(STDOUT, true, StandardCharsets.UTF_8));
+            System.setErr(new PrintStream(STDERR, true, StandardCharsets.UTF_8));
+            captureInstalled = true;
+        }
+    }
+
+    /**
+     * Routes writes to the output of the current invocation. The target is inherited by the threads an
+     * invocation starts.
+     */
+    private static final class Router extends OutputStream {
+        final InheritableThreadLocal<Frames.FrameStream> target = new InheritableThreadLocal<>();
+        volatile OutputStream fallback;
+
+        private OutputStream current() {
+            Frames.FrameStream stream = target.get();
+            return stream != null && stream.isOpen() ? stream : fallback;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            current().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            current().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            current().flush();
+        }
+    }
+
+    /**
+     * Writes the frames of one invocation. Frames from stdout and stderr are serialized by a lock so that they
+     * never interleave.
+     */
+    private static final class Frames {
+        private final OutputStream out;
+        private boolean closed;
+
+        Frames(OutputStream out) {
+            this.out = out;
+        }
+
+        FrameStream stream(String type) {
+            return new FrameStream(type);
+        }
+
+        synchronized void write(String type, byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            if (closed) {
+                throw new IOException("Invocation already finished");
+            }
+            out.write((type + " " + len + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(b, off, len);
+        }
+
+        synchronized void flush() throws IOException {
+            if (!closed) {
+                out.flush();
+            }
+        }
+
+        synchronized void exit(int code) throws IOException {
+            closed = true;
+            out.write(("EXIT " + code + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        final class FrameStream extends OutputStream {
+            private final String type;
+
+            FrameStream(String type) {
+                this.type = type;
+            }
+
+            boolean isOpen() {
+                return !isClosed();
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                Frames.this.write(type, b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                Frames.this.flush();
+            }
+        }
+    }
+
+    /**
+     * Loads the classes of the reload directories in a class loader that is replaced after any file there is
+     * created, modified or deleted. A watcher thread only raises a flag, so looking up the loader costs a
+     * volatile read until something changes. Invocations already running keep the loader they started with;
+     * a replaced loader is closed, releasing its open files, when the last of them finishes, so threads that an
+     * invocation leaves running cannot load new classes from it afterwards. Directories that do not exist when
+     * the daemon starts are not watched.
+     */
+    private static final class ReloadableClasses implements Closeable {
+        private final URL[] urls;
+        private final WatchService watcher;
+        private volatile Generation generation = new Generation(MainExecutorDaemon.class.getClassLoader());
+        private volatile boolean changed;
+
+        ReloadableClasses(List<Path> directories) throws IOException {
+            this.urls = new URL[directories.size()];
+            for (int i = 0; i < urls.length; i++) {
+                urls[i] = directories.get(i).toUri().toURL();
+            }
+            if (directories.isEmpty()) {
+                this.watcher = null;
+                return;
+            }
+            this.watcher = FileSystems.getDefault().newWatchService();
+            for (Path directory : directories) {
+                if (Files.isDirectory(directory)) {
+                    register(directory);
+                }
+            }
+            this.changed = true;
+            Thread thread = new Thread(this::watch, "main-executor-reload");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Returns the current loader for an invocation, which must {@link Generation#release() release} it
+         * when it finishes.
+         */
+        Generation acquire() {
+            if (changed) {
+                synchronized (this) {
+                    if (changed) {
+                        // Cleared first, so that a change seen while the loader is replaced replaces it again
+                        changed = false;
+                        Generation replaced = generation;
+                        generation = new Generation(new URLClassLoader(urls, MainExecutorDaemon.class.getClassLoader()));
+                        replaced.retire();
+                    }
+                }
+            }
+            while (true) {
+                Generation current = generation;
+                if (current.enter()) {
+                    return current;
+                }
+                // Retired and closed between the read and the entry: a newer generation is already published
+            }
+        }
+
+        private void watch() {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                            Path created = ((Path) key.watchable()).resolve((Path) event.context());
+                            if (Files.isDirectory(created)) {
+                                register(created);
+                            }
+                        }
+                    }
+                    key.reset();
+                    changed = true;
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // The daemon was closed
+            } catch (IOException e) {
+                System.err.println("MainExecutor daemon: stopped watching for changes: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Watches a directory and the directories below it.
+         */
+        private void register(Path directory) throws IOException {
+            try (Stream<Path> tree = Files.walk(directory)) {
+                for (Path path : (Iterable<Path>) tree::iterator) {
+                    if (Files.isDirectory(path)) {
+                        path.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (watcher != null) {
+                watcher.close();
+            }
+            generation.retire();
+        }
+    }
+
+    /**
+     * A class loader and the number of invocations using it. A retired generation is closed as soon as no
+     * invocation uses it; the count is then set to -1 so that no invocation can enter it again.
+     */
+    private static final class Generation {
+        final ClassLoader loader;
+        private final AtomicInteger users = new AtomicInteger();
+        private volatile boolean retired;
+
+        Generation(ClassLoader loader) {
+            this.loader = loader;
+        }
+
+        boolean enter() {
+            while (true) {
+                int count = users.get();
+                if (count < 0) {
+                    return false;
+                }
+                if (users.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (users.decrementAndGet() == 0 && retired) {
+                closeIfUnused();
+            }
+        }
+
+        void retire() {
+            retired = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (loader instanceof URLClassLoader closeable && users.compareAndSet(0, -1)) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    System.err.println("MainExecutor daemon: could not close a replaced class loader: " + e);
+                }
+            }
+        }
+    }
+}
@@ -9,4 +9,8 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 public @interface Test {
 
+    /**
+     * Maximum wall time of the test in milliseconds. When 0, the runner's default timeout applies.
+     */
+    long timeout() default 0;
 }
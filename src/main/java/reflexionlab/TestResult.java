@@ -0,0 +1,17 @@
+package reflexionlab;
+
+/**
+ * The outcome of one {@link Test} method run by {@link JUnitECI}.
+ *
+ * @param className  The class declaring the test
+ * @param methodName The test method
+ * @param status     Whether the test passed, failed or timed out
+ * @param millis     The wall time of the test in milliseconds
+ * @param message    The failure cause, or {@code null} if the test passed
+ */
+public record TestResult(String className, String methodName, Status status, double millis, String message) {
+
+    public enum Status {
+        PASSED, FAILED, TIMED_OUT
+    }
+}
@@ -1,8 +1,14 @@
 package co.edu.escuelaing.application;
 
+import co.edu.escuelaing.framework.HttpException;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class CalculatorServiceTest {
 
@@ -67,5 +73,40 @@ public class CalculatorServiceTest {
         String result = calculatorService.sqrt(-4);
         assertEquals("Error: Square root of a negative number is undefined.", result);
     }
-}
 
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testBulkOperations() throws IOException {
+        assertArrayEquals(new double[]{5, 7.5, -1}, calculatorService.bulkAdd(body("1, 2.5, -3; 4 5 2")));
+        assertArrayEquals(new double[]{-3, -2.5, -5}, calculatorService.bulkSubtract(body("1,2.5,-3;4,5,2")));
+        assertArrayEquals(new double[]{4, 12.5, -6}, calculatorService.bulkMultiply(body("1\n2.5\n-3\n;\n4\n5\n2\n")));
+        assertArrayEquals(new double[]{0.25, 0.5, Double.POSITIVE_INFINITY}, calculatorService.bulkDivide(body("1,2.5,3;4,5,0")));
+        assertArrayEquals(new double[]{2, 3}, calculatorService.bulkSqrt(body("4 9")));
+        assertEquals(6.0, calculatorService.bulkSum(body("1 2 3")));
+        assertEquals(2.0, calculatorService.bulkMean(body("1 2 3")));
+        assertEquals(-1e3, calculatorService.bulkMin(body("1 -1e3 3")));
+        assertEquals(3.0, calculatorService.bulkMax(body("1 -1e3 3")));
+        assertEquals(32.0, calculatorService.bulkDot(body("1,2,3;4,5,6")));
+    }
+
+    @Test
+    public void testBulkRejectsInvalidInput() {
+        assertThrows(HttpException.class, () -> calculatorService.bulkAdd(body("1,2;3")));
+        assertThrows(HttpException.class, () -> calculatorService.bulkSum(body("1,two,3")));
+        assertThrows(HttpException.class, () -> calculatorService.bulkDot(body("1,2,3")));
+        assertThrows(HttpException.class, () -> calculatorService.bulkMean(body("")));
+    }
+
+    @Test
+    public void testExpression() {
+        assertEquals(5.0, calculatorService.expr("sqrt(x^2 + y^2)\nx=3, y=4"));
+        assertEquals(1024.0, calculatorService.expr("pow(2, 10)"));
+        assertArrayEquals(new double[]{2, 4, 7}, calculatorService.exprVector("a * x + b\na=2 x=1 b=0\na=2,x=2,b=0\r\n\na=3,x=2,b=1\n"));
+        assertThrows(HttpException.class, () -> calculatorService.expr("x + 1"));
+        assertThrows(HttpException.class, () -> calculatorService.expr("x + 1\nx=1,y=2"));
+        assertThrows(HttpException.class, () -> calculatorService.expr("x +\nx=1"));
+    }
+}
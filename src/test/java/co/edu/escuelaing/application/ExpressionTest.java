@@ -0,0 +1,59 @@
+package co.edu.escuelaing.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionTest {
+
+    @Test
+    public void testPrecedenceAndAssociativity() {
+        assertEquals(7.0, Expression.parse("1 + 2 * 3").evaluate());
+        assertEquals(9.0, Expression.parse("(1 + 2) * 3").evaluate());
+        assertEquals(512.0, Expression.parse("2 ^ 3 ^ 2").evaluate());
+        assertEquals(-4.0, Expression.parse("-2 ^ 2").evaluate());
+        assertEquals(2.0, Expression.parse("8 / 2 / 2").evaluate());
+        assertEquals(1.0, Expression.parse("7 % 3").evaluate());
+        assertEquals(1.5e-3, Expression.parse("1.5e-3").evaluate());
+    }
+
+    @Test
+    public void testVariablesAndFunctions() {
+        Expression expression = Expression.parse("sqrt(x^2 + y^2) + pow(x, 2) - x");
+        assertEquals(List.of("x", "y"), expression.getVariables());
+        assertEquals(5.0 + 9 - 3, expression.evaluate(3, 4));
+        assertEquals(Math.PI * 4, Expression.parse("pi * r ^ 2").evaluate(2));
+        double random = Expression.parse("random(10, 20)").evaluate();
+        assertTrue(random >= 10 && random < 20);
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(1));
+    }
+
+    @Test
+    public void testConstantFolding() {
+        assertTrue(Expression.parse("sqrt(16) * (2 + pow(2, 3)) - e").isConstant());
+        assertEquals(40 - Math.E, Expression.parse("sqrt(16) * (2 + pow(2, 3)) - e").evaluate());
+        assertFalse(Expression.parse("random() * 2").isConstant());
+        assertFalse(Expression.parse("x * (2 + 3)").isConstant());
+    }
+
+    @Test
+    public void testMalformedExpressions() {
+        for (String text : new String[]{"", "1 +", "(1 + 2", "1 2", "foo(1)", "sqrt(1, 2)", "2 $ 3", "1..2"}) {
+            assertThrows(IllegalArgumentException.class, () -> Expression.parse(text), text);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Expression.parse("(".repeat(1000) + "1" + ")".repeat(1000)));
+    }
+
+    @Test
+    public void testCompiledExpressionsAreCached() {
+        Expression first = Expression.compile("a * 2 + cached");
+        assertSame(first, Expression.compile("a * 2 + cached"));
+        for (int i = 0; i < Expression.CACHE_SIZE + 10; i++) {
+            Expression.compile("x + " + i);
+        }
+        assertEquals(Expression.CACHE_SIZE, Expression.cacheSize());
+        assertNotSame(first, Expression.compile("a * 2 + cached"));
+    }
+}
@@ -0,0 +1,45 @@
+package co.edu.escuelaing.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VectorMathTest {
+
+    @Test
+    public void testParallelResultsMatchScalarLoops() {
+        Random random = new Random(42);
+        int length = VectorMath.PARALLEL_THRESHOLD * 3 + 17;
+        double[] a = random.doubles(length, -100, 100).toArray();
+        double[] b = random.doubles(length, 1, 100).toArray();
+
+        double[] product = VectorMath.multiply(a, b);
+        double dot = 0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            assertEquals(a[i] * b[i], product[i]);
+            dot += a[i] * b[i];
+            min = Math.min(min, a[i]);
+            max = Math.max(max, a[i]);
+        }
+        assertEquals(dot, VectorMath.dot(a, b), Math.abs(dot) * 1e-12);
+        assertEquals(min, VectorMath.min(a));
+        assertEquals(max, VectorMath.max(a));
+        assertEquals(VectorMath.sum(a), VectorMath.sum(a.clone()));
+    }
+
+    @Test
+    public void testParsedNumbersMatchDoubleParseDouble() throws Exception {
+        String[] numbers = {"0", "-0.0", "3.14159", "1e22", "1e23", "123456789012345678901", "0.1", "-2.5E-3",
+                "9007199254740993", "4.9e-324", "1.7976931348623157e308", ".5", "7.", "+8"};
+        double[][] parsed = NumericInput.read(new ByteArrayInputStream(
+                String.join(" ", numbers).getBytes(StandardCharsets.US_ASCII)), 1);
+        assertEquals(numbers.length, parsed[0].length);
+        for (int i = 0; i < numbers.length; i++) {
+            assertEquals(Double.parseDouble(numbers[i]), parsed[0][i], numbers[i]);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadsTest {
+
+    @Test
+    public void testCompartmentQueuesThenRejects() throws Exception {
+        Bulkheads.Compartment compartment = new Bulkheads.Compartment("test", 1, 1, 5000);
+        assertTrue(compartment.enter());
+
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(compartment::enter);
+        long start = System.nanoTime();
+        while (compartment.getQueued() == 0) {
+            assertTrue(System.nanoTime() - start < 5_000_000_000L, "the second request did not queue");
+            Thread.sleep(5);
+        }
+        // The compartment is full and so is its queue
+        assertFalse(compartment.enter());
+        assertEquals(1, compartment.getRejected());
+
+        compartment.exit();
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, compartment.getInFlight());
+        assertEquals(0, compartment.getQueued());
+        compartment.exit();
+        assertEquals(0, compartment.getInFlight());
+    }
+
+    @Test
+    public void testFreedPermitGoesToTheQueuedRequest() throws Exception {
+        Bulkheads.Compartment compartment = new Bulkheads.Compartment("test", 1, 1, 1000);
+        assertTrue(compartment.enter());
+        CompletableFuture<Boolean> waiter = new CompletableFuture<>();
+        Thread queued = new Thread(() -> waiter.complete(compartment.enter()));
+        queued.start();
+        long start = System.nanoTime();
+        while (queued.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() - start < 5_000_000_000L, "the second request did not queue");
+            Thread.sleep(5);
+        }
+
+        compartment.exit();
+        // A request arriving right after the release does not barge ahead of the one that waited
+        assertFalse(compartment.enter());
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        compartment.exit();
+    }
+
+    @Test
+    public void testQueuedRequestTimesOut() {
+        Bulkheads.Compartment compartment = new Bulkheads.Compartment("test", 1, 1, 50);
+        assertTrue(compartment.enter());
+        assertFalse(compartment.enter());
+        assertEquals(1, compartment.getRejected());
+        assertEquals(0, compartment.getQueued());
+    }
+
+    @Test
+    public void testFullBulkheadDoesNotBlockOtherRoutes() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/heavy", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("heavy", int.class));
+        servicesMap.computeIfAbsent("/greet", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("greet", String.class));
+        WebServer.setServices(servicesMap);
+        Bulkheads.Compartment heavy = WebServer.getBulkheads().get("heavy");
+        assertNotNull(heavy);
+        assertEquals(1, WebServer.getBulkheads().size());
+
+        CompletableFuture<HttpResponse> slow = CompletableFuture.supplyAsync(() -> handle("/App/heavy?ms=1000"));
+        long start = System.nanoTime();
+        while (heavy.getInFlight() == 0) {
+            assertTrue(System.nanoTime() - start < 5_000_000_000L, "the slow request did not start");
+            Thread.sleep(5);
+        }
+        HttpResponse rejected = handle("/App/heavy?ms=0");
+        assertEquals(503, rejected.getStatusCode());
+        assertEquals(1, heavy.getRejected());
+        assertEquals(200, handle("/App/greet?name=Ana").getStatusCode());
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).getStatusCode());
+
+        // Registering the same routes again keeps the compartment and its counters
+        WebServer.setServices(servicesMap);
+        assertSame(heavy, WebServer.getBulkheads().get("heavy"));
+    }
+
+    private static HttpResponse handle(String target) {
+        try {
+            return WebServer.handle(new HttpRequest("GET", target, "HTTP/1.1", Map.of(),
+                    new ByteArrayInputStream(new byte[0])));
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
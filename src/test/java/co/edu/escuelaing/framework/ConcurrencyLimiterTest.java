@@ -0,0 +1,67 @@
+package co.edu.escuelaing.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testFixedLimitRejectsExcessRequests() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 2, false);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testAdaptiveLimitShrinksWhenLatencyGrows() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 2, 40, true);
+        runWindows(limiter, 20, TimeUnit.MILLISECONDS.toNanos(1), 10);
+        int before = limiter.getLimit();
+
+        runWindows(limiter, before, TimeUnit.MILLISECONDS.toNanos(10), 10);
+
+        assertTrue(limiter.getLimit() < before, "limit should shrink, was " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 2);
+    }
+
+    @Test
+    public void testAdaptiveLimitGrowsWhileLatencyIsStable() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 40, true);
+
+        runWindows(limiter, 10, TimeUnit.MILLISECONDS.toNanos(1), 30);
+
+        assertTrue(limiter.getLimit() > 10, "limit should grow, was " + limiter.getLimit());
+        assertTrue(limiter.getLimit() <= 40);
+    }
+
+    @Test
+    public void testInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(5, 6, 10, true));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(1, 0, 10, true));
+    }
+
+    /**
+     * Simulates full windows of 100 samples, each with {@code concurrency} requests in flight.
+     */
+    private static void runWindows(ConcurrencyLimiter limiter, int concurrency, long latencyNanos, int windows) {
+        for (int sample = 0; sample < windows * 100; sample += concurrency) {
+            int acquired = 0;
+            while (acquired < concurrency && limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(latencyNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ControllerReloaderTest {
+    private JavaCompiler compiler;
+    private Path classes;
+    private Path source;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        Assumptions.assumeTrue(compiler != null, "needs a JDK compiler");
+        classes = Files.createTempDirectory("controllers");
+        source = Files.createTempDirectory("sources").resolve("HotController.java");
+    }
+
+    private void compile(String version) throws IOException {
+        Files.writeString(source, "package co.edu.escuelaing.hot;\n"
+                + "import co.edu.escuelaing.framework.annotations.*;\n"
+                + "@RestController public class HotController {\n"
+                + "  @GetMapping(\"/hot\") public static String hot() { return \"" + version + "\"; }\n"
+                + "}\n");
+        assertEquals(0, compiler.run(null, null, null, "-d", classes.toString(),
+                "-cp", System.getProperty("java.class.path"), source.toString()));
+    }
+
+    private static String get(String path) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WebServer.handleServiceRequest(path, "GET", out);
+        return out.toString();
+    }
+
+    @Test
+    public void testReloadSwapsRoutesAndKeepsOldVersionUsable() throws Exception {
+        ControllerReloader reloader = new ControllerReloader(classes, "co.edu.escuelaing.hot");
+        compile("v1");
+        assertTrue(reloader.reload());
+        assertTrue(get("/App/hot").endsWith("v1"));
+        Method first = WebServer.getServices().get("/hot").get(RequestMethod.GET);
+
+        compile("v2");
+        assertTrue(reloader.reload());
+        assertTrue(get("/App/hot").endsWith("v2"));
+
+        // A request that resolved the old method before the swap still completes on the old version
+        assertEquals("v1", first.invoke(null));
+        assertNotSame(first.getDeclaringClass(), WebServer.getServices().get("/hot").get(RequestMethod.GET).getDeclaringClass());
+        assertThrows(UnsupportedOperationException.class, () -> WebServer.getServices().put("/x", null));
+    }
+
+    @Test
+    public void testWatcherReloadsChangedClasses() throws Exception {
+        compile("v1");
+        ControllerReloader reloader = new ControllerReloader(classes, "co.edu.escuelaing.hot");
+        assertTrue(reloader.reload());
+        Thread thread = new Thread(reloader);
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            compile("v3");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!get("/App/hot").endsWith("v3") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(get("/App/hot").endsWith("v3"));
+        } finally {
+            thread.interrupt();
+        }
+    }
+}
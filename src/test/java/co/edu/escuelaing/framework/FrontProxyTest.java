@@ -0,0 +1,258 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrontProxyTest {
+
+    /**
+     * The main class of the worker processes: a server whose {@code /App/pid} route tells which process
+     * answered.
+     */
+    public static class WorkerMain {
+        public static void main(String[] args) throws Exception {
+            Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+            servicesMap.computeIfAbsent("/pid", k -> new HashMap<>())
+                    .put(RequestMethod.GET, TestService.class.getDeclaredMethod("pid"));
+            servicesMap.computeIfAbsent("/echo", k -> new HashMap<>())
+                    .put(RequestMethod.POST, TestService.class.getDeclaredMethod("echo", String.class));
+            servicesMap.computeIfAbsent("/count", k -> new HashMap<>())
+                    .put(RequestMethod.POST, TestService.class.getDeclaredMethod("count", InputStream.class));
+            WebServer.setServices(servicesMap);
+            WebServer.startServer();
+        }
+    }
+
+    /**
+     * Starts a worker on a free loopback port. The port is only known to be free when it is picked, and another
+     * process may bind it before the worker does; the worker then fails to start, or another server answers,
+     * so the worker is started again on a new port until the process that answers is the worker.
+     */
+    private static InetSocketAddress spawnOnFreePort(List<Process> processes, ProcessBuilder.Redirect output)
+            throws Exception {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        for (int attempt = 0; attempt < 5; attempt++) {
+            InetSocketAddress address;
+            try (ServerSocket free = new ServerSocket(0, 1, loopback)) {
+                address = new InetSocketAddress(loopback, free.getLocalPort());
+            }
+            Process process = FrontProxy.spawn(address, WorkerMain.class.getName(), output);
+            processes.add(process);
+            long start = System.nanoTime();
+            while (process.isAlive() && System.nanoTime() - start < 60_000_000_000L) {
+                if (String.valueOf(process.pid()).equals(pidAt(address))) {
+                    return address;
+                }
+                Thread.sleep(50);
+            }
+            processes.remove(process);
+            stop(process);
+        }
+        return fail("no worker could bind a free port");
+    }
+
+    /**
+     * Asks the server on an address which process it runs in.
+     *
+     * @return The process id, or {@code null} if nothing answers yet
+     */
+    private static String pidAt(InetSocketAddress address) {
+        try (Socket socket = new Socket()) {
+            socket.connect(address, 1000);
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write("GET /App/pid HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                    .getBytes());
+            String response = WebServerTest.readResponse(socket.getInputStream());
+            return response.substring(response.indexOf("\r\n\r\n") + 4);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    @Test
+    public void testBalancesAcrossWorkerProcessesAndSkipsFailedOnes() throws Exception {
+        Path directory = Files.createTempDirectory("springeci-proxy");
+        Path log = directory.resolve("workers.log");
+        // The workers must not write to this process's output, which the test runner reads
+        ProcessBuilder.Redirect output = ProcessBuilder.Redirect.appendTo(log.toFile());
+        int previousInterval = FrameworkConfig.getProxyHealthCheckInterval();
+        long previousMaxInMemory = FrameworkConfig.getMaxInMemoryBodySize();
+        List<Process> processes = new ArrayList<>();
+        FrameworkConfig.proxyHealthCheckInterval(100);
+        FrontProxy proxy = null;
+        try {
+            SocketAddress tcp = spawnOnFreePort(processes, output);
+            SocketAddress unix = UnixDomainSocketAddress.of(directory.resolve("worker.sock"));
+            processes.add(FrontProxy.spawn(unix, WorkerMain.class.getName(), output));
+            proxy = new FrontProxy(List.of(tcp, unix));
+            proxy.start(0);
+            long start = System.nanoTime();
+            while (!proxy.getWorkers().stream().allMatch(FrontProxy.Worker::isHealthy)) {
+                assertTrue(System.nanoTime() - start < 60_000_000_000L,
+                        () -> "the workers did not become ready: " + readLog(log));
+                Thread.sleep(50);
+            }
+
+            try (Socket client = new Socket("localhost", proxy.getPort())) {
+                OutputStream out = client.getOutputStream();
+                InputStream in = client.getInputStream();
+                Set<String> pids = new HashSet<>();
+                for (int i = 0; i < 10; i++) {
+                    out.write("GET /App/pid HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+                    String response = WebServerTest.readResponse(in);
+                    assertTrue(response.startsWith("HTTP/1.1 200 OK"), response);
+                    assertTrue(response.contains("Connection: keep-alive"));
+                    pids.add(response.substring(response.indexOf("\r\n\r\n") + 4));
+                }
+                // Idle workers take turns, so both processes answered
+                assertEquals(Set.of(String.valueOf(processes.get(0).pid()), String.valueOf(processes.get(1).pid())), pids);
+
+                out.write("POST /App/echo HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n4\r\nping\r\n0\r\n\r\n"
+                        .getBytes());
+                assertTrue(WebServerTest.readResponse(in).endsWith("Echo ping"));
+
+                // A chunked body larger than the proxy buffers is streamed to the worker as it arrives
+                FrameworkConfig.maxInMemoryBodySize(1024);
+                String chunk = "3e8\r\n" + "x".repeat(1000) + "\r\n";
+                out.write(("POST /App/count HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+                        + chunk.repeat(3) + "0\r\n\r\n").getBytes());
+                String response = WebServerTest.readResponse(in);
+                assertTrue(response.endsWith("Count 3000"), response);
+            }
+
+            processes.get(0).destroy();
+            assertTrue(processes.get(0).waitFor(30, TimeUnit.SECONDS));
+            String survivor = String.valueOf(processes.get(1).pid());
+            try (Socket client = new Socket("localhost", proxy.getPort())) {
+                OutputStream out = client.getOutputStream();
+                InputStream in = client.getInputStream();
+                // Requests keep succeeding on the other worker, even before a health check notices
+                for (int i = 0; i < 6; i++) {
+                    out.write("GET /App/pid HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+                    assertTrue(WebServerTest.readResponse(in).endsWith("\r\n\r\n" + survivor));
+                }
+            }
+            assertFalse(proxy.getWorkers().get(0).isHealthy());
+            assertTrue(proxy.getWorkers().get(1).isHealthy());
+        } finally {
+            if (proxy != null) {
+                proxy.close();
+            }
+            for (Process process : processes) {
+                stop(process);
+            }
+            FrameworkConfig.proxyHealthCheckInterval(previousInterval);
+            FrameworkConfig.maxInMemoryBodySize(previousMaxInMemory);
+            Files.deleteIfExists(directory.resolve("worker.sock"));
+            Files.deleteIfExists(log);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testOnlyIdempotentRequestsAreSentAgain() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        FrontProxy proxy = null;
+        try (ServerSocket first = new ServerSocket(0, 50, loopback); ServerSocket second = new ServerSocket(0, 50, loopback)) {
+            dropRequests(first, received);
+            dropRequests(second, received);
+            proxy = new FrontProxy(List.of(first.getLocalSocketAddress(), second.getLocalSocketAddress()));
+            proxy.start(0);
+            long start = System.nanoTime();
+            while (!proxy.getWorkers().stream().allMatch(FrontProxy.Worker::isHealthy)) {
+                assertTrue(System.nanoTime() - start < 10_000_000_000L, "the workers did not become ready");
+                Thread.sleep(10);
+            }
+
+            try (Socket client = new Socket("localhost", proxy.getPort())) {
+                OutputStream out = client.getOutputStream();
+                InputStream in = client.getInputStream();
+                // The worker may have run the POST before the connection failed: it is not sent to the other one
+                out.write("POST /App/echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 4\r\n\r\nping".getBytes());
+                assertTrue(WebServerTest.readResponse(in).startsWith("HTTP/1.1 502 Bad Gateway"));
+            }
+            assertEquals(List.of("POST /App/echo HTTP/1.1"), received);
+
+            received.clear();
+            try (Socket client = new Socket("localhost", proxy.getPort())) {
+                client.getOutputStream().write("GET /App/pid HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+                assertTrue(WebServerTest.readResponse(client.getInputStream()).startsWith("HTTP/1.1 502 Bad Gateway"));
+            }
+            assertEquals(List.of("GET /App/pid HTTP/1.1", "GET /App/pid HTTP/1.1"), received);
+        } finally {
+            if (proxy != null) {
+                proxy.close();
+            }
+        }
+    }
+
+    /**
+     * Runs a worker that passes its health checks but closes every other connection after reading the request
+     * head, without answering, and records the request lines it read.
+     */
+    private static void dropRequests(ServerSocket server, List<String> received) {
+        Thread thread = new Thread(() -> {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    String requestLine = HttpRequest.readLine(in);
+                    for (String line = requestLine; line != null && !line.isEmpty(); line = HttpRequest.readLine(in)) {
+                        // Skip the headers
+                    }
+                    if (requestLine == null) {
+                        continue;
+                    }
+                    if (requestLine.startsWith("GET " + WebServer.READINESS_PATH + " ")) {
+                        socket.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".getBytes());
+                    } else {
+                        received.add(requestLine);
+                    }
+                } catch (IOException | HttpException e) {
+                    // Closed by the test, or a client that went away
+                }
+            }
+        }, "dropping-worker");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static String readLog(Path log) {
+        try {
+            return Files.readString(log);
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+}
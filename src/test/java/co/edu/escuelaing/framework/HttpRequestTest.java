@@ -0,0 +1,110 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpRequestTest {
+
+    private static InputStream stream(String raw) {
+        return new ByteArrayInputStream(raw.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testParseRequestLineAndHeaders() throws IOException {
+        HttpRequest request = HttpRequest.parse(stream(
+                "POST /App/echo?x=1 HTTP/1.1\r\nHost: localhost\r\ncontent-length: 5\r\n\r\nhello"), 1024);
+
+        assertEquals("POST", request.getMethod());
+        assertEquals(RequestMethod.POST, request.getRequestMethod());
+        assertEquals("/App/echo?x=1", request.getTarget());
+        assertEquals("HTTP/1.1", request.getProtocol());
+        assertEquals("localhost", request.getHeader("HOST"));
+        assertEquals(5, request.getContentLength());
+        assertEquals("hello", request.readBodyString(1024));
+    }
+
+    @Test
+    public void testHeaderLinesAreLimitedEvenWithRepeatedNames() throws IOException {
+        HttpRequest folded = HttpRequest.parse(stream("GET / HTTP/1.1\r\nX-A: 1\r\nX-A: 2\r\n\r\n"), 1024);
+        assertEquals("1, 2", folded.getHeader("x-a"));
+
+        HttpException tooMany = assertThrows(HttpException.class,
+                () -> HttpRequest.parse(stream("GET / HTTP/1.1\r\n" + "X-A: a\r\n".repeat(101) + "\r\n"), 1024));
+        assertTrue(tooMany.getStatus().startsWith("431"));
+
+        String large = "X-A: " + "a".repeat(8000) + "\r\n";
+        HttpException tooLarge = assertThrows(HttpException.class,
+                () -> HttpRequest.parse(stream("GET / HTTP/1.1\r\n" + large.repeat(9) + "\r\n"), 1024));
+        assertTrue(tooLarge.getStatus().startsWith("431"));
+    }
+
+    @Test
+    public void testBodyStopsAtContentLength() throws IOException {
+        InputStream in = stream("PUT /App/x HTTP/1.1\r\nContent-Length: 3\r\n\r\nabcGET / HTTP/1.1\r\n\r\n");
+        HttpRequest first = HttpRequest.parse(in, 1024);
+        assertArrayEquals("abc".getBytes(), first.readBodyBytes(1024));
+
+        HttpRequest second = HttpRequest.parse(in, 1024);
+        assertEquals("GET", second.getMethod());
+        assertEquals(-1, second.getBody().read());
+    }
+
+    @Test
+    public void testChunkedBody() throws IOException {
+        HttpRequest request = HttpRequest.parse(stream(
+                "POST /App/echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"
+                        + "4;ext=1\r\nWiki\r\n5\r\npedia\r\n0\r\nTrailer: x\r\n\r\n"), 1024);
+
+        assertEquals(-1, request.getContentLength());
+        assertEquals("Wikipedia", request.readBodyString(1024));
+    }
+
+    @Test
+    public void testUnknownMethodIsNotResolved() throws IOException {
+        HttpRequest request = HttpRequest.parse(stream("BREW /pot HTTP/1.1\r\n\r\n"), 1024);
+        assertNull(request.getRequestMethod());
+    }
+
+    @Test
+    public void testContentLengthOverLimitIsRejected() {
+        HttpException e = assertThrows(HttpException.class, () -> HttpRequest.parse(
+                stream("POST /App/echo HTTP/1.1\r\nContent-Length: 2048\r\n\r\n"), 1024));
+        assertEquals("413 Payload Too Large", e.getStatus());
+    }
+
+    @Test
+    public void testChunkedBodyOverLimitIsRejected() throws IOException {
+        HttpRequest request = HttpRequest.parse(stream(
+                "POST /App/echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n10\r\n0123456789abcdef\r\n0\r\n\r\n"), 8);
+
+        HttpException e = assertThrows(HttpException.class, () -> request.getBody().read());
+        assertEquals("413 Payload Too Large", e.getStatus());
+    }
+
+    @Test
+    public void testBufferingOverThresholdIsRejected() throws IOException {
+        HttpRequest request = HttpRequest.parse(stream(
+                "POST /App/echo HTTP/1.1\r\nContent-Length: 10\r\n\r\n0123456789"), 1024);
+
+        HttpException e = assertThrows(HttpException.class, () -> request.readBodyBytes(4));
+        assertEquals("413 Payload Too Large", e.getStatus());
+    }
+
+    @Test
+    public void testMalformedRequestLine() {
+        HttpException e = assertThrows(HttpException.class, () -> HttpRequest.parse(stream("GARBAGE\r\n\r\n"), 1024));
+        assertEquals("400 Bad Request", e.getStatus());
+    }
+
+    @Test
+    public void testClosedConnectionReturnsNull() throws IOException {
+        assertNull(HttpRequest.parse(stream(""), 1024));
+    }
+}
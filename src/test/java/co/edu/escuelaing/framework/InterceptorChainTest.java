@@ -0,0 +1,123 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.annotations.After;
+import co.edu.escuelaing.framework.annotations.Around;
+import co.edu.escuelaing.framework.annotations.Before;
+import co.edu.escuelaing.framework.annotations.Interceptor;
+import co.edu.escuelaing.framework.enums.RequestMethod;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterceptorChainTest {
+    private static final List<String> calls = new ArrayList<>();
+
+    @Interceptor
+    public static class Interceptors {
+        @Around(order = 1)
+        public static HttpResponse trace(HttpRequest request, RouteInvoker next) throws Exception {
+            calls.add("around:in");
+            HttpResponse response = next.invoke(request);
+            calls.add("around:out");
+            return response;
+        }
+
+        @Before(value = "/admin", order = 2)
+        public static void requireToken(HttpRequest request) throws IOException {
+            calls.add("before");
+            if (request.getHeader("X-Token") == null) {
+                throw new HttpException("401 Unauthorized", "Missing token");
+            }
+            if (request.getHeader("X-Token").equals("io")) {
+                throw new IOException("checked exceptions pass through");
+            }
+        }
+
+        @After(order = 0)
+        public static HttpResponse addHeader(HttpRequest request, HttpResponse response) {
+            calls.add("after");
+            return response.header("X-Intercepted", "true");
+        }
+    }
+
+    @Interceptor
+    public static class Invalid {
+        @Before
+        public static String wrongReturn(HttpRequest request) {
+            return "";
+        }
+    }
+
+    private static HttpRequest request(String target, String headers) throws IOException {
+        return HttpRequest.parse(new ByteArrayInputStream(("GET " + target + " HTTP/1.1\r\n" + headers + "\r\n")
+                .getBytes(StandardCharsets.US_ASCII)), 1024);
+    }
+
+    @Test
+    public void testRoutesWithoutInterceptorsKeepTheirHandler() {
+        RouteInvoker handler = request -> null;
+        assertSame(handler, InterceptorChain.EMPTY.compile("/hello", handler));
+        InterceptorChain chain = InterceptorChain.discover(Set.of(Interceptors.class));
+        assertEquals(3, chain.size());
+        assertNotSame(handler, chain.compile("/hello", handler));
+    }
+
+    @Test
+    public void testChainOrderAndPrefixes() throws Exception {
+        InterceptorChain chain = InterceptorChain.discover(Set.of(Interceptors.class, InterceptorChainTest.class));
+        RouteInvoker handler = request -> {
+            calls.add("handler");
+            return new HttpResponse("200 OK", "text/plain", new byte[0]);
+        };
+
+        calls.clear();
+        HttpResponse response = chain.compile("/admin/users", handler).invoke(request("/App/admin/users", "X-Token: t\r\n"));
+        assertEquals(List.of("around:in", "before", "handler", "around:out", "after"), calls);
+        assertEquals("true", response.getHeaders().get("X-Intercepted"));
+
+        calls.clear();
+        chain.compile("/administrator", handler).invoke(request("/App/administrator", ""));
+        assertEquals(List.of("around:in", "handler", "around:out", "after"), calls);
+
+        calls.clear();
+        RouteInvoker admin = chain.compile("/admin", handler);
+        assertThrows(HttpException.class, () -> admin.invoke(request("/App/admin", "")));
+        assertFalse(calls.contains("handler"));
+        assertThrows(IOException.class, () -> admin.invoke(request("/App/admin", "X-Token: io\r\n")));
+    }
+
+    @Test
+    public void testInvalidInterceptorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> InterceptorChain.discover(Set.of(Invalid.class)));
+    }
+
+    @Test
+    public void testWebServerRunsInterceptors() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/admin", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("greet", String.class));
+        WebServer.setServices(servicesMap, InterceptorChain.discover(Set.of(Interceptors.class)));
+        try {
+            HttpResponse rejected = WebServer.handle(request("/App/admin?name=Ana", ""));
+            assertEquals("401 Unauthorized", rejected.getStatus());
+
+            HttpResponse response = WebServer.handle(request("/App/admin?name=Ana", "X-Token: t\r\n"));
+            assertEquals("Hello Ana", new String(response.getBody(), 0, response.getLength(), StandardCharsets.UTF_8));
+            assertEquals("true", response.getHeaders().get("X-Intercepted"));
+
+            assertEquals("500 Internal Server Error", WebServer.handle(request("/App/admin", "X-Token: io\r\n")).getStatus());
+        } finally {
+            WebServer.setServices(new HashMap<>());
+        }
+    }
+}
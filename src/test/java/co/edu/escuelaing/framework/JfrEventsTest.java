@@ -0,0 +1,60 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrEventsTest {
+
+    @Test
+    public void testRequestEventsAreRecorded() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/greet", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("greet", String.class));
+        WebServer.setServices(servicesMap);
+        Path file = Files.createTempFile("springeci", ".jfr");
+        try (Recording recording = new Recording(Configuration.create(Path.of("jfr/springeci.jfc")))) {
+            recording.enable("springeci.HandlerInvoked").withoutThreshold();
+            recording.start();
+            WebServer.serviceResponse(HttpRequest.parse(
+                    new ByteArrayInputStream("GET /App/greet?name=Ana HTTP/1.1\r\n\r\n".getBytes()), 1024));
+            WebServer.serviceResponse(HttpRequest.parse(
+                    new ByteArrayInputStream("GET /App/missing HTTP/1.1\r\n\r\n".getBytes()), 1024));
+            WebServer.staticFileResponse("/index.html");
+            WebServer.staticFileResponse("/missing.html");
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            List<RecordedEvent> invoked = byName(events, "springeci.HandlerInvoked");
+            assertEquals(1, invoked.size());
+            assertEquals("/greet", invoked.get(0).getString("route"));
+            assertEquals(200, invoked.get(0).getInt("status"));
+            List<RecordedEvent> resolved = byName(events, "springeci.RouteResolved");
+            assertEquals(List.of(true, false), resolved.stream().map(e -> e.getBoolean("matched")).collect(Collectors.toList()));
+            List<RecordedEvent> lookups = byName(events, "springeci.StaticCache");
+            assertEquals(List.of("hit", "miss"), lookups.stream().map(e -> e.getString("result")).collect(Collectors.toList()));
+            assertTrue(lookups.get(0).getLong("bytes") > 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> byName(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,244 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.Socket;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A closed-loop HTTP load generator for loopback benchmarks of {@link WebServer}.
+ * <p>
+ * Every client thread opens a connection, sends one request, reads the response until the server closes the
+ * connection and starts over, so connection accept throughput is part of what is measured. At the end the
+ * generator prints the throughput and latency percentiles.
+ * </p>
+ *
+ * <p>Run it after {@code mvn test-compile}, e.g. to compare one acceptor with four:</p>
+ * <pre>
+ * java -cp target/classes:target/test-classes co.edu.escuelaing.framework.LoadGenerator --embedded --acceptors 1
+ * java -cp target/classes:target/test-classes co.edu.escuelaing.framework.LoadGenerator --embedded --acceptors 4
+ * </pre>
+ *
+ * <p>To compare TCP loopback with a Unix domain socket on the same server:</p>
+ * <pre>
+ * java -cp target/classes:target/test-classes co.edu.escuelaing.framework.LoadGenerator --embedded --unix /tmp/springeci.sock --compare
+ * </pre>
+ *
+ * <p>Options: {@code --host} and {@code --port} (default localhost:8080), {@code --unix} to connect to a Unix
+ * domain socket instead, {@code --compare} to measure TCP and then the Unix domain socket, {@code --path}
+ * (default {@code /App/hello?name=bench}), {@code --clients} (default 32), {@code --seconds} (default 10),
+ * {@code --warmup} seconds (default 3), and {@code --embedded} to start the server in this JVM with
+ * {@code --acceptors} listening sockets, and on the {@code --unix} socket if given.</p>
+ */
+public class LoadGenerator {
+    private final String host;
+    private final int port;
+    private final String unixSocket;
+    private final byte[] request;
+
+    public LoadGenerator(String host, int port, String path) {
+        this(host, port, null, path);
+    }
+
+    /**
+     * Creates a generator for a server on this host.
+     *
+     * @param host       The host, sent in the {@code Host} header
+     * @param port       The TCP port, used when {@code unixSocket} is {@code null}
+     * @param unixSocket The path of the server's Unix domain socket, or {@code null} to connect over TCP
+     * @param path       The request target
+     */
+    public LoadGenerator(String host, int port, String unixSocket, String path) {
+        this.host = host;
+        this.port = port;
+        this.unixSocket = unixSocket;
+        this.request = ("GET " + path + " HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Result of a measurement run.
+     */
+    public static class Result {
+        final long requests;
+        final long errors;
+        final double seconds;
+        final long[] latencies;
+
+        Result(long requests, long errors, double seconds, long[] latencies) {
+            this.requests = requests;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.latencies = latencies;
+        }
+
+        long percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[Math.min(latencies.length - 1, (int) (p * latencies.length))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d errors, %.0f req/s, latency p50 %.1f us, p99 %.1f us, p99.9 %.1f us",
+                    requests, errors, requests / seconds, percentile(0.5) / 1e3, percentile(0.99) / 1e3,
+                    percentile(0.999) / 1e3);
+        }
+    }
+
+    /**
+     * Runs the load with a number of client threads for a given time.
+     *
+     * @param clients The number of concurrent clients
+     * @param seconds The duration of the run
+     * @return The measured result
+     * @throws InterruptedException If interrupted while waiting for the clients
+     */
+    public Result run(int clients, double seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long[][] samples = new long[clients][];
+        int[] counts = new int[clients];
+        long[] errors = new long[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Thread thread = new Thread(() -> {
+                long[] latencies = new long[1 << 16];
+                int count = 0;
+                byte[] buffer = new byte[8192];
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    if (exchange(buffer)) {
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - begin;
+                    } else {
+                        errors[client]++;
+                    }
+                }
+                samples[client] = latencies;
+                counts[client] = count;
+                done.countDown();
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(samples[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(all);
+        return new Result(total, Arrays.stream(errors).sum(), elapsed, all);
+    }
+
+    /**
+     * Sends one request on a new connection and reads the response.
+     *
+     * @return {@code true} if the response status was 200
+     */
+    private boolean exchange(byte[] buffer) {
+        if (unixSocket != null) {
+            try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(unixSocket))) {
+                return exchange(Channels.newInputStream(channel), Channels.newOutputStream(channel), buffer);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            return exchange(socket.getInputStream(), socket.getOutputStream(), buffer);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean exchange(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        out.write(request);
+        out.flush();
+        int total = 0;
+        int n;
+        while (total < 12 && (n = in.read(buffer, total, buffer.length - total)) != -1) {
+            total += n;
+        }
+        boolean ok = total >= 12 && buffer[9] == '2' && buffer[10] == '0' && buffer[11] == '0';
+        while (in.read(buffer) != -1) {
+            // Drain the rest of the response until the server closes the connection
+        }
+        return ok;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                boolean flag = i + 1 >= args.length || args[i + 1].startsWith("--");
+                options.put(args[i].substring(2), flag ? "true" : args[++i]);
+            }
+        }
+        String host = options.getOrDefault("host", "localhost");
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        String path = options.getOrDefault("path", "/App/hello?name=bench");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "32"));
+        double seconds = Double.parseDouble(options.getOrDefault("seconds", "10"));
+        double warmup = Double.parseDouble(options.getOrDefault("warmup", "3"));
+        String unixSocket = options.get("unix");
+
+        if (options.containsKey("embedded")) {
+            startEmbeddedServer(Integer.parseInt(options.getOrDefault("acceptors", "1")), unixSocket);
+        }
+
+        if (options.containsKey("compare") && unixSocket != null) {
+            measure("TCP", new LoadGenerator(host, port, path), clients, warmup, seconds);
+            measure("Unix", new LoadGenerator(host, port, unixSocket, path), clients, warmup, seconds);
+        } else {
+            measure("", new LoadGenerator(host, port, unixSocket, path), clients, warmup, seconds);
+        }
+    }
+
+    private static void measure(String label, LoadGenerator generator, int clients, double warmup, double seconds)
+            throws InterruptedException {
+        String prefix = label.isEmpty() ? "" : label + " ";
+        System.out.println(prefix + "Warm-up: " + generator.run(clients, warmup));
+        System.out.println(prefix + "Result:  " + generator.run(clients, seconds));
+    }
+
+    private static void startEmbeddedServer(int acceptors, String unixSocket) throws Exception {
+        Map<String, Map<RequestMethod, Method>> services = new HashMap<>();
+        services.computeIfAbsent("/hello", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getMethod("greet", String.class));
+        WebServer.setServices(services);
+        FrameworkConfig.acceptors(acceptors);
+        FrameworkConfig.unixSocket(unixSocket);
+        Thread server = new Thread(WebServer::startServer, "embedded-server");
+        server.setDaemon(true);
+        server.start();
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (WebServer.isReady()) {
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        throw new IllegalStateException("Embedded server did not start");
+    }
+}
@@ -0,0 +1,67 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.enums.RequestMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalConnectorTest {
+
+    @BeforeEach
+    public void registerRoutes() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/greet", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("greet", String.class));
+        servicesMap.computeIfAbsent("/echo", k -> new HashMap<>())
+                .put(RequestMethod.POST, TestService.class.getDeclaredMethod("echo", String.class));
+        WebServer.setServices(servicesMap);
+    }
+
+    @Test
+    public void testExchangeServesPipelinedRequests() throws Exception {
+        byte[] requests = ("GET /App/greet?name=Ana HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "POST /App/echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 4\r\n\r\nping"
+                + "GET /healthz HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                + "GET /App/greet?name=ignored HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        String responses = new String(LocalConnector.exchange(requests), StandardCharsets.ISO_8859_1);
+
+        assertEquals(3, responses.split("HTTP/1.1 200 OK", -1).length - 1);
+        assertTrue(responses.indexOf("Hello Ana") < responses.indexOf("ping"));
+        // The server stops after the request that asked to close the connection
+        assertEquals(2, responses.split("Connection: keep-alive", -1).length - 1);
+        assertTrue(responses.contains("Connection: close"));
+        assertFalse(responses.contains("ignored"));
+    }
+
+    @Test
+    public void testExchangeAnswersMalformedRequests() throws Exception {
+        String response = new String(LocalConnector.exchange("NONSENSE\r\n\r\n".getBytes(StandardCharsets.US_ASCII)),
+                StandardCharsets.ISO_8859_1);
+        assertTrue(response.startsWith("HTTP/1.1 400"), response);
+    }
+
+    @Test
+    public void testConnectKeepsTheConnectionOpen() throws Exception {
+        try (LocalConnector.Client client = LocalConnector.connect()) {
+            OutputStream out = client.getOutputStream();
+            InputStream in = client.getInputStream();
+            for (String name : new String[]{"Ana", "Luis", "Eva"}) {
+                out.write(("GET /App/greet?name=" + name + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes());
+                out.flush();
+                assertTrue(WebServerTest.readResponse(in).endsWith("Hello " + name));
+            }
+            // Closing the client's side ends the connection once the server has answered
+            out.close();
+            assertEquals(-1, in.read());
+        }
+    }
+}
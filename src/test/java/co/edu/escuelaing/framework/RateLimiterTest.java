@@ -0,0 +1,110 @@
+package co.edu.escuelaing.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    public void testBurstThenSteadyRate() {
+        RateLimiter limiter = new RateLimiter(new RateLimiter.Limit(10, 3), Map.of());
+        long now = 1_000 * MILLIS;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("a", "/", now));
+        }
+        assertFalse(limiter.tryAcquire("a", "/", now));
+        assertTrue(limiter.tryAcquire("b", "/", now));
+        assertFalse(limiter.tryAcquire("a", "/", now + 99 * MILLIS));
+        assertTrue(limiter.tryAcquire("a", "/", now + 100 * MILLIS));
+        assertFalse(limiter.tryAcquire("a", "/", now + 100 * MILLIS));
+        assertEquals(3, limiter.getRejected());
+    }
+
+    @Test
+    public void testRouteLimits() {
+        RateLimiter limiter = new RateLimiter(null, Map.of("/App/report", new RateLimiter.Limit(1, 1)));
+        long now = 0;
+        assertTrue(limiter.tryAcquire("a", "/App/report?year=2024", now));
+        assertFalse(limiter.tryAcquire("a", "/App/report", now));
+        assertTrue(limiter.tryAcquire("b", "/App/report", now));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire("a", "/App/hello", now));
+        }
+    }
+
+    @Test
+    public void testRouteRejectionRefundsTheClientToken() {
+        RateLimiter limiter = new RateLimiter(new RateLimiter.Limit(1, 2),
+                Map.of("/App/report", new RateLimiter.Limit(1, 1)));
+        long now = 0;
+        assertTrue(limiter.tryAcquire("a", "/App/report", now));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(limiter.tryAcquire("a", "/App/report", now));
+        }
+        // Only the served report counted against the client: one token is left
+        assertTrue(limiter.tryAcquire("a", "/App/hello", now));
+        assertFalse(limiter.tryAcquire("a", "/App/hello", now));
+    }
+
+    @Test
+    public void testEvictsOnlyFullBuckets() {
+        RateLimiter limiter = new RateLimiter(new RateLimiter.Limit(10, 2), Map.of());
+        long now = 0;
+        limiter.tryAcquire("a", "/", now);
+        limiter.tryAcquire("b", "/", now);
+        limiter.tryAcquire("b", "/", now + 50 * MILLIS);
+        assertEquals(1, limiter.evictIdle(now + 100 * MILLIS));
+        assertEquals(1, limiter.size());
+        assertTrue(limiter.tryAcquire("a", "/", now + 100 * MILLIS));
+        assertTrue(limiter.tryAcquire("a", "/", now + 100 * MILLIS));
+        assertFalse(limiter.tryAcquire("a", "/", now + 100 * MILLIS));
+    }
+
+    @Test
+    public void testConcurrentClientsNeverExceedTheBurst() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(new RateLimiter.Limit(0.001, 500), Map.of());
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("client", "/")) {
+                        admitted.incrementAndGet();
+                    }
+                    if (i % 100 == 0) {
+                        limiter.evictIdle();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(500, admitted.get());
+    }
+
+    @Test
+    public void testRejectsBeforeReadingHeaders() throws Exception {
+        byte[] request = "GET /App/hello HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        ByteArrayInputStream in = new ByteArrayInputStream(request);
+        HttpException e = assertThrows(HttpException.class, () -> HttpRequest.parse(in, 1024, target -> false));
+        assertSame(HttpRequest.TOO_MANY_REQUESTS, e);
+        assertEquals("Host: x\r\n\r\n".length(), in.available());
+    }
+}
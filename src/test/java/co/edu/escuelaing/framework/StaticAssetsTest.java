@@ -0,0 +1,119 @@
+package co.edu.escuelaing.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticAssetsTest {
+
+    private static String write(HttpResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.writeTo(out, true);
+        return out.toString();
+    }
+
+    @Test
+    public void testServesIndexedFilesAndRejectsTraversal() throws IOException {
+        StaticAssets assets = StaticAssets.load("src/main/resources");
+        HttpResponse index = assets.lookup("/index.html", null);
+        assertNotNull(index);
+        assertEquals("text/html", index.getContentType());
+        assertSame(index, assets.lookup("/", null));
+        assertSame(index, assets.lookup("/index.html?v=2", null));
+        assertSame(assets.lookup("/styles.css", null), assets.lookup("/%73tyles.css", null));
+
+        assertNull(assets.lookup("/../pom.xml", null));
+        assertNull(assets.lookup("/%2e%2e/pom.xml", null));
+        assertNull(assets.lookup("/missing.html", null));
+        assertNull(assets.lookup("/bad%zz", null));
+    }
+
+    @Test
+    public void testConditionalRequests() throws IOException {
+        StaticAssets assets = StaticAssets.load("src/main/resources");
+        String ok = write(assets.lookup("/script.js", null));
+        assertTrue(ok.startsWith("HTTP/1.1 200 OK"));
+        String etag = ok.lines().filter(line -> line.startsWith("ETag: ")).findFirst().orElseThrow().substring(6);
+
+        String notModified = write(assets.lookup("/script.js", "\"other\", " + etag));
+        assertTrue(notModified.startsWith("HTTP/1.1 304 Not Modified"));
+        assertTrue(notModified.contains("ETag: " + etag));
+        assertTrue(write(assets.lookup("/script.js", "\"other\"")).startsWith("HTTP/1.1 200 OK"));
+    }
+
+    @Test
+    public void testDirectoryAndClasspathLocations() throws IOException {
+        Path root = Files.createTempDirectory("static");
+        Files.createDirectories(root.resolve("docs"));
+        Files.writeString(root.resolve("docs/index.html"), "<h1>docs</h1>");
+        Files.writeString(root.resolve("data.json"), "{}");
+        StaticAssets assets = StaticAssets.load(root.toString());
+        assertEquals(List.of("/data.json", "/docs/", "/docs/index.html"), assets.paths());
+        assertEquals("application/json", assets.lookup("/data.json", null).getContentType());
+        assertTrue(write(assets.lookup("/docs/", null)).endsWith("<h1>docs</h1>"));
+
+        StaticAssets classpath = StaticAssets.load("classpath:");
+        assertNotNull(classpath.lookup("/index.html", null));
+        assertTrue(classpath.paths().stream().noneMatch(path -> path.endsWith(".class")));
+    }
+
+    @Test
+    public void testSymbolicLinksAreNotServed() throws IOException {
+        Path outside = Files.createTempDirectory("secret");
+        Files.writeString(outside.resolve("secret.txt"), "secret");
+        Path root = Files.createTempDirectory("static");
+        Files.writeString(root.resolve("index.html"), "<h1>home</h1>");
+        try {
+            Files.createSymbolicLink(root.resolve("leak.txt"), outside.resolve("secret.txt"));
+            Files.createSymbolicLink(root.resolve("leak"), outside);
+        } catch (UnsupportedOperationException | IOException e) {
+            return; // The file system cannot create links
+        }
+        StaticAssets assets = StaticAssets.load(root.toString());
+        assertEquals(List.of("/", "/index.html"), assets.paths());
+        assertNull(assets.lookup("/leak.txt", null));
+        assertNull(assets.lookup("/leak/secret.txt", null));
+    }
+
+    @Test
+    public void testMappedBundle() throws IOException {
+        Path root = Files.createTempDirectory("static");
+        Files.createDirectories(root.resolve("app"));
+        String css = "body { color: black; }\n".repeat(200);
+        Files.writeString(root.resolve("app/styles.css"), css);
+        Files.writeString(root.resolve("app/index.html"), "<h1>app</h1>");
+        Files.write(root.resolve("logo.png"), new byte[]{(byte) 0x89, 'P', 'N', 'G'});
+        Path bundle = root.resolveSibling(root.getFileName() + ".bundle");
+        assertEquals(3, AssetBundle.write(root, bundle));
+
+        StaticAssets assets = StaticAssets.load(bundle.toString());
+        assertEquals(List.of("/app/", "/app/index.html", "/app/styles.css", "/logo.png"), assets.paths());
+        assertTrue(write(assets.lookup("/app/", null)).endsWith("<h1>app</h1>"));
+        assertArrayEquals(new byte[]{(byte) 0x89, 'P', 'N', 'G'}, assets.lookup("/logo.png", null, "gzip").getBody());
+
+        HttpResponse plain = assets.lookup("/app/styles.css", null, "br;q=1, gzip;q=0");
+        assertEquals(css, new String(plain.getBody()));
+        assertEquals("Accept-Encoding", plain.getHeaders().get("Vary"));
+        HttpResponse gzip = assets.lookup("/app/styles.css", null, "br, gzip");
+        assertEquals("gzip", gzip.getHeaders().get("Content-Encoding"));
+        assertTrue(gzip.getLength() < css.length() / 10);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertEquals(css, new String(in.readAllBytes()));
+        }
+        String etag = gzip.getHeaders().get("ETag");
+        assertNotEquals(plain.getHeaders().get("ETag"), etag);
+        assertEquals(304, assets.lookup("/app/styles.css", etag, "gzip").getStatusCode());
+        assertEquals(200, assets.lookup("/app/styles.css", etag, null).getStatusCode());
+
+        Files.write(bundle, new byte[]{'S', 'E', 'C', 'I'});
+        assertThrows(IOException.class, () -> StaticAssets.load(bundle.toString()));
+    }
+}
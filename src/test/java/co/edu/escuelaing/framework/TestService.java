@@ -1,9 +1,61 @@
 package co.edu.escuelaing.framework;
 
+import co.edu.escuelaing.framework.annotations.Bulkhead;
+import co.edu.escuelaing.framework.annotations.RequestBody;
 import co.edu.escuelaing.framework.annotations.RequestParam;
+import co.edu.escuelaing.framework.annotations.WarmupSample;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class TestService {
+    /**
+     * The barrier {@link #meet()} waits at; tests that need calls to overlap size it to the number of calls.
+     */
+    static volatile CyclicBarrier rendezvous = new CyclicBarrier(1);
+
+    @WarmupSample(query = "name=Ana")
     public String greet(@RequestParam(value = "name", defaultValue = "World") String name) {
         return "Hello " + name;
     }
+
+    public String echo(@RequestBody String body) {
+        return "Echo " + body;
+    }
+
+    public String count(@RequestBody InputStream body) throws IOException {
+        long total = 0;
+        while (body.read() != -1) {
+            total++;
+        }
+        return "Count " + total;
+    }
+
+    public String sleep(@RequestParam(value = "ms", defaultValue = "0") int millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return "Slept " + millis;
+    }
+
+    /**
+     * Returns only once every party of {@link #rendezvous} has arrived, so it succeeds only when the calls run
+     * at the same time.
+     */
+    public String meet() throws InterruptedException, BrokenBarrierException, TimeoutException {
+        rendezvous.await(5, TimeUnit.SECONDS);
+        return "Met";
+    }
+
+    public String pid() {
+        return String.valueOf(ProcessHandle.current().pid());
+    }
+
+    @Bulkhead(value = "heavy", maxConcurrent = 1)
+    public String heavy(@RequestParam(value = "ms", defaultValue = "0") int millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return "Heavy " + millis;
+    }
 }
@@ -0,0 +1,72 @@
+package co.edu.escuelaing.framework;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+    private final TimingWheel wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 4, "test-wheel");
+
+    @AfterEach
+    public void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    public void testExpiresAfterTheDelayAcrossRounds() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        TimingWheel.Timeout timeout = wheel.schedule(fired::countDown, 120, TimeUnit.MILLISECONDS);
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 120);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    public void testCancelledTimeoutsNeverRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        TimingWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        assertEquals(1, wheel.pending());
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.cancel());
+        Thread.sleep(100);
+        assertEquals(0, runs.get());
+        assertFalse(timeout.isExpired());
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    public void testManyTimeouts() throws InterruptedException {
+        int count = 10_000;
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(count);
+        List<TimingWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            timeouts.add(wheel.schedule(() -> {
+                runs.incrementAndGet();
+                done.countDown();
+            }, ThreadLocalRandom.current().nextInt(200), TimeUnit.MILLISECONDS));
+        }
+        int cancelled = 0;
+        for (int i = 0; i < count; i += 2) {
+            if (timeouts.get(i).cancel()) {
+                cancelled++;
+                // Stands in for the run that will never happen; timeouts that fired first counted themselves
+                done.countDown();
+            }
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(count - cancelled, runs.get());
+        assertEquals(0, wheel.pending());
+    }
+}
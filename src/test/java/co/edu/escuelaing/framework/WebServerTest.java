@@ -3,11 +3,37 @@ package co.edu.escuelaing.framework;
 import co.edu.escuelaing.framework.enums.RequestMethod;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,7 +53,26 @@ public class WebServerTest {
         Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
         WebServer.setServices(servicesMap);
         assertNotNull(WebServer.getServices()); // Asegura que los servicios han sido asignados correctamente
-        assertSame(servicesMap, WebServer.getServices());
+        assertEquals(servicesMap, WebServer.getServices());
+    }
+
+    @Test
+    public void testSetServicesPublishesACopy() throws Exception {
+        Method method = WebServerTest.class.getMethod("testSetServices");
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        Map<RequestMethod, Method> methods = new HashMap<>();
+        methods.put(RequestMethod.GET, method);
+        servicesMap.put("/copy", methods);
+        WebServer.setServices(servicesMap);
+
+        // Later changes by the caller do not reach the published route table
+        methods.put(RequestMethod.POST, method);
+        servicesMap.put("/other", methods);
+        assertEquals(Map.of("/copy", Map.of(RequestMethod.GET, method)), WebServer.getServices());
+        assertThrows(UnsupportedOperationException.class, () -> WebServer.getServices().remove("/copy"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> WebServer.getServices().get("/copy").put(RequestMethod.DELETE, method));
+        WebServer.setServices(new HashMap<>());
     }
 
     @Test
@@ -96,9 +141,412 @@ public class WebServerTest {
         assertTrue(response.contains("Service not found"));
     }
 
+    @Test
+    public void testInvokeMethodWithRequestBody() throws Exception {
+        Method echoMethod = TestService.class.getDeclaredMethod("echo", String.class);
+        HttpRequest request = HttpRequest.parse(new ByteArrayInputStream(
+                "POST /App/echo HTTP/1.1\r\nContent-Length: 5\r\n\r\nAlice".getBytes()), 1024);
 
+        Object result = WebServer.invokeMethodWithParams(echoMethod, new HashMap<>(), request);
+        assertEquals("Echo Alice", result);
+    }
 
+    @Test
+    public void testHandleServiceRequest_StreamedBody() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/count", k -> new HashMap<>())
+                .put(RequestMethod.POST, TestService.class.getDeclaredMethod("count", InputStream.class));
+        WebServer.setServices(servicesMap);
+        HttpRequest request = HttpRequest.parse(new ByteArrayInputStream(
+                "POST /App/count HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n2\r\nde\r\n0\r\n\r\n".getBytes()), 1024);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
 
-}
+        WebServer.handleServiceRequest(request, out);
+
+        String response = out.toString();
+        assertTrue(response.contains("HTTP/1.1 200 OK"));
+        assertTrue(response.contains("Count 5"));
+    }
+
+    @Test
+    public void testHandleServiceRequest_BodyTooLargeToBuffer() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/echo", k -> new HashMap<>())
+                .put(RequestMethod.POST, TestService.class.getDeclaredMethod("echo", String.class));
+        WebServer.setServices(servicesMap);
+        long previous = FrameworkConfig.getMaxInMemoryBodySize();
+        FrameworkConfig.maxInMemoryBodySize(4);
+        try {
+            HttpRequest request = HttpRequest.parse(new ByteArrayInputStream(
+                    "POST /App/echo HTTP/1.1\r\nContent-Length: 10\r\n\r\n0123456789".getBytes()), 1024);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            WebServer.handleServiceRequest(request, out);
+
+            assertTrue(out.toString().contains("HTTP/1.1 413 Payload Too Large"));
+        } finally {
+            FrameworkConfig.maxInMemoryBodySize(previous);
+        }
+    }
+
+    @Test
+    public void testHandleServiceRequest_UnknownMethod() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WebServer.setServices(new HashMap<>());
+
+        WebServer.handleServiceRequest("/App/hello", "BREW", out);
+
+        assertTrue(out.toString().contains("HTTP/1.1 501 Not Implemented"));
+    }
+
+    @Test
+    public void testIsKeepAlive() {
+        Map<String, String> close = new HashMap<>();
+        close.put("Connection", "close");
+        Map<String, String> keepAlive = new HashMap<>();
+        keepAlive.put("Connection", "keep-alive");
+        InputStream empty = new ByteArrayInputStream(new byte[0]);
+
+        assertTrue(WebServer.isKeepAlive(new HttpRequest("GET", "/", "HTTP/1.1", new HashMap<>(), empty)));
+        assertFalse(WebServer.isKeepAlive(new HttpRequest("GET", "/", "HTTP/1.1", close, empty)));
+        assertFalse(WebServer.isKeepAlive(new HttpRequest("GET", "/", "HTTP/1.0", new HashMap<>(), empty)));
+        assertTrue(WebServer.isKeepAlive(new HttpRequest("GET", "/", "HTTP/1.0", keepAlive, empty)));
+    }
+
+    @Test
+    public void testSlowHeadersAreDisconnected() throws Exception {
+        FrameworkConfig.headerReadTimeout(300);
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(server.getInetAddress(), server.getLocalPort())) {
+            Socket accepted = server.accept();
+            Thread worker = new Thread(() -> WebServer.serveConnection(accepted));
+            worker.start();
+            long start = System.nanoTime();
+            OutputStream out = client.getOutputStream();
+            out.write("GET /index.html HTTP/1.1\r\n".getBytes(StandardCharsets.US_ASCII));
+            try {
+                for (int i = 0; i < 50 && worker.isAlive(); i++) {
+                    out.write('X');
+                    out.flush();
+                    Thread.sleep(50);
+                }
+            } catch (IOException e) {
+                // The server closed the connection
+            }
+            worker.join(2000);
+            assertFalse(worker.isAlive());
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(elapsed >= 300 && elapsed < 2000, "disconnected after " + elapsed + " ms");
+        } finally {
+            FrameworkConfig.headerReadTimeout(10000);
+        }
+    }
+
+    @Test
+    public void testBatchRequestRunsCallsInParallel() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/greet", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("greet", String.class));
+        servicesMap.computeIfAbsent("/meet", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("meet"));
+        WebServer.setServices(servicesMap);
+        // Each meet call waits for the other two, so they can only all succeed if they run at the same time
+        TestService.rendezvous = new CyclicBarrier(3);
+        String body = "/App/meet\n/App/greet?name=\"Ana\"\n\n/App/missing\n/App/meet\r\n/App/meet\n";
+        HttpRequest request = HttpRequest.parse(new ByteArrayInputStream(("POST /App/batch HTTP/1.1\r\nContent-Length: "
+                + body.length() + "\r\n\r\n" + body).getBytes(StandardCharsets.UTF_8)), 1024);
+
+        HttpResponse response = WebServer.handle(request);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("application/json", response.getContentType());
+        assertEquals("[{\"status\":200,\"body\":\"Met\"},{\"status\":200,\"body\":\"Hello \\\"Ana\\\"\"},"
+                        + "{\"status\":404,\"body\":\"Service not found\"},{\"status\":200,\"body\":\"Met\"},"
+                        + "{\"status\":200,\"body\":\"Met\"}]",
+                new String(response.getBody(), 0, response.getLength(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBatchRequestLimits() throws IOException {
+        WebServer.setServices(new HashMap<>());
+        HttpRequest get = HttpRequest.parse(new ByteArrayInputStream("GET /App/batch HTTP/1.1\r\n\r\n".getBytes()), 1024);
+        assertEquals(405, WebServer.handle(get).getStatusCode());
 
+        String body = "/App/x\n".repeat(FrameworkConfig.getBatchMaxItems() + 1);
+        HttpRequest tooLarge = HttpRequest.parse(new ByteArrayInputStream(("POST /App/batch HTTP/1.1\r\nContent-Length: "
+                + body.length() + "\r\n\r\n" + body).getBytes()), 1 << 20);
+        assertEquals(413, WebServer.handle(tooLarge).getStatusCode());
+    }
+
+    @Test
+    public void testWarmupRequestsAndRun() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new LinkedHashMap<>();
+        servicesMap.computeIfAbsent("/greet", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("greet", String.class));
+        servicesMap.computeIfAbsent("/echo", k -> new HashMap<>())
+                .put(RequestMethod.POST, TestService.class.getDeclaredMethod("echo", String.class));
+        servicesMap.computeIfAbsent("/sleep", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("sleep", int.class));
+        WebServer.setServices(servicesMap);
+        Path file = Files.createTempFile("warmup", ".txt");
+        try {
+            Files.writeString(file, "# extra requests\n\nPOST /App/echo hello world\n");
+            List<byte[]> requests = Warmup.requests(servicesMap, List.of("/index.html"), file.toString());
+
+            // Handlers without a sample are skipped, whatever their method; the file adds the POST back with a body
+            assertEquals(3, requests.size());
+            assertEquals("GET /App/greet?name=Ana HTTP/1.1", firstLine(requests.get(0)));
+            assertEquals("GET /index.html HTTP/1.1", firstLine(requests.get(1)));
+            HttpRequest echo = HttpRequest.parse(new ByteArrayInputStream(requests.get(2)), 1024);
+            assertEquals("Echo hello world", new String(WebServer.handle(echo).getBody(), 0, 16, StandardCharsets.UTF_8));
+
+            assertEquals(9, Warmup.run(requests, 3, 10_000));
+            // The budget is checked after every request, not only after every round
+            assertEquals(1, Warmup.run(requests, 1000, 0), "the warm-up ignored its time budget");
+        } finally {
+            Files.delete(file);
+        }
+        assertFalse(WebServer.isReady());
+    }
+
+    private static String firstLine(byte[] request) {
+        String text = new String(request, StandardCharsets.UTF_8);
+        return text.substring(0, text.indexOf("\r\n"));
+    }
+
+    @Test
+    public void testHealthEndpoints() throws IOException {
+        HttpRequest live = HttpRequest.parse(new ByteArrayInputStream("GET /healthz HTTP/1.1\r\n\r\n".getBytes()), 1024);
+        HttpRequest ready = HttpRequest.parse(new ByteArrayInputStream("GET /readyz HTTP/1.1\r\n\r\n".getBytes()), 1024);
+        assertEquals(200, WebServer.handle(live).getStatusCode());
+        assertEquals(503, WebServer.handle(ready).getStatusCode());
+        assertFalse(WebServer.handle(ready).isClosing());
+    }
+
+    @Test
+    public void testStopDrainsConnections() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/sleep", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("sleep", int.class));
+        WebServer.setServices(servicesMap);
+        int previousPort = FrameworkConfig.getPort();
+        Thread server = startOnFreePort();
+        int port = FrameworkConfig.getPort();
+
+        try (Socket idle = new Socket("localhost", port); Socket busy = new Socket("localhost", port)) {
+            idle.getOutputStream().write("GET /readyz HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+            assertTrue(readResponse(idle.getInputStream()).endsWith("Ready"));
+            busy.getOutputStream().write("GET /App/sleep?ms=500 HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+            Thread.sleep(100);
+
+            assertTrue(WebServer.stop(Duration.ofSeconds(5)));
+
+            String response = readResponse(busy.getInputStream());
+            assertTrue(response.contains("Connection: close"), response);
+            assertTrue(response.endsWith("Slept 500"), response);
+            assertEquals(-1, idle.getInputStream().read());
+            assertThrows(ConnectException.class, () -> new Socket("localhost", port).close());
+            server.join(1000);
+            assertFalse(server.isAlive());
+            assertFalse(WebServer.isReady());
+        } finally {
+            WebServer.stop(Duration.ZERO);
+            FrameworkConfig.port(previousPort);
+        }
+    }
+
+    @Test
+    public void testStopShutsTheRateLimitSweeperDown() throws Exception {
+        // A limit no request matches, so that it changes nothing for the other tests
+        FrameworkConfig.routeRateLimit("/App/no-such-route/", 1, 1);
+        int previousPort = FrameworkConfig.getPort();
+        try {
+            for (int i = 0; i < 2; i++) {
+                Thread server = startOnFreePort();
+                assertEquals(1, sweeperThreads());
+                assertTrue(WebServer.stop(Duration.ofSeconds(5)));
+                server.join(1000);
+                long start = System.nanoTime();
+                while (sweeperThreads() > 0) {
+                    assertTrue(System.nanoTime() - start < 5_000_000_000L, "the sweeper is still running");
+                    Thread.sleep(10);
+                }
+            }
+        } finally {
+            WebServer.stop(Duration.ZERO);
+            FrameworkConfig.port(previousPort);
+        }
+    }
 
+    private static long sweeperThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("webserver-rate-limit-sweeper") && thread.isAlive())
+                .count();
+    }
+
+    @Test
+    public void testUnixDomainSocket() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/greet", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("greet", String.class));
+        WebServer.setServices(servicesMap);
+        Path socketFile = Files.createTempDirectory("springeci").resolve("server.sock");
+        FrameworkConfig.port(0);
+        FrameworkConfig.unixSocket(socketFile.toString());
+        Thread server = new Thread(WebServer::startServer, "test-server");
+        try {
+            server.start();
+            long start = System.nanoTime();
+            while (!WebServer.isReady()) {
+                assertTrue(System.nanoTime() - start < 10_000_000_000L, "the server did not start");
+                Thread.sleep(10);
+            }
+            // Port 0 disables TCP: the Unix domain socket is the only listener
+            assertEquals(1, WebServer.getListenerCount());
+
+            try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                channel.connect(UnixDomainSocketAddress.of(socketFile));
+                OutputStream out = Channels.newOutputStream(channel);
+                InputStream in = Channels.newInputStream(channel);
+                // Two requests on the same connection: keep-alive works as over TCP
+                out.write("GET /App/greet?name=Ana HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+                assertTrue(readResponse(in).endsWith("Hello Ana"));
+                out.write("GET /index.html HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+                assertTrue(readResponse(in).startsWith("HTTP/1.1 200 OK"));
+            }
+        } finally {
+            WebServer.stop(Duration.ofSeconds(5));
+            FrameworkConfig.port(8080);
+            FrameworkConfig.unixSocket(null);
+        }
+        server.join(1000);
+        assertFalse(server.isAlive());
+        assertFalse(Files.exists(socketFile));
+        Files.delete(socketFile.getParent());
+    }
+
+    @Test
+    public void testListenUnixReplacesOnlyStaleSockets() throws Exception {
+        Path directory = Files.createTempDirectory("springeci");
+        Path socketFile = directory.resolve("server.sock");
+        try {
+            Files.writeString(socketFile, "data");
+            assertThrows(FileAlreadyExistsException.class, () -> Connection.listenUnix(socketFile, 1));
+            assertEquals("data", Files.readString(socketFile));
+            Files.delete(socketFile);
+
+            Files.createDirectory(socketFile);
+            assertThrows(FileAlreadyExistsException.class, () -> Connection.listenUnix(socketFile, 1));
+            assertTrue(Files.isDirectory(socketFile));
+            Files.delete(socketFile);
+
+            // A socket whose server is gone leaves its file behind, and is replaced
+            try (ServerSocketChannel stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+                stale.bind(UnixDomainSocketAddress.of(socketFile));
+            }
+            assertTrue(Files.exists(socketFile));
+            try (Connection.Listener listener = Connection.listenUnix(socketFile, 1)) {
+                // A server that still answers keeps its socket
+                assertThrows(BindException.class, () -> Connection.listenUnix(socketFile, 1));
+                try (SocketChannel client = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                    client.connect(UnixDomainSocketAddress.of(socketFile));
+                    listener.accept().close();
+                }
+            }
+            assertFalse(Files.exists(socketFile));
+        } finally {
+            Files.deleteIfExists(socketFile);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testSeveralAcceptorsServeEveryConnection() throws Exception {
+        Map<String, Map<RequestMethod, Method>> servicesMap = new HashMap<>();
+        servicesMap.computeIfAbsent("/greet", k -> new HashMap<>())
+                .put(RequestMethod.GET, TestService.class.getDeclaredMethod("greet", String.class));
+        WebServer.setServices(servicesMap);
+        int acceptors = WebServer.supportsReusePort() ? 4 : 1;
+        FrameworkConfig.acceptors(acceptors);
+        int previousPort = FrameworkConfig.getPort();
+        Thread server = null;
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        try {
+            server = startOnFreePort();
+            int port = FrameworkConfig.getPort();
+            assertEquals(acceptors, WebServer.getListenerCount());
+
+            // The kernel spreads the connections over the listeners; every one of them must be answered
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String name = "client" + i;
+                responses.add(clients.submit(() -> {
+                    try (Socket socket = new Socket("localhost", port)) {
+                        socket.setSoTimeout(10_000);
+                        socket.getOutputStream().write(("GET /App/greet?name=" + name
+                                + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes());
+                        return readResponse(socket.getInputStream());
+                    }
+                }));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                String response = responses.get(i).get(20, TimeUnit.SECONDS);
+                assertTrue(response.startsWith("HTTP/1.1 200 OK"), response);
+                assertTrue(response.endsWith("Hello client" + i), response);
+            }
+        } finally {
+            clients.shutdownNow();
+            WebServer.stop(Duration.ofSeconds(5));
+            FrameworkConfig.acceptors(1);
+            FrameworkConfig.port(previousPort);
+        }
+        server.join(1000);
+        assertFalse(server.isAlive());
+        assertEquals(0, WebServer.getListenerCount());
+    }
+
+    /**
+     * Starts the server on a free port, set with {@link FrameworkConfig#port(int)}, and waits until it is ready.
+     * The port is picked by binding an ephemeral port and closing it, so another process may take it before
+     * the server binds it; the server then gives up and another port is tried.
+     */
+    private static Thread startOnFreePort() throws Exception {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        for (int attempt = 0; attempt < 5; attempt++) {
+            try (ServerSocket free = new ServerSocket(0, 1, loopback)) {
+                FrameworkConfig.port(free.getLocalPort());
+            }
+            Thread server = new Thread(WebServer::startServer, "test-server");
+            server.start();
+            long start = System.nanoTime();
+            while (!WebServer.isReady() && server.isAlive()) {
+                assertTrue(System.nanoTime() - start < 10_000_000_000L, "the server did not start");
+                Thread.sleep(10);
+            }
+            if (WebServer.isReady()) {
+                return server;
+            }
+        }
+        return fail("the server could not bind a free port");
+    }
+
+    /**
+     * Reads one response with a {@code Content-Length} body from a connection.
+     */
+    static String readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        int contentLength = -1;
+        while (true) {
+            int b = in.read();
+            assertTrue(b >= 0, "the connection was closed");
+            response.write(b);
+            String text = response.toString(StandardCharsets.ISO_8859_1);
+            if (contentLength < 0 && text.endsWith("\r\n\r\n")) {
+                int index = text.indexOf("Content-Length: ") + "Content-Length: ".length();
+                contentLength = Integer.parseInt(text.substring(index, text.indexOf("\r\n", index)));
+                byte[] body = in.readNBytes(contentLength);
+                return text + new String(body, StandardCharsets.ISO_8859_1);
+            }
+        }
+    }
+}
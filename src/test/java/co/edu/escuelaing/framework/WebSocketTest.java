@@ -0,0 +1,221 @@
+package co.edu.escuelaing.framework;
+
+import co.edu.escuelaing.framework.websocket.WebSocketEndpoint;
+import co.edu.escuelaing.framework.websocket.WebSocketSession;
+import co.edu.escuelaing.framework.websocket.WebSockets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebSocketTest {
+    private ServerSocket server;
+
+    public static String echo(WebSocketSession session, String message) {
+        if (message.startsWith("all:")) {
+            session.getEndpoint().broadcast(message.substring(4));
+            return null;
+        }
+        return "echo:" + message;
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        WebSockets.setHandlers(Map.of("/ws-test", WebSocketTest.class.getMethod("echo", WebSocketSession.class, String.class)));
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = server.accept();
+                    new Thread(() -> WebServer.serveConnection(socket)).start();
+                }
+            } catch (IOException e) {
+                // Server closed
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+        WebSockets.setHandlers(Map.of());
+        FrameworkConfig.webSocketMaxMessageSize(64 * 1024);
+        FrameworkConfig.webSocketMaxQueuedBytes(1024 * 1024);
+        FrameworkConfig.webSocketIdleTimeout(60000);
+    }
+
+    private WebSocket connect(BlockingQueue<String> received) {
+        return HttpClient.newHttpClient().newWebSocketBuilder()
+                .buildAsync(URI.create("ws://127.0.0.1:" + server.getLocalPort() + "/App/ws-test"), new WebSocket.Listener() {
+                    private final StringBuilder text = new StringBuilder();
+
+                    @Override
+                    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                        text.append(data);
+                        if (last) {
+                            received.add(text.toString());
+                            text.setLength(0);
+                        }
+                        webSocket.request(1);
+                        return null;
+                    }
+                }).join();
+    }
+
+    @Test
+    public void testEchoAndBroadcast() throws Exception {
+        FrameworkConfig.webSocketMaxMessageSize(200_000);
+        BlockingQueue<String> first = new LinkedBlockingQueue<>();
+        BlockingQueue<String> second = new LinkedBlockingQueue<>();
+        WebSocket a = connect(first);
+        WebSocket b = connect(second);
+
+        a.sendText("hé", true).join();
+        assertEquals("echo:hé", first.poll(5, TimeUnit.SECONDS));
+        String large = "x".repeat(100_000);
+        a.sendText(large.substring(0, 50_000), false).join();
+        a.sendText(large.substring(50_000), true).join();
+        assertEquals("echo:" + large, first.poll(5, TimeUnit.SECONDS));
+
+        b.sendText("all:news", true).join();
+        assertEquals("news", first.poll(5, TimeUnit.SECONDS));
+        assertEquals("news", second.poll(5, TimeUnit.SECONDS));
+        assertEquals(2, WebSockets.getEndpoint("/ws-test").getSessions().size());
+
+        a.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (WebSockets.getEndpoint("/ws-test").getSessions().size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, WebSockets.broadcast("/ws-test", "after"));
+        assertEquals("after", second.poll(5, TimeUnit.SECONDS));
+        b.abort();
+    }
+
+    /**
+     * Opens a WebSocket with a raw socket, so that the test controls what is read and sent.
+     */
+    private Socket rawHandshake() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+        socket.setSoTimeout(5000);
+        socket.getOutputStream().write(("GET /App/ws-test HTTP/1.1\r\nHost: x\r\nUpgrade: websocket\r\n"
+                + "Connection: Upgrade\r\nSec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            head.append((char) in.readUnsignedByte());
+        }
+        assertTrue(head.toString().startsWith("HTTP/1.1 101 Switching Protocols"));
+        assertTrue(head.toString().contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo="));
+        return socket;
+    }
+
+    @Test
+    public void testUnmaskedFramesCloseWithProtocolError() throws Exception {
+        try (Socket socket = rawHandshake()) {
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[]{(byte) 0x81, 0x02, 'h', 'i'});
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            assertEquals(0x88, in.readUnsignedByte());
+            assertEquals(2, in.readUnsignedByte());
+            assertEquals(1002, in.readUnsignedShort());
+        }
+    }
+
+    /**
+     * Sends a masked close frame with a status code; a zero mask leaves the payload as it is.
+     */
+    private static int closeWith(Socket socket, int code) throws IOException {
+        socket.getOutputStream().write(new byte[]{(byte) 0x88, (byte) 0x82, 0, 0, 0, 0, (byte) (code >> 8), (byte) code});
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        assertEquals(0x88, in.readUnsignedByte());
+        assertEquals(2, in.readUnsignedByte());
+        return in.readUnsignedShort();
+    }
+
+    @Test
+    public void testCloseCodesAreValidated() throws Exception {
+        for (int code : new int[]{1000, 1001, 3000, 4999}) {
+            try (Socket socket = rawHandshake()) {
+                assertEquals(code, closeWith(socket, code));
+            }
+        }
+        for (int code : new int[]{0, 999, 1004, 1005, 1006, 1015, 2000, 5000}) {
+            try (Socket socket = rawHandshake()) {
+                assertEquals(1002, closeWith(socket, code), "code " + code);
+            }
+        }
+    }
+
+    @Test
+    public void testIdleSessionIsPingedThenClosed() throws Exception {
+        FrameworkConfig.webSocketIdleTimeout(200);
+        try (Socket socket = rawHandshake()) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            assertEquals(0x89, in.readUnsignedByte());
+            assertEquals(0, in.readUnsignedByte());
+            // The ping is left unanswered
+            assertEquals(0x88, in.readUnsignedByte());
+            assertEquals(2, in.readUnsignedByte());
+            assertEquals(1001, in.readUnsignedShort());
+            // And so is the close: the server drops the connection
+            assertEquals(-1, in.read());
+            assertTrue(WebSockets.getEndpoint("/ws-test").getSessions().isEmpty());
+        }
+    }
+
+    @Test
+    public void testAnsweredPingsKeepTheSessionOpen() throws Exception {
+        FrameworkConfig.webSocketIdleTimeout(200);
+        try (Socket socket = rawHandshake()) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(0x89, in.readUnsignedByte());
+                assertEquals(0, in.readUnsignedByte());
+                // Each pong counts as activity, so the next check pings again instead of closing
+                socket.getOutputStream().write(new byte[]{(byte) 0x8A, (byte) 0x80, 0, 0, 0, 0});
+            }
+        }
+    }
+
+    @Test
+    public void testSlowConsumerIsDropped() throws Exception {
+        FrameworkConfig.webSocketMaxQueuedBytes(256 * 1024);
+        try (Socket socket = rawHandshake()) {
+            socket.setReceiveBufferSize(4096);
+            WebSocketEndpoint endpoint = WebSockets.getEndpoint("/ws-test");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (endpoint.getSessions().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            String chunk = "y".repeat(64 * 1024);
+            int sent = 0;
+            while (endpoint.broadcast(chunk) == 1 && sent < 10_000) {
+                sent++;
+            }
+            assertTrue(sent < 10_000, "the session was never dropped");
+            assertTrue(endpoint.getSessions().isEmpty());
+            assertEquals(0, endpoint.broadcast("more"));
+        }
+    }
+}
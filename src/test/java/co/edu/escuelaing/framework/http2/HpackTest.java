@@ -0,0 +1,115 @@
+package co.edu.escuelaing.framework.http2;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HpackTest {
+
+    private static byte[] hex(String hex) {
+        byte[] data = new byte[hex.length() / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return data;
+    }
+
+    private static List<String[]> decode(HpackDecoder decoder, String hex) throws HpackException {
+        byte[] block = hex(hex);
+        return decoder.decode(block, 0, block.length);
+    }
+
+    private static void assertField(String name, String value, String[] field) {
+        assertEquals(name, field[0]);
+        assertEquals(value, field[1]);
+    }
+
+    @Test
+    public void testDecodeRequestsWithoutHuffman() throws HpackException {
+        // RFC 7541, appendix C.3
+        HpackDecoder decoder = new HpackDecoder(4096, 65536);
+        List<String[]> first = decode(decoder, "828684410f7777772e6578616d706c652e636f6d");
+        assertEquals(4, first.size());
+        assertField(":authority", "www.example.com", first.get(3));
+
+        List<String[]> second = decode(decoder, "828684be58086e6f2d6361636865");
+        assertField(":authority", "www.example.com", second.get(3));
+        assertField("cache-control", "no-cache", second.get(4));
+
+        List<String[]> third = decode(decoder, "828785bf400a637573746f6d2d6b65790c637573746f6d2d76616c7565");
+        assertField(":scheme", "https", third.get(1));
+        assertField(":path", "/index.html", third.get(2));
+        assertField(":authority", "www.example.com", third.get(3));
+        assertField("custom-key", "custom-value", third.get(4));
+    }
+
+    @Test
+    public void testDecodeRequestsWithHuffman() throws HpackException {
+        // RFC 7541, appendix C.4
+        HpackDecoder decoder = new HpackDecoder(4096, 65536);
+        assertField(":authority", "www.example.com", decode(decoder, "828684418cf1e3c2e5f23a6ba0ab90f4ff").get(3));
+        assertField("cache-control", "no-cache", decode(decoder, "828684be5886a8eb10649cbf").get(4));
+        List<String[]> third = decode(decoder, "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf");
+        assertField("custom-key", "custom-value", third.get(4));
+    }
+
+    @Test
+    public void testRejectsInvalidHuffmanPadding() {
+        // "no-cache" followed by more than 7 bits of padding
+        byte[] data = hex("a8eb10649cbfff");
+        assertThrows(HpackException.class, () -> Huffman.decode(data, 0, data.length));
+    }
+
+    @Test
+    public void testRejectsUnknownIndex() {
+        assertThrows(HpackException.class, () -> decode(new HpackDecoder(4096, 65536), "ff00"));
+    }
+
+    @Test
+    public void testRejectsHeaderListTooLarge() {
+        HpackDecoder decoder = new HpackDecoder(4096, 40);
+        assertThrows(HpackException.class,
+                () -> decode(decoder, "400a637573746f6d2d6b65790c637573746f6d2d76616c7565"));
+    }
+
+    @Test
+    public void testEncoderRoundTrip() throws HpackException {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        HpackDecoder decoder = new HpackDecoder(4096, 65536);
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            encoder.beginBlock(block);
+            encoder.encode(block, ":status", "200");
+            encoder.encode(block, "content-type", "application/json");
+            encoder.encode(block, "content-length", String.valueOf(i));
+            encoder.encode(block, "x-request-id", "abc");
+            byte[] bytes = block.toByteArray();
+            if (i > 0) {
+                // Everything but content-length now comes from the tables
+                assertTrue(bytes.length < 10, "block of " + bytes.length + " bytes");
+            }
+
+            List<String[]> fields = decoder.decode(bytes, 0, bytes.length);
+            assertField(":status", "200", fields.get(0));
+            assertField("content-type", "application/json", fields.get(1));
+            assertField("content-length", String.valueOf(i), fields.get(2));
+            assertField("x-request-id", "abc", fields.get(3));
+        }
+    }
+
+    @Test
+    public void testEncoderSignalsTableSizeUpdate() throws HpackException {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        HpackDecoder decoder = new HpackDecoder(4096, 65536);
+        encoder.setMaxTableSize(0);
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        encoder.beginBlock(block);
+        encoder.encode(block, "x-request-id", "abc");
+        byte[] bytes = block.toByteArray();
+        assertEquals(0x20, bytes[0] & 0xFF);
+        assertField("x-request-id", "abc", decoder.decode(bytes, 0, bytes.length).get(0));
+    }
+}
@@ -0,0 +1,173 @@
+package co.edu.escuelaing.framework.http2;
+
+import co.edu.escuelaing.framework.HttpRequest;
+import co.edu.escuelaing.framework.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Http2ConnectionTest {
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        serverSocket = new ServerSocket(0);
+        executor = Executors.newFixedThreadPool(8);
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    executor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            HttpRequest request = HttpRequest.parse(in, 1 << 20);
+            Http2Connection connection = new Http2Connection(in, out, Http2ConnectionTest::handle, executor, 4 << 20);
+            if (Http2Connection.isPreface(request)) {
+                connection.servePriorKnowledge();
+            } else if (Http2Connection.isUpgrade(request)) {
+                connection.serveUpgrade(request);
+            } else {
+                handle(request).writeTo(out, false);
+            }
+        } catch (IOException e) {
+            // The test client went away
+        }
+    }
+
+    private static HttpResponse handle(HttpRequest request) throws IOException {
+        if ("POST".equals(request.getMethod())) {
+            return new HttpResponse("200 OK", "application/octet-stream", request.getBody().readAllBytes());
+        }
+        return new HttpResponse("200 OK", "text/plain",
+                ("Hello " + request.getTarget() + " from " + request.getHeader("Host")).getBytes());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + serverSocket.getLocalPort() + path);
+    }
+
+    @Test
+    public void testUpgradeAndMultiplexedRequests() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        java.net.http.HttpResponse<String> first = client.send(java.net.http.HttpRequest.newBuilder(uri("/first")).build(),
+                java.net.http.HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpClient.Version.HTTP_2, first.version());
+        assertEquals("Hello /first from localhost:" + serverSocket.getLocalPort(), first.body());
+
+        List<CompletableFuture<java.net.http.HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            responses.add(client.sendAsync(java.net.http.HttpRequest.newBuilder(uri("/item/" + i)).build(),
+                    java.net.http.HttpResponse.BodyHandlers.ofString()));
+        }
+        for (int i = 0; i < responses.size(); i++) {
+            java.net.http.HttpResponse<String> response = responses.get(i).get();
+            assertEquals(200, response.statusCode());
+            assertEquals(HttpClient.Version.HTTP_2, response.version());
+            assertTrue(response.body().startsWith("Hello /item/" + i + " "));
+        }
+    }
+
+    @Test
+    public void testLargeBodiesRespectFlowControl() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        client.send(java.net.http.HttpRequest.newBuilder(uri("/warmup")).build(),
+                java.net.http.HttpResponse.BodyHandlers.discarding());
+
+        byte[] body = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i * 31);
+        }
+        java.net.http.HttpResponse<byte[]> response = client.send(java.net.http.HttpRequest.newBuilder(uri("/echo"))
+                        .POST(java.net.http.HttpRequest.BodyPublishers.ofByteArray(body)).build(),
+                java.net.http.HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(HttpClient.Version.HTTP_2, response.version());
+        assertArrayEquals(body, response.body());
+    }
+
+    @Test
+    public void testPriorKnowledgePing() throws IOException {
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.write(new byte[]{0, 0, 0, 4, 0, 0, 0, 0, 0});
+            out.write(new byte[]{0, 0, 8, 6, 0, 0, 0, 0, 0, 1, 2, 3, 4, 5, 6, 7, 8});
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            byte[] payload;
+            int type;
+            int flags;
+            do {
+                byte[] head = new byte[9];
+                in.readFully(head);
+                payload = new byte[((head[0] & 0xFF) << 16) | ((head[1] & 0xFF) << 8) | (head[2] & 0xFF)];
+                in.readFully(payload);
+                type = head[3];
+                flags = head[4];
+            } while (type != 6);
+            assertEquals(1, flags);
+            assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}, payload);
+        }
+    }
+
+    @Test
+    public void testProtocolErrorSendsGoAway() throws IOException {
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.write(new byte[]{0, 0, 0, 4, 0, 0, 0, 0, 0});
+            // HEADERS on an even stream id, which only servers may open
+            out.write(new byte[]{0, 0, 1, 1, 5, 0, 0, 0, 2, (byte) 0x82});
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            byte[] payload;
+            int type;
+            do {
+                byte[] head = new byte[9];
+                in.readFully(head);
+                payload = new byte[((head[0] & 0xFF) << 16) | ((head[1] & 0xFF) << 8) | (head[2] & 0xFF)];
+                in.readFully(payload);
+                type = head[3];
+            } while (type != 7);
+            assertEquals(Http2Connection.PROTOCOL_ERROR, payload[7]);
+            assertEquals(-1, in.read());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package co.edu.escuelaing.framework.json;
+
+import co.edu.escuelaing.framework.ResponseBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares {@link JsonSerializer} writing into a pooled {@link ResponseBuffer} with the naive approach of
+ * building the JSON text with string concatenation and encoding it with {@code getBytes}.
+ *
+ * <p>Run it after {@code mvn test-compile} with:</p>
+ * <pre>
+ * java -cp target/classes:target/test-classes co.edu.escuelaing.framework.json.JsonSerializerBenchmark
+ * </pre>
+ */
+public class JsonSerializerBenchmark {
+    private static final int ITERATIONS = 2_000_000;
+
+    public record Result(String operation, int a, int b, long value, double elapsed, boolean cached) {
+    }
+
+    public record Batch(String name, List<Result> results) {
+    }
+
+    private static final Batch BATCH = new Batch("calculator", Arrays.asList(
+            new Result("add", 2, 3, 5, 0.125, false),
+            new Result("multiply", 12, 30, 360, 0.5, true),
+            new Result("subtract", 7, 9, -2, 1.75, false)));
+
+    private static byte[] naive(Batch batch) {
+        StringBuilder json = new StringBuilder("{\"name\":\"").append(batch.name()).append("\",\"results\":[");
+        for (int i = 0; i < batch.results().size(); i++) {
+            Result r = batch.results().get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"operation\":\"").append(r.operation())
+                    .append("\",\"a\":").append(r.a())
+                    .append(",\"b\":").append(r.b())
+                    .append(",\"value\":").append(r.value())
+                    .append(",\"elapsed\":").append(r.elapsed())
+                    .append(",\"cached\":").append(r.cached())
+                    .append('}');
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long runSerializer() {
+        long sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            ResponseBuffer buffer = ResponseBuffer.acquire();
+            JsonSerializer.write(BATCH, buffer);
+            sink += buffer.size();
+        }
+        return sink;
+    }
+
+    private static long runNaive() {
+        long sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += naive(BATCH).length;
+        }
+        return sink;
+    }
+
+    public static void main(String[] args) {
+        if (!Arrays.equals(naive(BATCH), JsonSerializer.toJson(BATCH))) {
+            throw new IllegalStateException("Both approaches must produce the same bytes");
+        }
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            long serializerSink = runSerializer();
+            long serializerNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long naiveSink = runNaive();
+            long naiveNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: JsonSerializer %.1f ns/op, naive toString %.1f ns/op (%d/%d bytes)%n", round,
+                    (double) serializerNanos / ITERATIONS, (double) naiveNanos / ITERATIONS, serializerSink, naiveSink);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package co.edu.escuelaing.framework.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonSerializerTest {
+
+    public record Point(int x, long y, double weight, boolean visible, String label) {
+    }
+
+    public record Shape(String name, List<Point> points, Kind kind) {
+    }
+
+    public enum Kind {
+        OPEN, CLOSED
+    }
+
+    public static class Person {
+        public final int age;
+        private final String name;
+
+        public Person(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isAdult() {
+            return age >= 18;
+        }
+    }
+
+    public static class Node {
+        public Node next;
+    }
+
+    private static String json(Object value) {
+        return new String(JsonSerializer.toJson(value), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testScalars() {
+        assertEquals("null", json(null));
+        assertEquals("42", json(42));
+        assertEquals("-9223372036854775808", json(Long.MIN_VALUE));
+        assertEquals("2.5", json(2.5));
+        assertEquals("3.0", json(3.0));
+        assertEquals("-0.125", json(-0.125));
+        assertEquals("1.0E-5", json(1e-5));
+        assertEquals("1.0E7", json(1e7));
+        assertEquals("null", json(Double.NaN));
+        assertEquals("true", json(true));
+        assertEquals("\"CLOSED\"", json(Kind.CLOSED));
+    }
+
+    @Test
+    public void testDoublesUseTheShortestForm() {
+        assertEquals("0.07", json(0.07));
+        assertEquals("4.35", json(4.35));
+        assertEquals("-4.35", json(-4.35));
+        assertEquals("0.001", json(0.001));
+        assertEquals("123.456", json(123.456));
+        assertEquals("1.0E21", json(1e21));
+        for (int i = -100_000; i <= 100_000; i += 7) {
+            double value = i / 1000.0;
+            String text = json(value);
+            assertEquals(value, Double.parseDouble(text), text);
+            assertFalse(text.endsWith("0") && !text.endsWith(".0"), text);
+        }
+    }
+
+    @Test
+    public void testStringEscaping() {
+        assertEquals("\"a\\\"b\\\\c\\n\\u0001\"", json("a\"b\\c\n\u0001"));
+        assertArrayEquals("\"ñ€😀\"".getBytes(StandardCharsets.UTF_8), JsonSerializer.toJson("ñ€😀"));
+    }
+
+    @Test
+    public void testRecord() {
+        assertEquals("{\"x\":1,\"y\":2,\"weight\":0.5,\"visible\":true,\"label\":\"p\"}",
+                json(new Point(1, 2, 0.5, true, "p")));
+    }
+
+    @Test
+    public void testNestedRecordWithCollectionAndEnum() {
+        Shape shape = new Shape("line", Arrays.asList(new Point(0, 0, 1, false, null), new Point(1, 1, 1, false, "b")),
+                Kind.OPEN);
+        assertEquals("{\"name\":\"line\",\"points\":[{\"x\":0,\"y\":0,\"weight\":1.0,\"visible\":false,\"label\":null},"
+                + "{\"x\":1,\"y\":1,\"weight\":1.0,\"visible\":false,\"label\":\"b\"}],\"kind\":\"OPEN\"}", json(shape));
+    }
+
+    @Test
+    public void testBeanUsesGettersAndPublicFields() {
+        assertEquals("{\"adult\":true,\"age\":30,\"name\":\"Ana\"}", json(new Person("Ana", 30)));
+    }
+
+    @Test
+    public void testMapsAndArrays() {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put("ints", new int[]{1, 2});
+        map.put(7, new String[]{"a", null});
+        map.put("doubles", new double[]{0.25});
+        assertEquals("{\"ints\":[1,2],\"7\":[\"a\",null],\"doubles\":[0.25]}", json(map));
+    }
+
+    @Test
+    public void testEmptyBean() {
+        assertEquals("{}", json(new Object() {
+        }));
+    }
+
+    @Test
+    public void testCycleIsRejected() {
+        Node node = new Node();
+        node.next = node;
+        assertThrows(IllegalStateException.class, () -> JsonSerializer.toJson(node));
+    }
+}
@@ -0,0 +1,67 @@
+package reflexionlab;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenchmarkRunnerTest {
+
+    public static class Fixture {
+        static int counter;
+
+        @Benchmark(warmupIterations = 1, iterations = 3, iterationMillis = 20)
+        public static long increment() {
+            return ++counter;
+        }
+
+        @Benchmark(warmupIterations = 1, iterations = 3, iterationMillis = 20)
+        public static double scaled() {
+            return ++counter * 1.5;
+        }
+
+        @Benchmark(warmupIterations = 1, iterations = 3, iterationMillis = 20)
+        public static float narrowed() {
+            return ++counter * 0.5f;
+        }
+
+        @Benchmark(warmupIterations = 1, iterations = 3, iterationMillis = 20)
+        public static void allocate(Blackhole blackhole) {
+            blackhole.consume(new byte[64]);
+        }
+
+        @Benchmark
+        public void notStatic() {
+        }
+    }
+
+    @Test
+    public void testBenchmarkMethods() {
+        List<Method> methods = BenchmarkRunner.benchmarkMethods(List.of(Fixture.class));
+        assertEquals(4, methods.size());
+    }
+
+    @Test
+    public void testRunMeasuresThroughputAndAllocation() throws NoSuchMethodException {
+        BenchmarkResult increment = BenchmarkRunner.run(Fixture.class.getMethod("increment"));
+        assertEquals("increment", increment.methodName());
+        assertEquals(3, increment.iterations());
+        assertTrue(increment.opsPerSecond() > 0);
+        assertTrue(increment.error() >= 0);
+        assertTrue(Fixture.counter > 0);
+
+        // Primitive results reach the blackhole unboxed, so they allocate nothing
+        BenchmarkResult scaled = BenchmarkRunner.run(Fixture.class.getMethod("scaled"));
+        if (!Double.isNaN(scaled.bytesPerOp())) {
+            assertTrue(scaled.bytesPerOp() < 1, "allocated " + scaled.bytesPerOp() + " B/op");
+        }
+        assertTrue(BenchmarkRunner.run(Fixture.class.getMethod("narrowed")).opsPerSecond() > 0);
+
+        BenchmarkResult allocate = BenchmarkRunner.run(Fixture.class.getMethod("allocate", Blackhole.class));
+        if (!Double.isNaN(allocate.bytesPerOp())) {
+            assertTrue(allocate.bytesPerOp() >= 64, "allocated " + allocate.bytesPerOp() + " B/op");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package reflexionlab;
+
+import org.junit.jupiter.api.Test;
+import reflexionlab.sample.SampleTests;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JUnitECITest {
+
+    @Test
+    public void testDiscoverPackage() throws IOException {
+        assertEquals(List.of(SampleTests.class), JUnitECI.discover("reflexionlab.sample"));
+        assertEquals(List.of(SampleTests.class), JUnitECI.discover("reflexionlab.sample.SampleTests"));
+    }
+
+    @Test
+    public void testRunReportsSlowestFirst() throws IOException {
+        List<Method> tests = JUnitECI.testMethods(JUnitECI.discover("reflexionlab.sample"));
+        assertEquals(4, tests.size());
+
+        long start = System.nanoTime();
+        List<TestResult> results = JUnitECI.run(tests, 4, 0);
+        assertTrue(System.nanoTime() - start < 5_000_000_000L, "the hanging test must be cut off");
+
+        assertEquals(4, results.size());
+        assertEquals("hangs", results.get(0).methodName());
+        assertEquals(TestResult.Status.TIMED_OUT, results.get(0).status());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).millis() >= results.get(i).millis());
+        }
+        for (TestResult result : results) {
+            switch (result.methodName()) {
+                case "passes", "passesOnInstance" -> assertEquals(TestResult.Status.PASSED, result.status());
+                case "fails" -> {
+                    assertEquals(TestResult.Status.FAILED, result.status());
+                    assertTrue(result.message().contains("Expected failure"));
+                }
+                default -> {
+                }
+            }
+        }
+    }
+}
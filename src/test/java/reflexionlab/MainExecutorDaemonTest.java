@@ -0,0 +1,142 @@
+package reflexionlab;
+
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MainExecutorDaemonTest {
+
+    public static class Echo {
+        public static void main(String[] args) throws InterruptedException {
+            System.out.println(String.join(",", args));
+            Thread child = new Thread(() -> System.err.println("from child"));
+            child.start();
+            child.join();
+        }
+    }
+
+    public static class Failing {
+        public static void main(String[] args) {
+            throw new IllegalStateException("boom");
+        }
+    }
+
+    /**
+     * A blocking client: sends one request line and collects the frames of the response.
+     */
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final OutputStream out;
+        String stdout;
+        String stderr;
+
+        Client(MainExecutorDaemon daemon) throws IOException {
+            socket = new Socket();
+            socket.connect(daemon.getAddress());
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = socket.getOutputStream();
+        }
+
+        int call(String line) throws IOException {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            ByteArrayOutputStream o = new ByteArrayOutputStream();
+            ByteArrayOutputStream e = new ByteArrayOutputStream();
+            while (true) {
+                String[] header = readLine().split(" ");
+                if (header[0].equals("EXIT")) {
+                    stdout = o.toString(StandardCharsets.UTF_8);
+                    stderr = e.toString(StandardCharsets.UTF_8);
+                    return Integer.parseInt(header[1]);
+                }
+                byte[] data = new byte[Integer.parseInt(header[1])];
+                in.readFully(data);
+                (header[0].equals("OUT") ? o : e).write(data);
+            }
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("Connection closed");
+                }
+                line.append((char) b);
+            }
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testParseEscapes() {
+        assertEquals(List.of("a", "b\tc", "d\ne", "f\\g"), MainExecutorDaemon.parse("a\tb\\tc\td\\ne\tf\\\\g"));
+    }
+
+    @Test
+    public void testRunsInvocationsAndCapturesOutput() throws IOException {
+        try (MainExecutorDaemon daemon = MainExecutorDaemon.startTcp(0, 2, List.of());
+             Client client = new Client(daemon)) {
+            assertTrue(((InetSocketAddress) daemon.getAddress()).getAddress().isLoopbackAddress());
+
+            assertEquals(0, client.call(Echo.class.getName() + "\tx\ty z"));
+            assertEquals("x,y z" + System.lineSeparator(), client.stdout);
+            assertEquals("from child" + System.lineSeparator(), client.stderr);
+
+            assertEquals(1, client.call(Failing.class.getName()));
+            assertTrue(client.stderr.contains("IllegalStateException: boom"));
+
+            assertEquals(2, client.call("no.such.Class"));
+            assertTrue(client.stderr.contains("ClassNotFoundException"));
+
+            assertEquals(0, client.call(Echo.class.getName() + "\tagain"));
+            assertEquals("again" + System.lineSeparator(), client.stdout);
+        }
+    }
+
+    @Test
+    public void testReloadsChangedClasses() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return;
+        }
+        Path directory = Files.createTempDirectory("reload");
+        Path source = directory.resolve("Versioned.java");
+        try (MainExecutorDaemon daemon = MainExecutorDaemon.startTcp(0, 1, List.of(directory));
+             Client client = new Client(daemon)) {
+            for (int version = 1; version <= 2; version++) {
+                Files.writeString(source, "public class Versioned { public static void main(String[] a) { "
+                        + "System.out.print(\"v" + version + "\"); } }");
+                assertEquals(0, compiler.run(null, null, null, source.toString()));
+
+                // The change is picked up once the watcher has seen it
+                long deadline = System.nanoTime() + 10_000_000_000L;
+                do {
+                    assertTrue(System.nanoTime() < deadline, "the class was not reloaded");
+                    assertEquals(0, client.call("Versioned"));
+                    Thread.sleep(20);
+                } while (!client.stdout.equals("v" + version));
+            }
+        }
+    }
+}
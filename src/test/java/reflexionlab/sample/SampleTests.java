@@ -0,0 +1,27 @@
+package reflexionlab.sample;
+
+import reflexionlab.Test;
+
+public class SampleTests {
+    @Test
+    public static void passes() {
+    }
+
+    @Test
+    public void passesOnInstance() {
+    }
+
+    @Test
+    public static void fails() {
+        throw new IllegalStateException("Expected failure");
+    }
+
+    @Test(timeout = 100)
+    public static void hangs() throws InterruptedException {
+        Thread.sleep(60_000);
+    }
+
+    public static void notATest() {
+        throw new IllegalStateException("Must not run");
+    }
+}